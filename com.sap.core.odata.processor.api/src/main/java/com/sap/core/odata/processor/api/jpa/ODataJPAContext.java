@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.api.jpa;
 
+import java.util.concurrent.Executor;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
@@ -175,4 +177,62 @@ public interface ODataJPAContext {
    */
   public JPAEdmExtension getJPAEdmExtension();
 
+  /**
+   * The method sets whether $skip and $top are always applied on the database.
+   * If set, a request with $inlinecount=allpages fetches only the requested page
+   * of JPA entities and determines the total count with a separate count query.
+   * Otherwise all JPA entities are fetched and the page is selected in memory.
+   * 
+   * @param pagingOnDatabase
+   *            is <code>true</code> to apply paging on the database
+   */
+  public void setPagingOnDatabase(boolean pagingOnDatabase);
+
+  /**
+   * The method returns whether $skip and $top are always applied on the database.
+   * 
+   * @return <code>true</code> if paging is applied on the database
+   */
+  public boolean isPagingOnDatabase();
+
+  /**
+   * The method sets whether the count query for $inlinecount=allpages is
+   * executed concurrently to the query for the page of JPA entities. The count
+   * query then uses its own entity manager created from the entity manager
+   * factory. The setting is only relevant if paging is applied on the database.
+   * 
+   * @param concurrentInlineCount
+   *            is <code>true</code> to execute the count query concurrently
+   */
+  public void setConcurrentInlineCount(boolean concurrentInlineCount);
+
+  /**
+   * The method returns whether the count query for $inlinecount=allpages is
+   * executed concurrently to the query for the page of JPA entities.
+   * 
+   * @return <code>true</code> if the count query is executed concurrently
+   */
+  public boolean isConcurrentInlineCount();
+
+  /**
+   * The method sets the executor for the concurrent count queries of
+   * $inlinecount=allpages, e.g., a bounded thread pool shared by all requests
+   * of the service. If the executor rejects the count query, it is executed in
+   * the thread of the request. If no executor is set, a bounded default thread
+   * pool is used.
+   * 
+   * @param executor
+   *            is the executor for count queries or <code>null</code> for the
+   *            default
+   */
+  public void setInlineCountExecutor(Executor executor);
+
+  /**
+   * The method returns the executor for the concurrent count queries of
+   * $inlinecount=allpages.
+   * 
+   * @return the executor or <code>null</code> if the default is used
+   */
+  public Executor getInlineCountExecutor();
+
 }
@@ -108,7 +108,10 @@ public abstract class ODataJPAServiceFactory extends ODataServiceFactory {
     EdmProvider edmProvider = accessFactory
         .createJPAEdmProvider(oDataJPAContext);
 
-    return createODataSingleProcessorService(edmProvider, odataJPAProcessor);
+    // The entity data model is built once per factory and persistence unit
+    // and shared by all requests; see invalidateSharedEntityDataModel.
+    return createODataSingleProcessorService(getClass().getName() + ":" + oDataJPAContext.getPersistenceUnitName(),
+        edmProvider, odataJPAProcessor);
   }
 
   private void validatePreConditions() throws ODataJPARuntimeException {
@@ -57,6 +57,26 @@ public interface JPAProcessor {
   public <T> List<T> process(GetEntitySetUriInfo requestView)
       throws ODataJPAModelException, ODataJPARuntimeException;
 
+  /**
+   * Processes OData request for querying an Entity Set with $inlinecount=allpages.
+   * Only the JPA entities selected by $skip and $top are fetched and added to the
+   * given list; the total number of JPA entities matching the request is determined
+   * by a separate count query.
+   * 
+   * @param <T>
+   *            Template parameter representing Java Persistence Entity Type.
+   * @param requestView
+   *            is an OData request for querying an entity set
+   * @param page
+   *            list the JPA entities of the requested page are added to
+   * @return total number of JPA entities matching the request
+   * 
+   * @throws ODataJPAModelException
+   * @throws ODataJPARuntimeException
+   */
+  public <T> long process(GetEntitySetUriInfo requestView, List<T> page)
+      throws ODataJPAModelException, ODataJPARuntimeException;
+
   /**
    * Processes OData request for reading an Entity. The method returns an
    * Object of type representing JPA Entity Type.
@@ -15,6 +15,10 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.api.jpa.jpql;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.api.jpa.factory.ODataJPAFactory;
 
@@ -26,6 +30,8 @@ import com.sap.core.odata.processor.api.jpa.factory.ODataJPAFactory;
  * {@link com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType} different
  * kinds of JPQL statements are built. 
  * The JPQL statements thus generated can be executed using JPA Query APIs to fetch JPA entities.
+ * Values taken from the OData request are not part of the statement text but are
+ * passed as positional input parameters (see {@link #getParameters()}).
  * 
  * @author SAP AG
  * @see com.sap.core.odata.processor.api.jpa.factory.JPQLBuilderFactory
@@ -34,6 +40,7 @@ import com.sap.core.odata.processor.api.jpa.factory.ODataJPAFactory;
 public class JPQLStatement {
 
   protected String statement;
+  protected Map<Integer, Object> parameters;
 
   /**
    * The method is used for creating an instance of JPQL Statement Builder for
@@ -53,8 +60,23 @@ public class JPQLStatement {
     return JPQLStatementBuilder.create(context);
   }
 
-  private JPQLStatement(final String statement) {
+  private JPQLStatement(final String statement, final Map<Integer, Object> parameters) {
     this.statement = statement;
+    this.parameters = parameters == null || parameters.isEmpty() ?
+        Collections.<Integer, Object> emptyMap() :
+        Collections.unmodifiableMap(new LinkedHashMap<Integer, Object>(parameters));
+  }
+
+  /**
+   * The method returns the values of the positional input parameters
+   * (<code>?1</code>, <code>?2</code>, ...) used in the statement. The values
+   * have to be bound to the JPA query before it is executed.
+   * 
+   * @return an unmodifiable map of parameter position to value; empty if the
+   *         statement has no parameters
+   */
+  public Map<Integer, Object> getParameters() {
+    return parameters;
   }
 
   /**
@@ -92,7 +114,12 @@ public class JPQLStatement {
     }
 
     protected final JPQLStatement createStatement(final String statement) {
-      return new JPQLStatement(statement);
+      return new JPQLStatement(statement, null);
+    }
+
+    protected final JPQLStatement createStatement(final String statement,
+        final Map<Integer, Object> parameters) {
+      return new JPQLStatement(statement, parameters);
     }
 
     /**
@@ -118,6 +145,8 @@ public class JPQLStatement {
     public static final String AND = "AND";
     public static final String NOT = "NOT";
     public static final String OR = "OR";
+    public static final String IS_NULL = "IS NULL";
+    public static final String IS_NOT_NULL = "IS NOT NULL";
 
   }
 
@@ -146,6 +175,7 @@ public class JPQLStatement {
     public static final char LEFT_BRACE = '{';
     public static final char RIGHT_BRACE = '}';
     public static final char LONG = 'L';
+    public static final char PARAMETER = '?';
   }
 
 }
@@ -15,11 +15,15 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa;
 
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -28,6 +32,7 @@ import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmSimpleType;
 import com.sap.core.odata.api.edm.EdmSimpleTypeException;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.edm.EdmTyped;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotImplementedException;
 import com.sap.core.odata.api.uri.KeyPredicate;
@@ -47,6 +52,7 @@ import com.sap.core.odata.api.uri.expression.SortOrder;
 import com.sap.core.odata.api.uri.expression.UnaryExpression;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
+import com.sap.core.odata.processor.api.jpa.model.JPAEdmMapping;
 
 /**
  * This class contains utility methods for parsing the filter expressions built by core library from user OData Query.
@@ -58,9 +64,24 @@ public class ODataExpressionParser {
 
   public static final String EMPTY = ""; //$NON-NLS-1$
   public static Integer methodFlag = 0;
+  /** Escape character for wildcards in LIKE patterns bound as parameters */
+  public static final char LIKE_ESCAPE = '!';
+
+  private static final Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = new HashMap<Class<?>, Class<?>>();
+  static {
+    PRIMITIVE_WRAPPERS.put(boolean.class, Boolean.class);
+    PRIMITIVE_WRAPPERS.put(byte.class, Byte.class);
+    PRIMITIVE_WRAPPERS.put(short.class, Short.class);
+    PRIMITIVE_WRAPPERS.put(int.class, Integer.class);
+    PRIMITIVE_WRAPPERS.put(long.class, Long.class);
+    PRIMITIVE_WRAPPERS.put(float.class, Float.class);
+    PRIMITIVE_WRAPPERS.put(double.class, Double.class);
+    PRIMITIVE_WRAPPERS.put(char.class, Character.class);
+  }
 
   /**
    * This method returns the parsed where condition corresponding to the filter input in the user query.
+   * Literals are written into the condition.
    * 
    * @param whereExpression
    * 
@@ -69,10 +90,30 @@ public class ODataExpressionParser {
    */
 
   public static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias) throws ODataException {
+    return parseToJPAWhereExpression(whereExpression, tableAlias, null);
+  }
+
+  /**
+   * This method returns the parsed where condition corresponding to the filter input in the user query.
+   * Literals are replaced by positional input parameters whose values are added to the given map,
+   * so that the condition only depends on the structure of the filter.
+   * 
+   * @param whereExpression
+   * @param tableAlias
+   * @param parameters map the parameter values are added to; if <code>null</code> literals are written into the condition
+   * 
+   * @return Parsed where condition String
+   * @throws ODataException
+   */
+  public static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias, final Map<Integer, Object> parameters) throws ODataException {
+    return parseToJPAWhereExpression(whereExpression, tableAlias, parameters, null);
+  }
+
+  private static String parseToJPAWhereExpression(final CommonExpression whereExpression, final String tableAlias, final Map<Integer, Object> parameters, final EdmProperty comparedProperty) throws ODataException {
     switch (whereExpression.getKind()) {
     case UNARY:
       final UnaryExpression unaryExpression = (UnaryExpression) whereExpression;
-      final String operand = parseToJPAWhereExpression(unaryExpression.getOperand(), tableAlias);
+      final String operand = parseToJPAWhereExpression(unaryExpression.getOperand(), tableAlias, parameters);
 
       switch (unaryExpression.getOperator()) {
       case NOT:
@@ -89,14 +130,25 @@ public class ODataExpressionParser {
       }
 
     case FILTER:
-      return parseToJPAWhereExpression(((FilterExpression) whereExpression).getExpression(), tableAlias);
+      return parseToJPAWhereExpression(((FilterExpression) whereExpression).getExpression(), tableAlias, parameters);
     case BINARY:
       final BinaryExpression binaryExpression = (BinaryExpression) whereExpression;
+      if (binaryExpression.getOperator() == BinaryOperator.EQ || binaryExpression.getOperator() == BinaryOperator.NE) {
+        // comparisons with null never hold in JPQL, so they are written as null checks
+        final CommonExpression nullChecked = isNullLiteral(binaryExpression.getRightOperand()) ? binaryExpression.getLeftOperand() :
+            isNullLiteral(binaryExpression.getLeftOperand()) ? binaryExpression.getRightOperand() : null;
+        if (nullChecked != null) {
+          return parseToJPAWhereExpression(nullChecked, tableAlias, parameters) + JPQLStatement.DELIMITER.SPACE
+              + (binaryExpression.getOperator() == BinaryOperator.EQ ? JPQLStatement.Operator.IS_NULL : JPQLStatement.Operator.IS_NOT_NULL);
+        }
+      }
       if ((binaryExpression.getLeftOperand().getKind() == ExpressionKind.METHOD) && ((binaryExpression.getOperator() == BinaryOperator.EQ) || (binaryExpression.getOperator() == BinaryOperator.NE)) && (((MethodExpression) binaryExpression.getLeftOperand()).getMethod() == MethodOperator.SUBSTRINGOF)) {
         methodFlag = 1;
       }
-      final String left = parseToJPAWhereExpression(binaryExpression.getLeftOperand(), tableAlias);
-      final String right = parseToJPAWhereExpression(binaryExpression.getRightOperand(), tableAlias);
+      final String left = parseToJPAWhereExpression(binaryExpression.getLeftOperand(), tableAlias, parameters,
+          getProperty(binaryExpression.getRightOperand()));
+      final String right = parseToJPAWhereExpression(binaryExpression.getRightOperand(), tableAlias, parameters,
+          getProperty(binaryExpression.getLeftOperand()));
 
       switch (binaryExpression.getOperator()) {
       case AND:
@@ -145,29 +197,36 @@ public class ODataExpressionParser {
     case LITERAL:
       final LiteralExpression literal = (LiteralExpression) whereExpression;
       final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
+      if (parameters != null) {
+        return addParameter(parameters, toParameterValue(literalType, literal.getUriLiteral(), EdmLiteralKind.URI, comparedProperty));
+      }
       String value = literalType.valueToString(literalType.valueOfString(literal.getUriLiteral(), EdmLiteralKind.URI, null, literalType.getDefaultType()), EdmLiteralKind.DEFAULT, null);
       return evaluateComparingExpression(value, literalType);
 
     case METHOD:
       final MethodExpression methodExpression = (MethodExpression) whereExpression;
-      String first = parseToJPAWhereExpression(methodExpression.getParameters().get(0), tableAlias);
+      final boolean likeParameter = parameters != null && methodExpression.getMethod() == MethodOperator.SUBSTRINGOF
+          && methodExpression.getParameters().get(0).getKind() == ExpressionKind.LITERAL;
+      String first = likeParameter ?
+          addLikeParameter(parameters, (LiteralExpression) methodExpression.getParameters().get(0)) :
+          parseToJPAWhereExpression(methodExpression.getParameters().get(0), tableAlias, parameters);
       final String second = methodExpression.getParameterCount() > 1 ?
-          parseToJPAWhereExpression(methodExpression.getParameters().get(1), tableAlias) : null;
+          parseToJPAWhereExpression(methodExpression.getParameters().get(1), tableAlias, parameters) : null;
       String third = methodExpression.getParameterCount() > 2 ?
-          parseToJPAWhereExpression(methodExpression.getParameters().get(2), tableAlias) : null;
+          parseToJPAWhereExpression(methodExpression.getParameters().get(2), tableAlias, parameters) : null;
 
       switch (methodExpression.getMethod()) {
       case SUBSTRING:
         third = third != null ? ", " + third : "";
         return String.format("SUBSTRING(%s, %s + 1 %s)", first, second, third);
       case SUBSTRINGOF:
-        first = first.substring(1, first.length() - 1);
+        final String pattern = likeParameter ? first + " ESCAPE '" + LIKE_ESCAPE + "'" : "'%" + first.substring(1, first.length() - 1) + "%'";
         if (methodFlag == 1) {
           methodFlag = 0;
-          return String.format("(CASE WHEN %s LIKE '%%%s%%' THEN TRUE ELSE FALSE END)", second, first);
+          return String.format("(CASE WHEN %s LIKE %s THEN TRUE ELSE FALSE END)", second, pattern);
         }
         else {
-          return String.format("(CASE WHEN %s LIKE '%%%s%%' THEN TRUE ELSE FALSE END) = true", second, first);
+          return String.format("(CASE WHEN %s LIKE %s THEN TRUE ELSE FALSE END) = true", second, pattern);
         }
       case TOLOWER:
         return String.format("LOWER(%s)", first);
@@ -239,12 +298,26 @@ public class ODataExpressionParser {
 
   /**
    * This method evaluated the where expression for read of an entity based on the keys specified in the query.
+   * Key values are written into the expression.
    * 
    * @param keyPredicates
    * @return the evaluated where expression
    */
 
   public static String parseKeyPredicates(final List<KeyPredicate> keyPredicates, final String tableAlias) throws ODataJPARuntimeException {
+    return parseKeyPredicates(keyPredicates, tableAlias, null);
+  }
+
+  /**
+   * This method evaluated the where expression for read of an entity based on the keys specified in the query.
+   * Key values are replaced by positional input parameters whose values are added to the given map.
+   * 
+   * @param keyPredicates
+   * @param tableAlias
+   * @param parameters map the parameter values are added to; if <code>null</code> key values are written into the expression
+   * @return the evaluated where expression
+   */
+  public static String parseKeyPredicates(final List<KeyPredicate> keyPredicates, final String tableAlias, final Map<Integer, Object> parameters) throws ODataJPARuntimeException {
     String literal = null;
     String propertyName = null;
     EdmSimpleType edmSimpleType = null;
@@ -265,6 +338,18 @@ public class ODataExpressionParser {
                 .getMessage()), e);
       }
 
+      if (parameters != null) {
+        try {
+          literal = addParameter(parameters, toParameterValue(edmSimpleType, literal, EdmLiteralKind.DEFAULT, keyPredicate.getProperty()));
+        } catch (EdmException e) {
+          throw ODataJPARuntimeException.throwException(
+              ODataJPARuntimeException.GENERAL.addContent(e
+                  .getMessage()), e);
+        }
+        keyFilters.append(tableAlias + JPQLStatement.DELIMITER.PERIOD + propertyName + JPQLStatement.DELIMITER.SPACE + JPQLStatement.Operator.EQ + JPQLStatement.DELIMITER.SPACE + literal);
+        continue;
+      }
+
       literal = evaluateComparingExpression(literal, edmSimpleType);
 
       if (edmSimpleType == EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance()
@@ -337,6 +422,117 @@ public class ODataExpressionParser {
     return value;
   }
 
+  /**
+   * This method adds a value as next positional input parameter.
+   * 
+   * @return the parameter reference to be used in the JPQL statement
+   */
+  private static String addParameter(final Map<Integer, Object> parameters, final Object value) {
+    final Integer position = parameters.size() + 1;
+    parameters.put(position, value);
+    return JPQLStatement.DELIMITER.PARAMETER + position.toString();
+  }
+
+  private static String addLikeParameter(final Map<Integer, Object> parameters, final LiteralExpression literal) throws EdmException {
+    return addParameter(parameters, toLikeParameterValue(literal));
+  }
+
+  /**
+   * This method converts the literal searched for by <code>substringof</code> into the pattern
+   * bound to a LIKE parameter; wildcard characters in the literal are escaped with {@link #LIKE_ESCAPE}.
+   * 
+   * @param literal
+   * @return the LIKE pattern
+   * @throws EdmException
+   */
+  public static String toLikeParameterValue(final LiteralExpression literal) throws EdmException {
+    final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
+    final String value = literalType.valueToString(literalType.valueOfString(literal.getUriLiteral(), EdmLiteralKind.URI, null, literalType.getDefaultType()), EdmLiteralKind.DEFAULT, null);
+    StringBuilder pattern = new StringBuilder(value.length() + 2).append('%');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        pattern.append(LIKE_ESCAPE);
+      }
+      pattern.append(c);
+    }
+    return pattern.append('%').toString();
+  }
+
+  /**
+   * This method checks whether the expression is the literal <code>null</code>.
+   * 
+   * @param expression
+   * @return <code>true</code> for the <code>null</code> literal
+   */
+  public static boolean isNullLiteral(final CommonExpression expression) {
+    return expression.getKind() == ExpressionKind.LITERAL
+        && expression.getEdmType() == EdmSimpleTypeKind.Null.getEdmSimpleTypeInstance();
+  }
+
+  /**
+   * This method converts a literal into the value bound to a positional input parameter.
+   * If the literal is compared with a property, the value is converted into the Java type
+   * of the corresponding JPA attribute where possible.
+   * 
+   * @param literalType
+   * @param literal
+   * @param literalKind
+   * @param property the property the literal is compared with; may be <code>null</code>
+   * @return the parameter value
+   * @throws EdmException
+   */
+  public static Object toParameterValue(final EdmSimpleType literalType, final String literal, final EdmLiteralKind literalKind, final EdmProperty property) throws EdmException {
+    Object value = literalType.valueOfString(literal, literalKind, null, literalType.getDefaultType());
+
+    Class<?> javaType = null;
+    if (property != null && property.getMapping() instanceof JPAEdmMapping) {
+      javaType = ((JPAEdmMapping) property.getMapping()).getJPAType();
+    }
+    if (javaType == null) {
+      return value;
+    }
+    if (javaType.isPrimitive()) {
+      javaType = PRIMITIVE_WRAPPERS.get(javaType);
+    }
+    if (javaType.isInstance(value)) {
+      return value;
+    }
+
+    if (property.getType() instanceof EdmSimpleType) {
+      final EdmSimpleType propertyType = (EdmSimpleType) property.getType();
+      try {
+        return propertyType.valueOfString(literalType.valueToString(value, EdmLiteralKind.DEFAULT, null), EdmLiteralKind.DEFAULT, null, javaType);
+      } catch (EdmSimpleTypeException e) {
+        // The value of the literal type is used as it is.
+      }
+    }
+
+    if (value instanceof Calendar && Date.class.isAssignableFrom(javaType)) {
+      final long millis = ((Calendar) value).getTimeInMillis();
+      if (javaType == Timestamp.class) {
+        return new Timestamp(millis);
+      } else if (javaType == Time.class) {
+        return new Time(millis);
+      } else if (javaType == java.sql.Date.class) {
+        return new java.sql.Date(millis);
+      } else {
+        return new Date(millis);
+      }
+    }
+    return value;
+  }
+
+  private static EdmProperty getProperty(final CommonExpression expression) {
+    if (expression.getKind() == ExpressionKind.PROPERTY) {
+      final EdmTyped property = ((PropertyExpression) expression).getEdmProperty();
+      return property instanceof EdmProperty ? (EdmProperty) property : null;
+    } else if (expression.getKind() == ExpressionKind.MEMBER) {
+      return getProperty(((MemberExpression) expression).getProperty());
+    }
+    return null;
+  }
+
   public static HashMap<String, String> parseKeyPropertiesToJPAOrderByExpression(final List<EdmProperty> edmPropertylist, final String tableAlias) throws ODataJPARuntimeException {
     HashMap<String, String> orderByMap = new HashMap<String, String>();
     String propertyName = null;
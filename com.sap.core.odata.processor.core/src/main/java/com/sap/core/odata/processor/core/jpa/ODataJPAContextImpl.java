@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa;
 
+import java.util.concurrent.Executor;
+
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 
@@ -34,6 +36,9 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   private EdmProvider edmProvider;
   private String jpaEdmMappingModelName;
   private JPAEdmExtension jpaEdmExtension;
+  private boolean pagingOnDatabase;
+  private boolean concurrentInlineCount;
+  private Executor inlineCountExecutor;
   private static final ThreadLocal<ODataContext> oDataContextThreadLocal = new ThreadLocal<ODataContext>();
 
   @Override
@@ -129,4 +134,34 @@ public class ODataJPAContextImpl implements ODataJPAContext {
   public JPAEdmExtension getJPAEdmExtension() {
     return jpaEdmExtension;
   }
+
+  @Override
+  public void setPagingOnDatabase(final boolean pagingOnDatabase) {
+    this.pagingOnDatabase = pagingOnDatabase;
+  }
+
+  @Override
+  public boolean isPagingOnDatabase() {
+    return pagingOnDatabase;
+  }
+
+  @Override
+  public void setConcurrentInlineCount(final boolean concurrentInlineCount) {
+    this.concurrentInlineCount = concurrentInlineCount;
+  }
+
+  @Override
+  public boolean isConcurrentInlineCount() {
+    return concurrentInlineCount;
+  }
+
+  @Override
+  public void setInlineCountExecutor(final Executor executor) {
+    inlineCountExecutor = executor;
+  }
+
+  @Override
+  public Executor getInlineCountExecutor() {
+    return inlineCountExecutor;
+  }
 }
@@ -16,9 +16,21 @@
 package com.sap.core.odata.processor.core.jpa;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceException;
+
+import com.sap.core.odata.api.batch.BatchHandler;
+import com.sap.core.odata.api.batch.BatchResponsePart;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.commons.InlineCount;
 import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
@@ -30,9 +42,11 @@ import com.sap.core.odata.api.uri.info.GetEntityUriInfo;
 import com.sap.core.odata.api.uri.info.GetFunctionImportUriInfo;
 import com.sap.core.odata.api.uri.info.PostUriInfo;
 import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
+import com.sap.core.odata.core.ODataExceptionWrapper;
 import com.sap.core.odata.processor.api.jpa.ODataJPAContext;
 import com.sap.core.odata.processor.api.jpa.ODataJPAProcessor;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPAException;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 
 public class ODataJPAProcessorDefault extends ODataJPAProcessor {
 
@@ -48,6 +62,14 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
   public ODataResponse readEntitySet(final GetEntitySetUriInfo uriParserResultView,
       final String contentType) throws ODataException {
 
+    if (oDataJPAContext.isPagingOnDatabase()
+        && uriParserResultView.getInlineCount() == InlineCount.ALLPAGES) {
+      List<Object> jpaEntities = new ArrayList<Object>();
+      long inlineCount = jpaProcessor.process(uriParserResultView, jpaEntities);
+      return ODataJPAResponseBuilder.build(jpaEntities, uriParserResultView,
+          inlineCount, contentType, oDataJPAContext);
+    }
+
     List<?> jpaEntities = jpaProcessor.process(uriParserResultView);
 
     ODataResponse oDataResponse = ODataJPAResponseBuilder.build(
@@ -206,4 +228,67 @@ public class ODataJPAProcessorDefault extends ODataJPAProcessor {
     return ODataResponse.newBuilder().build();
   }
 
+  @Override
+  public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content)
+      throws ODataException {
+    return executeBatchParts(handler, contentType, content);
+  }
+
+  /*
+   * All requests of a change set are executed in one transaction of the entity manager.
+   * The flush mode is COMMIT, so the changes are written together when the change set
+   * is complete and the JPA provider can batch the statements; if a request, the flush,
+   * or the commit fails, all changes of the change set are rolled back and the change set
+   * is answered with an error response.
+   */
+  @Override
+  public BatchResponsePart executeChangeSet(final BatchHandler handler, final List<ODataRequest> requests)
+      throws ODataException {
+
+    EntityManager em = oDataJPAContext.getEntityManager();
+    EntityTransaction transaction = em.getTransaction();
+    FlushModeType flushMode = em.getFlushMode();
+    List<ODataResponse> responses = new ArrayList<ODataResponse>();
+    ODataRequest currentRequest = null;
+    boolean committed = false;
+    em.setFlushMode(FlushModeType.COMMIT);
+    transaction.begin();
+    try {
+      for (ODataRequest request : requests) {
+        currentRequest = request;
+        ODataResponse response = handler.handleRequest(request);
+        if (response.getStatus().getStatusCode() >= HttpStatusCodes.BAD_REQUEST.getStatusCode()) {
+          return createErrorChangeSetPart(response);
+        }
+        responses.add(response);
+      }
+      // the changes of all requests are written here, so a failure is reported for the change set
+      em.flush();
+      transaction.commit();
+      committed = true;
+    } catch (PersistenceException e) {
+      // the error response is written for the failing request the same way the library does for failed requests
+      ODataExceptionWrapper exceptionWrapper = currentRequest == null ?
+          new ODataExceptionWrapper(getContext(), Collections.<String, String> emptyMap(), Collections.<String> emptyList()) :
+          new ODataExceptionWrapper(getContext(), currentRequest.getQueryParameters(), currentRequest.getAcceptHeaders());
+      return createErrorChangeSetPart(exceptionWrapper.wrapInExceptionResponse(e));
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+      if (!committed) {
+        // entities of the failed change set must not stay managed
+        em.clear();
+      }
+      em.setFlushMode(flushMode);
+    }
+    return BatchResponsePart.responses(responses).changeSet(true).build();
+  }
+
+  private BatchResponsePart createErrorChangeSetPart(final ODataResponse errorResponse) {
+    List<ODataResponse> errorResponses = new ArrayList<ODataResponse>(1);
+    errorResponses.add(errorResponse);
+    return BatchResponsePart.responses(errorResponses).changeSet(false).build();
+  }
+
 }
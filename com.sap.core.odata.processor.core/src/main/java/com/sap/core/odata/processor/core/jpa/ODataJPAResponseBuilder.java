@@ -66,6 +66,19 @@ public final class ODataJPAResponseBuilder {
   public static <T> ODataResponse build(final List<T> jpaEntities,
       final GetEntitySetUriInfo resultsView, final String contentType,
       final ODataJPAContext odataJPAContext) throws ODataJPARuntimeException {
+    return build(jpaEntities, resultsView, null, contentType, odataJPAContext);
+  }
+
+  /* Response for Read Entity Set with $inlinecount=allpages paged on the database */
+  public static <T> ODataResponse build(final List<T> jpaEntities,
+      final GetEntitySetUriInfo resultsView, final long inlineCount, final String contentType,
+      final ODataJPAContext odataJPAContext) throws ODataJPARuntimeException {
+    return build(jpaEntities, resultsView, Long.valueOf(inlineCount), contentType, odataJPAContext);
+  }
+
+  private static <T> ODataResponse build(final List<T> jpaEntities,
+      final GetEntitySetUriInfo resultsView, final Long inlineCount, final String contentType,
+      final ODataJPAContext odataJPAContext) throws ODataJPARuntimeException {
 
     EdmEntityType edmEntityType = null;
     ODataResponse odataResponse = null;
@@ -108,7 +121,7 @@ public final class ODataJPAResponseBuilder {
       EntityProviderWriteProperties feedProperties = null;
 
       feedProperties = getEntityProviderProperties(odataJPAContext,
-          resultsView, edmEntityList);
+          resultsView, edmEntityList, inlineCount);
       odataResponse = EntityProvider.writeFeed(contentType,
           resultsView.getTargetEntitySet(), edmEntityList,
           feedProperties);
@@ -465,15 +478,15 @@ public final class ODataJPAResponseBuilder {
         edmEntityList.add(edmPropertyValueMap);
       }
 
-      Integer count = null;
+      Long count = null;
       if (resultsView.getInlineCount() != null) {
         if ((resultsView.getSkip() != null || resultsView.getTop() != null)) {
           // when $skip and/or $top is present with $inlinecount
           count = getInlineCountForNonFilterQueryLinks(edmEntityList, resultsView);
         } else {
           // In all other cases
-          count = resultsView.getInlineCount() == InlineCount.ALLPAGES ? edmEntityList
-              .size() : null;
+          count = resultsView.getInlineCount() == InlineCount.ALLPAGES ? Long.valueOf(edmEntityList
+              .size()) : null;
         }
       }
 
@@ -507,12 +520,12 @@ public final class ODataJPAResponseBuilder {
    * 
    * @return
    */
-  private static Integer getInlineCountForNonFilterQueryLinks(final List<Map<String, Object>> edmEntityList, final GetEntitySetLinksUriInfo resultsView) {
+  private static Long getInlineCountForNonFilterQueryLinks(final List<Map<String, Object>> edmEntityList, final GetEntitySetLinksUriInfo resultsView) {
     // when $skip and/or $top is present with $inlinecount, first get the total count
-    Integer count = null;
+    Long count = null;
     if (resultsView.getInlineCount() == InlineCount.ALLPAGES) {
       if (resultsView.getSkip() != null || resultsView.getTop() != null) {
-        count = edmEntityList.size();
+        count = Long.valueOf(edmEntityList.size());
         // Now update the list
         if (resultsView.getSkip() != null) {
           // Index checks to avoid IndexOutOfBoundsException
@@ -538,17 +551,27 @@ public final class ODataJPAResponseBuilder {
       final ODataJPAContext odataJPAContext, final GetEntitySetUriInfo resultsView,
       final List<Map<String, Object>> edmEntityList)
       throws ODataJPARuntimeException {
+    return getEntityProviderProperties(odataJPAContext, resultsView, edmEntityList, null);
+  }
+
+  private static EntityProviderWriteProperties getEntityProviderProperties(
+      final ODataJPAContext odataJPAContext, final GetEntitySetUriInfo resultsView,
+      final List<Map<String, Object>> edmEntityList, final Long inlineCount)
+      throws ODataJPARuntimeException {
     ODataEntityProviderPropertiesBuilder entityFeedPropertiesBuilder = null;
 
-    Integer count = null;
-    if (resultsView.getInlineCount() != null) {
+    Long count = null;
+    if (inlineCount != null) {
+      // $skip and $top have already been applied on the database
+      count = inlineCount;
+    } else if (resultsView.getInlineCount() != null) {
       if ((resultsView.getSkip() != null || resultsView.getTop() != null)) {
         // when $skip and/or $top is present with $inlinecount
         count = getInlineCountForNonFilterQueryEntitySet(edmEntityList, resultsView);
       } else {
         // In all other cases
-        count = resultsView.getInlineCount() == InlineCount.ALLPAGES ? edmEntityList
-            .size() : null;
+        count = resultsView.getInlineCount() == InlineCount.ALLPAGES ? Long.valueOf(edmEntityList
+            .size()) : null;
       }
     }
 
@@ -581,12 +604,12 @@ public final class ODataJPAResponseBuilder {
    * $inlinecount and $top/$skip combinations. Specific to Entity Set. //TODO
    * 
    */
-  private static Integer getInlineCountForNonFilterQueryEntitySet(final List<Map<String, Object>> edmEntityList, final GetEntitySetUriInfo resultsView) {
+  private static Long getInlineCountForNonFilterQueryEntitySet(final List<Map<String, Object>> edmEntityList, final GetEntitySetUriInfo resultsView) {
     // when $skip and/or $top is present with $inlinecount, first get the total count
-    Integer count = null;
+    Long count = null;
     if (resultsView.getInlineCount() == InlineCount.ALLPAGES) {
       if (resultsView.getSkip() != null || resultsView.getTop() != null) {
-        count = edmEntityList.size();
+        count = Long.valueOf(edmEntityList.size());
         // Now update the list
         if (resultsView.getSkip() != null) {
           // Index checks to avoid IndexOutOfBoundsException
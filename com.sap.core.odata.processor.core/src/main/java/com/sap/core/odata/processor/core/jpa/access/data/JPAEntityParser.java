@@ -17,8 +17,11 @@ package com.sap.core.odata.processor.core.jpa.access.data;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.edm.EdmAssociationEnd;
 import com.sap.core.odata.api.edm.EdmException;
@@ -33,27 +36,28 @@ import com.sap.core.odata.processor.api.jpa.model.JPAEdmMapping;
 public final class JPAEntityParser {
 
   /*
-   * List of buffers used by the Parser
+   * Accessor plans are shared by all requests. They are built once per JPA
+   * entity class and EDM structural type, selection of properties or
+   * navigation property, so reading a row only invokes the cached getters.
    */
-  private static short MAX_SIZE = 10;
+  private static final int MAX_CACHED_ACCESSORS = 1024;
   public static final String ACCESS_MODIFIER_GET = "get";
   public static final String ACCESS_MODIFIER_SET = "set";
 
-  private HashMap<String, HashMap<String, Method>> jpaEntityAccessMap = null;
+  private static final ConcurrentMap<AccessorKey, PropertyAccessor[]> propertyAccessorCache =
+      new ConcurrentHashMap<AccessorKey, PropertyAccessor[]>();
+  private static final ConcurrentMap<AccessorKey, Method> navigationAccessorCache =
+      new ConcurrentHashMap<AccessorKey, Method>();
+
   private HashMap<String, HashMap<String, String>> jpaEmbeddableKeyMap = null;
 
-  private static JPAEntityParser jpaEntityParser;
+  private static final JPAEntityParser jpaEntityParser = new JPAEntityParser();
 
   private JPAEntityParser() {
-    jpaEntityAccessMap = new HashMap<String, HashMap<String, Method>>(
-        MAX_SIZE);
     jpaEmbeddableKeyMap = new HashMap<String, HashMap<String, String>>();
   };
 
   public static final JPAEntityParser create() {
-    if (jpaEntityParser == null) {
-      jpaEntityParser = new JPAEntityParser();
-    }
     return jpaEntityParser;
   }
 
@@ -71,75 +75,24 @@ public final class JPAEntityParser {
   public final HashMap<String, Object> parse2EdmPropertyValueMap(
       final Object jpaEntity, final List<EdmProperty> selectPropertyList)
       throws ODataJPARuntimeException {
-    HashMap<String, Object> edmEntity = new HashMap<String, Object>();
-    String methodName = null;
-    Method method = null;
-    for (int i = 0; i < selectPropertyList.size(); i++) {
-      String key = null;
-      Object propertyValue = null;
-      EdmProperty property = null;
-      property = selectPropertyList.get(i);
-
+    PropertyAccessor[] accessors = propertyAccessorCache.get(new AccessorKey(jpaEntity.getClass(), selectPropertyList));
+    if (accessors == null) {
+      accessors = new PropertyAccessor[selectPropertyList.size()];
       try {
-        methodName = getAccessModifierName(property.getName(),
-            property.getMapping(), ACCESS_MODIFIER_GET);
-        String[] nameParts = methodName.split("\\.");
-        if (nameParts.length > 1) {
-          Object propertyVal = new Object();
-          propertyVal = jpaEntity;
-          for (String namePart : nameParts) {
-            method = propertyVal.getClass().getMethod(
-                namePart, (Class<?>[]) null);
-            method.setAccessible(true);
-            propertyVal = method.invoke(propertyVal);
-          }
-          edmEntity.put(property.getName(), propertyVal);
-        } else {
-          method = jpaEntity.getClass().getMethod(methodName,
-              (Class<?>[]) null);
-          method.setAccessible(true);
-          propertyValue = method.invoke(jpaEntity);
-          key = property.getName();
-          if (property.getType().getKind()
-              .equals(EdmTypeKind.COMPLEX)) {
-            try {
-              propertyValue = parse2EdmPropertyValueMap(
-                  propertyValue,
-                  (EdmStructuralType) property.getType());
-            } catch (ODataJPARuntimeException e) {
-              throw e;
-            }
-          }
-          edmEntity.put(key, propertyValue);
+        for (int i = 0; i < accessors.length; i++) {
+          final EdmProperty property = selectPropertyList.get(i);
+          accessors[i] = new PropertyAccessor(property.getName(), property);
         }
       } catch (EdmException e) {
         throw ODataJPARuntimeException.throwException(
             ODataJPARuntimeException.GENERAL.addContent(e
                 .getMessage()), e);
-      } catch (SecurityException e) {
-        throw ODataJPARuntimeException.throwException(
-            ODataJPARuntimeException.GENERAL.addContent(e
-                .getMessage()), e);
-      } catch (NoSuchMethodException e) {
-        throw ODataJPARuntimeException.throwException(
-            ODataJPARuntimeException.GENERAL.addContent(e
-                .getMessage()), e);
-      } catch (IllegalArgumentException e) {
-        throw ODataJPARuntimeException.throwException(
-            ODataJPARuntimeException.GENERAL.addContent(e
-                .getMessage()), e);
-      } catch (IllegalAccessException e) {
-        throw ODataJPARuntimeException.throwException(
-            ODataJPARuntimeException.GENERAL.addContent(e
-                .getMessage()), e);
-      } catch (InvocationTargetException e) {
-        throw ODataJPARuntimeException.throwException(
-            ODataJPARuntimeException.GENERAL.addContent(e
-                .getMessage()), e);
       }
+      cache(propertyAccessorCache,
+          new AccessorKey(jpaEntity.getClass(), new ArrayList<EdmProperty>(selectPropertyList)), accessors);
     }
 
-    return edmEntity;
+    return parse2EdmPropertyValueMap(jpaEntity, accessors);
   }
 
   /**
@@ -161,61 +114,38 @@ public final class JPAEntityParser {
       return null;
     }
 
-    String jpaEntityAccessKey = jpaEntity.getClass().getName();
-
-    if (!jpaEntityAccessMap.containsKey(jpaEntityAccessKey)) {
-      jpaEntityAccessMap.put(jpaEntityAccessKey,
-          getAccessModifier(jpaEntity, structuralType, ACCESS_MODIFIER_GET));
+    final AccessorKey accessorKey = new AccessorKey(jpaEntity.getClass(), structuralType);
+    PropertyAccessor[] accessors = propertyAccessorCache.get(accessorKey);
+    if (accessors == null) {
+      try {
+        final List<String> propertyNames = structuralType.getPropertyNames();
+        accessors = new PropertyAccessor[propertyNames.size()];
+        for (int i = 0; i < accessors.length; i++) {
+          accessors[i] = new PropertyAccessor(propertyNames.get(i),
+              (EdmProperty) structuralType.getProperty(propertyNames.get(i)));
+        }
+      } catch (EdmException e) {
+        throw ODataJPARuntimeException
+            .throwException(ODataJPARuntimeException.GENERAL
+                .addContent(e.getMessage()), e);
+      }
+      cache(propertyAccessorCache, accessorKey, accessors);
     }
 
-    HashMap<String, Object> edmEntity = new HashMap<String, Object>();
-    HashMap<String, Method> getters = jpaEntityAccessMap
-        .get(jpaEntityAccessKey);
-    HashMap<String, String> embeddableKeys = jpaEmbeddableKeyMap
-        .get(jpaEntityAccessKey);
+    return parse2EdmPropertyValueMap(jpaEntity, accessors);
+  }
 
+  private HashMap<String, Object> parse2EdmPropertyValueMap(final Object jpaEntity, final PropertyAccessor[] accessors)
+      throws ODataJPARuntimeException {
+    HashMap<String, Object> edmEntity = new HashMap<String, Object>();
     try {
-      for (String key : getters.keySet()) {
-
-        EdmProperty property = (EdmProperty) structuralType
-            .getProperty(key);
-
-        Method method = getters.get(key);
-        Object propertyValue = null;
-
-        if (method != null) {
-          getters.get(key).setAccessible(true);
-          propertyValue = getters.get(key).invoke(jpaEntity);
-        }
-
-        if (property.getType().getKind().equals(EdmTypeKind.COMPLEX)) {
-          propertyValue = parse2EdmPropertyValueMap(propertyValue,
-              (EdmStructuralType) property.getType());
-        }
-
-        edmEntity.put(key, propertyValue);
-
-      }
-
-      if (embeddableKeys != null) {
-        for (String key : embeddableKeys.keySet()) {
-          String name = embeddableKeys.get(key);
-          String[] nameParts = name.split("\\.");
-          Object propertyValue = jpaEntity;
-          Method method = null;
-          for (String namePart : nameParts) {
-            method = propertyValue.getClass().getMethod(
-                namePart, (Class<?>[]) null);
-            method.setAccessible(true);
-            propertyValue = method.invoke(propertyValue);
-          }
-          edmEntity.put(key, propertyValue);
+      for (PropertyAccessor accessor : accessors) {
+        Object propertyValue = accessor.getValue(jpaEntity);
+        if (accessor.complexType != null) {
+          propertyValue = parse2EdmPropertyValueMap(propertyValue, accessor.complexType);
         }
+        edmEntity.put(accessor.name, propertyValue);
       }
-    } catch (EdmException e) {
-      throw ODataJPARuntimeException
-          .throwException(ODataJPARuntimeException.GENERAL
-              .addContent(e.getMessage()), e);
     } catch (SecurityException e) {
       throw ODataJPARuntimeException
           .throwException(ODataJPARuntimeException.GENERAL
@@ -246,18 +176,22 @@ public final class JPAEntityParser {
       final Object jpaEntity, final List<EdmNavigationProperty> navigationPropertyList)
       throws ODataJPARuntimeException {
     Object result = null;
-    String methodName = null;
     HashMap<String, Object> navigationMap = new HashMap<String, Object>();
     if (navigationPropertyList != null
         && navigationPropertyList.size() != 0) {
 
       try {
         for (EdmNavigationProperty navigationProperty : navigationPropertyList) {
-          methodName = getAccessModifierName(navigationProperty.getName(),
-              navigationProperty.getMapping(), ACCESS_MODIFIER_GET);
-          Method getterMethod = jpaEntity.getClass()
-              .getDeclaredMethod(methodName, (Class<?>[]) null);
-          getterMethod.setAccessible(true);
+          final AccessorKey accessorKey = new AccessorKey(jpaEntity.getClass(), navigationProperty);
+          Method getterMethod = navigationAccessorCache.get(accessorKey);
+          if (getterMethod == null) {
+            String methodName = getAccessModifierName(navigationProperty.getName(),
+                navigationProperty.getMapping(), ACCESS_MODIFIER_GET);
+            getterMethod = jpaEntity.getClass()
+                .getDeclaredMethod(methodName, (Class<?>[]) null);
+            getterMethod.setAccessible(true);
+            cache(navigationAccessorCache, accessorKey, getterMethod);
+          }
           result = getterMethod.invoke(jpaEntity);
           navigationMap.put(navigationProperty.getName(), result);
         }
@@ -290,6 +224,14 @@ public final class JPAEntityParser {
     return navigationMap;
   }
 
+  private static <V> void cache(final ConcurrentMap<AccessorKey, V> cache, final AccessorKey key, final V value) {
+    // plans for EDM instances no longer in use are dropped all together
+    if (cache.size() >= MAX_CACHED_ACCESSORS) {
+      cache.clear();
+    }
+    cache.put(key, value);
+  }
+
   public HashMap<String, Method> getAccessModifier(final Object jpaEntity,
       final EdmStructuralType structuralType, final String accessModifier) throws ODataJPARuntimeException {
 
@@ -417,4 +359,68 @@ public final class JPAEntityParser {
     }
 
   }
+
+  private static final class AccessorKey {
+
+    private final Class<?> entityClass;
+    private final Object edmKey;
+
+    public AccessorKey(final Class<?> entityClass, final Object edmKey) {
+      this.entityClass = entityClass;
+      this.edmKey = edmKey;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * entityClass.hashCode() + edmKey.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof AccessorKey)) {
+        return false;
+      }
+      final AccessorKey other = (AccessorKey) obj;
+      return entityClass == other.entityClass && edmKey.equals(other.edmKey);
+    }
+  }
+
+  /*
+   * Getters of a property; an attribute of an embeddable is read through
+   * the getters of all segments of its path
+   */
+  private static final class PropertyAccessor {
+
+    private final String name;
+    private final String[] getterNames;
+    private final Method[] getters;
+    private final EdmStructuralType complexType;
+
+    public PropertyAccessor(final String name, final EdmProperty property) throws EdmException, ODataJPARuntimeException {
+      this.name = name;
+      getterNames = getAccessModifierName(name, property.getMapping(), ACCESS_MODIFIER_GET).split("\\.");
+      getters = new Method[getterNames.length];
+      complexType = getterNames.length == 1 && property.getType().getKind().equals(EdmTypeKind.COMPLEX) ?
+          (EdmStructuralType) property.getType() : null;
+    }
+
+    public Object getValue(final Object jpaEntity)
+        throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+      Object value = jpaEntity;
+      for (int i = 0; i < getters.length && value != null; i++) {
+        Method getter = getters[i];
+        // the getter is resolved again if an embeddable is of a different class
+        if (getter == null || !getter.getDeclaringClass().isInstance(value)) {
+          getter = value.getClass().getMethod(getterNames[i], (Class<?>[]) null);
+          getter.setAccessible(true);
+          getters[i] = getter;
+        }
+        value = getter.invoke(value);
+      }
+      return value;
+    }
+  }
 }
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.access.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.persistence.Query;
+
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmMapping;
+import com.sap.core.odata.api.edm.EdmNavigationProperty;
+import com.sap.core.odata.api.edm.EdmProperty;
+import com.sap.core.odata.api.uri.NavigationPropertySegment;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
+
+/**
+ * Loads the navigation properties requested by $expand for a whole page of
+ * JPA entities at once.
+ * <p>For each level of an expand path one JPQL query per
+ * {@value #MAX_KEYS_PER_QUERY} parent entities is executed which fetches the
+ * navigation property of all parents with a JOIN FETCH, selecting the parents by
+ * their keys. As the fetched entities are the managed instances of the
+ * persistence context, the associations read later on by
+ * {@link JPAEntityParser} and {@link JPAExpandCallBack} are already loaded and
+ * the lazy loading of one association per entity is avoided.</p>
+ * <p>Entity types with a composite or embedded key are left to lazy loading.</p>
+ * 
+ * @author SAP AG
+ */
+public class JPAExpandFetcher {
+
+  /** Maximum number of keys bound to one IN expression */
+  private static final int MAX_KEYS_PER_QUERY = 500;
+  private static final String ALIAS = "E1";
+
+  private final EntityManager em;
+  private final JPAEntityParser jpaEntityParser = JPAEntityParser.create();
+
+  public JPAExpandFetcher(final EntityManager em) {
+    this.em = em;
+  }
+
+  /**
+   * Fetches all navigation properties of the given expand paths.
+   * @param jpaEntities the JPA entities of the page
+   * @param entityType the entity type of the JPA entities
+   * @param expandList the expand paths as returned by the URI parser
+   * @throws ODataJPARuntimeException
+   */
+  public void fetch(final List<?> jpaEntities, final EdmEntityType entityType,
+      final List<ArrayList<NavigationPropertySegment>> expandList) throws ODataJPARuntimeException {
+    if (jpaEntities == null || jpaEntities.isEmpty() || expandList == null) {
+      return;
+    }
+
+    // expand paths share their prefixes, e.g. Items and Items/Material
+    Set<String> fetchedPaths = new HashSet<String>();
+    try {
+      for (List<NavigationPropertySegment> expandPath : expandList) {
+        Collection<?> parents = jpaEntities;
+        EdmEntityType parentType = entityType;
+        StringBuilder path = new StringBuilder();
+        for (NavigationPropertySegment segment : expandPath) {
+          EdmNavigationProperty navigationProperty = segment.getNavigationProperty();
+          path.append('/').append(navigationProperty.getName());
+          if (fetchedPaths.add(path.toString()) && !fetch(parents, parentType, navigationProperty)) {
+            break;
+          }
+          parents = getRelatedEntities(parents, navigationProperty);
+          if (parents.isEmpty()) {
+            break;
+          }
+          parentType = segment.getTargetEntitySet().getEntityType();
+        }
+      }
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  private boolean fetch(final Collection<?> parents, final EdmEntityType parentType,
+      final EdmNavigationProperty navigationProperty) throws EdmException, ODataJPARuntimeException {
+    final List<EdmProperty> keyProperties = parentType.getKeyProperties();
+    if (keyProperties.size() != 1) {
+      return false;
+    }
+    final EdmProperty keyProperty = keyProperties.get(0);
+    final String keyName = getInternalName(keyProperty.getName(), keyProperty.getMapping());
+    if (keyName.indexOf('.') >= 0) {
+      return false;
+    }
+
+    Set<Object> keys = new LinkedHashSet<Object>();
+    for (Object parent : parents) {
+      final Object key = jpaEntityParser.parse2EdmPropertyValueMap(parent, keyProperties).get(keyProperty.getName());
+      if (key != null) {
+        keys.add(key);
+      }
+    }
+
+    final String jpql = "SELECT " + ALIAS + " FROM "
+        + getInternalName(parentType.getName(), parentType.getMapping()) + " " + ALIAS
+        + " LEFT JOIN FETCH " + ALIAS + "." + getInternalName(navigationProperty.getName(), navigationProperty.getMapping())
+        + " WHERE " + ALIAS + "." + keyName + " IN (?1)";
+    final List<Object> keyList = new ArrayList<Object>(keys);
+    try {
+      for (int from = 0; from < keyList.size(); from += MAX_KEYS_PER_QUERY) {
+        Query query = em.createQuery(jpql);
+        query.setParameter(1, keyList.subList(from, Math.min(from + MAX_KEYS_PER_QUERY, keyList.size())));
+        query.getResultList();
+      }
+    } catch (IllegalArgumentException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
+    } catch (PersistenceException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+    return true;
+  }
+
+  private Collection<?> getRelatedEntities(final Collection<?> parents, final EdmNavigationProperty navigationProperty)
+      throws EdmException, ODataJPARuntimeException {
+    final List<EdmNavigationProperty> navigationPropertyList = Collections.singletonList(navigationProperty);
+    Set<Object> relatedEntities = new LinkedHashSet<Object>();
+    for (Object parent : parents) {
+      final Object related = jpaEntityParser.parse2EdmNavigationValueMap(parent, navigationPropertyList)
+          .get(navigationProperty.getName());
+      if (related instanceof Collection) {
+        relatedEntities.addAll((Collection<?>) related);
+      } else if (related != null) {
+        relatedEntities.add(related);
+      }
+    }
+    return relatedEntities;
+  }
+
+  private static String getInternalName(final String name, final EdmMapping mapping) {
+    return mapping == null || mapping.getInternalName() == null ? name : mapping.getInternalName();
+  }
+}
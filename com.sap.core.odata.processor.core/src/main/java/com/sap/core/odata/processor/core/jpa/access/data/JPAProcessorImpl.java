@@ -19,13 +19,31 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
 import javax.persistence.Query;
+import javax.persistence.TemporalType;
 
+import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
+import com.sap.core.odata.api.uri.NavigationPropertySegment;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityLinkUriInfo;
@@ -42,15 +60,17 @@ import com.sap.core.odata.processor.api.jpa.access.JPAMethodContext;
 import com.sap.core.odata.processor.api.jpa.access.JPAProcessor;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPAModelException;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
-import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
 import com.sap.core.odata.processor.core.jpa.cud.JPACreateRequest;
 import com.sap.core.odata.processor.core.jpa.cud.JPALink;
 import com.sap.core.odata.processor.core.jpa.cud.JPAUpdateRequest;
+import com.sap.core.odata.processor.core.jpa.jpql.JPQLTemplateCache;
 
 public class JPAProcessorImpl implements JPAProcessor {
 
+  private static Executor countExecutor;
+
   ODataJPAContext oDataJPAContext;
   EntityManager em;
 
@@ -119,6 +139,84 @@ public class JPAProcessorImpl implements JPAProcessor {
     if (uriParserResultView.getFunctionImport() != null) {
       return (List<T>) process((GetFunctionImportUriInfo) uriParserResultView);
     }
+    // $top/$skip with $inlinecount case handled in response builder to avoid multiple DB call,
+    // unless paging on the database is requested
+    return readEntitySet(uriParserResultView,
+        uriParserResultView.getInlineCount() == null || oDataJPAContext.isPagingOnDatabase());
+  }
+
+  /* Process Get Entity Set Request (Query) with $inlinecount=allpages */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> long process(final GetEntitySetUriInfo uriParserResultView, final List<T> page)
+      throws ODataJPAModelException, ODataJPARuntimeException {
+
+    if (uriParserResultView.getFunctionImport() != null) {
+      page.addAll((List<T>) process((GetFunctionImportUriInfo) uriParserResultView));
+      return page.size();
+    }
+
+    // JPQL statements are built in the calling thread as the builders depend on the OData context
+    final JPQLStatement countStatement = buildCountStatement(uriParserResultView);
+    final EntityManagerFactory emf = oDataJPAContext.getEntityManagerFactory();
+    if (!oDataJPAContext.isConcurrentInlineCount() || emf == null) {
+      List<T> resultList = readEntitySet(uriParserResultView, true);
+      page.addAll(resultList);
+      return executeCount(em, countStatement);
+    }
+
+    FutureTask<Long> count = new FutureTask<Long>(new Callable<Long>() {
+      @Override
+      public Long call() throws ODataJPARuntimeException {
+        // the entity manager is created by the task, so it is not created at all for a cancelled task
+        EntityManager countEntityManager = emf.createEntityManager();
+        try {
+          return executeCount(countEntityManager, countStatement);
+        } finally {
+          countEntityManager.close();
+        }
+      }
+    });
+    Executor executor = oDataJPAContext.getInlineCountExecutor();
+    try {
+      (executor == null ? getCountExecutor() : executor).execute(count);
+    } catch (RejectedExecutionException e) {
+      // all threads are busy, so the count is executed in the thread of the request
+      count.run();
+    }
+
+    boolean pageRead = false;
+    try {
+      List<T> resultList = readEntitySet(uriParserResultView, true);
+      page.addAll(resultList);
+      pageRead = true;
+    } finally {
+      if (!pageRead) {
+        count.cancel(true);
+      }
+    }
+
+    try {
+      return count.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw ODataJPARuntimeException
+          .throwException(ODataJPARuntimeException.GENERAL
+              .addContent(e.getMessage()), e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof ODataJPARuntimeException) {
+        throw (ODataJPARuntimeException) e.getCause();
+      }
+      throw ODataJPARuntimeException
+          .throwException(ODataJPARuntimeException.GENERAL
+              .addContent(e.getCause().getMessage()), e.getCause());
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> List<T> readEntitySet(final GetEntitySetUriInfo uriParserResultView, final boolean paging)
+      throws ODataJPAModelException, ODataJPARuntimeException {
+
     JPQLContextType contextType = null;
     try {
       if (!uriParserResultView.getStartEntitySet().getName()
@@ -133,20 +231,16 @@ public class JPAProcessorImpl implements JPAProcessor {
           ODataJPARuntimeException.GENERAL, e);
     }
 
-    JPQLContext jpqlContext = JPQLContext.createBuilder(contextType,
-        uriParserResultView).build();
-
-    JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext)
-        .build();
+    JPQLStatement jpqlStatement = JPQLTemplateCache.getStatement(oDataJPAContext.getPersistenceUnitName(),
+        contextType, uriParserResultView);
     Query query = null;
     try {
-      query = em.createQuery(jpqlStatement.toString());
-      // $top/$skip with $inlinecount case handled in response builder to avoid multiple DB call
-      if (uriParserResultView.getSkip() != null && uriParserResultView.getInlineCount() == null) {
+      query = createQuery(em, jpqlStatement);
+      if (uriParserResultView.getSkip() != null && paging) {
         query.setFirstResult(uriParserResultView.getSkip());
       }
 
-      if (uriParserResultView.getTop() != null && uriParserResultView.getInlineCount() == null) {
+      if (uriParserResultView.getTop() != null && paging) {
         if (uriParserResultView.getTop() == 0) {
           List<T> resultList = new ArrayList<T>();
           return resultList;
@@ -154,7 +248,11 @@ public class JPAProcessorImpl implements JPAProcessor {
           query.setMaxResults(uriParserResultView.getTop());
         }
       }
-      return query.getResultList();
+      List<T> resultList = query.getResultList();
+      // without paging the page is cut by the response builder, so only the entities of that page are expanded
+      fetchExpand(paging ? resultList : getPage(resultList, uriParserResultView),
+          uriParserResultView.getTargetEntitySet(), uriParserResultView.getExpand());
+      return resultList;
     } catch (IllegalArgumentException e) {
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_QUERY_CREATE, e);
@@ -182,7 +280,12 @@ public class JPAProcessorImpl implements JPAProcessor {
           ODataJPARuntimeException.GENERAL, e);
     }
 
-    return readEntity(uriParserResultView, contextType);
+    Object selectedObject = readEntity(uriParserResultView, contextType);
+    if (selectedObject != null) {
+      fetchExpand(Collections.singletonList(selectedObject), uriParserResultView.getTargetEntitySet(),
+          uriParserResultView.getExpand());
+    }
+    return selectedObject;
   }
 
   /* Process $count for Get Entity Set Request */
@@ -203,16 +306,35 @@ public class JPAProcessorImpl implements JPAProcessor {
           ODataJPARuntimeException.GENERAL, e);
     }
 
-    JPQLContext jpqlContext = JPQLContext.createBuilder(contextType,
-        resultsView).build();
+    JPQLStatement jpqlStatement = JPQLTemplateCache.getStatement(oDataJPAContext.getPersistenceUnitName(),
+        contextType, resultsView);
+    return executeCount(em, jpqlStatement);
+  }
 
-    JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext)
-        .build();
-    Query query = null;
+  /* Build $count statement for Get Entity Set Request with $inlinecount */
+  private JPQLStatement buildCountStatement(final GetEntitySetUriInfo resultsView)
+      throws ODataJPAModelException, ODataJPARuntimeException {
+
+    JPQLContextType contextType = null;
     try {
+      if (!resultsView.getStartEntitySet().getName()
+          .equals(resultsView.getTargetEntitySet().getName())) {
+        contextType = JPQLContextType.JOIN_COUNT;
+      } else {
+        contextType = JPQLContextType.SELECT_COUNT;
+      }
+    } catch (EdmException e) {
+      ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL, e);
+    }
 
-      query = em.createQuery(jpqlStatement.toString());
-      List<?> resultList = query.getResultList();
+    return JPQLTemplateCache.getStatement(oDataJPAContext.getPersistenceUnitName(), contextType, resultsView);
+  }
+
+  private long executeCount(final EntityManager entityManager, final JPQLStatement jpqlStatement)
+      throws ODataJPARuntimeException {
+    try {
+      List<?> resultList = createQuery(entityManager, jpqlStatement).getResultList();
       if (resultList != null && resultList.size() == 1) {
         return Long.valueOf(resultList.get(0).toString());
       }
@@ -223,6 +345,67 @@ public class JPAProcessorImpl implements JPAProcessor {
     return 0;
   }
 
+  /* The part of the whole result the response builder returns for $skip and $top */
+  private static List<?> getPage(final List<?> resultList, final GetEntitySetUriInfo uriParserResultView) {
+    final int size = resultList.size();
+    final Integer skip = uriParserResultView.getSkip();
+    final Integer top = uriParserResultView.getTop();
+    final int from = skip == null ? 0 : Math.min(skip, size);
+    final int to = top == null || top >= size - from ? size : from + top;
+    return resultList.subList(from, to);
+  }
+
+  /* Load the navigation properties requested by $expand for all read entities at once */
+  private void fetchExpand(final List<?> jpaEntities, final EdmEntitySet entitySet,
+      final List<ArrayList<NavigationPropertySegment>> expandList) throws ODataJPARuntimeException {
+    if (expandList == null || expandList.isEmpty()) {
+      return;
+    }
+    try {
+      new JPAExpandFetcher(em).fetch(jpaEntities, entitySet.getEntityType(), expandList);
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    }
+  }
+
+  /* Create query and bind the parameter values of the statement */
+  private Query createQuery(final EntityManager entityManager, final JPQLStatement jpqlStatement) {
+    Query query = entityManager.createQuery(jpqlStatement.toString());
+    for (Map.Entry<Integer, Object> parameter : jpqlStatement.getParameters().entrySet()) {
+      Object value = parameter.getValue();
+      if (value instanceof Calendar) {
+        query.setParameter(parameter.getKey(), (Calendar) value, TemporalType.TIMESTAMP);
+      } else if (value != null && value.getClass() == Date.class) {
+        query.setParameter(parameter.getKey(), (Date) value, TemporalType.TIMESTAMP);
+      } else {
+        query.setParameter(parameter.getKey(), value);
+      }
+    }
+    return query;
+  }
+
+  /*
+   * The default executor for count queries has a bounded number of threads and no queue;
+   * a count query which finds no free thread is rejected and executed by the caller.
+   * Idle threads terminate, so the executor needs no shutdown.
+   */
+  private static synchronized Executor getCountExecutor() {
+    if (countExecutor == null) {
+      int maximumPoolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+      countExecutor = new ThreadPoolExecutor(0, maximumPoolSize, 60L, TimeUnit.SECONDS,
+          new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+              Thread thread = new Thread(runnable, "ODataJPAInlineCount");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    }
+    return countExecutor;
+  }
+
   /* Process $count for Get Entity Request */
   @Override
   public long process(final GetEntityCountUriInfo resultsView) throws ODataJPAModelException, ODataJPARuntimeException {
@@ -240,15 +423,12 @@ public class JPAProcessorImpl implements JPAProcessor {
           ODataJPARuntimeException.GENERAL, e);
     }
 
-    JPQLContext jpqlContext = JPQLContext.createBuilder(contextType,
-        resultsView).build();
-
-    JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext)
-        .build();
+    JPQLStatement jpqlStatement = JPQLTemplateCache.getStatement(oDataJPAContext.getPersistenceUnitName(),
+        contextType, resultsView);
     Query query = null;
     try {
 
-      query = em.createQuery(jpqlStatement.toString());
+      query = createQuery(em, jpqlStatement);
       List<?> resultList = query.getResultList();
       if (resultList != null && resultList.size() == 1) {
         return Long.valueOf(resultList.get(0).toString());
@@ -271,8 +451,8 @@ public class JPAProcessorImpl implements JPAProcessor {
         .getEntityManagerFactory().getMetamodel());
     List<T> createObjectList = jpaCreateRequest.process(createView, content,
         requestedContentType);
+    boolean isLocalTransaction = beginTransaction();
     try {
-      em.getTransaction().begin();
       Object jpaEntity = createObjectList.get(0);
 
       JPALink link = new JPALink(oDataJPAContext);
@@ -280,11 +460,18 @@ public class JPAProcessorImpl implements JPAProcessor {
       link.create(createView, content, requestedContentType, requestedContentType);
       em.persist(jpaEntity);
       if (em.contains(jpaEntity)) {
-        em.getTransaction().commit();
+        if (!isLocalTransaction
+            && em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(jpaEntity) == null) {
+          // The response of a create contains the key; only if the database generates it
+          // (IDENTITY) is the new entity written now, otherwise it is written with the
+          // other changes when the change set is complete.
+          em.flush();
+        }
+        commitTransaction(isLocalTransaction);
         return createObjectList;
       }
     } catch (Exception e) {
-      em.getTransaction().rollback();
+      rollbackTransaction(isLocalTransaction);
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_CREATE_REQUEST, e);
     }
@@ -315,14 +502,13 @@ public class JPAProcessorImpl implements JPAProcessor {
 
     JPAUpdateRequest jpaUpdateRequest = new JPAUpdateRequest();
     Object updateObject = readEntity(updateView, contextType);
+    boolean isLocalTransaction = beginTransaction();
     try {
-      em.getTransaction().begin();
       jpaUpdateRequest.process(updateObject, updateView, content,
           requestContentType);
-      em.flush();
-      em.getTransaction().commit();
+      commitTransaction(isLocalTransaction);
     } catch (Exception e) {
-      em.getTransaction().rollback();
+      rollbackTransaction(isLocalTransaction);
       throw ODataJPARuntimeException.throwException(
           ODataJPARuntimeException.ERROR_JPQL_UPDATE_REQUEST, e);
     }
@@ -353,13 +539,12 @@ public class JPAProcessorImpl implements JPAProcessor {
     Object selectedObject = readEntity(uriParserResultView, contextType);
     // Read operation done. This object would be passed on to entity manager for delete
     if (selectedObject != null) {
+      boolean isLocalTransaction = beginTransaction();
       try {
-        em.getTransaction().begin();
         em.remove(selectedObject);
-        em.flush();
-        em.getTransaction().commit();
+        commitTransaction(isLocalTransaction);
       } catch (Exception e) {
-        em.getTransaction().rollback();
+        rollbackTransaction(isLocalTransaction);
         throw ODataJPARuntimeException.throwException(
             ODataJPARuntimeException.ERROR_JPQL_DELETE_REQUEST, e);
       }
@@ -391,6 +576,42 @@ public class JPAProcessorImpl implements JPAProcessor {
     link.save();
   }
 
+  /*
+   * Begins a transaction unless one is active already, e.g., the transaction of a change set;
+   * returns whether the transaction has to be completed by the caller.
+   */
+  private boolean beginTransaction() {
+    EntityTransaction transaction = em.getTransaction();
+    if (transaction.isActive()) {
+      return false;
+    }
+    transaction.begin();
+    return true;
+  }
+
+  /*
+   * Commits a transaction begun by this request; the changes made within the transaction
+   * of a change set are flushed and committed when the change set is completed.
+   */
+  private void commitTransaction(final boolean isLocalTransaction) {
+    if (isLocalTransaction) {
+      em.getTransaction().commit();
+    }
+  }
+
+  /*
+   * Rolls back a transaction begun by this request; the transaction of a change set
+   * is only marked, it is rolled back when the change set is completed.
+   */
+  private void rollbackTransaction(final boolean isLocalTransaction) {
+    EntityTransaction transaction = em.getTransaction();
+    if (isLocalTransaction) {
+      transaction.rollback();
+    } else if (transaction.isActive()) {
+      transaction.setRollbackOnly();
+    }
+  }
+
   /* Common method for Read and Delete */
   private Object readEntity(final Object uriParserResultView, final JPQLContextType contextType)
       throws ODataJPAModelException, ODataJPARuntimeException {
@@ -399,16 +620,14 @@ public class JPAProcessorImpl implements JPAProcessor {
 
     if (uriParserResultView instanceof DeleteUriInfo || uriParserResultView instanceof GetEntityUriInfo || uriParserResultView instanceof PutMergePatchUriInfo) {
 
-      JPQLContext selectJPQLContext = JPQLContext.createBuilder(
-          contextType, uriParserResultView).build();
-
-      JPQLStatement selectJPQLStatement = JPQLStatement.createBuilder(
-          selectJPQLContext).build();
+      JPQLStatement selectJPQLStatement = JPQLTemplateCache.getStatement(oDataJPAContext.getPersistenceUnitName(),
+          contextType, uriParserResultView);
       Query query = null;
       try {
-        query = em.createQuery(selectJPQLStatement.toString());
-        if (!query.getResultList().isEmpty()) {
-          selectedObject = query.getResultList().get(0);
+        query = createQuery(em, selectJPQLStatement);
+        List<?> resultList = query.getResultList();
+        if (!resultList.isEmpty()) {
+          selectedObject = resultList.get(0);
         }
       } catch (IllegalArgumentException e) {
         throw ODataJPARuntimeException.throwException(
@@ -152,10 +152,13 @@ public class JPALink {
     EntityManager em = context.getEntityManager();
     EntityTransaction tx = em.getTransaction();
 
+    // within a change set the transaction is completed together with the change set
     if (!tx.isActive()) {
       em.getTransaction().begin();
       em.persist(sourceJPAEntity);
       em.getTransaction().commit();
+    } else {
+      em.persist(sourceJPAEntity);
     }
 
   }
@@ -95,7 +95,7 @@ public class JPQLJoinSelectContext extends JPQLSelectContext implements
       String entityAlias = generateJPAEntityAlias();
       joinCondition = ODataExpressionParser.parseKeyPredicates(
           entitySetView.getKeyPredicates(),
-          entityAlias);
+          entityAlias, getParameters());
 
       EdmEntityType entityType = entitySetView.getStartEntitySet()
           .getEntityType();
@@ -126,7 +126,7 @@ public class JPQLJoinSelectContext extends JPQLSelectContext implements
 
         joinCondition = ODataExpressionParser.parseKeyPredicates(
             navigationSegment.getKeyPredicates(),
-            relationShipAlias);
+            relationShipAlias, getParameters());
 
         jpaOuterJoinClause = new JPAJoinClause(
             getFromEntityName(navigationProperty),
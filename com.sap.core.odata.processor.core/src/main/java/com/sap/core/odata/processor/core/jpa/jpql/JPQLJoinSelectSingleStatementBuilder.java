@@ -16,6 +16,7 @@
 package com.sap.core.odata.processor.core.jpa.jpql;
 
 import java.util.List;
+import java.util.Map;
 
 import com.sap.core.odata.processor.api.jpa.access.JPAJoinClause;
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
@@ -35,7 +36,9 @@ public class JPQLJoinSelectSingleStatementBuilder extends JPQLStatementBuilder {
 
   @Override
   public JPQLStatement build() throws ODataJPARuntimeException {
-    jpqlStatement = createStatement(createJPQLQuery());
+    final Map<Integer, Object> parameters = context instanceof JPQLParameterizedContext ?
+        ((JPQLParameterizedContext) context).getParameters() : null;
+    jpqlStatement = createStatement(createJPQLQuery(), parameters);
     return jpqlStatement;
 
   }
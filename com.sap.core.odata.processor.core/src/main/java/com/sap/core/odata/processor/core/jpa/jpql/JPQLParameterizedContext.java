@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.jpql;
+
+import java.util.Map;
+
+/**
+ * A JPQL context collecting the values of the positional input parameters
+ * used in its clauses, e.g. from literals in $filter or from key predicates.
+ * 
+ * @author SAP AG
+ */
+interface JPQLParameterizedContext {
+
+  /**
+   * @return a map of parameter position to value
+   */
+  public Map<Integer, Object> getParameters();
+}
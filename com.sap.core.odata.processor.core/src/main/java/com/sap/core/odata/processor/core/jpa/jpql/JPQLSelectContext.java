@@ -16,6 +16,8 @@
 package com.sap.core.odata.processor.core.jpa.jpql;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import com.sap.core.odata.api.edm.EdmEntityType;
 import com.sap.core.odata.api.edm.EdmException;
@@ -30,11 +32,12 @@ import com.sap.core.odata.processor.api.jpa.jpql.JPQLSelectContextView;
 import com.sap.core.odata.processor.core.jpa.ODataExpressionParser;
 
 public class JPQLSelectContext extends JPQLContext implements
-    JPQLSelectContextView {
+    JPQLSelectContextView, JPQLParameterizedContext {
 
   protected String selectExpression;
   protected HashMap<String, String> orderByCollection;
   protected String whereCondition;
+  private final Map<Integer, Object> parameters = new LinkedHashMap<Integer, Object>();
 
   protected boolean isCountOnly = false;//Support for $count
 
@@ -70,6 +73,11 @@ public class JPQLSelectContext extends JPQLContext implements
     return whereCondition;
   }
 
+  @Override
+  public Map<Integer, Object> getParameters() {
+    return parameters;
+  }
+
   public class JPQLSelectContextBuilder
       extends
       com.sap.core.odata.processor.api.jpa.jpql.JPQLContext.JPQLContextBuilder {
@@ -134,7 +142,10 @@ public class JPQLSelectContext extends JPQLContext implements
     protected HashMap<String, String> generateOrderByFileds()
         throws ODataJPARuntimeException, EdmException {
 
-      if (entitySetView.getOrderBy() != null) {
+      if (isCountOnly) {
+        // Counting does not depend on the order; some databases reject ORDER BY together with COUNT
+        return null;
+      } else if (entitySetView.getOrderBy() != null) {
 
         return ODataExpressionParser
             .parseToJPAOrderByExpression(entitySetView.getOrderBy(), getJPAEntityAlias());
@@ -157,7 +168,7 @@ public class JPQLSelectContext extends JPQLContext implements
     protected String generateWhereExpression() throws ODataException {
       if (entitySetView.getFilter() != null) {
         return ODataExpressionParser
-            .parseToJPAWhereExpression(entitySetView.getFilter(), getJPAEntityAlias());
+            .parseToJPAWhereExpression(entitySetView.getFilter(), getJPAEntityAlias(), getParameters());
       }
       return null;
     }
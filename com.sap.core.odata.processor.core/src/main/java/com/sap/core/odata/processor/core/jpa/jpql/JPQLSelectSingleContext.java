@@ -15,7 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa.jpql;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.sap.core.odata.api.edm.EdmEntityType;
 import com.sap.core.odata.api.edm.EdmException;
@@ -28,10 +30,11 @@ import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLSelectSingleContextView;
 
-public class JPQLSelectSingleContext extends JPQLContext implements JPQLSelectSingleContextView {
+public class JPQLSelectSingleContext extends JPQLContext implements JPQLSelectSingleContextView, JPQLParameterizedContext {
 
   private String selectExpression;
   private List<KeyPredicate> keyPredicates;
+  private final Map<Integer, Object> parameters = new LinkedHashMap<Integer, Object>();
 
   protected void setKeyPredicates(final List<KeyPredicate> keyPredicates) {
     this.keyPredicates = keyPredicates;
@@ -51,6 +54,11 @@ public class JPQLSelectSingleContext extends JPQLContext implements JPQLSelectSi
     return selectExpression;
   }
 
+  @Override
+  public Map<Integer, Object> getParameters() {
+    return parameters;
+  }
+
   public class JPQLSelectSingleContextBuilder
       extends
       com.sap.core.odata.processor.api.jpa.jpql.JPQLContext.JPQLContextBuilder {
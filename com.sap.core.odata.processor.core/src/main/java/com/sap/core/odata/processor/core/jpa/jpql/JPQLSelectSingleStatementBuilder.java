@@ -15,6 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa.jpql;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextView;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLSelectSingleContextView;
@@ -26,6 +29,7 @@ public class JPQLSelectSingleStatementBuilder extends JPQLStatementBuilder {
 
   JPQLStatement jpqlStatement;
   private JPQLSelectSingleContextView context;
+  private Map<Integer, Object> parameters;
 
   public JPQLSelectSingleStatementBuilder(final JPQLContextView context) {
     this.context = (JPQLSelectSingleContextView) context;
@@ -33,7 +37,11 @@ public class JPQLSelectSingleStatementBuilder extends JPQLStatementBuilder {
 
   @Override
   public JPQLStatement build() throws ODataJPARuntimeException {
-    jpqlStatement = createStatement(createJPQLQuery());
+    parameters = new LinkedHashMap<Integer, Object>();
+    if (context instanceof JPQLParameterizedContext) {
+      parameters.putAll(((JPQLParameterizedContext) context).getParameters());
+    }
+    jpqlStatement = createStatement(createJPQLQuery(), parameters);
     return jpqlStatement;
 
   }
@@ -56,7 +64,7 @@ public class JPQLSelectSingleStatementBuilder extends JPQLStatementBuilder {
       jpqlQuery.append(JPQLStatement.DELIMITER.SPACE);
       jpqlQuery.append(JPQLStatement.KEYWORD.WHERE).append(JPQLStatement.DELIMITER.SPACE);
       jpqlQuery.append(ODataExpressionParser.parseKeyPredicates(context.getKeyPredicates(),
-          context.getJPAEntityAlias()));
+          context.getJPAEntityAlias(), parameters));
     }
 
     return jpqlQuery.toString();
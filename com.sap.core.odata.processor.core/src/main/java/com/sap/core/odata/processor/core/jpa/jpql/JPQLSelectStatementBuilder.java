@@ -16,6 +16,7 @@
 package com.sap.core.odata.processor.core.jpa.jpql;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
@@ -36,7 +37,9 @@ public class JPQLSelectStatementBuilder extends JPQLStatementBuilder {
 
   @Override
   public JPQLStatement build() throws ODataJPARuntimeException {
-    jpqlStatement = createStatement(createJPQLQuery());
+    final Map<Integer, Object> parameters = context instanceof JPQLParameterizedContext ?
+        ((JPQLParameterizedContext) context).getParameters() : null;
+    jpqlStatement = createStatement(createJPQLQuery(), parameters);
     return jpqlStatement;
 
   }
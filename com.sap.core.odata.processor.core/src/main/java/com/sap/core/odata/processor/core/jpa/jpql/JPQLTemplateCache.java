@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.jpql;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmMapping;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.uri.KeyPredicate;
+import com.sap.core.odata.api.uri.NavigationSegment;
+import com.sap.core.odata.api.uri.info.GetEntitySetUriInfo;
+import com.sap.core.odata.api.uri.info.GetEntityUriInfo;
+import com.sap.core.odata.core.commons.LruCache;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPAModelException;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement.JPQLStatementBuilder;
+import com.sap.core.odata.processor.core.jpa.ODataExpressionParser;
+
+/**
+ * Cache of built JPQL statement templates.
+ * <p>As values taken from the OData request are bound as positional input parameters,
+ * requests differing only in these values lead to the same JPQL statement. The cache key
+ * describes the shape of the request (entity set, navigation, and the conditions and
+ * ordering as written by {@link ODataExpressionParser} with positional parameters);
+ * the parameter values are collected while the key is built. For a cached shape the
+ * statement text is taken from the cache and only the collected values are bound,
+ * so neither JPQL contexts nor statements have to be built again and the JPA provider
+ * always gets the same query string.</p>
+ * 
+ * @author SAP AG
+ */
+public final class JPQLTemplateCache {
+
+  /** Maximum number of cached statement templates */
+  private static final int MAX_CACHED_TEMPLATES = 512;
+
+  /** Entity alias used for the conditions in the cache key */
+  private static final String ALIAS = "E";
+
+  private static final LruCache<String, String> CACHE = new LruCache<String, String>(MAX_CACHED_TEMPLATES);
+
+  private JPQLTemplateCache() {}
+
+  /**
+   * Returns the JPQL statement for the given context type and OData request view.
+   * The statement text is taken from the cache if a request of the same shape has
+   * been processed before for the same persistence unit; otherwise the statement
+   * is built from a new JPQL context.
+   * @param persistenceUnitName the name of the persistence unit the statement is executed in
+   * @param contextType the type of the JPQL context
+   * @param resultsView the OData request view
+   * @return the JPQL statement including its parameter values
+   * @throws ODataJPAModelException
+   * @throws ODataJPARuntimeException
+   */
+  public static JPQLStatement getStatement(final String persistenceUnitName, final JPQLContextType contextType, final Object resultsView)
+      throws ODataJPAModelException, ODataJPARuntimeException {
+    final Map<Integer, Object> parameters = new LinkedHashMap<Integer, Object>();
+    final String key = createKey(persistenceUnitName, contextType, resultsView, parameters);
+    if (key != null) {
+      final String template = CACHE.get(key);
+      if (template != null) {
+        return new TemplateStatementBuilder(template, parameters).build();
+      }
+    }
+
+    final JPQLContext jpqlContext = JPQLContext.createBuilder(contextType, resultsView).build();
+    final JPQLStatement jpqlStatement = JPQLStatement.createBuilder(jpqlContext).build();
+    if (key != null && parameters.equals(jpqlStatement.getParameters())) {
+      CACHE.putIfAbsent(key, jpqlStatement.toString());
+    }
+    return jpqlStatement;
+  }
+
+  /**
+   * Removes all cached statement templates.
+   */
+  public static void clear() {
+    CACHE.clear();
+  }
+
+  /**
+   * Creates the cache key describing the shape of the request and collects the
+   * parameter values.
+   * <p>Conditions are added to the key as written by {@link ODataExpressionParser}
+   * with positional input parameters, in the order the JPQL context builders use,
+   * so the values are collected in the same traversal and at the same positions
+   * as when the statement is built.</p>
+   * @return the key or <code>null</code> if statements for the request are not cached
+   */
+  private static String createKey(final String persistenceUnitName, final JPQLContextType contextType, final Object resultsView,
+      final Map<Integer, Object> parameters) throws ODataJPARuntimeException {
+    StringBuilder key = new StringBuilder().append(persistenceUnitName).append('|').append(contextType.name());
+    try {
+      switch (contextType) {
+      case SELECT:
+      case SELECT_COUNT:
+      case JOIN:
+      case JOIN_COUNT:
+        if (!(resultsView instanceof GetEntitySetUriInfo)) {
+          return null;
+        }
+        final GetEntitySetUriInfo entitySetView = (GetEntitySetUriInfo) resultsView;
+        final boolean join = contextType == JPQLContextType.JOIN || contextType == JPQLContextType.JOIN_COUNT;
+        if (join) {
+          appendNavigation(key, entitySetView.getStartEntitySet(), entitySetView.getKeyPredicates(),
+              entitySetView.getNavigationSegments(), parameters);
+        } else {
+          appendEntitySet(key, entitySetView.getTargetEntitySet());
+        }
+        if (entitySetView.getFilter() != null) {
+          key.append("|F").append(ODataExpressionParser.parseToJPAWhereExpression(entitySetView.getFilter(), ALIAS, parameters));
+        }
+        if (contextType == JPQLContextType.SELECT || contextType == JPQLContextType.JOIN) {
+          if (entitySetView.getOrderBy() != null) {
+            key.append("|O").append(ODataExpressionParser.parseToJPAOrderByExpression(entitySetView.getOrderBy(), ALIAS));
+          } else if (entitySetView.getTop() != null || entitySetView.getSkip() != null) {
+            key.append("|K").append(ODataExpressionParser.parseKeyPropertiesToJPAOrderByExpression(
+                entitySetView.getTargetEntitySet().getEntityType().getKeyProperties(), ALIAS));
+          }
+        }
+        break;
+      case SELECT_SINGLE:
+      case JOIN_SINGLE:
+        if (!(resultsView instanceof GetEntityUriInfo)) {
+          return null;
+        }
+        final GetEntityUriInfo entityView = (GetEntityUriInfo) resultsView;
+        if (contextType == JPQLContextType.JOIN_SINGLE) {
+          appendNavigation(key, entityView.getStartEntitySet(), entityView.getKeyPredicates(),
+              entityView.getNavigationSegments(), parameters);
+        } else {
+          appendEntitySet(key, entityView.getTargetEntitySet());
+          appendKeyPredicates(key, entityView.getKeyPredicates(), parameters);
+        }
+        break;
+      default:
+        return null;
+      }
+    } catch (EdmException e) {
+      throw ODataJPARuntimeException.throwException(
+          ODataJPARuntimeException.GENERAL.addContent(e.getMessage()), e);
+    } catch (ODataJPARuntimeException e) {
+      throw e;
+    } catch (ODataException e) {
+      // e.g., unsupported parts of the filter; building the statement reports them
+      return null;
+    }
+    return key.toString();
+  }
+
+  private static void appendEntitySet(final StringBuilder key, final EdmEntitySet entitySet) throws EdmException {
+    final EdmEntityType entityType = entitySet.getEntityType();
+    key.append('|').append(entitySet.getName())
+        .append(':').append(getInternalName(entityType.getName(), entityType.getMapping()));
+  }
+
+  private static void appendNavigation(final StringBuilder key, final EdmEntitySet startEntitySet,
+      final List<KeyPredicate> keyPredicates, final List<NavigationSegment> navigationSegments, final Map<Integer, Object> parameters)
+      throws EdmException, ODataJPARuntimeException {
+    appendEntitySet(key, startEntitySet);
+    appendKeyPredicates(key, keyPredicates, parameters);
+    for (NavigationSegment navigationSegment : navigationSegments) {
+      key.append("|N").append(getInternalName(navigationSegment.getNavigationProperty().getName(),
+          navigationSegment.getNavigationProperty().getMapping()));
+      appendKeyPredicates(key, navigationSegment.getKeyPredicates(), parameters);
+    }
+  }
+
+  private static void appendKeyPredicates(final StringBuilder key, final List<KeyPredicate> keyPredicates, final Map<Integer, Object> parameters)
+      throws ODataJPARuntimeException {
+    key.append('(');
+    if (keyPredicates != null) {
+      key.append(ODataExpressionParser.parseKeyPredicates(keyPredicates, ALIAS, parameters));
+    }
+    key.append(')');
+  }
+
+  private static String getInternalName(final String name, final EdmMapping mapping) {
+    return mapping == null || mapping.getInternalName() == null ? name : mapping.getInternalName();
+  }
+
+  private static class TemplateStatementBuilder extends JPQLStatementBuilder {
+
+    private final String template;
+    private final Map<Integer, Object> parameters;
+
+    public TemplateStatementBuilder(final String template, final Map<Integer, Object> parameters) {
+      this.template = template;
+      this.parameters = parameters;
+    }
+
+    @Override
+    public JPQLStatement build() {
+      return createStatement(template, parameters);
+    }
+  }
+}
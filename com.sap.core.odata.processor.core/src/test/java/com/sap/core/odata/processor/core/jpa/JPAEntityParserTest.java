@@ -116,6 +116,41 @@ public class JPAEntityParserTest {
 
   }
 
+  @Test
+  public void testparse2EdmPropertyValueMapReusesAccessors() {
+    JPAEntityParser resultParser = JPAEntityParser.create();
+    EdmStructuralType structuralType = EasyMock
+        .createMock(EdmStructuralType.class);
+    EdmProperty edmTyped = EasyMock.createMock(EdmProperty.class);
+    EdmType edmType = EasyMock.createMock(EdmType.class);
+    EdmMapping edmMapping = EasyMock.createMock(EdmMapping.class);
+
+    try {
+      EasyMock.expect(edmType.getKind()).andStubReturn(EdmTypeKind.SIMPLE);
+      EasyMock.expect(edmMapping.getInternalName()).andStubReturn("value");
+      EasyMock.expect(edmTyped.getType()).andStubReturn(edmType);
+      EasyMock.expect(edmTyped.getMapping()).andStubReturn(edmMapping);
+      EasyMock.expect(structuralType.getProperty("Value")).andReturn(edmTyped);
+      List<String> propNames = new ArrayList<String>();
+      propNames.add("Value");
+      // the accessors are built once for the first row only
+      EasyMock.expect(structuralType.getPropertyNames()).andReturn(propNames);
+      EasyMock.replay(edmType, edmMapping, edmTyped, structuralType);
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+
+    try {
+      assertEquals(10, resultParser.parse2EdmPropertyValueMap(new demoItem("abc", 10), structuralType).get("Value"));
+      assertEquals(20, resultParser.parse2EdmPropertyValueMap(new demoItem("def", 20), structuralType).get("Value"));
+      EasyMock.verify(structuralType);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
   @Test
   public void testparse2EdmPropertyValueMapEdmExcep() {
     JPAEntityParser resultParser = JPAEntityParser.create();
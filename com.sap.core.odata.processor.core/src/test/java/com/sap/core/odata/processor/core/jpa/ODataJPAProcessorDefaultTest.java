@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.processor.core.jpa;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -23,14 +25,21 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.FlushModeType;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
+import javax.persistence.RollbackException;
 import javax.persistence.metamodel.EntityType;
 import javax.persistence.metamodel.Metamodel;
 
@@ -39,7 +48,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.sap.core.odata.api.ODataServiceFactory;
+import com.sap.core.odata.api.batch.BatchHandler;
+import com.sap.core.odata.api.batch.BatchResponsePart;
 import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
 import com.sap.core.odata.api.commons.InlineCount;
 import com.sap.core.odata.api.edm.EdmConcurrencyMode;
 import com.sap.core.odata.api.edm.EdmEntityContainer;
@@ -54,6 +67,8 @@ import com.sap.core.odata.api.edm.EdmTypeKind;
 import com.sap.core.odata.api.edm.EdmTyped;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.uri.KeyPredicate;
 import com.sap.core.odata.api.uri.NavigationSegment;
 import com.sap.core.odata.api.uri.PathInfo;
@@ -168,6 +183,182 @@ public class ODataJPAProcessorDefaultTest extends JPAEdmTestModelView {
     }
   }
 
+  @Test
+  public void testExecuteChangeSetCommit() {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    transaction.commit();
+    EasyMock.expect(transaction.isActive()).andReturn(false);
+    EasyMock.replay(transaction);
+    try {
+      BatchResponsePart batchResponsePart = createChangeSetProcessor(transaction, true, false).executeChangeSet(
+          getBatchHandler(HttpStatusCodes.CREATED, HttpStatusCodes.NO_CONTENT), getChangeSetRequests());
+      assertTrue(batchResponsePart.isChangeSet());
+      assertEquals(2, batchResponsePart.getResponses().size());
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.verify(transaction);
+  }
+
+  @Test
+  public void testExecuteChangeSetRollback() {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.isActive()).andReturn(true);
+    transaction.rollback();
+    EasyMock.replay(transaction);
+    try {
+      BatchResponsePart batchResponsePart = createChangeSetProcessor(transaction, false, true).executeChangeSet(
+          getBatchHandler(HttpStatusCodes.CREATED, HttpStatusCodes.BAD_REQUEST), getChangeSetRequests());
+      assertFalse(batchResponsePart.isChangeSet());
+      assertEquals(1, batchResponsePart.getResponses().size());
+      assertEquals(HttpStatusCodes.BAD_REQUEST, batchResponsePart.getResponses().get(0).getStatus());
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.verify(transaction);
+  }
+
+  @Test
+  public void testExecuteChangeSetCommitFailure() {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    transaction.commit();
+    EasyMock.expectLastCall().andThrow(new RollbackException("constraint violated"));
+    EasyMock.expect(transaction.isActive()).andReturn(false);
+    EasyMock.replay(transaction);
+    EntityManager em = null;
+    try {
+      ODataJPAProcessorDefault processor = createChangeSetProcessor(transaction, true, true);
+      em = processor.getOdataJPAContext().getEntityManager();
+      BatchResponsePart batchResponsePart = processor.executeChangeSet(
+          getBatchHandler(HttpStatusCodes.CREATED, HttpStatusCodes.NO_CONTENT), getChangeSetRequests());
+      assertFalse(batchResponsePart.isChangeSet());
+      assertEquals(1, batchResponsePart.getResponses().size());
+      assertEquals(HttpStatusCodes.INTERNAL_SERVER_ERROR, batchResponsePart.getResponses().get(0).getStatus());
+      assertEquals(HttpContentType.APPLICATION_XML, batchResponsePart.getResponses().get(0).getContentHeader());
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.verify(transaction, em);
+  }
+
+  @Test
+  public void testExecuteChangeSetFlushFailure() {
+    EntityTransaction transaction = EasyMock.createMock(EntityTransaction.class);
+    transaction.begin();
+    EasyMock.expect(transaction.isActive()).andReturn(true);
+    transaction.rollback();
+    EasyMock.replay(transaction);
+
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    EasyMock.expect(em.getFlushMode()).andReturn(FlushModeType.AUTO);
+    em.setFlushMode(FlushModeType.COMMIT);
+    em.flush();
+    EasyMock.expectLastCall().andThrow(new PersistenceException("constraint violated"));
+    em.clear();
+    em.setFlushMode(FlushModeType.AUTO);
+    EasyMock.replay(em);
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.replay(odataJPAContext);
+
+    List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    requests.add(getChangeSetRequest(null, HttpContentType.APPLICATION_XML));
+    requests.add(getChangeSetRequest(null, HttpContentType.APPLICATION_JSON));
+    ODataJPAProcessorDefault processor = new ODataJPAProcessorDefault(odataJPAContext);
+    processor.setContext(getChangeSetContext());
+    try {
+      BatchResponsePart batchResponsePart = processor.executeChangeSet(
+          getBatchHandler(HttpStatusCodes.CREATED, HttpStatusCodes.NO_CONTENT), requests);
+      assertFalse(batchResponsePart.isChangeSet());
+      assertEquals(1, batchResponsePart.getResponses().size());
+      assertEquals(HttpStatusCodes.INTERNAL_SERVER_ERROR, batchResponsePart.getResponses().get(0).getStatus());
+      assertEquals(HttpContentType.APPLICATION_JSON, batchResponsePart.getResponses().get(0).getContentHeader());
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.verify(transaction, em);
+  }
+
+  private ODataJPAProcessorDefault createChangeSetProcessor(final EntityTransaction transaction, final boolean flushed,
+      final boolean cleared) {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.getTransaction()).andStubReturn(transaction);
+    EasyMock.expect(em.getFlushMode()).andReturn(FlushModeType.AUTO);
+    em.setFlushMode(FlushModeType.COMMIT);
+    if (flushed) {
+      em.flush();
+    }
+    if (cleared) {
+      em.clear();
+    }
+    em.setFlushMode(FlushModeType.AUTO);
+    EasyMock.replay(em);
+    ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.getEntityManager()).andStubReturn(em);
+    EasyMock.replay(odataJPAContext);
+    ODataJPAProcessorDefault processor = new ODataJPAProcessorDefault(odataJPAContext);
+    processor.setContext(getChangeSetContext());
+    return processor;
+  }
+
+  private ODataContext getChangeSetContext() {
+    ODataContext context = EasyMock.createNiceMock(ODataContext.class);
+    ODataServiceFactory serviceFactory = EasyMock.createNiceMock(ODataServiceFactory.class);
+    PathInfo pathInfo = EasyMock.createNiceMock(PathInfo.class);
+    try {
+      EasyMock.expect(context.getPathInfo()).andStubReturn(pathInfo);
+      EasyMock.expect(context.getAcceptableLanguages()).andStubReturn(Collections.<Locale> emptyList());
+      EasyMock.expect(context.getServiceFactory()).andStubReturn(serviceFactory);
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.replay(context, serviceFactory, pathInfo);
+    return context;
+  }
+
+  private BatchHandler getBatchHandler(final HttpStatusCodes... statusCodes) {
+    BatchHandler handler = EasyMock.createMock(BatchHandler.class);
+    try {
+      for (HttpStatusCodes statusCode : statusCodes) {
+        EasyMock.expect(handler.handleRequest(EasyMock.isA(ODataRequest.class)))
+            .andReturn(ODataResponse.status(statusCode).build());
+      }
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.replay(handler);
+    return handler;
+  }
+
+  private List<ODataRequest> getChangeSetRequests() {
+    List<ODataRequest> requests = new ArrayList<ODataRequest>();
+    requests.add(getChangeSetRequest(null, HttpContentType.APPLICATION_JSON));
+    requests.add(getChangeSetRequest("xml", HttpContentType.APPLICATION_JSON));
+    return requests;
+  }
+
+  private ODataRequest getChangeSetRequest(final String format, final String acceptHeader) {
+    ODataRequest request = EasyMock.createMock(ODataRequest.class);
+    Map<String, String> queryParameters = new HashMap<String, String>();
+    if (format != null) {
+      queryParameters.put("$format", format);
+    }
+    EasyMock.expect(request.getQueryParameters()).andStubReturn(queryParameters);
+    EasyMock.expect(request.getAcceptHeaders()).andStubReturn(Collections.singletonList(acceptHeader));
+    EasyMock.replay(request);
+    return request;
+  }
+
   private PutMergePatchUriInfo getPutUriInfo() {
     return (PutMergePatchUriInfo) getDeletetUriInfo();
   }
@@ -353,6 +544,7 @@ public class ODataJPAProcessorDefaultTest extends JPAEdmTestModelView {
 
   private EntityTransaction getLocalTransaction() {
     EntityTransaction entityTransaction = EasyMock.createMock(EntityTransaction.class);
+    EasyMock.expect(entityTransaction.isActive()).andStubReturn(false);
     entityTransaction.begin(); // testing void method
     entityTransaction.commit();// testing void method
     entityTransaction.rollback();// testing void method
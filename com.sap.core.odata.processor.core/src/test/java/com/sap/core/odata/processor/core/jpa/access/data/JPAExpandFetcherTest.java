@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.access.data;
+
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmMapping;
+import com.sap.core.odata.api.edm.EdmNavigationProperty;
+import com.sap.core.odata.api.edm.EdmProperty;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.uri.NavigationPropertySegment;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
+import com.sap.core.odata.processor.core.jpa.common.ODataJPATestConstants;
+import com.sap.core.odata.processor.core.jpa.cud.SalesOrderHeader;
+
+public class JPAExpandFetcherTest {
+
+  private static final String JPQL_FETCH_ITEMS =
+      "SELECT E1 FROM SalesOrderHeader E1 LEFT JOIN FETCH E1.salesOrderLineItems WHERE E1.id IN (?1)";
+
+  @Test
+  public void testFetchOneQueryPerLevel() {
+    Query query = EasyMock.createMock(Query.class);
+    EasyMock.expect(query.setParameter(1, Arrays.asList(1, 2, 3))).andReturn(query);
+    EasyMock.expect(query.getResultList()).andReturn(new ArrayList<Object>());
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.expect(em.createQuery(JPQL_FETCH_ITEMS)).andReturn(query);
+    EasyMock.replay(query, em);
+
+    try {
+      new JPAExpandFetcher(em).fetch(getSalesOrderHeaders(), mockEntityType(1), getExpandList());
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+
+    EasyMock.verify(query, em);
+  }
+
+  @Test
+  public void testFetchCompositeKey() {
+    EntityManager em = EasyMock.createMock(EntityManager.class);
+    EasyMock.replay(em);
+
+    try {
+      new JPAExpandFetcher(em).fetch(getSalesOrderHeaders(), mockEntityType(2), getExpandList());
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+
+    EasyMock.verify(em);
+  }
+
+  private List<SalesOrderHeader> getSalesOrderHeaders() {
+    List<SalesOrderHeader> salesOrderHeaders = new ArrayList<SalesOrderHeader>();
+    salesOrderHeaders.add(new SalesOrderHeader(1, "first"));
+    salesOrderHeaders.add(new SalesOrderHeader(2, "second"));
+    salesOrderHeaders.add(new SalesOrderHeader(3, "third"));
+    return salesOrderHeaders;
+  }
+
+  private EdmEntityType mockEntityType(final int keyPropertyCount) throws EdmException {
+    List<EdmProperty> keyProperties = new ArrayList<EdmProperty>();
+    for (int i = 0; i < keyPropertyCount; i++) {
+      EdmProperty keyProperty = EasyMock.createMock(EdmProperty.class);
+      EasyMock.expect(keyProperty.getName()).andStubReturn("id");
+      EasyMock.expect(keyProperty.getMapping()).andStubReturn(null);
+      EasyMock.expect(keyProperty.getType()).andStubReturn(EdmSimpleTypeKind.Int32.getEdmSimpleTypeInstance());
+      EasyMock.replay(keyProperty);
+      keyProperties.add(keyProperty);
+    }
+    EdmEntityType entityType = EasyMock.createMock(EdmEntityType.class);
+    EasyMock.expect(entityType.getName()).andStubReturn("SalesOrderHeader");
+    EasyMock.expect(entityType.getMapping()).andStubReturn(null);
+    EasyMock.expect(entityType.getKeyProperties()).andStubReturn(keyProperties);
+    EasyMock.replay(entityType);
+    return entityType;
+  }
+
+  private List<ArrayList<NavigationPropertySegment>> getExpandList() throws EdmException {
+    EdmMapping mapping = EasyMock.createMock(EdmMapping.class);
+    EasyMock.expect(mapping.getInternalName()).andStubReturn("salesOrderLineItems");
+    EdmNavigationProperty navigationProperty = EasyMock.createMock(EdmNavigationProperty.class);
+    EasyMock.expect(navigationProperty.getName()).andStubReturn("SalesOrderLineItems");
+    EasyMock.expect(navigationProperty.getMapping()).andStubReturn(mapping);
+    NavigationPropertySegment segment = EasyMock.createMock(NavigationPropertySegment.class);
+    EasyMock.expect(segment.getNavigationProperty()).andStubReturn(navigationProperty);
+    EasyMock.replay(mapping, navigationProperty, segment);
+
+    ArrayList<NavigationPropertySegment> expandPath = new ArrayList<NavigationPropertySegment>();
+    expandPath.add(segment);
+    List<ArrayList<NavigationPropertySegment>> expandList = new ArrayList<ArrayList<NavigationPropertySegment>>();
+    expandList.add(expandPath);
+    // the same path twice is fetched once
+    expandList.add(expandPath);
+    return expandList;
+  }
+}
@@ -21,6 +21,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -118,6 +120,85 @@ public class JPAProcessorImplTest {
     }
   }
 
+  @Test
+  public void testProcessGetEntitySetUriInfoInlineCount() {
+    try {
+      JPAProcessorImpl jpaProcessor = new JPAProcessorImpl(getLocalmockODataJPAContext(true, false));
+      List<Object> page = new ArrayList<Object>();
+      Assert.assertEquals(11, jpaProcessor.process(getEntitySetUriInfo(InlineCount.ALLPAGES), page));
+      Assert.assertEquals(1, page.size());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testProcessGetEntitySetUriInfoConcurrentInlineCount() {
+    try {
+      JPAProcessorImpl jpaProcessor = new JPAProcessorImpl(getLocalmockODataJPAContext(true, true));
+      List<Object> page = new ArrayList<Object>();
+      Assert.assertEquals(11, jpaProcessor.process(getEntitySetUriInfo(InlineCount.ALLPAGES), page));
+      Assert.assertEquals(1, page.size());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testProcessGetEntitySetUriInfoInlineCountExecutor() {
+    final List<Runnable> executed = new ArrayList<Runnable>();
+    Executor executor = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        executed.add(command);
+        command.run();
+      }
+    };
+    try {
+      JPAProcessorImpl jpaProcessor = new JPAProcessorImpl(getLocalmockODataJPAContext(true, true, executor));
+      List<Object> page = new ArrayList<Object>();
+      Assert.assertEquals(11, jpaProcessor.process(getEntitySetUriInfo(InlineCount.ALLPAGES), page));
+      Assert.assertEquals(1, page.size());
+      Assert.assertEquals(1, executed.size());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testProcessGetEntitySetUriInfoInlineCountRejected() {
+    Executor executor = new Executor() {
+      @Override
+      public void execute(final Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    };
+    try {
+      JPAProcessorImpl jpaProcessor = new JPAProcessorImpl(getLocalmockODataJPAContext(true, true, executor));
+      List<Object> page = new ArrayList<Object>();
+      Assert.assertEquals(11, jpaProcessor.process(getEntitySetUriInfo(InlineCount.ALLPAGES), page));
+      Assert.assertEquals(1, page.size());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage()
+          + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
   @Test
   public void testProcessDeleteUriInfo() {
     try {
@@ -153,6 +234,7 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
     EasyMock.expect(objUriInfo.getSkip()).andStubReturn(getSkip());
@@ -177,15 +259,20 @@ public class JPAProcessorImplTest {
   }
 
   private GetEntitySetUriInfo getEntitySetUriInfo() {
+    return getEntitySetUriInfo(getInlineCount());
+  }
+
+  private GetEntitySetUriInfo getEntitySetUriInfo(final InlineCount inlineCount) {
 
     UriInfo objUriInfo = EasyMock.createMock(UriInfo.class);
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
     EasyMock.expect(objUriInfo.getSkip()).andStubReturn(getSkip());
-    EasyMock.expect(objUriInfo.getInlineCount()).andStubReturn(getInlineCount());
+    EasyMock.expect(objUriInfo.getInlineCount()).andStubReturn(inlineCount);
     EasyMock.expect(objUriInfo.getFilter()).andStubReturn(getFilter());
     //EasyMock.expect(objUriInfo.getFunctionImport()).andStubReturn(getFunctionImport());
     EasyMock.expect(objUriInfo.getFunctionImport()).andStubReturn(null);
@@ -201,6 +288,7 @@ public class JPAProcessorImplTest {
     EasyMock.expect(objUriInfo.getStartEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getTargetEntitySet()).andStubReturn(getLocalEdmEntitySet());
     EasyMock.expect(objUriInfo.getSelect()).andStubReturn(null);
+    EasyMock.expect(objUriInfo.getExpand()).andStubReturn(null);
     EasyMock.expect(objUriInfo.getOrderBy()).andStubReturn(getOrderByExpression());
     EasyMock.expect(objUriInfo.getTop()).andStubReturn(getTop());
     EasyMock.expect(objUriInfo.getSkip()).andStubReturn(getSkip());
@@ -274,7 +362,19 @@ public class JPAProcessorImplTest {
   }
 
   private ODataJPAContext getLocalmockODataJPAContext() {
+    return getLocalmockODataJPAContext(false, false);
+  }
+
+  private ODataJPAContext getLocalmockODataJPAContext(final boolean pagingOnDatabase, final boolean concurrentInlineCount) {
+    return getLocalmockODataJPAContext(pagingOnDatabase, concurrentInlineCount, null);
+  }
+
+  private ODataJPAContext getLocalmockODataJPAContext(final boolean pagingOnDatabase, final boolean concurrentInlineCount,
+      final Executor inlineCountExecutor) {
     ODataJPAContext odataJPAContext = EasyMock.createMock(ODataJPAContext.class);
+    EasyMock.expect(odataJPAContext.isPagingOnDatabase()).andStubReturn(pagingOnDatabase);
+    EasyMock.expect(odataJPAContext.isConcurrentInlineCount()).andStubReturn(concurrentInlineCount);
+    EasyMock.expect(odataJPAContext.getInlineCountExecutor()).andStubReturn(inlineCountExecutor);
     EasyMock.expect(odataJPAContext.getPersistenceUnitName()).andStubReturn("salesorderprocessing");
     EasyMock.expect(odataJPAContext.getEntityManagerFactory()).andStubReturn(mockEntityManagerFactory());
     EasyMock.expect(odataJPAContext.getODataContext()).andStubReturn(getLocalODataContext());
@@ -296,6 +396,8 @@ public class JPAProcessorImplTest {
     EasyMock.expect(em.createQuery("SELECT E1 FROM SalesOrderHeaders E1")).andStubReturn(getQuery());
     EasyMock.expect(em.createQuery("SELECT COUNT ( E1 ) FROM SalesOrderHeaders E1")).andStubReturn(getQueryForSelectCount());
     EasyMock.expect(em.getTransaction()).andStubReturn(getLocalTransaction()); //For Delete
+    em.close();
+    EasyMock.expectLastCall().anyTimes();
     em.flush();
     em.flush();
     Address obj = new Address();
@@ -307,6 +409,7 @@ public class JPAProcessorImplTest {
 
   private EntityTransaction getLocalTransaction() {
     EntityTransaction entityTransaction = EasyMock.createMock(EntityTransaction.class);
+    EasyMock.expect(entityTransaction.isActive()).andStubReturn(false);
     entityTransaction.begin(); // testing void method
     entityTransaction.begin(); // testing void method
     entityTransaction.commit();// testing void method
@@ -16,10 +16,13 @@
 package com.sap.core.odata.processor.core.jpa.access.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.easymock.EasyMock;
 import org.junit.Test;
@@ -518,6 +521,47 @@ public class ODataExpressionParserTest {
     return binaryExpression;
   }
 
+  @Test
+  public void testParseNullComparison() {
+    try {
+      Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+      assertEquals("gwt1.SalesOrder IS NULL", ODataExpressionParser.parseToJPAWhereExpression(
+          getBinaryExpression(getPropertyExpressionMockedObj(ExpressionKind.PROPERTY, SALES_ORDER), BinaryOperator.EQ,
+              getNullLiteralExpressionMockedObj()), TABLE_ALIAS, parameters));
+      assertEquals("gwt1.SalesOrder IS NOT NULL", ODataExpressionParser.parseToJPAWhereExpression(
+          getBinaryExpression(getNullLiteralExpressionMockedObj(), BinaryOperator.NE,
+              getPropertyExpressionMockedObj(ExpressionKind.PROPERTY, SALES_ORDER)), TABLE_ALIAS, parameters));
+      assertTrue(parameters.isEmpty());
+      assertEquals("gwt1.SalesOrder IS NULL", ODataExpressionParser.parseToJPAWhereExpression(
+          getBinaryExpression(getPropertyExpressionMockedObj(ExpressionKind.PROPERTY, SALES_ORDER), BinaryOperator.EQ,
+              getNullLiteralExpressionMockedObj()), TABLE_ALIAS));
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testLikeParameterEscaped() {
+    try {
+      Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+      assertEquals("(CASE WHEN gwt1.currencyCode LIKE ?1 ESCAPE '!' THEN TRUE ELSE FALSE END) = true",
+          ODataExpressionParser.parseToJPAWhereExpression(
+              getMethodExpressionMockedObj(MethodOperator.SUBSTRINGOF, "50%_off!", "currencyCode", null, 2), TABLE_ALIAS, parameters));
+      assertEquals("%50!%!_off!!%", parameters.get(1));
+    } catch (ODataException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  private LiteralExpression getNullLiteralExpressionMockedObj() {
+    LiteralExpression literalExpression = EasyMock.createMock(LiteralExpression.class);
+    EasyMock.expect(literalExpression.getKind()).andStubReturn(ExpressionKind.LITERAL);
+    EasyMock.expect(literalExpression.getUriLiteral()).andStubReturn("null");
+    EasyMock.expect(literalExpression.getEdmType()).andStubReturn(EdmSimpleTypeKind.Null.getEdmSimpleTypeInstance());
+    EasyMock.replay(literalExpression);
+    return literalExpression;
+  }
+
   @Test
   public void testParseKeyPredicates() {
     // Setting up the expected value
@@ -31,6 +31,7 @@ import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.edm.EdmMapping;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.uri.KeyPredicate;
 import com.sap.core.odata.api.uri.SelectItem;
 import com.sap.core.odata.api.uri.info.GetEntityUriInfo;
@@ -39,6 +40,7 @@ import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContext.JPQLContextBuilder;
 import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
 
 public class JPQLSelectSingleStatementBuilderTest {
 
@@ -67,8 +69,7 @@ public class JPQLSelectSingleStatementBuilderTest {
         .createMock(KeyPredicate.class);
     EdmProperty kpProperty = EasyMock
         .createMock(EdmProperty.class);
-    EdmSimpleType edmType = EasyMock
-        .createMock(EdmSimpleType.class);
+    EdmSimpleType edmType = EdmSimpleTypeKind.Int32.getEdmSimpleTypeInstance();
     EdmMapping edmMapping = EasyMock.createMock(EdmMapping.class);
     EasyMock.expect(edmMapping.getInternalName()).andStubReturn("Field1");
     EasyMock.expect(keyPredicate.getLiteral()).andStubReturn("1");
@@ -82,7 +83,7 @@ public class JPQLSelectSingleStatementBuilderTest {
       fail("this should not happen");
     }
     EasyMock.expect(keyPredicate.getProperty()).andStubReturn(kpProperty);
-    EasyMock.replay(edmMapping, edmType, kpProperty, keyPredicate);
+    EasyMock.replay(edmMapping, kpProperty, keyPredicate);
     EasyMock.expect(getEntityView.getTargetEntitySet()).andStubReturn(edmEntitySet);
     EasyMock.expect(getEntityView.getSelect()).andStubReturn(selectItemList);
 
@@ -118,7 +119,10 @@ public class JPQLSelectSingleStatementBuilderTest {
     JPQLSelectSingleContext JPQLSelectSingleContextImpl = createSelectContext();
     JPQLSelectSingleStatementBuilder = new JPQLSelectSingleStatementBuilder(JPQLSelectSingleContextImpl);
 
-    assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 = 1", JPQLSelectSingleStatementBuilder.build().toString());
+    JPQLStatement statement = JPQLSelectSingleStatementBuilder.build();
+    assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 = ?1", statement.toString());
+    assertEquals(1, statement.getParameters().size());
+    assertEquals(Integer.valueOf(1), statement.getParameters().get(1));
   }
 
 }
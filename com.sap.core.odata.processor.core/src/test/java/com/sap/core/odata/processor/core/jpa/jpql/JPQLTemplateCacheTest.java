@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.processor.core.jpa.jpql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmMapping;
+import com.sap.core.odata.api.edm.EdmProperty;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.uri.KeyPredicate;
+import com.sap.core.odata.api.uri.SelectItem;
+import com.sap.core.odata.api.uri.expression.BinaryExpression;
+import com.sap.core.odata.api.uri.expression.BinaryOperator;
+import com.sap.core.odata.api.uri.expression.ExpressionKind;
+import com.sap.core.odata.api.uri.expression.FilterExpression;
+import com.sap.core.odata.api.uri.expression.LiteralExpression;
+import com.sap.core.odata.api.uri.expression.PropertyExpression;
+import com.sap.core.odata.api.uri.info.GetEntitySetUriInfo;
+import com.sap.core.odata.api.uri.info.GetEntityUriInfo;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPAModelException;
+import com.sap.core.odata.processor.api.jpa.exception.ODataJPARuntimeException;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLContextType;
+import com.sap.core.odata.processor.api.jpa.jpql.JPQLStatement;
+import com.sap.core.odata.processor.core.jpa.common.ODataJPATestConstants;
+
+public class JPQLTemplateCacheTest {
+
+  private static final String PERSISTENCE_UNIT = "salesorderprocessing";
+
+  @After
+  public void tearDown() {
+    JPQLTemplateCache.clear();
+  }
+
+  @Test
+  public void testGetStatementSameShape() {
+    try {
+      JPQLStatement first = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT_SINGLE, getEntityUriInfo("1", true));
+      JPQLStatement second = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT_SINGLE, getEntityUriInfo("2", false));
+
+      assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 = ?1", first.toString());
+      assertEquals(first.toString(), second.toString());
+      assertEquals(Integer.valueOf(1), first.getParameters().get(1));
+      assertEquals(Integer.valueOf(2), second.getParameters().get(1));
+      assertEquals(1, second.getParameters().size());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testGetStatementAfterClear() {
+    try {
+      JPQLStatement first = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT_SINGLE, getEntityUriInfo("1", true));
+      JPQLTemplateCache.clear();
+      JPQLStatement second = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT_SINGLE, getEntityUriInfo("3", true));
+
+      assertEquals(first.toString(), second.toString());
+      assertEquals(Integer.valueOf(3), second.getParameters().get(1));
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testGetStatementPerPersistenceUnit() {
+    try {
+      GetEntityUriInfo first = getEntityUriInfo("1", true);
+      GetEntityUriInfo second = getEntityUriInfo("2", true);
+      GetEntityUriInfo third = getEntityUriInfo("3", false);
+      JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT_SINGLE, first);
+      JPQLTemplateCache.getStatement("other", JPQLContextType.SELECT_SINGLE, second);
+      JPQLTemplateCache.getStatement("other", JPQLContextType.SELECT_SINGLE, third);
+      EasyMock.verify(first, second, third);
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testGetStatementNullFilter() {
+    try {
+      JPQLStatement first = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT, getEntitySetUriInfo(BinaryOperator.EQ));
+      JPQLStatement second = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT, getEntitySetUriInfo(BinaryOperator.EQ));
+      JPQLStatement third = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT, getEntitySetUriInfo(BinaryOperator.NE));
+
+      assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 IS NULL", first.toString());
+      assertEquals(first.toString(), second.toString());
+      assertTrue(second.getParameters().isEmpty());
+      assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 IS NOT NULL", third.toString());
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  @Test
+  public void testGetStatementRepeatedLiteral() {
+    try {
+      GetEntitySetUriInfo second = getEntitySetUriInfo("2", "3", false);
+      JPQLStatement first = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT, getEntitySetUriInfo("1", "1", true));
+      JPQLStatement cached = JPQLTemplateCache.getStatement(PERSISTENCE_UNIT, JPQLContextType.SELECT, second);
+      EasyMock.verify(second);
+
+      assertEquals("SELECT E1 FROM SalesOrderHeader E1 WHERE E1.Field1 = ?1 OR E1.Field2 = ?2", first.toString());
+      assertEquals(first.toString(), cached.toString());
+      assertEquals(Integer.valueOf(1), first.getParameters().get(1));
+      assertEquals(Integer.valueOf(1), first.getParameters().get(2));
+      assertEquals(Integer.valueOf(2), cached.getParameters().get(1));
+      assertEquals(Integer.valueOf(3), cached.getParameters().get(2));
+    } catch (ODataJPAModelException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    } catch (ODataJPARuntimeException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+  }
+
+  private GetEntitySetUriInfo getEntitySetUriInfo(final BinaryOperator operator) {
+    GetEntitySetUriInfo getEntitySetView = EasyMock.createNiceMock(GetEntitySetUriInfo.class);
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EdmMapping edmMapping = EasyMock.createMock(EdmMapping.class);
+    PropertyExpression propertyExpression = EasyMock.createMock(PropertyExpression.class);
+    LiteralExpression literalExpression = EasyMock.createMock(LiteralExpression.class);
+    BinaryExpression binaryExpression = EasyMock.createMock(BinaryExpression.class);
+    FilterExpression filterExpression = EasyMock.createMock(FilterExpression.class);
+    try {
+      EasyMock.expect(edmMapping.getInternalName()).andStubReturn("Field1");
+      EasyMock.expect(property.getName()).andStubReturn("Field1");
+      EasyMock.expect(property.getMapping()).andStubReturn(edmMapping);
+      EasyMock.expect(edmEntitySet.getName()).andStubReturn("SalesOrderHeaders");
+      EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+      EasyMock.expect(edmEntityType.getMapping()).andStubReturn(null);
+      EasyMock.expect(edmEntityType.getName()).andStubReturn("SalesOrderHeader");
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.expect(propertyExpression.getKind()).andStubReturn(ExpressionKind.PROPERTY);
+    EasyMock.expect(propertyExpression.getEdmProperty()).andStubReturn(property);
+    EasyMock.expect(literalExpression.getKind()).andStubReturn(ExpressionKind.LITERAL);
+    EasyMock.expect(literalExpression.getUriLiteral()).andStubReturn("null");
+    EasyMock.expect(literalExpression.getEdmType()).andStubReturn(EdmSimpleTypeKind.Null.getEdmSimpleTypeInstance());
+    EasyMock.expect(binaryExpression.getKind()).andStubReturn(ExpressionKind.BINARY);
+    EasyMock.expect(binaryExpression.getOperator()).andStubReturn(operator);
+    EasyMock.expect(binaryExpression.getLeftOperand()).andStubReturn(propertyExpression);
+    EasyMock.expect(binaryExpression.getRightOperand()).andStubReturn(literalExpression);
+    EasyMock.expect(filterExpression.getKind()).andStubReturn(ExpressionKind.FILTER);
+    EasyMock.expect(filterExpression.getExpression()).andStubReturn(binaryExpression);
+    EasyMock.expect(getEntitySetView.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(getEntitySetView.getFilter()).andStubReturn(filterExpression);
+    EasyMock.replay(edmMapping, property, edmEntityType, edmEntitySet, propertyExpression, literalExpression,
+        binaryExpression, filterExpression, getEntitySetView);
+    return getEntitySetView;
+  }
+
+  private GetEntitySetUriInfo getEntitySetUriInfo(final String literal1, final String literal2, final boolean built) {
+    GetEntitySetUriInfo getEntitySetView = EasyMock.createMock(GetEntitySetUriInfo.class);
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    BinaryExpression orExpression = EasyMock.createMock(BinaryExpression.class);
+    FilterExpression filterExpression = EasyMock.createMock(FilterExpression.class);
+    try {
+      EasyMock.expect(edmEntitySet.getName()).andStubReturn("SalesOrderHeaders");
+      EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+      EasyMock.expect(edmEntityType.getMapping()).andStubReturn(null);
+      EasyMock.expect(edmEntityType.getName()).andStubReturn("SalesOrderHeader");
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.expect(orExpression.getKind()).andStubReturn(ExpressionKind.BINARY);
+    EasyMock.expect(orExpression.getOperator()).andStubReturn(BinaryOperator.OR);
+    EasyMock.expect(orExpression.getLeftOperand()).andStubReturn(getEqualsExpression("Field1", literal1));
+    EasyMock.expect(orExpression.getRightOperand()).andStubReturn(getEqualsExpression("Field2", literal2));
+    EasyMock.expect(filterExpression.getKind()).andStubReturn(ExpressionKind.FILTER);
+    EasyMock.expect(filterExpression.getExpression()).andStubReturn(orExpression);
+    EasyMock.expect(getEntitySetView.getFilter()).andStubReturn(filterExpression);
+    EasyMock.expect(getEntitySetView.getOrderBy()).andStubReturn(null);
+    EasyMock.expect(getEntitySetView.getTop()).andStubReturn(null);
+    EasyMock.expect(getEntitySetView.getSkip()).andStubReturn(null);
+    // the target entity set is read for the cache key and once more if the statement is built
+    EasyMock.expect(getEntitySetView.getTargetEntitySet()).andReturn(edmEntitySet).times(built ? 2 : 1);
+    EasyMock.replay(edmEntityType, edmEntitySet, orExpression, filterExpression, getEntitySetView);
+    return getEntitySetView;
+  }
+
+  private BinaryExpression getEqualsExpression(final String field, final String literal) {
+    EdmProperty property = EasyMock.createMock(EdmProperty.class);
+    EdmMapping edmMapping = EasyMock.createMock(EdmMapping.class);
+    PropertyExpression propertyExpression = EasyMock.createMock(PropertyExpression.class);
+    LiteralExpression literalExpression = EasyMock.createMock(LiteralExpression.class);
+    BinaryExpression binaryExpression = EasyMock.createMock(BinaryExpression.class);
+    try {
+      EasyMock.expect(edmMapping.getInternalName()).andStubReturn(field);
+      EasyMock.expect(property.getName()).andStubReturn(field);
+      EasyMock.expect(property.getMapping()).andStubReturn(edmMapping);
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    EasyMock.expect(propertyExpression.getKind()).andStubReturn(ExpressionKind.PROPERTY);
+    EasyMock.expect(propertyExpression.getEdmProperty()).andStubReturn(property);
+    EasyMock.expect(literalExpression.getKind()).andStubReturn(ExpressionKind.LITERAL);
+    EasyMock.expect(literalExpression.getUriLiteral()).andStubReturn(literal);
+    EasyMock.expect(literalExpression.getEdmType()).andStubReturn(EdmSimpleTypeKind.Int32.getEdmSimpleTypeInstance());
+    EasyMock.expect(binaryExpression.getKind()).andStubReturn(ExpressionKind.BINARY);
+    EasyMock.expect(binaryExpression.getOperator()).andStubReturn(BinaryOperator.EQ);
+    EasyMock.expect(binaryExpression.getLeftOperand()).andStubReturn(propertyExpression);
+    EasyMock.expect(binaryExpression.getRightOperand()).andStubReturn(literalExpression);
+    EasyMock.replay(edmMapping, property, propertyExpression, literalExpression, binaryExpression);
+    return binaryExpression;
+  }
+
+  private GetEntityUriInfo getEntityUriInfo(final String keyLiteral, final boolean built) {
+    GetEntityUriInfo getEntityView = EasyMock.createMock(GetEntityUriInfo.class);
+    EdmEntitySet edmEntitySet = EasyMock.createMock(EdmEntitySet.class);
+    EdmEntityType edmEntityType = EasyMock.createMock(EdmEntityType.class);
+    KeyPredicate keyPredicate = EasyMock.createMock(KeyPredicate.class);
+    EdmProperty kpProperty = EasyMock.createMock(EdmProperty.class);
+    EdmMapping edmMapping = EasyMock.createMock(EdmMapping.class);
+    try {
+      EasyMock.expect(edmMapping.getInternalName()).andStubReturn("Field1");
+      EasyMock.expect(keyPredicate.getLiteral()).andStubReturn(keyLiteral);
+      EasyMock.expect(kpProperty.getName()).andStubReturn("Field1");
+      EasyMock.expect(kpProperty.getType()).andStubReturn(EdmSimpleTypeKind.Int32.getEdmSimpleTypeInstance());
+      EasyMock.expect(kpProperty.getMapping()).andStubReturn(edmMapping);
+      EasyMock.expect(keyPredicate.getProperty()).andStubReturn(kpProperty);
+      EasyMock.expect(edmEntitySet.getName()).andStubReturn("SalesOrderHeaders");
+      EasyMock.expect(edmEntitySet.getEntityType()).andStubReturn(edmEntityType);
+      EasyMock.expect(edmEntityType.getMapping()).andStubReturn(null);
+      EasyMock.expect(edmEntityType.getName()).andStubReturn("SalesOrderHeader");
+    } catch (EdmException e) {
+      fail(ODataJPATestConstants.EXCEPTION_MSG_PART_1 + e.getMessage() + ODataJPATestConstants.EXCEPTION_MSG_PART_2);
+    }
+    List<KeyPredicate> keyPredicates = new ArrayList<KeyPredicate>();
+    keyPredicates.add(keyPredicate);
+    EasyMock.expect(getEntityView.getTargetEntitySet()).andStubReturn(edmEntitySet);
+    EasyMock.expect(getEntityView.getSelect()).andStubReturn((List<SelectItem>) null);
+    // the key predicates are read for the cache key and once more if the statement is built
+    EasyMock.expect(getEntityView.getKeyPredicates()).andReturn(keyPredicates).times(built ? 2 : 1);
+    EasyMock.replay(edmMapping, kpProperty, keyPredicate, edmEntityType, edmEntitySet, getEntityView);
+    return getEntityView;
+  }
+}
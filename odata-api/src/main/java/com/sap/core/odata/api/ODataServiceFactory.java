@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.sap.core.odata.api;
 
+import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.processor.ODataContext;
@@ -43,6 +44,13 @@ public abstract class ODataServiceFactory {
    */
   public static final String PATH_SPLIT_LABEL = "com.sap.core.odata.path.split";
 
+  /**
+   * Label used in web.xml to assign servlet init parameter for the minimum size in bytes
+   * of response content to be compressed if the client accepts it, e.g., 1024;
+   * response compression is switched off if the parameter is not set or negative.
+   */
+  public static final String COMPRESSION_THRESHOLD_LABEL = "com.sap.core.odata.compression.threshold";
+
   /**
    * Create instance of custom {@link ODataService}.
    * @param ctx OData context object
@@ -61,6 +69,32 @@ public abstract class ODataServiceFactory {
     return RuntimeDelegate.createODataSingleProcessorService(provider, processor);
   }
 
+  /**
+   * <p>Create a default service instance based on <code>ODataSingleProcessor</code>
+   * whose entity data model is shared with all other services created with the same key.</p>
+   * <p>The entity data model is built from the provider only once, when the first service
+   * for the key is created, so the provider must deliver the same metadata for the same key.
+   * Use {@link #invalidateSharedEntityDataModel(String)} if the metadata change.</p>
+   * @param key A key identifying the entity data model, e.g., the name of the service.
+   * @param provider A custom <code>EdmProvider</code> implementation.
+   * @param processor A custom processor implementation derived from <code>ODataSingleProcessor</code> .
+   * @return A new default <code>ODataSingleProcessorService</code> instance.
+   * @throws ODataException if the entity data model could not be built
+   */
+  public ODataService createODataSingleProcessorService(final String key, final EdmProvider provider, final ODataSingleProcessor processor) throws ODataException {
+    final Edm edm = RuntimeDelegate.getSharedEdm(key, provider);
+    return RuntimeDelegate.createODataSingleProcessorService(edm, processor);
+  }
+
+  /**
+   * Discard the shared entity data model for the given key; it is built again
+   * when the next service for this key is created.
+   * @param key A key identifying the entity data model.
+   */
+  public static void invalidateSharedEntityDataModel(final String key) {
+    RuntimeDelegate.invalidateSharedEdm(key);
+  }
+
   /**
    * A service can return implementation classes for various callback interfaces.
    * @param callbackInterface a interface type to query for implementation
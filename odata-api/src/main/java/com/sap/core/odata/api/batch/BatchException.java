@@ -88,6 +88,9 @@ public class BatchException extends ODataMessageException {
   /** INVALID_REQUEST_LINE requires 1 content value ('request line') */
   public static final MessageReference INVALID_REQUEST_LINE = createMessageReference(BatchException.class, "INVALID_REQUEST_LINE");
 
+  /** LINE_TOO_LONG requires 1 content value ('maximum line length') */
+  public static final MessageReference LINE_TOO_LONG = createMessageReference(BatchException.class, "LINE_TOO_LONG");
+
   public BatchException(final MessageReference messageReference) {
     super(messageReference);
   }
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.batch;
+
+import java.util.concurrent.Executor;
+
+import com.sap.core.odata.api.ODataCallback;
+import com.sap.core.odata.api.ODataServiceFactory;
+
+/**
+ * Configures the execution of Batch Requests for a service.
+ * <p>If the {@link ODataServiceFactory} provides this callback, the Query Operations of a
+ * Batch Request are executed concurrently by the given executor
+ * if the batch processor uses
+ * {@link com.sap.core.odata.api.processor.ODataSingleProcessor#executeBatchParts(BatchHandler, String, java.io.InputStream)}.
+ * Change Sets are executed one after the other and only when all preceding parts are finished;
+ * the responses keep the order of the requests.</p>
+ * <p>Each concurrently executed Query Operation is handled by its own service created with
+ * {@link ODataServiceFactory#createService(com.sap.core.odata.api.processor.ODataContext)},
+ * so the factory must return a new service instance for every call
+ * and these services must work on the same data.</p>
+ * @author SAP AG
+ */
+public interface BatchExecutionCallback extends ODataCallback {
+
+  /**
+   * Get the executor for Query Operations, e.g., a thread pool shared by all requests of the service.
+   * @return an {@link Executor} or <code>null</code> if all parts are executed sequentially
+   */
+  Executor getExecutor();
+
+  /**
+   * Get the maximum number of Query Operations of one Batch Request which are executed at the same time.
+   * @return the parallelism; values lower than 2 result in sequential execution
+   */
+  int getParallelism();
+}
@@ -34,6 +34,18 @@ public interface EdmServiceMetadata {
    */
   InputStream getMetadata() throws ODataException;
 
+  /**
+   * @return {@link InputStream} containing the gzip-compressed metadata document
+   * @throws ODataException
+   */
+  InputStream getCompressedMetadata() throws ODataException;
+
+  /**
+   * @return <b>String</b> strong entity tag of the metadata document, including the quotes
+   * @throws ODataException
+   */
+  String getMetadataETag() throws ODataException;
+
   /**
    * @return <b>String</b> data service version of this service
    * @throws ODataException
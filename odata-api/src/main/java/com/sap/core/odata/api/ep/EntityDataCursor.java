@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.ep;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <p>Source of the entity data of a feed which is consumed one entry at a time.</p>
+ * <p>Each call of {@link #next()} returns the data of the next entry as {@link Map}
+ * with all properties [as <code>property name</code> to <code>property value</code> mapping],
+ * in the same form as the entries of the {@link java.util.List} accepted by
+ * {@link EntityProvider#writeFeed(String, com.sap.core.odata.api.edm.EdmEntitySet, java.util.List, EntityProviderWriteProperties)}.
+ * This allows to feed the serialization directly from a database cursor or any other lazy
+ * source without materializing all entries first.</p>
+ * <p>The entity provider closes the cursor as soon as all entries have been written or writing has failed.
+ * If the feed is written in streaming mode (see {@link EntityProviderWriteProperties#isStreaming()})
+ * this happens when the response content has been read completely or the response has been closed.</p>
+ * <p>The {@link Iterator#remove()} operation is never called by the entity provider.</p>
+ * @author SAP AG
+ */
+public interface EntityDataCursor extends Iterator<Map<String, Object>>, Closeable {
+
+}
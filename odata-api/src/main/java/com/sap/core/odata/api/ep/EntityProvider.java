@@ -29,6 +29,7 @@ import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataErrorContext;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.rt.RuntimeDelegate;
@@ -127,6 +128,22 @@ public final class EntityProvider {
      */
     ODataResponse writeFeed(String contentType, EdmEntitySet entitySet, List<Map<String, Object>> data, EntityProviderWriteProperties properties) throws EntityProviderException;
 
+    /**
+     * Write the entries provided by the given <code>data</code> cursor (one {@link Map} for each entity
+     * with all properties [as <code>property name</code> to <code>property value</code> mapping]) as feed
+     * in the specified format (given as <code>contentType</code>) based on given <code>entity data model for an entity set</code>
+     * (given as {@link EdmEntitySet}) and <code>properties</code> for this entity provider (given as {@link EntityProviderWriteProperties}).
+     * The entries are consumed one at a time; the cursor is closed after the last entry has been written.
+     * 
+     * @param contentType format in which the feed should be written
+     * @param entitySet entity data model for given entity data set
+     * @param data cursor over the entries in form of a {@link Map} for each entity
+     * @param properties additional properties necessary for writing of data 
+     * @return resulting {@link ODataResponse} with written feed content.
+     * @throws EntityProviderException if writing of data (serialization) fails
+     */
+    ODataResponse writeFeed(String contentType, EdmEntitySet entitySet, EntityDataCursor data, EntityProviderWriteProperties properties) throws EntityProviderException;
+
     /**
      * Write given <code>data</code> (which is given in form of a {@link Map} for which contains all properties 
      * as <code>property name</code> to <code>property value</code> mapping) for the entry in the specified
@@ -216,6 +233,20 @@ public final class EntityProvider {
      */
     ODataFeed readFeed(String contentType, EdmEntitySet entitySet, InputStream content, EntityProviderReadProperties properties) throws EntityProviderException;
 
+    /**
+     * Read (de-serialize) a data feed from <code>content</code> (as {@link InputStream}) in specified format (given as <code>contentType</code>)
+     * based on <code>entity data model</code> (given as {@link EdmEntitySet}) entry by entry.
+     * Each entry (as {@link ODataEntry}) is read when it is requested from the returned reader.
+     * 
+     * @param contentType format of content in the given input stream.
+     * @param entitySet entity data model for entity set to be read
+     * @param content feed data in form of an {@link InputStream} which contains the data in specified format
+     * @param properties additional properties necessary for reading content from {@link InputStream} into {@link Map}.
+     * @return {@link ODataFeedReader} which has to be closed after use
+     * @throws EntityProviderException if the start of the feed could not be read
+     */
+    ODataFeedReader readFeedEntries(String contentType, EdmEntitySet entitySet, InputStream content, EntityProviderReadProperties properties) throws EntityProviderException;
+
     /**
      * Read (de-serialize) data from <code>content</code> (as {@link InputStream}) in specified format (given as <code>contentType</code>)
      * based on <code>entity data model</code> (given as {@link EdmEntitySet}) and provide this data as {@link ODataEntry}.
@@ -333,6 +364,7 @@ public final class EntityProvider {
     /**
      * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}.
      * Batch Response body matches one-to-one with the corresponding Batch Request body
+     * <p>The body is an {@link InputStream} which is produced part by part while it is read.</p>
      * 
      * @param batchResponseParts a list of {@link BatchResponsePart}
      * @return Batch Response as {@link ODataResponse}
@@ -441,6 +473,26 @@ public final class EntityProvider {
     return createEntityProvider().writeFeed(contentType, entitySet, data, properties);
   }
 
+  /**
+   * Write the entries provided by the given <code>data</code> cursor (one {@link Map} for each entity
+   * with all properties [as <code>property name</code> to <code>property value</code> mapping]) as feed
+   * in the specified format (given as <code>contentType</code>) based on given <code>entity data model for an entity set</code>
+   * (given as {@link EdmEntitySet}) and <code>properties</code> for this entity provider (given as {@link EntityProviderWriteProperties}).
+   * The entries are consumed one at a time; the cursor is closed after the last entry has been written.
+   * Combined with {@link EntityProviderWriteProperties#isStreaming() streaming mode} the feed is written
+   * with constant memory consumption.
+   * 
+   * @param contentType format in which the feed should be written
+   * @param entitySet entity data model for given entity data set
+   * @param data cursor over the entries in form of a {@link Map} for each entity
+   * @param properties additional properties necessary for writing of data 
+   * @return resulting {@link ODataResponse} with written feed content.
+   * @throws EntityProviderException if writing of data (serialization) fails
+   */
+  public static ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet, final EntityDataCursor data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    return createEntityProvider().writeFeed(contentType, entitySet, data, properties);
+  }
+
   /**
    * Write given <code>data</code> (which is given in form of a {@link Map} for which contains all properties 
    * as <code>property name</code> to <code>property value</code> mapping) for the entry in the specified
@@ -542,6 +594,23 @@ public final class EntityProvider {
     return createEntityProvider().readFeed(contentType, entitySet, content, properties);
   }
 
+  /**
+   * Read (de-serialize) a data feed from <code>content</code> (as {@link InputStream}) in specified format (given as <code>contentType</code>)
+   * based on <code>entity data model</code> (given as {@link EdmEntitySet}) entry by entry.
+   * Each entry (as {@link ODataEntry}) is read when it is requested from the returned reader,
+   * so that memory consumption does not depend on the number of entries.
+   * 
+   * @param contentType format of content in the given input stream.
+   * @param entitySet entity data model for entity set to be read
+   * @param content feed data in form of an {@link InputStream} which contains the data in specified format
+   * @param properties additional properties necessary for reading content from {@link InputStream} into {@link Map}. Must not be null.
+   * @return {@link ODataFeedReader} which has to be closed after use
+   * @throws EntityProviderException if the start of the feed could not be read
+   */
+  public static ODataFeedReader readFeedEntries(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return createEntityProvider().readFeedEntries(contentType, entitySet, content, properties);
+  }
+
   /**
    * Read (de-serialize) data from <code>content</code> (as {@link InputStream}) in specified format (given as <code>contentType</code>)
    * based on <code>entity data model</code> (given as {@link EdmEntitySet}) and provide this data as {@link ODataEntry}.
@@ -683,6 +752,7 @@ public final class EntityProvider {
   /**
    * Write responses of Batch Response Parts in Batch Response as {@link ODataResponse}.
    * Batch Response body matches one-to-one with the corresponding Batch Request body
+   * <p>The body is an {@link InputStream} which is produced part by part while it is read.</p>
    * 
    * @param batchResponseParts a list of {@link BatchResponsePart}
    * @return Batch Response as {@link ODataResponse}
@@ -32,11 +32,12 @@ public class EntityProviderWriteProperties {
   private URI serviceRoot;
   private String mediaResourceMimeType;
   private InlineCount inlineCountType;
-  private Integer inlineCount;
+  private Long inlineCount;
   private String nextLink;
   private ExpandSelectTreeNode expandSelectTree;
   private Map<String, ODataCallback> callbacks = Collections.emptyMap();
   private URI selfLink;
+  private boolean streaming;
 
   private EntityProviderWriteProperties() {}
 
@@ -86,10 +87,10 @@ public class EntityProviderWriteProperties {
 
   /**
   * Gets the inlinecount.
-   * @return the inlinecount as Integer
+   * @return the inlinecount as Long
    * @see #getInlineCountType
    */
-  public final Integer getInlineCount() {
+  public final Long getInlineCount() {
     return inlineCount;
   }
 
@@ -101,6 +102,15 @@ public class EntityProviderWriteProperties {
     return nextLink;
   }
 
+  /**
+   * Gets whether feeds are written in streaming mode, i.e., serialized entry by entry
+   * while the response content is read instead of completely before the response is returned.
+   * @return <code>true</code> if streaming mode is requested
+   */
+  public final boolean isStreaming() {
+    return streaming;
+  }
+
   public static ODataEntityProviderPropertiesBuilder serviceRoot(final URI serviceRoot) {
     return new ODataEntityProviderPropertiesBuilder().serviceRoot(serviceRoot);
   }
@@ -127,11 +137,19 @@ public class EntityProviderWriteProperties {
     /**
      * @param inlineCount  the inlineCount to set
      */
-    public final ODataEntityProviderPropertiesBuilder inlineCount(final Integer inlineCount) {
+    public final ODataEntityProviderPropertiesBuilder inlineCount(final Long inlineCount) {
       properties.inlineCount = inlineCount;
       return this;
     }
 
+    /**
+     * @param inlineCount  the inlineCount to set
+     */
+    public final ODataEntityProviderPropertiesBuilder inlineCount(final Integer inlineCount) {
+      properties.inlineCount = inlineCount == null ? null : Long.valueOf(inlineCount.longValue());
+      return this;
+    }
+
     /**
      * @param serviceRoot
      */
@@ -177,6 +195,20 @@ public class EntityProviderWriteProperties {
       return this;
     }
 
+    /**
+     * Requests streaming mode for writing feeds.
+     * In streaming mode the entries are serialized only when the response content is read
+     * (e.g., by the servlet container), so memory consumption does not depend on the feed size.
+     * Errors during serialization of the entries can then no longer be reported as
+     * error document but only as {@link java.io.IOException} while reading the content.
+     * @param streaming <code>true</code> to write feeds in streaming mode
+     * @return properties builder
+     */
+    public ODataEntityProviderPropertiesBuilder streaming(final boolean streaming) {
+      properties.streaming = streaming;
+      return this;
+    }
+
     public ODataEntityProviderPropertiesBuilder fromProperties(final EntityProviderWriteProperties properties) {
       this.properties.mediaResourceMimeType = properties.getMediaResourceMimeType();
       this.properties.inlineCountType = properties.getInlineCountType();
@@ -185,6 +217,7 @@ public class EntityProviderWriteProperties {
       this.properties.expandSelectTree = properties.getExpandSelectTree();
       this.properties.callbacks = properties.getCallbacks();
       this.properties.selfLink = properties.getSelfLink();
+      this.properties.streaming = properties.isStreaming();
       return this;
     }
 
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.ep.feed;
+
+import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
+
+/**
+ * An {@link ODataFeedReader} provides the {@link ODataEntry}s of a feed one after the other.
+ * <p>An entry is read not before it is requested, so that only one entry at a time
+ * has to be kept in memory and processing can start before the complete feed has been received.</p>
+ * @author SAP AG
+ */
+public interface ODataFeedReader {
+
+  /**
+   * Get the info if there is a further entry. Reads the content up to the start of the next entry.
+   * @return true or false
+   * @throws EntityProviderException if the content is not valid
+   */
+  public boolean hasNext() throws EntityProviderException;
+
+  /**
+   * Read the next entry.
+   * @return the next {@link ODataEntry}
+   * @throws EntityProviderException if the entry is not valid
+   * @throws java.util.NoSuchElementException if there is no further entry
+   */
+  public ODataEntry next() throws EntityProviderException;
+
+  /**
+   * Get the metadata of the feed read so far.
+   * Metadata may follow the entries, so it is complete only after {@link #hasNext()} has returned <code>false</code>.
+   * @return {@link FeedMetadata} object
+   */
+  public FeedMetadata getFeedMetadata();
+
+  /**
+   * Close the underlying content reader.
+   * @throws EntityProviderException if the content reader could not be closed
+   */
+  public void close() throws EntityProviderException;
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.metrics;
+
+/**
+ * Snapshot of one aggregated runtime metric, i.e., of all values recorded
+ * for one stage of request processing and one combination of URI type,
+ * HTTP method, processor, and response content type.
+ * <p>Values are distributed into buckets with exponentially growing upper bounds;
+ * the bucket with index <code>i</code> counts the values <code>v</code> with
+ * <code>2<sup>i-1</sup> &lt;= v &lt; 2<sup>i</sup></code>, the bucket with index 0 counts zeros.</p>
+ * @com.sap.core.odata.DoNotImplement
+ * @author SAP AG
+ */
+public interface ODataMetric {
+
+  /**
+   * Stages of request processing.
+   */
+  public enum Stage {
+    /** complete request handling, in microseconds */
+    REQUEST,
+    /** parsing of the request URI, in microseconds */
+    URI_PARSING,
+    /** processing of the request by the processor, in microseconds */
+    DISPATCH,
+    /** serialization of the response content by the entity provider, in microseconds */
+    SERIALIZATION,
+    /** size of the response content as sent to the client (i.e., after compression), in bytes */
+    BYTES_WRITTEN
+  }
+
+  Stage getStage();
+
+  /**
+   * Returns the name of the URI type according to the OData URI conventions,
+   * e.g., <code>URI1</code> for an entity set.
+   * @return the URI type or <code>null</code> if the URI could not be parsed
+   */
+  String getUriType();
+
+  /**
+   * @return the HTTP method or <code>null</code> if unknown
+   */
+  String getHttpMethod();
+
+  /**
+   * Returns the simple name of the processor interface responsible
+   * for the URI type, e.g., <code>EntitySetProcessor</code>.
+   * @return the processor name or <code>null</code> if the URI could not be parsed
+   */
+  String getProcessor();
+
+  /**
+   * @return the response content type or <code>null</code> if there is none
+   */
+  String getContentType();
+
+  /**
+   * @return the number of recorded values
+   */
+  long getCount();
+
+  /**
+   * @return the sum of all recorded values
+   */
+  long getSum();
+
+  /**
+   * @return the largest recorded value
+   */
+  long getMax();
+
+  /**
+   * @return the number of values per bucket
+   */
+  long[] getBucketCounts();
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.metrics;
+
+import java.util.List;
+
+/**
+ * Aggregated runtime metrics of all OData services running in the same class loader.
+ * <p>Metrics are always recorded; an instance is available through
+ * {@link com.sap.core.odata.api.rt.RuntimeDelegate#getMetrics()}.</p>
+ * @com.sap.core.odata.DoNotImplement
+ * @author SAP AG
+ */
+public interface ODataMetrics {
+
+  /**
+   * Returns snapshots of all metrics recorded since the start or the last reset.
+   * @return a list of metrics
+   */
+  List<ODataMetric> getMetrics();
+
+  /**
+   * Discards all recorded values.
+   */
+  void reset();
+
+  /**
+   * Registers an exporter which is called with all metrics
+   * whenever the given interval has elapsed and a request is processed.
+   * @param exporter the exporter
+   * @param intervalMillis the minimum time between two exports in milliseconds
+   */
+  void addExporter(ODataMetricsExporter exporter, long intervalMillis);
+
+  /**
+   * Unregisters an exporter.
+   * @param exporter the exporter
+   */
+  void removeExporter(ODataMetricsExporter exporter);
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.metrics;
+
+import java.util.List;
+
+/**
+ * Exports runtime metrics into a monitoring system.
+ * <p>Exporters are called from within request processing, at most once per
+ * export interval, so they should hand the metrics over quickly.
+ * The metrics are cumulative since the start or the last reset.</p>
+ * @author SAP AG
+ */
+public interface ODataMetricsExporter {
+
+  /**
+   * Exports the given metrics.
+   * @param metrics snapshots of all metrics
+   */
+  void export(List<ODataMetric> metrics);
+}
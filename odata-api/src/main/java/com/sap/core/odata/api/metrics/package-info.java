@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+/**
+ * Runtime Metrics<p>
+ * 
+ * The <b>com.sap.core.odata.api.metrics</b> package contains the interfaces for reading the
+ * aggregated runtime metrics of the OData library and for exporting them into a monitoring system.
+ * The metrics are also available through JMX as MXBean <code>com.sap.core.odata:type=Metrics</code>.
+ * <p>
+ */
+package com.sap.core.odata.api.metrics;
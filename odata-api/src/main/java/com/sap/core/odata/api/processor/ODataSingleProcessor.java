@@ -17,6 +17,7 @@ package com.sap.core.odata.api.processor;
 
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import com.sap.core.odata.api.ODataServiceVersion;
@@ -28,9 +29,11 @@ import com.sap.core.odata.api.commons.ODataHttpHeaders;
 import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmServiceMetadata;
 import com.sap.core.odata.api.ep.EntityProvider;
+import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataNotImplementedException;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
+import com.sap.core.odata.api.processor.feature.ConditionalRequest;
 import com.sap.core.odata.api.processor.feature.CustomContentType;
 import com.sap.core.odata.api.processor.part.BatchProcessor;
 import com.sap.core.odata.api.processor.part.EntityComplexPropertyProcessor;
@@ -45,6 +48,8 @@ import com.sap.core.odata.api.processor.part.FunctionImportProcessor;
 import com.sap.core.odata.api.processor.part.FunctionImportValueProcessor;
 import com.sap.core.odata.api.processor.part.MetadataProcessor;
 import com.sap.core.odata.api.processor.part.ServiceDocumentProcessor;
+import com.sap.core.odata.api.rt.RuntimeDelegate;
+import com.sap.core.odata.api.uri.UriInfo;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetComplexPropertyUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
@@ -74,7 +79,9 @@ import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
  * 
  * @author SAP AG
  */
-public abstract class ODataSingleProcessor implements MetadataProcessor, ServiceDocumentProcessor, EntityProcessor, EntitySetProcessor, EntityComplexPropertyProcessor, EntityLinkProcessor, EntityLinksProcessor, EntityMediaProcessor, EntitySimplePropertyProcessor, EntitySimplePropertyValueProcessor, FunctionImportProcessor, FunctionImportValueProcessor, BatchProcessor, CustomContentType {
+public abstract class ODataSingleProcessor implements MetadataProcessor, ServiceDocumentProcessor, EntityProcessor, EntitySetProcessor, EntityComplexPropertyProcessor, EntityLinkProcessor, EntityLinksProcessor, EntityMediaProcessor, EntitySimplePropertyProcessor, EntitySimplePropertyValueProcessor, FunctionImportProcessor, FunctionImportValueProcessor, BatchProcessor, CustomContentType, ConditionalRequest {
+
+  private static final String GZIP = "gzip";
 
   /**
    * A request context object usually injected by the OData library.
@@ -105,6 +112,24 @@ public abstract class ODataSingleProcessor implements MetadataProcessor, Service
     throw new ODataNotImplementedException();
   }
 
+  /**
+   * <p>Reads the parts of the batch request one after the other, lets the handler execute them,
+   * and writes the responses of all parts into the batch response.
+   * Query Operations are executed concurrently if the service factory provides a
+   * {@link com.sap.core.odata.api.batch.BatchExecutionCallback}.</p>
+   * <p>Sub classes supporting batch requests can implement {@link #executeBatch(BatchHandler, String, InputStream)}
+   * with this method; change sets are executed by {@link #executeChangeSet(BatchHandler, List)}.</p>
+   * @param handler the handler executing the parts
+   * @param contentType the content type of the batch request body
+   * @param content the batch request body
+   * @return the batch response
+   * @throws ODataException
+   */
+  protected ODataResponse executeBatchParts(final BatchHandler handler, final String contentType, final InputStream content) throws ODataException {
+    EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init().pathInfo(getContext().getPathInfo()).build();
+    return RuntimeDelegate.executeBatch(handler, contentType, content, batchProperties);
+  }
+
   /**
    * @throws ODataNotImplementedException 
    * @see BatchProcessor
@@ -358,8 +383,47 @@ public abstract class ODataSingleProcessor implements MetadataProcessor, Service
   @Override
   public ODataResponse readMetadata(final GetMetadataUriInfo uriInfo, final String contentType) throws ODataException {
     final EdmServiceMetadata edmServiceMetadata = getContext().getService().getEntityDataModel().getServiceMetadata();
+    final boolean gzip = isGzipAccepted();
+    final ODataResponseBuilder builder = ODataResponse.status(HttpStatusCodes.OK).header(HttpHeaders.CONTENT_TYPE, contentType).header(ODataHttpHeaders.DATASERVICEVERSION, edmServiceMetadata.getDataServiceVersion()).eTag(getMetadataETag(edmServiceMetadata, gzip)).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).entity(edmServiceMetadata.getCompressedMetadata()).build();
+    } else {
+      return builder.entity(edmServiceMetadata.getMetadata()).build();
+    }
+  }
 
-    return ODataResponse.status(HttpStatusCodes.OK).header(HttpHeaders.CONTENT_TYPE, contentType).header(ODataHttpHeaders.DATASERVICEVERSION, edmServiceMetadata.getDataServiceVersion()).entity(edmServiceMetadata.getMetadata()).build();
+  /**
+   * Returns the entity tag of the metadata document in the given content coding.
+   * The gzip-compressed document is a different representation, so its strong entity tag
+   * gets the suffix <code>-gzip</code> inside the quotes; the library accepts both tags
+   * in conditional requests.
+   * @param edmServiceMetadata the metadata of the service
+   * @param gzip whether the document is gzip-compressed
+   * @return the entity tag
+   * @throws ODataException
+   */
+  private static String getMetadataETag(final EdmServiceMetadata edmServiceMetadata, final boolean gzip) throws ODataException {
+    final String eTag = edmServiceMetadata.getMetadataETag();
+    return gzip && eTag != null && eTag.endsWith("\"") ?
+        eTag.substring(0, eTag.length() - 1) + "-" + GZIP + "\"" : eTag;
+  }
+
+  /**
+   * Checks whether the client accepts gzip-compressed content,
+   * according to the <code>Accept-Encoding</code> request header.
+   * @return <code>true</code> if gzip is accepted
+   */
+  private boolean isGzipAccepted() {
+    final String acceptEncoding = getContext().getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding != null) {
+      for (final String coding : acceptEncoding.split(",")) {
+        final String[] parts = coding.split(";");
+        if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+          return parts.length == 1 || !parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+        }
+      }
+    }
+    return false;
   }
 
   /**
@@ -369,4 +433,30 @@ public abstract class ODataSingleProcessor implements MetadataProcessor, Service
   public List<String> getCustomContentTypes(final Class<? extends ODataProcessor> processorFeature) throws ODataException {
     return Collections.emptyList();
   }
+
+  /**
+   * Returns the entity tags of the metadata document and of the service document
+   * as written by the default implementations of {@link #readMetadata} and {@link #readServiceDocument};
+   * processors overriding one of these methods have to override this method, too.
+   * @see ConditionalRequest
+   */
+  @Override
+  public String getETag(final Class<? extends ODataProcessor> processorFeature, final UriInfo uriInfo, final String contentType) throws ODataException {
+    if (processorFeature == MetadataProcessor.class) {
+      return getMetadataETag(getContext().getService().getEntityDataModel().getServiceMetadata(), isGzipAccepted());
+    } else if (processorFeature == ServiceDocumentProcessor.class) {
+      final Edm entityDataModel = getContext().getService().getEntityDataModel();
+      final String serviceRoot = getContext().getPathInfo().getServiceRoot().toASCIIString();
+      return EntityProvider.writeServiceDocument(contentType, entityDataModel, serviceRoot).getETag();
+    }
+    return null;
+  }
+
+  /**
+   * @see ConditionalRequest
+   */
+  @Override
+  public Date getLastModified(final Class<? extends ODataProcessor> processorFeature, final UriInfo uriInfo) throws ODataException {
+    return null;
+  }
 }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.api.processor.feature;
+
+import java.util.Date;
+
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.processor.ODataProcessor;
+import com.sap.core.odata.api.uri.UriInfo;
+
+/**
+ * Data processor feature if processor can tell the current version of a resource
+ * without reading and serializing it completely.
+ * <p>If a request contains one of the headers <code>If-Match</code>, <code>If-None-Match</code>,
+ * <code>If-Modified-Since</code>, or <code>If-Unmodified-Since</code>, the OData library asks
+ * the processor for the entity tag and the modification date of the addressed resource and
+ * evaluates the conditions before the request is dispatched. A <code>GET</code> request for
+ * an unchanged resource is answered with <code>304 Not Modified</code>, a modifying request
+ * on a changed resource is rejected with <code>412 Precondition Failed</code>; in both cases
+ * the processor method is not called at all.</p>
+ * <p>If the processor cannot tell the entity tag of a resource read with <code>GET</code>,
+ * <code>If-None-Match</code> is evaluated against the entity tag of the response instead.</p>
+ * <p>Requests without these headers do not call the methods of this feature.</p>
+ * 
+ * @author SAP AG
+ */
+public interface ConditionalRequest extends ODataProcessorFeature {
+
+  /**
+   * Returns the current entity tag of the resource addressed by the URI,
+   * exactly as it would be sent in the <code>ETag</code> response header,
+   * e.g., <code>W/"1"</code>.
+   * <p>A normal return means that the resource exists, which is all the condition
+   * <code>If-None-Match: *</code> of a modifying request depends on.</p>
+   * @param processorFeature the processor feature the request will be dispatched to
+   * @param uriInfo information about the request URI
+   * @param contentType the content type the response would have
+   * @return the entity tag or <code>null</code> if the resource has no entity tag
+   *         or the processor evaluates the entity-tag conditions itself
+   * @throws ODataException if the resource could not be accessed;
+   *                        if it does not exist, as {@link com.sap.core.odata.api.exception.ODataNotFoundException ODataNotFoundException}
+   */
+  public String getETag(Class<? extends ODataProcessor> processorFeature, UriInfo uriInfo, String contentType) throws ODataException;
+
+  /**
+   * Returns the date of the last modification of the resource addressed by the URI.
+   * @param processorFeature the processor feature the request will be dispatched to
+   * @param uriInfo information about the request URI
+   * @return the modification date or <code>null</code> if it is not known
+   *         or the processor evaluates the date conditions itself
+   * @throws ODataException if the resource could not be accessed
+   */
+  public Date getLastModified(Class<? extends ODataProcessor> processorFeature, UriInfo uriInfo) throws ODataException;
+}
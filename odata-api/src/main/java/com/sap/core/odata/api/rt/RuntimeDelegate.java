@@ -18,6 +18,7 @@ package com.sap.core.odata.api.rt;
 import java.io.InputStream;
 
 import com.sap.core.odata.api.ODataService;
+import com.sap.core.odata.api.batch.BatchHandler;
 import com.sap.core.odata.api.batch.BatchResponsePart.BatchResponsePartBuilder;
 import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmSimpleType;
@@ -25,7 +26,11 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeFacade;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
 import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
+import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.metrics.ODataMetrics;
+import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.processor.ODataSingleProcessor;
 import com.sap.core.odata.api.uri.UriParser;
@@ -82,14 +87,24 @@ public abstract class RuntimeDelegate {
 
     protected abstract Edm createEdm(EdmProvider provider);
 
+    protected abstract Edm getSharedEdm(String key, EdmProvider provider) throws ODataException;
+
+    protected abstract void invalidateSharedEdm(String key);
+
+    protected abstract ODataMetrics getMetrics();
+
     protected abstract EntityProviderInterface createEntityProvider();
 
     protected abstract ODataService createODataSingleProcessorService(EdmProvider provider, ODataSingleProcessor processor);
 
+    protected abstract ODataService createODataSingleProcessorService(Edm edm, ODataSingleProcessor processor);
+
     protected abstract EdmProvider createEdmProvider(InputStream metadataXml, boolean validate) throws EntityProviderException;
 
     protected abstract BatchResponsePartBuilder createBatchResponsePartBuilder();
 
+    protected abstract ODataResponse executeBatch(BatchHandler handler, String contentType, InputStream content, EntityProviderBatchProperties properties) throws ODataException;
+
   }
 
   /**
@@ -126,6 +141,36 @@ public abstract class RuntimeDelegate {
     return RuntimeDelegate.getInstance().createEdm(provider);
   }
 
+  /**
+   * Returns an entity data model shared by all services using the same key.
+   * The model is created from the provider only if there is no model for the key yet;
+   * it is completely resolved at creation time and can be accessed concurrently.
+   * @param key a key identifying the model, e.g., the name of the service
+   * @param provider a provider implemented by the OData service
+   * @return an implementation object
+   * @throws ODataException if the model could not be created
+   */
+  public static Edm getSharedEdm(final String key, final EdmProvider provider) throws ODataException {
+    return RuntimeDelegate.getInstance().getSharedEdm(key, provider);
+  }
+
+  /**
+   * Discards the shared entity data model for the given key,
+   * e.g., after the metadata of the service have changed.
+   * @param key a key identifying the model
+   */
+  public static void invalidateSharedEdm(final String key) {
+    RuntimeDelegate.getInstance().invalidateSharedEdm(key);
+  }
+
+  /**
+   * Returns the runtime metrics aggregated over all requests.
+   * @return an implementation object
+   */
+  public static ODataMetrics getMetrics() {
+    return RuntimeDelegate.getInstance().getMetrics();
+  }
+
   /**
    * Returns an parser which can parse OData uris based on metadata.
    * @param edm metadata of the implemented service
@@ -153,6 +198,16 @@ public abstract class RuntimeDelegate {
     return RuntimeDelegate.getInstance().createODataSingleProcessorService(provider, processor);
   }
 
+  /**
+   * Creates and returns a single processor service for an existing entity data model. 
+   * @param edm the entity data model of the OData service
+   * @param processor a single data processor implementation of the OData service
+   * @return a implementation object
+   */
+  public static ODataService createODataSingleProcessorService(final Edm edm, final ODataSingleProcessor processor) {
+    return RuntimeDelegate.getInstance().createODataSingleProcessorService(edm, processor);
+  }
+
   /**
    * Creates and returns an edm provider. 
    * @param metadataXml a metadata xml input stream (means the metadata document)
@@ -175,4 +230,18 @@ public abstract class RuntimeDelegate {
   public static BatchResponsePartBuilder createBatchResponsePartBuilder() {
     return RuntimeDelegate.getInstance().createBatchResponsePartBuilder();
   }
+
+  /**
+   * Reads the parts of a batch request body one after the other, lets the handler execute them,
+   * and writes the batch response.
+   * @param handler the handler executing the parts
+   * @param contentType the content type of the batch request body
+   * @param content the batch request body
+   * @param properties additional properties necessary for parsing. Must not be null.
+   * @return the batch response
+   * @throws ODataException
+   */
+  public static ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content, final EntityProviderBatchProperties properties) throws ODataException {
+    return RuntimeDelegate.getInstance().executeBatch(handler, contentType, content, properties);
+  }
 }
@@ -50,13 +50,17 @@ public interface CommonExpression extends Visitable {
    * will return Edm.Byte and not Edm.Int16 because the parser performs no real 
    * addition.<br>
    * <br>
-   * <p>However, the application may change this type while evaluating the 
-   * expression tree.
+   * <p>Expression trees can be shared by several requests, e.g., when the
+   * library caches parsed expressions for an entity data model which is shared
+   * by all requests of a service; the application must therefore not change
+   * this type while evaluating the expression tree.
    */
   EdmType getEdmType();
 
   /**
-   * Set the edmType of this expression node
+   * Set the edmType of this expression node.
+   * This is intended for expression parsers only; expression trees taken from
+   * {@link com.sap.core.odata.api.uri.UriInfo} must not be changed.
    * @param edmType Type to be set
    * @return A self reference for method chaining"
    */
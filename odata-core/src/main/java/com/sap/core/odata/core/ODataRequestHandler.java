@@ -32,6 +32,7 @@ import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataMethodNotAllowedException;
 import com.sap.core.odata.api.exception.ODataUnsupportedMediaTypeException;
+import com.sap.core.odata.api.metrics.ODataMetric.Stage;
 import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.processor.ODataProcessor;
 import com.sap.core.odata.api.processor.ODataRequest;
@@ -52,6 +53,7 @@ import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.commons.ContentType.ODataFormat;
 import com.sap.core.odata.core.debug.ODataDebugResponseWrapper;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
+import com.sap.core.odata.core.metrics.RequestMetrics;
 import com.sap.core.odata.core.uri.UriInfoImpl;
 import com.sap.core.odata.core.uri.UriParserImpl;
 import com.sap.core.odata.core.uri.UriType;
@@ -64,6 +66,7 @@ public class ODataRequestHandler {
   private final ODataServiceFactory serviceFactory;
   private final ODataService service;
   private final ODataContext context;
+  private RequestMetrics metrics;
 
   public ODataRequestHandler(final ODataServiceFactory factory, final ODataService service, final ODataContext context) {
     serviceFactory = factory;
@@ -81,8 +84,9 @@ public class ODataRequestHandler {
   public ODataResponse handle(final ODataRequest request) {
     UriInfoImpl uriInfo = null;
     Exception exception = null;
-    ODataResponse odataResponse;
+    ODataResponse odataResponse = null;
     final int timingHandle = context.startRuntimeMeasurement("ODataRequestHandler", "handle");
+    metrics = RequestMetrics.start(request.getMethod());
     try {
       UriParser uriParser = new UriParserImpl(service.getEntityDataModel());
       Dispatcher dispatcher = new Dispatcher(serviceFactory, service);
@@ -93,8 +97,11 @@ public class ODataRequestHandler {
 
       final List<PathSegment> pathSegments = context.getPathInfo().getODataSegments();
       int timingHandle2 = context.startRuntimeMeasurement("UriParserImpl", "parse");
+      long stageStarted = System.nanoTime();
       uriInfo = (UriInfoImpl) uriParser.parse(pathSegments, request.getQueryParameters());
+      metrics.stop(Stage.URI_PARSING, stageStarted);
       context.stopRuntimeMeasurement(timingHandle2);
+      metrics.setUriType(uriInfo.getUriType().name(), Dispatcher.mapUriTypeToProcessorFeature(uriInfo).getSimpleName());
 
       final ODataHttpMethod method = request.getMethod();
       final UriType uriType = uriInfo.getUriType();
@@ -107,9 +114,18 @@ public class ODataRequestHandler {
 
       final String acceptContentType = new ContentNegotiator().doContentNegotiation(uriInfo, request.getAcceptHeaders(), getSupportedContentTypes(uriInfo));
 
-      timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
-      odataResponse = dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType);
-      context.stopRuntimeMeasurement(timingHandle2);
+      final PreconditionChecker preconditionChecker = new PreconditionChecker(service.getProcessor(), request);
+      final ODataResponse notModifiedResponse = preconditionChecker.check(method, uriInfo, acceptContentType);
+      if (notModifiedResponse == null) {
+        timingHandle2 = context.startRuntimeMeasurement("Dispatcher", "dispatch");
+        stageStarted = System.nanoTime();
+        odataResponse = dispatcher.dispatch(method, uriInfo, request.getBody(), request.getContentType(), acceptContentType);
+        metrics.stop(Stage.DISPATCH, stageStarted);
+        context.stopRuntimeMeasurement(timingHandle2);
+        odataResponse = preconditionChecker.checkResponse(method, odataResponse);
+      } else {
+        odataResponse = notModifiedResponse;
+      }
 
       final String location = (method == ODataHttpMethod.POST && (uriType == UriType.URI1 || uriType == UriType.URI6B)) ? odataResponse.getIdLiteral() : null;
       final HttpStatusCodes s = odataResponse.getStatus() == null ? method == ODataHttpMethod.POST ? uriType == UriType.URI9 ? HttpStatusCodes.OK : uriType == UriType.URI7B ? HttpStatusCodes.NO_CONTENT : HttpStatusCodes.CREATED : method == ODataHttpMethod.PUT || method == ODataHttpMethod.PATCH || method == ODataHttpMethod.MERGE || method == ODataHttpMethod.DELETE ? HttpStatusCodes.NO_CONTENT : HttpStatusCodes.OK : odataResponse.getStatus();
@@ -125,6 +141,8 @@ public class ODataRequestHandler {
       exception = e;
       odataResponse = new ODataExceptionWrapper(context, request.getQueryParameters(), request.getAcceptHeaders())
           .wrapInExceptionResponse(e);
+    } finally {
+      metrics.finish(odataResponse);
     }
     context.stopRuntimeMeasurement(timingHandle);
 
@@ -133,6 +151,15 @@ public class ODataRequestHandler {
         odataResponse : new ODataDebugResponseWrapper(context, odataResponse, uriInfo, exception, debugValue).wrapResponse();
   }
 
+  /**
+   * Returns the metrics of the last request handled by {@link #handle(ODataRequest)},
+   * e.g., to meter the size of the response content when it is sent.
+   * @return the metrics or <code>null</code> if no request has been handled
+   */
+  public RequestMetrics getMetrics() {
+    return metrics;
+  }
+
   private String getServerDataServiceVersion() throws ODataException {
     return service.getVersion() == null ? ODataServiceVersion.V20 : service.getVersion();
   }
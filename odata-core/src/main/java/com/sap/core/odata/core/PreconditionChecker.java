@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.exception.ODataPreconditionFailedException;
+import com.sap.core.odata.api.processor.ODataProcessor;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
+import com.sap.core.odata.api.processor.feature.ConditionalRequest;
+import com.sap.core.odata.core.uri.UriInfoImpl;
+
+/**
+ * Evaluation of the conditional request headers <code>If-Match</code>, <code>If-None-Match</code>,
+ * <code>If-Modified-Since</code>, and <code>If-Unmodified-Since</code> before dispatching,
+ * for processors supporting the feature {@link ConditionalRequest}.
+ * <p>The entity tags in <code>If-Match</code> have to be identical to the current one,
+ * as usual for optimistic concurrency in OData, so weak entity tags are accepted there;
+ * the entity tags in <code>If-None-Match</code> are compared weakly.</p>
+ * <p>If the processor cannot tell the entity tag of a resource read with <code>GET</code>,
+ * <code>If-None-Match</code> is evaluated against the response in {@link #checkResponse}.
+ * The wildcard <code>*</code> matches whenever the resource exists, independent of an entity tag.</p>
+ * <p>A content-coded representation has the entity tag of the resource with the name of the
+ * content coding appended inside the quotes, e.g., <code>"1-gzip"</code>; such entity tags match
+ * the entity tag of the resource, and a <code>304 Not Modified</code> response repeats the entity tag
+ * the client has sent.</p>
+ * @author SAP AG
+ */
+public class PreconditionChecker {
+
+  private static final String ANY = "*";
+  private static final String WEAK_PREFIX = "W/";
+  private static final String[] CONTENT_CODING_SUFFIXES = { "-gzip\"", "-deflate\"" };
+  private static final String HTTP_DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+  private final ODataProcessor processor;
+  private final ODataRequest request;
+  private boolean eTagKnown;
+
+  public PreconditionChecker(final ODataProcessor processor, final ODataRequest request) {
+    this.processor = processor;
+    this.request = request;
+  }
+
+  /**
+   * Checks the conditional request headers against the current version of the addressed resource.
+   * @param method the HTTP method of the request
+   * @param uriInfo information about the request URI
+   * @param contentType the content type the response would have
+   * @return a response with status <code>304 Not Modified</code> if the resource has not been changed
+   *         since the client has read it, or <code>null</code> if the request has to be dispatched
+   * @throws ODataException if the resource could not be accessed;
+   *                        if a precondition is not fulfilled, as {@link ODataPreconditionFailedException}
+   */
+  public ODataResponse check(final ODataHttpMethod method, final UriInfoImpl uriInfo, final String contentType) throws ODataException {
+    if (method == ODataHttpMethod.POST || !(processor instanceof ConditionalRequest)) {
+      return null;
+    }
+
+    final String ifMatch = request.getRequestHeaderValue(HttpHeaders.IF_MATCH);
+    final String ifNoneMatch = request.getRequestHeaderValue(HttpHeaders.IF_NONE_MATCH);
+    final Date ifModifiedSince = method == ODataHttpMethod.GET ? parseDate(request.getRequestHeaderValue(HttpHeaders.IF_MODIFIED_SINCE)) : null;
+    final Date ifUnmodifiedSince = parseDate(request.getRequestHeaderValue(HttpHeaders.IF_UNMODIFIED_SINCE));
+    final boolean checkETag = ifMatch != null || ifNoneMatch != null;
+    final boolean checkDate = ifMatch == null && ifUnmodifiedSince != null || ifNoneMatch == null && ifModifiedSince != null;
+    if (!checkETag && !checkDate) {
+      return null;
+    }
+
+    final ConditionalRequest feature = (ConditionalRequest) processor;
+    final Class<? extends ODataProcessor> processorFeature = Dispatcher.mapUriTypeToProcessorFeature(uriInfo);
+    final String eTag = checkETag ? feature.getETag(processorFeature, uriInfo, contentType) : null;
+    final Date lastModified = checkDate ? feature.getLastModified(processorFeature, uriInfo) : null;
+    eTagKnown = eTag != null;
+
+    if (ifMatch != null) {
+      if (eTag != null && !matches(ifMatch, eTag, false)) {
+        throw new ODataPreconditionFailedException(ODataPreconditionFailedException.COMMON);
+      }
+    } else if (ifUnmodifiedSince != null && lastModified != null
+        && truncateToSeconds(lastModified) > ifUnmodifiedSince.getTime()) {
+      throw new ODataPreconditionFailedException(ODataPreconditionFailedException.COMMON);
+    }
+
+    if (ifNoneMatch != null) {
+      if (method == ODataHttpMethod.GET) {
+        final String match = eTag == null ? null : findMatch(ifNoneMatch, eTag, true);
+        if (match != null) {
+          return createNotModifiedResponse(match, null);
+        }
+      } else if (eTag != null && matches(ifNoneMatch, eTag, true)) {
+        // The processor has found the resource, so it exists; without an entity tag
+        // the existence is unknown here, so the processor has to evaluate the condition.
+        throw new ODataPreconditionFailedException(ODataPreconditionFailedException.COMMON);
+      }
+    } else if (ifModifiedSince != null && lastModified != null
+        && truncateToSeconds(lastModified) <= ifModifiedSince.getTime()) {
+      return createNotModifiedResponse(null, lastModified);
+    }
+
+    return null;
+  }
+
+  /**
+   * Evaluates <code>If-None-Match</code> for a <code>GET</code> request against the response
+   * if the entity tag of the resource has not been known before dispatching.
+   * @param method the HTTP method of the request
+   * @param response the response of the processor
+   * @return a response with status <code>304 Not Modified</code> if the response is successful
+   *         and matches the condition, or the response itself
+   */
+  public ODataResponse checkResponse(final ODataHttpMethod method, final ODataResponse response) {
+    final String ifNoneMatch = request.getRequestHeaderValue(HttpHeaders.IF_NONE_MATCH);
+    if (method != ODataHttpMethod.GET || eTagKnown || ifNoneMatch == null
+        || response.getStatus() != null && response.getStatus().getStatusCode() / 100 != 2) {
+      return response;
+    }
+
+    final String eTag = response.getETag();
+    final String match = find(ifNoneMatch, eTag, true);
+    if (match != null) {
+      try {
+        response.close();
+      } catch (final IOException e) {
+        // The content is not needed anymore.
+      }
+      return createNotModifiedResponse(ANY.equals(match) ? eTag : match, null);
+    }
+    return response;
+  }
+
+  private static ODataResponse createNotModifiedResponse(final String eTag, final Date lastModified) {
+    ODataResponseBuilder builder = ODataResponse.status(HttpStatusCodes.NOT_MODIFIED);
+    if (eTag != null) {
+      builder = builder.eTag(eTag);
+    }
+    if (lastModified != null) {
+      builder = builder.header(HttpHeaders.LAST_MODIFIED, createDateFormat().format(lastModified));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Checks whether an entity tag is contained in the comma-separated list of entity tags
+   * of a conditional request header.
+   * @param header the header value
+   * @param eTag the current entity tag or <code>null</code> if the resource has none
+   * @param weak whether the weakness indicator has to be ignored in the comparison
+   * @return <code>true</code> if the list contains the entity tag or the wildcard <code>*</code>
+   */
+  protected static boolean matches(final String header, final String eTag, final boolean weak) {
+    return find(header, eTag, weak) != null;
+  }
+
+  /**
+   * Finds the entity tag of a conditional request header matching the current entity tag
+   * of a resource that exists.
+   * @param header the header value
+   * @param eTag the current entity tag
+   * @param weak whether the weakness indicator has to be ignored in the comparison
+   * @return the matching entity tag of the header, the current entity tag for the wildcard
+   *         <code>*</code>, or <code>null</code> if nothing matches
+   */
+  protected static String findMatch(final String header, final String eTag, final boolean weak) {
+    final String tag = find(header, eTag, weak);
+    return ANY.equals(tag) ? eTag : tag;
+  }
+
+  private static String find(final String header, final String eTag, final boolean weak) {
+    final String current = eTag == null ? null : normalize(eTag, weak);
+    final int length = header.length();
+    int index = 0;
+    while (index < length) {
+      final char c = header.charAt(index);
+      if (c == ',' || c == ' ' || c == '\t') {
+        index++;
+        continue;
+      }
+      final int start = index;
+      if (header.startsWith(WEAK_PREFIX, index)) {
+        index += WEAK_PREFIX.length();
+      }
+      int end;
+      if (index < length && header.charAt(index) == '"') {
+        // The quoted string may contain commas.
+        end = header.indexOf('"', index + 1);
+        end = end < 0 ? length : end + 1;
+      } else {
+        end = header.indexOf(',', index);
+        end = end < 0 ? length : end;
+      }
+      final String tag = header.substring(start, end).trim();
+      if (ANY.equals(tag) || current != null && normalize(tag, weak).equals(current)) {
+        return tag;
+      }
+      index = end;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the entity tag of a content-coded representation of a resource.
+   * @param eTag the entity tag of the resource
+   * @param contentCoding the content coding, <code>gzip</code> or <code>deflate</code>
+   * @return the entity tag with the content coding appended inside the quotes
+   */
+  public static String getContentCodedETag(final String eTag, final String contentCoding) {
+    return eTag.endsWith("\"") ? eTag.substring(0, eTag.length() - 1) + "-" + contentCoding + "\"" : eTag;
+  }
+
+  private static String normalize(final String eTag, final boolean weak) {
+    String tag = weak ? removeWeakPrefix(eTag) : eTag;
+    for (final String suffix : CONTENT_CODING_SUFFIXES) {
+      if (tag.endsWith(suffix)) {
+        tag = tag.substring(0, tag.length() - suffix.length()) + "\"";
+        break;
+      }
+    }
+    return tag;
+  }
+
+  private static String removeWeakPrefix(final String eTag) {
+    return eTag.startsWith(WEAK_PREFIX) ? eTag.substring(WEAK_PREFIX.length()) : eTag;
+  }
+
+  private static long truncateToSeconds(final Date date) {
+    return date.getTime() - (date.getTime() % 1000 + 1000) % 1000;
+  }
+
+  /**
+   * Parses an HTTP date; invalid dates are ignored as required by RFC 2616.
+   * @param value the header value or <code>null</code>
+   * @return the date or <code>null</code> if the value is not a valid date
+   */
+  private static Date parseDate(final String value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return createDateFormat().parse(value.trim());
+    } catch (final ParseException e) {
+      return null;
+    }
+  }
+
+  private static DateFormat createDateFormat() {
+    DateFormat format = new SimpleDateFormat(HTTP_DATE_PATTERN, Locale.ENGLISH);
+    format.setTimeZone(TimeZone.getTimeZone("GMT"));
+    return format;
+  }
+}
@@ -16,10 +16,20 @@
 package com.sap.core.odata.core.batch;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.ODataServiceFactory;
+import com.sap.core.odata.api.batch.BatchException;
+import com.sap.core.odata.api.batch.BatchExecutionCallback;
 import com.sap.core.odata.api.batch.BatchHandler;
 import com.sap.core.odata.api.batch.BatchPart;
 import com.sap.core.odata.api.batch.BatchResponsePart;
@@ -28,11 +38,13 @@ import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.core.ODataContextImpl;
+import com.sap.core.odata.core.ODataExceptionWrapper;
 import com.sap.core.odata.core.ODataRequestHandler;
 
 public class BatchHandlerImpl implements BatchHandler {
   private ODataServiceFactory factory;
   private ODataService service;
+  private ODataContext batchContext;
 
   public BatchHandlerImpl(final ODataServiceFactory factory, final ODataService service) {
     this.factory = factory;
@@ -45,28 +57,178 @@ public class BatchHandlerImpl implements BatchHandler {
       List<ODataRequest> changeSetRequests = batchPart.getRequests();
       return service.getBatchProcessor().executeChangeSet(this, changeSetRequests);
     } else {
-      if (batchPart.getRequests().size() != 1) {
-        throw new ODataException("Query Operation should contain one request");
+      return handleQueryOperation(getQueryRequest(batchPart), service);
+    }
+  }
+
+  /**
+   * <p>Handles all parts provided by the reader and returns the corresponding {@link BatchResponsePart}s in the same order.</p>
+   * <p>Query Operations are executed concurrently if the service factory provides a {@link BatchExecutionCallback};
+   * otherwise the parts are handled one after the other with {@link #handleBatchPart(BatchPart)}.</p>
+   * @param batchPartReader the reader for the parts of the Batch Request
+   * @return the results in the order of the parts
+   * @throws ODataException
+   */
+  public List<BatchResponsePart> handleBatchParts(final BatchPartReader batchPartReader) throws ODataException {
+    final BatchExecutionCallback callback = factory.getCallback(BatchExecutionCallback.class);
+    final Executor executor = callback == null ? null : callback.getExecutor();
+    final int parallelism = callback == null ? 1 : callback.getParallelism();
+    List<BatchResponsePart> responseParts = new ArrayList<BatchResponsePart>();
+    BatchException readException = null;
+    if (executor == null || parallelism < 2) {
+      while (true) {
+        final BatchPart batchPart;
+        try {
+          batchPart = readNextPart(batchPartReader);
+        } catch (BatchException e) {
+          if (responseParts.isEmpty()) {
+            throw e;
+          }
+          readException = e;
+          break;
+        }
+        if (batchPart == null) {
+          break;
+        }
+        responseParts.add(handleBatchPart(batchPart));
       }
-      ODataRequest request = batchPart.getRequests().get(0);
-      ODataRequestHandler handler = createHandler(request);
-      ODataResponse response = handler.handle(request);
-      List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
-      responses.add(response);
-      return BatchResponsePart.responses(responses).changeSet(false).build();
+    } else {
+      batchContext = service.getProcessor().getContext();
+      List<Future<BatchResponsePart>> results = new ArrayList<Future<BatchResponsePart>>();
+      LinkedList<Future<BatchResponsePart>> running = new LinkedList<Future<BatchResponsePart>>();
+      try {
+        while (true) {
+          final BatchPart batchPart;
+          try {
+            batchPart = readNextPart(batchPartReader);
+          } catch (BatchException e) {
+            if (results.isEmpty()) {
+              throw e;
+            }
+            readException = e;
+            break;
+          }
+          if (batchPart == null) {
+            break;
+          }
+          if (batchPart.isChangeSet()) {
+            // a change set must see the results of all preceding parts and nothing of the following ones
+            while (!running.isEmpty()) {
+              getResult(running.removeFirst());
+            }
+            FutureTask<BatchResponsePart> task = createTask(batchPart, false);
+            task.run();
+            results.add(task);
+          } else {
+            if (running.size() >= parallelism) {
+              getResult(running.removeFirst());
+            }
+            FutureTask<BatchResponsePart> task = createTask(batchPart, true);
+            try {
+              executor.execute(task);
+            } catch (RejectedExecutionException e) {
+              task.run();
+            }
+            running.add(task);
+            results.add(task);
+          }
+        }
+        for (Future<BatchResponsePart> result : results) {
+          responseParts.add(getResult(result));
+        }
+      } finally {
+        for (Future<BatchResponsePart> result : running) {
+          result.cancel(true);
+        }
+      }
+    }
+    if (readException != null) {
+      // the parts read so far have already been executed, so their responses
+      // are returned together with the error instead of being discarded
+      responseParts.add(createErrorPart(readException));
     }
+    return responseParts;
   }
 
   @Override
   public ODataResponse handleRequest(final ODataRequest request) throws ODataException {
-    ODataRequestHandler handler = createHandler(request);
+    ODataRequestHandler handler = createHandler(request, service);
     return handler.handle(request);
   }
 
-  private ODataRequestHandler createHandler(final ODataRequest request) throws ODataException {
+  /**
+   * Handles a Query Operation concurrently to other parts of the batch request
+   * with a new service instance, because processors keep the context of the current request.
+   */
+  BatchResponsePart handleConcurrentQueryOperation(final BatchPart batchPart) throws ODataException {
+    ODataRequest request = getQueryRequest(batchPart);
+    return handleQueryOperation(request, factory.createService(new ODataContextImpl(request, factory)));
+  }
+
+  /**
+   * Reads the next part of the batch request body.
+   * @return the next part or <code>null</code> if there are no more parts
+   */
+  private BatchPart readNextPart(final BatchPartReader batchPartReader) throws BatchException {
+    return batchPartReader.hasNext() ? batchPartReader.next() : null;
+  }
+
+  private BatchResponsePart createErrorPart(final BatchException exception) throws ODataException {
+    ODataContext context = batchContext == null ? service.getProcessor().getContext() : batchContext;
+    ODataResponse response = new ODataExceptionWrapper(context, Collections.<String, String> emptyMap(), Collections.<String> emptyList())
+        .wrapInExceptionResponse(exception);
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    return BatchResponsePart.responses(responses).changeSet(false).build();
+  }
+
+  private FutureTask<BatchResponsePart> createTask(final BatchPart batchPart, final boolean concurrent) {
+    return new FutureTask<BatchResponsePart>(new Callable<BatchResponsePart>() {
+      @Override
+      public BatchResponsePart call() throws ODataException {
+        return concurrent ? handleConcurrentQueryOperation(batchPart) : handleBatchPart(batchPart);
+      }
+    });
+  }
+
+  private BatchResponsePart getResult(final Future<BatchResponsePart> result) throws ODataException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataException(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ODataException) {
+        throw (ODataException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ODataException(cause);
+    }
+  }
+
+  private ODataRequest getQueryRequest(final BatchPart batchPart) throws ODataException {
+    if (batchPart.getRequests().size() != 1) {
+      throw new ODataException("Query Operation should contain one request");
+    }
+    return batchPart.getRequests().get(0);
+  }
+
+  private BatchResponsePart handleQueryOperation(final ODataRequest request, final ODataService service) throws ODataException {
+    ODataRequestHandler handler = createHandler(request, service);
+    ODataResponse response = handler.handle(request);
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    return BatchResponsePart.responses(responses).changeSet(false).build();
+  }
+
+  private ODataRequestHandler createHandler(final ODataRequest request, final ODataService service) throws ODataException {
     ODataContextImpl context = new ODataContextImpl(request, factory);
 
-    ODataContext parentContext = service.getProcessor().getContext();
+    ODataContext parentContext = batchContext == null ? this.service.getProcessor().getContext() : batchContext;
     context.setBatchParentContext(parentContext);
 
     context.setService(service);
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import com.sap.core.odata.api.batch.BatchException;
+import com.sap.core.odata.api.exception.ODataMessageException;
+
+/**
+ * Reads a multipart body line by line directly from the bytes of the underlying stream.
+ * <p>The current line can be inspected before it is consumed, either as text
+ * (without line break) or as raw bytes (including the line break), so that
+ * request bodies are passed on unchanged.</p>
+ * <p>A line is held in memory completely, so its length is limited;
+ * a longer line results in a {@link BatchException}.</p>
+ * @author SAP AG
+ */
+class BatchLineReader {
+  private static final int BUFFER_SIZE = 8192;
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final String LINE_CHARSET = "UTF-8";
+  static final int MAX_LINE_LENGTH = 4 * 1024 * 1024;
+
+  private final InputStream in;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int position = 0;
+  private int limit = 0;
+  private boolean endOfStream = false;
+
+  private byte[] line = new byte[256];
+  private int lineLength = 0;
+  private String lineText;
+  private boolean peeked = false;
+  private boolean hasLine = false;
+
+  private final int maxLineLength;
+
+  public BatchLineReader(final InputStream in) {
+    this(in, MAX_LINE_LENGTH);
+  }
+
+  BatchLineReader(final InputStream in, final int maxLineLength) {
+    this.in = in;
+    this.maxLineLength = maxLineLength;
+  }
+
+  /**
+   * @return <code>true</code> if there is a current line
+   */
+  public boolean hasNext() throws BatchException {
+    if (!peeked) {
+      hasLine = fetchLine();
+      peeked = true;
+    }
+    return hasLine;
+  }
+
+  /**
+   * @return the current line without line break or <code>null</code> at the end of the stream;
+   *         the line is not consumed
+   */
+  public String peekLine() throws BatchException {
+    if (!hasNext()) {
+      return null;
+    }
+    if (lineText == null) {
+      try {
+        lineText = new String(line, 0, getContentLength(), LINE_CHARSET);
+      } catch (UnsupportedEncodingException e) {
+        throw new BatchException(ODataMessageException.COMMON, e);
+      }
+    }
+    return lineText;
+  }
+
+  /**
+   * Checks the start of the current line without decoding it.
+   * @param prefix ASCII characters
+   */
+  public boolean peekStartsWith(final String prefix) throws BatchException {
+    if (!hasNext() || getContentLength() < prefix.length()) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (line[i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the current line without line break or <code>null</code> at the end of the stream
+   */
+  public String readLine() throws BatchException {
+    String result = peekLine();
+    peeked = false;
+    return result;
+  }
+
+  /**
+   * Writes the bytes of the current line including its line break into the given stream
+   * and consumes the line.
+   */
+  public void readLine(final OutputStream out) throws BatchException {
+    if (hasNext()) {
+      try {
+        out.write(line, 0, lineLength);
+      } catch (IOException e) {
+        throw new BatchException(ODataMessageException.COMMON, e);
+      }
+      peeked = false;
+    }
+  }
+
+  public void close() throws BatchException {
+    try {
+      in.close();
+    } catch (IOException e) {
+      throw new BatchException(ODataMessageException.COMMON, e);
+    }
+  }
+
+  private int getContentLength() {
+    int length = lineLength;
+    if (length > 0 && line[length - 1] == LF) {
+      length--;
+      if (length > 0 && line[length - 1] == CR) {
+        length--;
+      }
+    }
+    return length;
+  }
+
+  private boolean fetchLine() throws BatchException {
+    lineLength = 0;
+    lineText = null;
+    while (true) {
+      if (position == limit && !fillBuffer()) {
+        return lineLength > 0;
+      }
+      final int start = position;
+      while (position < limit && buffer[position] != LF) {
+        position++;
+      }
+      final boolean lineBreak = position < limit;
+      if (lineBreak) {
+        position++;
+      }
+      append(start, position - start);
+      if (lineBreak) {
+        return true;
+      }
+    }
+  }
+
+  private boolean fillBuffer() throws BatchException {
+    if (endOfStream) {
+      return false;
+    }
+    try {
+      int read = in.read(buffer, 0, BUFFER_SIZE);
+      while (read == 0) {
+        read = in.read(buffer, 0, BUFFER_SIZE);
+      }
+      position = 0;
+      limit = read < 0 ? 0 : read;
+      endOfStream = read < 0;
+      return !endOfStream;
+    } catch (IOException e) {
+      throw new BatchException(ODataMessageException.COMMON, e);
+    }
+  }
+
+  private void append(final int start, final int length) throws BatchException {
+    if (lineLength + length > maxLineLength) {
+      throw new BatchException(BatchException.LINE_TOO_LONG.addContent(maxLineLength));
+    }
+    if (lineLength + length > line.length) {
+      byte[] extended = new byte[Math.min(Math.max(line.length * 2, lineLength + length), maxLineLength)];
+      System.arraycopy(line, 0, extended, 0, lineLength);
+      line = extended;
+    }
+    System.arraycopy(buffer, start, line, lineLength, length);
+    lineLength += length;
+  }
+}
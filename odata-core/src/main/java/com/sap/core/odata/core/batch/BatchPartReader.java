@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.batch;
+
+import com.sap.core.odata.api.batch.BatchException;
+import com.sap.core.odata.api.batch.BatchPart;
+
+/**
+ * A BatchPartReader
+ * <p>BatchPartReader provides the {@link BatchPart}s of a Batch Request body one after the other.
+ * A part is parsed not before it is requested, so that its execution can start
+ * while the following parts have not been received yet.</p>
+ * @author SAP AG
+ */
+public interface BatchPartReader {
+
+  /**
+   * Get the info if there is a further BatchPart. Reads the request body up to the start of the next part.
+   * @return true or false
+   * @throws BatchException if the request body is not valid
+   */
+  public boolean hasNext() throws BatchException;
+
+  /**
+   * Parse the next BatchPart.
+   * @return the next {@link BatchPart}
+   * @throws BatchException if the part is not valid
+   * @throws java.util.NoSuchElementException if there is no further part
+   */
+  public BatchPart next() throws BatchException;
+
+  /**
+   * Close the underlying request body.
+   * @throws BatchException if the request body could not be closed
+   */
+  public void close() throws BatchException;
+}
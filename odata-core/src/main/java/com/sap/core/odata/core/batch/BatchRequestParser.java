@@ -16,7 +16,7 @@
 package com.sap.core.odata.core.batch;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -27,16 +27,15 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.batch.BatchException;
 import com.sap.core.odata.api.batch.BatchPart;
 import com.sap.core.odata.api.commons.ODataHttpMethod;
 import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
-import com.sap.core.odata.api.exception.ODataMessageException;
 import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.uri.PathInfo;
 import com.sap.core.odata.api.uri.PathSegment;
@@ -46,24 +45,26 @@ import com.sap.core.odata.core.PathInfoImpl;
 import com.sap.core.odata.core.commons.ContentType;
 
 /**
+ * Parses a Batch Request body.
+ * <p>The body is read line by line from the bytes of the request stream; a part is parsed
+ * when it is requested from the {@link BatchPartReader}, so neither the complete body nor
+ * all parsed parts have to be held in memory. The bodies of the requests in a change set
+ * are passed on byte by byte.</p>
  * @author SAP AG
  */
 public class BatchRequestParser {
-  private static final String LF = "\n";
+  private static final String BOUNDARY_PREFIX = "--";
   private static final String REG_EX_OPTIONAL_WHITESPACE = "\\s?";
   private static final String REG_EX_ZERO_OR_MORE_WHITESPACES = "\\s*";
-  private static final String ANY_CHARACTERS = ".*";
 
-  private static final Pattern REG_EX_BLANK_LINE = Pattern.compile("(|" + REG_EX_ZERO_OR_MORE_WHITESPACES + ")");
   private static final Pattern REG_EX_HEADER = Pattern.compile("([a-zA-Z\\-]+):" + REG_EX_OPTIONAL_WHITESPACE + "(.*)" + REG_EX_ZERO_OR_MORE_WHITESPACES);
   private static final Pattern REG_EX_VERSION = Pattern.compile("(?:HTTP/[0-9]\\.[0-9])");
-  private static final Pattern REG_EX_ANY_BOUNDARY_STRING = Pattern.compile("--" + ANY_CHARACTERS + REG_EX_ZERO_OR_MORE_WHITESPACES);
   private static final Pattern REG_EX_REQUEST_LINE = Pattern.compile("(GET|POST|PUT|DELETE|MERGE|PATCH)\\s(.*)\\s?" + REG_EX_VERSION + REG_EX_ZERO_OR_MORE_WHITESPACES);
   private static final Pattern REG_EX_BOUNDARY_PARAMETER = Pattern.compile(REG_EX_OPTIONAL_WHITESPACE + "boundary=(\".*\"|.*)" + REG_EX_ZERO_OR_MORE_WHITESPACES);
   private static final Pattern REG_EX_CONTENT_TYPE = Pattern.compile(REG_EX_OPTIONAL_WHITESPACE + BatchConstants.MULTIPART_MIXED);
-  private static final Pattern REG_EX_QUERY_PARAMETER = Pattern.compile("((?:\\$[a-z]+)|(?:[^\\$][^=]))=([^=]+)");
+  private static final Pattern REG_EX_CONTENT_ID_REFERENCE = Pattern.compile("\\$[^/]/([^?]+)(?:\\?.*)?");
 
-  private static final String REG_EX_BOUNDARY = "([a-zA-Z0-9_\\-\\.'\\+]{1,70})|\"([a-zA-Z0-9_\\-\\.'\\+\\s\\(\\),/:=\\?]{1,69}[a-zA-Z0-9_\\-\\.'\\+\\(\\),/:=\\?])\""; // See RFC 2046
+  private static final Pattern REG_EX_BOUNDARY = Pattern.compile("([a-zA-Z0-9_\\-\\.'\\+]{1,70})|\"([a-zA-Z0-9_\\-\\.'\\+\\s\\(\\),/:=\\?]{1,69}[a-zA-Z0-9_\\-\\.'\\+\\(\\),/:=\\?])\""); // See RFC 2046
   private String baseUri;
   private PathInfo batchRequestPathInfo;
   private String contentTypeMime;
@@ -90,58 +91,99 @@ public class BatchRequestParser {
   }
 
   public List<BatchPart> parse(final InputStream in) throws BatchException {
-    Scanner scanner = new Scanner(in).useDelimiter(LF);
-    baseUri = getBaseUri();
-    List<BatchPart> requestList;
+    BatchPartReader partReader = read(in);
+    List<BatchPart> requestList = new LinkedList<BatchPart>();
     try {
-      requestList = parseBatchRequest(scanner);
-    } finally {// NOPMD (suppress DoNotThrowExceptionInFinally)
-      scanner.close();
-      try {
-        in.close();
-      } catch (IOException e) {
-        throw new BatchException(ODataMessageException.COMMON, e);
+      while (partReader.hasNext()) {
+        requestList.add(partReader.next());
       }
+    } finally {// NOPMD (suppress DoNotThrowExceptionInFinally)
+      partReader.close();
     }
     return requestList;
   }
 
-  private List<BatchPart> parseBatchRequest(final Scanner scanner) throws BatchException {
-    List<BatchPart> requests = new LinkedList<BatchPart>();
-    if (contentTypeMime != null) {
+  /**
+   * Validates the content type of the Batch Request and provides a reader
+   * which parses the parts of the given body one after the other.
+   * @param in the request body; it is closed by {@link BatchPartReader#close()}
+   * @return the {@link BatchPartReader}
+   * @throws BatchException if the content type or the path info is not valid
+   */
+  public BatchPartReader read(final InputStream in) throws BatchException {
+    BatchLineReader reader = new BatchLineReader(in);
+    try {
+      baseUri = getBaseUri();
+      if (contentTypeMime == null) {
+        throw new BatchException(BatchException.MISSING_CONTENT_TYPE);
+      }
       boundary = getBoundary(contentTypeMime);
-      parsePreamble(scanner);
-      String closeDelimiter = "--" + boundary + "--" + REG_EX_ZERO_OR_MORE_WHITESPACES;
-      while (scanner.hasNext() && !scanner.hasNext(closeDelimiter)) {
-        requests.add(parseMultipart(scanner, boundary, false));
-        parseNewLine(scanner);
+    } catch (BatchException e) {
+      reader.close();
+      throw e;
+    }
+    return new PartReader(reader);
+  }
+
+  private class PartReader implements BatchPartReader {
+    private final BatchLineReader reader;
+    private boolean started = false;
+    private boolean finished = false;
+
+    private PartReader(final BatchLineReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() throws BatchException {
+      if (finished) {
+        return false;
       }
-      if (scanner.hasNext(closeDelimiter)) {
-        scanner.next(closeDelimiter);
-      } else {
+      if (!started) {
+        parsePreamble(reader);
+        started = true;
+      }
+      if (!reader.hasNext()) {
         throw new BatchException(BatchException.MISSING_CLOSE_DELIMITER);
       }
-    } else {
-      throw new BatchException(BatchException.MISSING_CONTENT_TYPE);
+      if (isLine(reader.peekLine(), BOUNDARY_PREFIX + boundary + BOUNDARY_PREFIX)) {
+        reader.readLine();
+        finished = true;
+      }
+      return !finished;
     }
-    return requests;
 
+    @Override
+    public BatchPart next() throws BatchException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      BatchPart part = parseMultipart(reader, boundary, false);
+      parseNewLine(reader);
+      return part;
+    }
+
+    @Override
+    public void close() throws BatchException {
+      reader.close();
+    }
   }
 
   //The method parses additional information prior to the first boundary delimiter line
-  private void parsePreamble(final Scanner scanner) {
-    while (scanner.hasNext() && !scanner.hasNext(REG_EX_ANY_BOUNDARY_STRING)) {
-      scanner.next();
+  private void parsePreamble(final BatchLineReader reader) throws BatchException {
+    while (reader.hasNext() && !reader.peekStartsWith(BOUNDARY_PREFIX)) {
+      reader.readLine();
     }
   }
 
-  private BatchPart parseMultipart(final Scanner scanner, final String boundary, final boolean isChangeSet) throws BatchException {
+  private BatchPart parseMultipart(final BatchLineReader reader, final String boundary, final boolean isChangeSet) throws BatchException {
     Map<String, String> mimeHeaders = new HashMap<String, String>();
     BatchPart multipart = null;
     List<ODataRequest> requests = new ArrayList<ODataRequest>();
-    if (scanner.hasNext("--" + boundary + REG_EX_ZERO_OR_MORE_WHITESPACES)) {
-      scanner.next();
-      mimeHeaders = parseHeaders(scanner);
+    String line = reader.peekLine();
+    if (isLine(line, BOUNDARY_PREFIX + boundary)) {
+      reader.readLine();
+      mimeHeaders = parseHeaders(reader);
 
       String contentType = mimeHeaders.get(BatchConstants.HTTP_CONTENT_TYPE.toLowerCase());
       if (contentType == null) {
@@ -151,9 +193,9 @@ public class BatchRequestParser {
         if (BatchConstants.HTTP_APPLICATION_HTTP.equalsIgnoreCase(contentType)) {
           validateEncoding(mimeHeaders.get(BatchConstants.HTTP_CONTENT_TRANSFER_ENCODING.toLowerCase()));
           currentContentId = mimeHeaders.get(BatchConstants.HTTP_CONTENT_ID.toLowerCase());
-          parseNewLine(scanner);// mandatory
+          parseNewLine(reader);// mandatory
 
-          requests.add(parseRequest(scanner, isChangeSet));
+          requests.add(parseRequest(reader, boundary, isChangeSet));
           multipart = new BatchPartImpl(false, requests);
         } else {
           throw new BatchException(BatchException.INVALID_CONTENT_TYPE.addContent(BatchConstants.HTTP_APPLICATION_HTTP));
@@ -161,32 +203,32 @@ public class BatchRequestParser {
       } else {
         if (BatchConstants.HTTP_APPLICATION_HTTP.equalsIgnoreCase(contentType)) {
           validateEncoding(mimeHeaders.get(BatchConstants.HTTP_CONTENT_TRANSFER_ENCODING.toLowerCase()));
-          parseNewLine(scanner);// mandatory
-          requests.add(parseRequest(scanner, isChangeSet));
+          parseNewLine(reader);// mandatory
+          requests.add(parseRequest(reader, boundary, isChangeSet));
           multipart = new BatchPartImpl(false, requests);
-        } else if (contentType.matches(REG_EX_OPTIONAL_WHITESPACE + BatchConstants.MULTIPART_MIXED + ANY_CHARACTERS)) {
+        } else if (REG_EX_CONTENT_TYPE.matcher(contentType).lookingAt()) {
           String changeSetBoundary = getBoundary(contentType);
           if (boundary.equals(changeSetBoundary)) {
             throw new BatchException(BatchException.INVALID_CHANGESET_BOUNDARY);
           }
           List<ODataRequest> changeSetRequests = new LinkedList<ODataRequest>();
-          parseNewLine(scanner);// mandatory
-          Pattern changeSetCloseDelimiter = Pattern.compile("--" + changeSetBoundary + "--" + REG_EX_ZERO_OR_MORE_WHITESPACES);
-          while (!scanner.hasNext(changeSetCloseDelimiter)) {
-            BatchPart part = parseMultipart(scanner, changeSetBoundary, true);
+          parseNewLine(reader);// mandatory
+          String changeSetCloseDelimiter = BOUNDARY_PREFIX + changeSetBoundary + BOUNDARY_PREFIX;
+          while (!isLine(reader.peekLine(), changeSetCloseDelimiter)) {
+            BatchPart part = parseMultipart(reader, changeSetBoundary, true);
             if (part.getRequests().size() == 1) {
               changeSetRequests.add(part.getRequests().get(0));
             }
           }
-          scanner.next(changeSetCloseDelimiter);
+          reader.readLine();
           multipart = new BatchPartImpl(true, changeSetRequests);
         } else {
           throw new BatchException(BatchException.INVALID_CONTENT_TYPE.addContent(BatchConstants.MULTIPART_MIXED + " or " + BatchConstants.HTTP_APPLICATION_HTTP));
         }
       }
-    } else if (scanner.hasNext(boundary + REG_EX_ZERO_OR_MORE_WHITESPACES)) {
+    } else if (isLine(line, boundary)) {
       throw new BatchException(BatchException.INVALID_BOUNDARY);
-    } else if (scanner.hasNext(REG_EX_ANY_BOUNDARY_STRING)) {
+    } else if (line != null && line.startsWith(BOUNDARY_PREFIX)) {
       throw new BatchException(BatchException.NO_MATCH_WITH_BOUNDARY_STRING.addContent(boundary));
     } else {
       throw new BatchException(BatchException.MISSING_BOUNDARY_DELIMITER);
@@ -195,19 +237,14 @@ public class BatchRequestParser {
 
   }
 
-  private ODataRequest parseRequest(final Scanner scanner, final boolean isChangeSet) throws BatchException {
+  private ODataRequest parseRequest(final BatchLineReader reader, final String boundary, final boolean isChangeSet) throws BatchException {
     ODataRequestImpl request = new ODataRequestImpl();
-    if (scanner.hasNext(REG_EX_REQUEST_LINE)) {
-      scanner.next(REG_EX_REQUEST_LINE);
-      String method = null;
-      String uri = null;
-      MatchResult result = scanner.match();
-      if (result.groupCount() == 2) {
-        method = result.group(1);
-        uri = result.group(2).trim();
-      } else {
-        throw new BatchException(BatchException.INVALID_REQUEST_LINE.addContent(scanner.next()));
-      }
+    String line = reader.peekLine();
+    Matcher result = line == null ? null : REG_EX_REQUEST_LINE.matcher(line);
+    if (result != null && result.matches()) {
+      reader.readLine();
+      String method = result.group(1);
+      String uri = result.group(2).trim();
       request.setPathInfo(parseRequestUri(uri));
       request.setQueryParameters(parseQueryParameters(uri));
       if (isChangeSet) {
@@ -218,7 +255,7 @@ public class BatchRequestParser {
         throw new BatchException(BatchException.INVALID_QUERY_OPERATION_METHOD);
       }
       request.setMethod(ODataHttpMethod.valueOf(method));
-      Map<String, List<String>> headers = parseRequestHeaders(scanner);
+      Map<String, List<String>> headers = parseRequestHeaders(reader);
       if (currentContentId != null) {
         List<String> headerList = new ArrayList<String>();
         headerList.add(currentContentId);
@@ -242,37 +279,35 @@ public class BatchRequestParser {
         request.setAcceptableLanguages(new ArrayList<Locale>());
       }
 
-      parseNewLine(scanner);
+      parseNewLine(reader);
 
       if (isChangeSet) {
-        request.setBody(parseBody(scanner));
+        request.setBody(parseBody(reader, boundary));
       }
 
     } else {
-      throw new BatchException(BatchException.INVALID_REQUEST_LINE.addContent(scanner.next()));
+      throw new BatchException(BatchException.INVALID_REQUEST_LINE.addContent(line));
     }
     return request;
   }
 
-  private Map<String, List<String>> parseRequestHeaders(final Scanner scanner) throws BatchException {
+  private Map<String, List<String>> parseRequestHeaders(final BatchLineReader reader) throws BatchException {
     Map<String, List<String>> headers = new HashMap<String, List<String>>();
-    while (scanner.hasNext() && !scanner.hasNext(REG_EX_BLANK_LINE)) {
-      if (scanner.hasNext(REG_EX_HEADER)) {
-        scanner.next(REG_EX_HEADER);
-        MatchResult result = scanner.match();
-        if (result.groupCount() == 2) {
-          String headerName = result.group(1).trim().toLowerCase();
-          String headerValue = result.group(2).trim().toLowerCase();
-          if (headers.containsKey(headerName)) {
-            headers.get(headerName).add(headerValue);
-          } else {
-            List<String> headerList = new ArrayList<String>();
-            headerList.add(headerValue);
-            headers.put(headerName, headerList);
-          }
+    while (reader.hasNext() && !isBlank(reader.peekLine())) {
+      Matcher result = REG_EX_HEADER.matcher(reader.peekLine());
+      if (result.matches()) {
+        reader.readLine();
+        String headerName = result.group(1).trim().toLowerCase();
+        String headerValue = result.group(2).trim().toLowerCase();
+        if (headers.containsKey(headerName)) {
+          headers.get(headerName).add(headerValue);
+        } else {
+          List<String> headerList = new ArrayList<String>();
+          headerList.add(headerValue);
+          headers.put(headerName, headerList);
         }
       } else {
-        throw new BatchException(BatchException.INVALID_HEADER.addContent(scanner.next()));
+        throw new BatchException(BatchException.INVALID_HEADER.addContent(reader.peekLine()));
       }
     }
     return headers;
@@ -282,77 +317,54 @@ public class BatchRequestParser {
     PathInfoImpl pathInfo = new PathInfoImpl();
     pathInfo.setServiceRoot(batchRequestPathInfo.getServiceRoot());
     pathInfo.setPrecedingPathSegment(batchRequestPathInfo.getPrecedingSegments());
-    Scanner uriScanner = new Scanner(uri);
-    Pattern regexRequestUri = Pattern.compile("(?:" + baseUri + ")?/?([^?]+)(\\?.*)?");
-    if (uriScanner.hasNext("\\$[^/]/([^?]+)(?:\\?.*)?")) {
+    if (REG_EX_CONTENT_ID_REFERENCE.matcher(uri).matches()) {
       // TODO: Content-ID reference 
-      uriScanner.next("\\$[^/]/([^?]+)(?:\\?.*)?");
-    } else if (uriScanner.hasNext(regexRequestUri)) {
-      uriScanner.next(regexRequestUri);
-      MatchResult result = uriScanner.match();
-      if (result.groupCount() == 2) {
-        String odataPathSegmentsAsString = result.group(1);
-        String queryParametersAsString = result.group(2) != null ? result.group(2) : "";
-        pathInfo.setODataPathSegment(parseODataPathSegments(odataPathSegmentsAsString));
-        try {
-          String requestUri = baseUri + "/" + odataPathSegmentsAsString + queryParametersAsString;
-          pathInfo.setRequestUri(new URI(requestUri));
-        } catch (URISyntaxException e) {
-          uriScanner.close();
-          throw new BatchException(BatchException.INVALID_URI, e);
-        }
-      } else {
-        uriScanner.close();
+    } else {
+      String path = uri;
+      if (baseUri != null && path.startsWith(baseUri)) {
+        path = path.substring(baseUri.length());
+      }
+      if (path.startsWith("/")) {
+        path = path.substring(1);
+      }
+      int queryStart = path.indexOf('?');
+      String odataPathSegmentsAsString = queryStart < 0 ? path : path.substring(0, queryStart);
+      String queryParametersAsString = queryStart < 0 ? "" : path.substring(queryStart);
+      if (odataPathSegmentsAsString.length() == 0) {
         throw new BatchException(BatchException.INVALID_URI);
       }
-    } else {
-      uriScanner.close();
-      throw new BatchException(BatchException.INVALID_URI);
+      pathInfo.setODataPathSegment(parseODataPathSegments(odataPathSegmentsAsString));
+      try {
+        String requestUri = baseUri + "/" + odataPathSegmentsAsString + queryParametersAsString;
+        pathInfo.setRequestUri(new URI(requestUri));
+      } catch (URISyntaxException e) {
+        throw new BatchException(BatchException.INVALID_URI, e);
+      }
     }
-    uriScanner.close();
     return pathInfo;
   }
 
-  private Map<String, String> parseQueryParameters(final String uri) throws BatchException {
-    Scanner uriScanner = new Scanner(uri);
+  private Map<String, String> parseQueryParameters(final String uri) {
     Map<String, String> queryParametersMap = new HashMap<String, String>();
-    Pattern regex = Pattern.compile("(?:" + baseUri + ")?/?" + "[^?]+" + "\\?(.*)");
-    if (uriScanner.hasNext(regex)) {
-      uriScanner.next(regex);
-      MatchResult uriResult = uriScanner.match();
-      if (uriResult.groupCount() == 1) {
-        String queryParams = uriResult.group(1);
-        Scanner queryParamsScanner = new Scanner(queryParams).useDelimiter("&");
-        while (queryParamsScanner.hasNext(REG_EX_QUERY_PARAMETER)) {
-          queryParamsScanner.next(REG_EX_QUERY_PARAMETER);
-          MatchResult result = queryParamsScanner.match();
-          if (result.groupCount() == 2) {
-            String systemQueryOption = result.group(1);
-            String value = result.group(2);
-            queryParametersMap.put(systemQueryOption, value);
-          } else {
-            queryParamsScanner.close();
-            throw new BatchException(BatchException.INVALID_QUERY_PARAMETER);
-          }
+    int queryStart = uri.indexOf('?');
+    if (queryStart >= 0) {
+      for (String queryParameter : uri.substring(queryStart + 1).split("&")) {
+        int separator = queryParameter.indexOf('=');
+        if (separator > 0) {
+          queryParametersMap.put(queryParameter.substring(0, separator), queryParameter.substring(separator + 1));
         }
-        queryParamsScanner.close();
-
-      } else {
-        uriScanner.close();
-        throw new BatchException(BatchException.INVALID_URI);
       }
     }
-    uriScanner.close();
     return queryParametersMap;
   }
 
   private List<PathSegment> parseODataPathSegments(final String odataPathSegmentsAsString) {
-    Scanner pathSegmentScanner = new Scanner(odataPathSegmentsAsString).useDelimiter("/");
     List<PathSegment> odataPathSegments = new ArrayList<PathSegment>();
-    while (pathSegmentScanner.hasNext()) {
-      odataPathSegments.add(new ODataPathSegmentImpl(pathSegmentScanner.next(), null));
+    for (String segment : odataPathSegmentsAsString.split("/")) {
+      if (segment.length() > 0) {
+        odataPathSegments.add(new ODataPathSegmentImpl(segment, null));
+      }
     }
-    pathSegmentScanner.close();
     return odataPathSegments;
   }
 
@@ -364,49 +376,42 @@ public class BatchRequestParser {
     return AcceptParser.parseAcceptableLanguages(headerValue);
   }
 
-  private InputStream parseBody(final Scanner scanner) {
-    String body = null;
-    InputStream requestBody;
-    while (scanner.hasNext() && !scanner.hasNext(REG_EX_ANY_BOUNDARY_STRING)) {
-      if (!scanner.hasNext(REG_EX_ZERO_OR_MORE_WHITESPACES)) {
-        if (body == null) {
-          body = scanner.next();
-        } else {
-          body = body + LF + scanner.next();
-        }
-      } else {
-        scanner.next();
-      }
+  // The body ends with the line break in front of the next delimiter line (RFC 2046).
+  private InputStream parseBody(final BatchLineReader reader, final String changeSetBoundary) throws BatchException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    String changeSetDelimiter = BOUNDARY_PREFIX + changeSetBoundary;
+    String batchDelimiter = BOUNDARY_PREFIX + boundary;
+    while (reader.hasNext() && !reader.peekStartsWith(changeSetDelimiter) && !reader.peekStartsWith(batchDelimiter)) {
+      reader.readLine(body);
     }
-    if (body != null) {
-      requestBody = new ByteArrayInputStream(body.getBytes());
-    } else {
-      requestBody = new ByteArrayInputStream("".getBytes());
+    byte[] content = body.toByteArray();
+    int length = content.length;
+    if (length > 0 && content[length - 1] == '\n') {
+      length--;
+      if (length > 0 && content[length - 1] == '\r') {
+        length--;
+      }
     }
-    return requestBody;
+    return new ByteArrayInputStream(content, 0, length);
   }
 
   private String getBoundary(final String contentType) throws BatchException {
-    Scanner contentTypeScanner = new Scanner(contentType).useDelimiter(";\\s?");
-    if (contentTypeScanner.hasNext(REG_EX_CONTENT_TYPE)) {
-      contentTypeScanner.next(REG_EX_CONTENT_TYPE);
-    } else {
-      contentTypeScanner.close();
+    String[] contentTypeParts = contentType.split(";");
+    if (!REG_EX_CONTENT_TYPE.matcher(contentTypeParts[0]).matches()) {
       throw new BatchException(BatchException.INVALID_CONTENT_TYPE.addContent(BatchConstants.MULTIPART_MIXED));
     }
-    if (contentTypeScanner.hasNext(REG_EX_BOUNDARY_PARAMETER)) {
-      contentTypeScanner.next(REG_EX_BOUNDARY_PARAMETER);
-      MatchResult result = contentTypeScanner.match();
-      contentTypeScanner.close();
-      if (result.groupCount() == 1 && result.group(1).trim().matches(REG_EX_BOUNDARY)) {
-        return trimQuota(result.group(1).trim());
-      } else {
-        throw new BatchException(BatchException.INVALID_BOUNDARY);
+    for (int i = 1; i < contentTypeParts.length; i++) {
+      Matcher result = REG_EX_BOUNDARY_PARAMETER.matcher(contentTypeParts[i]);
+      if (result.matches()) {
+        String boundaryValue = result.group(1).trim();
+        if (REG_EX_BOUNDARY.matcher(boundaryValue).matches()) {
+          return trimQuota(boundaryValue);
+        } else {
+          throw new BatchException(BatchException.INVALID_BOUNDARY);
+        }
       }
-    } else {
-      contentTypeScanner.close();
-      throw new BatchException(BatchException.MISSING_PARAMETER_IN_CONTENT_TYPE);
     }
+    throw new BatchException(BatchException.MISSING_PARAMETER_IN_CONTENT_TYPE);
   }
 
   private void validateEncoding(final String encoding) throws BatchException {
@@ -415,32 +420,39 @@ public class BatchRequestParser {
     }
   }
 
-  private Map<String, String> parseHeaders(final Scanner scanner) throws BatchException {
+  private Map<String, String> parseHeaders(final BatchLineReader reader) throws BatchException {
     Map<String, String> headers = new HashMap<String, String>();
-    while (scanner.hasNext() && !(scanner.hasNext(REG_EX_BLANK_LINE))) {
-      if (scanner.hasNext(REG_EX_HEADER)) {
-        scanner.next(REG_EX_HEADER);
-        MatchResult result = scanner.match();
-        if (result.groupCount() == 2) {
-          String headerName = result.group(1).trim().toLowerCase();
-          String headerValue = result.group(2).trim().toLowerCase();
-          headers.put(headerName, headerValue);
-        }
+    while (reader.hasNext() && !isBlank(reader.peekLine())) {
+      Matcher result = REG_EX_HEADER.matcher(reader.peekLine());
+      if (result.matches()) {
+        reader.readLine();
+        String headerName = result.group(1).trim().toLowerCase();
+        String headerValue = result.group(2).trim().toLowerCase();
+        headers.put(headerName, headerValue);
       } else {
-        throw new BatchException(BatchException.INVALID_HEADER.addContent(scanner.next()));
+        throw new BatchException(BatchException.INVALID_HEADER.addContent(reader.peekLine()));
       }
     }
     return headers;
   }
 
-  private void parseNewLine(final Scanner scanner) throws BatchException {
-    if (scanner.hasNext() && scanner.hasNext(REG_EX_BLANK_LINE)) {
-      scanner.next();
+  private void parseNewLine(final BatchLineReader reader) throws BatchException {
+    if (reader.hasNext() && isBlank(reader.peekLine())) {
+      reader.readLine();
     } else {
       throw new BatchException(BatchException.MISSING_BLANK_LINE);
     }
   }
 
+  private boolean isBlank(final String line) {
+    return line.trim().length() == 0;
+  }
+
+  // Checks whether the line consists of the expected text followed by optional whitespace
+  private boolean isLine(final String line, final String expected) {
+    return line != null && line.startsWith(expected) && isBlank(line.substring(expected.length()));
+  }
+
   private String getBaseUri() throws BatchException {
     if (batchRequestPathInfo != null) {
       if (batchRequestPathInfo.getServiceRoot() != null) {
@@ -459,14 +471,10 @@ public class BatchRequestParser {
     return null;
   }
 
-  private String trimQuota(String boundary) {
-    if (boundary.matches("\".*\"")) {
-      boundary = boundary.replace("\"", "");
+  private String trimQuota(final String boundary) {
+    if (boundary.startsWith("\"") && boundary.endsWith("\"")) {
+      return boundary.substring(1, boundary.length() - 1);
     }
-    boundary = boundary.replaceAll("\\)", "\\\\)");
-    boundary = boundary.replaceAll("\\(", "\\\\(");
-    boundary = boundary.replaceAll("\\?", "\\\\?");
-    boundary = boundary.replaceAll("\\+", "\\\\+");
     return boundary;
   }
 }
@@ -15,22 +15,39 @@
  ******************************************************************************/
 package com.sap.core.odata.core.batch;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 import com.sap.core.odata.api.batch.BatchException;
 import com.sap.core.odata.api.batch.BatchResponsePart;
 import com.sap.core.odata.api.commons.HttpStatusCodes;
-import com.sap.core.odata.api.exception.ODataMessageException;
 import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.core.commons.ContentType;
+import com.sap.core.odata.core.ep.util.OnDemandInputStream;
 
+/**
+ * Writes the batch response as multipart/mixed body.
+ * <p>The body is produced on demand while it is read, one response part at a time,
+ * so the batch response is never held in memory as a whole. The content of each
+ * part is handled as bytes, its <code>Content-Length</code> is the number of bytes.</p>
+ * 
+ * @author SAP AG
+ */
 public class BatchResponseWriter {
   private static final String COLON = ":";
   private static final String SP = " ";
   private static final String LF = "\r\n";
+  private static final String HEADER_CHARSET = "ISO-8859-1";
+  private static final String DEFAULT_CHARSET = "UTF-8";
+  private static final int BUFFER_SIZE = 8192;
   private StringBuilder writer = new StringBuilder();
+  /* the items of the body: text of boundaries and part headers or an ODataResponse */
+  private List<Object> items = new ArrayList<Object>();
 
   private void appendChangeSet(final BatchResponsePart batchResponsePart) throws BatchException {
     String boundary = generateBoundary("changeset");
@@ -45,11 +62,8 @@ public class BatchResponseWriter {
   public ODataResponse writeResponse(final List<BatchResponsePart> batchResponseParts) throws BatchException {
     String boundary = generateBoundary("batch");
     appendResponseBody(batchResponseParts, boundary);
-    String batchResponseBody = writer.toString();
-    return ODataResponse.entity(batchResponseBody).status(HttpStatusCodes.ACCEPTED).
-        header(BatchConstants.HTTP_CONTENT_TYPE, BatchConstants.MULTIPART_MIXED + "; boundary=" + boundary)
-        .header(BatchConstants.HTTP_CONTENT_LENGTH, "" + batchResponseBody.length()).build();
-
+    return ODataResponse.entity(new BatchResponseInputStream(items)).status(HttpStatusCodes.ACCEPTED).
+        header(BatchConstants.HTTP_CONTENT_TYPE, BatchConstants.MULTIPART_MIXED + "; boundary=" + boundary).build();
   }
 
   private void appendResponseBody(final List<BatchResponsePart> batchResponseParts, final String boundary) throws BatchException {
@@ -64,30 +78,21 @@ public class BatchResponseWriter {
       }
     }
     writer.append("--").append(boundary).append("--");
+    flushText();
   }
 
   private void appendResponseBodyPart(final ODataResponse response) throws BatchException {
     writer.append(BatchConstants.HTTP_CONTENT_TYPE).append(COLON).append(SP).append(BatchConstants.HTTP_APPLICATION_HTTP).append(LF);
     writer.append(BatchConstants.HTTP_CONTENT_TRANSFER_ENCODING).append(COLON).append(SP).append("binary").append(LF).append(LF);
-    writer.append("HTTP/1.1").append(SP).append(response.getStatus().getStatusCode()).append(SP).append(response.getStatus().getInfo()).append(LF);
-    appendHeader(response);
-    if (!HttpStatusCodes.NO_CONTENT.equals(response.getStatus())) {
-      String body;
-      if (response.getEntity() instanceof InputStream) {
-        InputStream in = (InputStream) response.getEntity();
-        body = readBody(in);
-      } else {
-        body = response.getEntity().toString();
-      }
-      writer.append(BatchConstants.HTTP_CONTENT_LENGTH).append(COLON).append(SP).append(body.length()).append(LF).append(LF);
-      writer.append(body);
-    }
-    writer.append(LF).append(LF);
+    flushText();
+    // status line, headers and content are written when the part is read
+    items.add(response);
   }
 
-  private void appendHeader(final ODataResponse response) {
-    for (String name : response.getHeaderNames()) {
-      writer.append(name).append(COLON).append(SP).append(response.getHeader(name)).append(LF);
+  private void flushText() {
+    if (writer.length() > 0) {
+      items.add(writer.toString());
+      writer = new StringBuilder();
     }
   }
 
@@ -95,30 +100,96 @@ public class BatchResponseWriter {
     return value + "_" + UUID.randomUUID().toString();
   }
 
-  private String readBody(final InputStream in) throws BatchException {
-    byte[] tmp = new byte[2048];
-    int count;
-    BatchException cachedException = null;
-    StringBuffer b = new StringBuffer();
-    try {
-      count = in.read(tmp);
-      while (count >= 0) {
-        b.append(new String(tmp, 0, count));
-        count = in.read(tmp);
+  private static class BatchResponseInputStream extends OnDemandInputStream {
+
+    private final List<Object> items;
+    private int next = 0;
+
+    public BatchResponseInputStream(final List<Object> items) {
+      this.items = items;
+    }
+
+    @Override
+    protected boolean produceNext(final OutputStream out) throws IOException {
+      if (next < items.size()) {
+        Object item = items.get(next++);
+        if (item instanceof ODataResponse) {
+          writeResponse(out, (ODataResponse) item);
+        } else {
+          out.write(((String) item).getBytes(HEADER_CHARSET));
+        }
+        out.flush();
+      }
+      return next < items.size();
+    }
+
+    @Override
+    protected void release() {
+      while (next < items.size()) {
+        Object item = items.get(next++);
+        if (item instanceof ODataResponse && ((ODataResponse) item).getEntity() instanceof InputStream) {
+          try {
+            ((InputStream) ((ODataResponse) item).getEntity()).close();
+          } catch (IOException e) {
+            // ignore, the content is not needed any more
+          }
+        }
       }
-    } catch (IOException e) {
-      cachedException = new BatchException(ODataMessageException.COMMON, e);
-      throw cachedException;
-    } finally {// NOPMD (suppress DoNotThrowExceptionInFinally)
+    }
+
+    private void writeResponse(final OutputStream out, final ODataResponse response) throws IOException {
+      StringBuilder head = new StringBuilder();
+      head.append("HTTP/1.1").append(SP).append(response.getStatus().getStatusCode()).append(SP).append(response.getStatus().getInfo()).append(LF);
+      for (String name : response.getHeaderNames()) {
+        // the length of the content is written below
+        if (!BatchConstants.HTTP_CONTENT_LENGTH.equalsIgnoreCase(name)) {
+          head.append(name).append(COLON).append(SP).append(response.getHeader(name)).append(LF);
+        }
+      }
+      byte[] body = null;
+      if (!HttpStatusCodes.NO_CONTENT.equals(response.getStatus())) {
+        body = getBody(response);
+        head.append(BatchConstants.HTTP_CONTENT_LENGTH).append(COLON).append(SP).append(body.length).append(LF).append(LF);
+      }
+      out.write(head.toString().getBytes(HEADER_CHARSET));
+      if (body != null) {
+        out.write(body);
+      }
+      out.write((LF + LF).getBytes(HEADER_CHARSET));
+    }
+
+    private byte[] getBody(final ODataResponse response) throws IOException {
+      final Object entity = response.getEntity();
+      if (entity == null) {
+        return new byte[0];
+      } else if (entity instanceof byte[]) {
+        return (byte[]) entity;
+      } else if (entity instanceof InputStream) {
+        return readBody((InputStream) entity);
+      } else {
+        return entity.toString().getBytes(getCharset(response.getContentHeader()));
+      }
+    }
+
+    private String getCharset(final String contentHeader) {
+      ContentType contentType = contentHeader == null ? null : ContentType.parse(contentHeader);
+      String charset = contentType == null ? null : contentType.getParameters().get(ContentType.PARAMETER_CHARSET);
+      return charset == null ? DEFAULT_CHARSET : charset;
+    }
+
+    private byte[] readBody(final InputStream in) throws IOException {
       try {
-        in.close();
-      } catch (IOException e) {
-        if (cachedException != null) {
-          throw cachedException;
+        ByteArrayOutputStream body = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] tmp = new byte[BUFFER_SIZE];
+        int count = in.read(tmp);
+        while (count >= 0) {
+          body.write(tmp, 0, count);
+          count = in.read(tmp);
         }
+        return body.toByteArray();
+      } finally {
+        in.close();
       }
     }
-    return b.toString();
   }
-
 }
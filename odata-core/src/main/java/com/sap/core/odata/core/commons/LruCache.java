@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Bounded cache with least-recently-used eviction which can be accessed concurrently.</p>
+ * <p>The entries are distributed over segments by the hash codes of their keys.
+ * Every segment is an access-ordered map with its own lock that evicts its least recently
+ * used entry when it is full, so threads working with different keys rarely wait for each other.</p>
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author SAP AG
+ */
+public final class LruCache<K, V> {
+
+  private static final int MAX_SEGMENTS = 16;
+  private static final int MIN_SEGMENT_SIZE = 8;
+
+  private final Segment<K, V>[] segments;
+
+  /**
+   * Creates a cache.
+   * @param maximumSize the maximum number of entries
+   */
+  @SuppressWarnings("unchecked")
+  public LruCache(final int maximumSize) {
+    final int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maximumSize / MIN_SEGMENT_SIZE)));
+    segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      // the sizes of all segments add up to the maximum size
+      segments[i] = new Segment<K, V>(Math.max(1, maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0)));
+    }
+  }
+
+  /**
+   * Returns the value cached for the key and marks it as recently used.
+   * @param key the key
+   * @return the value or <code>null</code> if there is none
+   */
+  public V get(final K key) {
+    final Segment<K, V> segment = getSegment(key);
+    synchronized (segment) {
+      return segment.get(key);
+    }
+  }
+
+  /**
+   * Caches the value for the key unless there is a value already.
+   * @param key the key
+   * @param value the value
+   * @return the value cached for the key
+   */
+  public V putIfAbsent(final K key, final V value) {
+    final Segment<K, V> segment = getSegment(key);
+    synchronized (segment) {
+      final V cached = segment.get(key);
+      if (cached != null) {
+        return cached;
+      }
+      segment.put(key, value);
+      return value;
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    for (final Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * @return the number of entries
+   */
+  public int size() {
+    int size = 0;
+    for (final Segment<K, V> segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  private Segment<K, V> getSegment(final K key) {
+    final int hash = key.hashCode();
+    return segments[(hash ^ hash >>> 16) & segments.length - 1];
+  }
+
+  private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maximumSize;
+
+    public Segment(final int maximumSize) {
+      super(16, 0.75f, true);
+      this.maximumSize = maximumSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+      return size() > maximumSize;
+    }
+  }
+}
@@ -18,8 +18,6 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -31,10 +29,18 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmDateTime extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(\\p{Digit}{1,4})-(\\p{Digit}{1,2})-(\\p{Digit}{1,2})"
-          + "T(\\p{Digit}{1,2}):(\\p{Digit}{1,2})(?::(\\p{Digit}{1,2})(\\.(\\p{Digit}{0,3}?)0*)?)?");
-  private static final Pattern JSON_PATTERN = Pattern.compile("/Date\\((-?\\p{Digit}+)\\)/");
+  protected static final String JSON_PREFIX = "/Date(";
+  protected static final String JSON_SUFFIX = ")/";
+  protected static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+  protected static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+  // Instants from the start of the Gregorian calendar (1582-10-15T00:00:00Z)
+  // up to the end of year 9999 are converted arithmetically; all others
+  // (Julian calendar, years with more than four digits) through Calendar.
+  private static final long GREGORIAN_START = -12219292800000L;
+  private static final long YEAR_10000_START = 253402300800000L;
+  private static final int FIRST_GREGORIAN_YEAR = 1583;
+
   private static final EdmDateTime instance = new EdmDateTime();
 
   public static EdmDateTime getInstance() {
@@ -49,100 +55,129 @@ public class EdmDateTime extends AbstractSimpleType {
   @Override
   protected <T> T internalValueOfString(final String value, final EdmLiteralKind literalKind, final EdmFacets facets, final Class<T> returnType) throws EdmSimpleTypeException {
     // In JSON, we allow also the XML literal form, so there is on purpose
-    // no exception if the JSON pattern does not match.
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        long millis;
-        try {
-          millis = Long.parseLong(matcher.group(1));
-        } catch (final NumberFormatException e) {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
-        }
-        if (returnType.isAssignableFrom(Long.class)) {
-          return returnType.cast(millis);
-        } else if (returnType.isAssignableFrom(Date.class)) {
-          return returnType.cast(new Date(millis));
-        } else if (returnType.isAssignableFrom(Calendar.class)) {
-          Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-          dateTimeValue.clear();
-          dateTimeValue.setTimeInMillis(millis);
-          return returnType.cast(dateTimeValue);
-        } else {
-          throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
-        }
+    // no exception if the JSON form does not match.
+    if (literalKind == EdmLiteralKind.JSON
+        && value.startsWith(JSON_PREFIX) && value.endsWith(JSON_SUFFIX)
+        && numberEnd(value, JSON_PREFIX.length()) == value.length() - JSON_SUFFIX.length()) {
+      long millis;
+      try {
+        millis = Long.parseLong(value.substring(JSON_PREFIX.length(), value.length() - JSON_SUFFIX.length()));
+      } catch (final NumberFormatException e) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
+      }
+      if (returnType.isAssignableFrom(Long.class)) {
+        return returnType.cast(millis);
+      } else if (returnType.isAssignableFrom(Date.class)) {
+        return returnType.cast(new Date(millis));
+      } else if (returnType.isAssignableFrom(Calendar.class)) {
+        return returnType.cast(createCalendar(GMT, millis));
+      } else {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
       }
     }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.clear();
-
+    long millis;
     if (literalKind == EdmLiteralKind.URI) {
       if (value.length() > 10 && value.startsWith("datetime'") && value.endsWith("'")) {
-        parseLiteral(value.substring(9, value.length() - 1), facets, dateTimeValue);
+        millis = parseLiteral(value.substring(9, value.length() - 1), facets);
       } else {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
     } else {
-      parseLiteral(value, facets, dateTimeValue);
+      millis = parseLiteral(value, facets);
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
-      return returnType.cast(dateTimeValue);
+      return returnType.cast(createCalendar(GMT, millis));
     } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(dateTimeValue.getTimeInMillis());
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(dateTimeValue.getTime());
+      return returnType.cast(new Date(millis));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
   /**
-   * Parses a formatted date/time value and sets the values of a
-   * {@link Calendar} object accordingly. 
-   * @param value         the formatted date/time value as String
-   * @param facets        additional constraints for parsing (optional)
-   * @param dateTimeValue the Calendar object to be set to the parsed value
+   * Creates a {@link Calendar} object for the given instant in a copy of the
+   * given time zone; copying is cheaper than looking up the time zone again.
+   * @param timeZone the time zone
+   * @param millis   milliseconds since 1970-01-01T00:00:00Z
+   * @return the Calendar object
+   */
+  protected static Calendar createCalendar(final TimeZone timeZone, final long millis) {
+    Calendar calendar = Calendar.getInstance((TimeZone) timeZone.clone());
+    calendar.setTimeInMillis(millis);
+    return calendar;
+  }
+
+  /**
+   * Parses a formatted date/time value character by character.
+   * @param value  the formatted date/time value as String
+   * @param facets additional constraints for parsing (optional)
+   * @return the number of milliseconds since 1970-01-01T00:00:00
+   *         of the value interpreted as GMT
    * @throws EdmSimpleTypeException
    */
-  protected static void parseLiteral(final String value, final EdmFacets facets, final Calendar dateTimeValue) throws EdmSimpleTypeException {
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+  protected static long parseLiteral(final String value, final EdmFacets facets) throws EdmSimpleTypeException {
+    // The expected format is yyyy-mm-ddThh:mm[:ss[.fffffff]], where all fields
+    // but the fractional seconds may be shorter.  Only three significant
+    // digits of fractional seconds are allowed.
+    final int yearEnd = digitsEnd(value, 0, 4);
+    final int monthEnd = isCharAt(value, yearEnd, '-') ? digitsEnd(value, yearEnd + 1, 2) : -1;
+    final int dayEnd = isCharAt(value, monthEnd, '-') ? digitsEnd(value, monthEnd + 1, 2) : -1;
+    final int hourEnd = isCharAt(value, dayEnd, 'T') ? digitsEnd(value, dayEnd + 1, 2) : -1;
+    final int minuteEnd = isCharAt(value, hourEnd, ':') ? digitsEnd(value, hourEnd + 1, 2) : -1;
+    final int secondEnd = isCharAt(value, minuteEnd, ':') ? digitsEnd(value, minuteEnd + 1, 2) : minuteEnd;
+    final int fractionEnd = isCharAt(value, secondEnd, '.') ? digitsEnd(value, secondEnd + 1, 7) : secondEnd;
+    if (minuteEnd < 0 || secondEnd < 0 || fractionEnd != value.length()) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
     }
 
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
-
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 8) {
+    int milliSeconds = 0;
+    if (fractionEnd > secondEnd) {
+      int significantEnd = fractionEnd;
+      while (significantEnd > secondEnd + 1 && value.charAt(significantEnd - 1) == '0') {
+        significantEnd--;
+      }
+      final int decimals = significantEnd - secondEnd - 1;
+      if (decimals > 3) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
       }
-      final String decimals = matcher.group(8);
-      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals.length()) {
+      if (facets != null && facets.getPrecision() != null && facets.getPrecision() < decimals) {
         throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_FACETS_NOT_MATCHED.addContent(value, facets));
       }
-      final String milliSeconds = decimals + "000".substring(decimals.length());
-      dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
+      milliSeconds = decimals == 0 ? 0 : parseDigits(value, secondEnd + 1, significantEnd) * (decimals == 1 ? 100 : decimals == 2 ? 10 : 1);
+    }
+
+    final int year = parseDigits(value, 0, yearEnd);
+    final int month = parseDigits(value, yearEnd + 1, monthEnd);
+    final int day = parseDigits(value, monthEnd + 1, dayEnd);
+    final int hour = parseDigits(value, dayEnd + 1, hourEnd);
+    final int minute = parseDigits(value, hourEnd + 1, minuteEnd);
+    final int second = secondEnd == minuteEnd ? 0 : parseDigits(value, minuteEnd + 1, secondEnd);
+
+    if (year >= FIRST_GREGORIAN_YEAR) {
+      if (month < 1 || month > 12 || day < 1 || day > getDaysInMonth(year, month)
+          || hour > 23 || minute > 59 || second > 59) {
+        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+      }
+      return getDaysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+          + ((hour * 60 + minute) * 60 + second) * 1000 + milliSeconds;
     }
 
-    // The Calendar class does not check any values until a get method is called,
-    // so we do just that to validate the fields set above, not because we want
-    // to return something else.  For strict checks, the lenient mode is switched
-    // off temporarily.
+    // Before the Gregorian calendar, Calendar knows best.
+    // For strict checks of the fields, the lenient mode is switched off.
+    Calendar dateTimeValue = Calendar.getInstance((TimeZone) GMT.clone());
+    dateTimeValue.clear();
+    dateTimeValue.set(year, month - 1, day, hour, minute, second); // month is zero-based
+    dateTimeValue.set(Calendar.MILLISECOND, milliSeconds);
     dateTimeValue.setLenient(false);
     try {
-      dateTimeValue.getTimeInMillis();
+      return dateTimeValue.getTimeInMillis();
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
     }
-    dateTimeValue.setLenient(true);
   }
 
   @Override
@@ -159,26 +194,52 @@ public class EdmDateTime extends AbstractSimpleType {
     }
 
     if (literalKind == EdmLiteralKind.JSON) {
-      return "/Date(" + timeInMillis + ")/";
+      return JSON_PREFIX + timeInMillis + JSON_SUFFIX;
     }
 
-    Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-    dateTimeValue.setTimeInMillis(timeInMillis);
+    int year;
+    int month;
+    int day;
+    int millisOfDay;
+    if (timeInMillis >= GREGORIAN_START && timeInMillis < YEAR_10000_START) {
+      // Converts days since 1970-01-01 into the proleptic Gregorian calendar,
+      // counting in eras of 400 years (146097 days) which start on March 1st,
+      // so that the leap day is the last day of a year.
+      final int days = (int) (timeInMillis / MILLIS_PER_DAY) - (timeInMillis % MILLIS_PER_DAY < 0 ? 1 : 0);
+      millisOfDay = (int) (timeInMillis - days * MILLIS_PER_DAY);
+      final int dayOfEras = days + 719468; // days since 0000-03-01
+      final int era = dayOfEras / 146097;
+      final int dayOfEra = dayOfEras - era * 146097;
+      final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      final int shiftedMonth = (5 * dayOfYear + 2) / 153; // March is zero
+      day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+      month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+      year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    } else {
+      Calendar dateTimeValue = Calendar.getInstance((TimeZone) GMT.clone());
+      dateTimeValue.setTimeInMillis(timeInMillis);
+      year = dateTimeValue.get(Calendar.YEAR);
+      month = dateTimeValue.get(Calendar.MONTH) + 1; // month is zero-based
+      day = dateTimeValue.get(Calendar.DAY_OF_MONTH);
+      millisOfDay = ((dateTimeValue.get(Calendar.HOUR_OF_DAY) * 60
+          + dateTimeValue.get(Calendar.MINUTE)) * 60
+          + dateTimeValue.get(Calendar.SECOND)) * 1000;
+    }
 
     StringBuilder result = new StringBuilder(23); // 23 characters are enough for millisecond precision.
-    final int year = dateTimeValue.get(Calendar.YEAR);
     appendTwoDigits(result, year / 100);
     appendTwoDigits(result, year % 100);
     result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MONTH) + 1); // month is zero-based
+    appendTwoDigits(result, month);
     result.append('-');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.DAY_OF_MONTH));
+    appendTwoDigits(result, day);
     result.append('T');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.HOUR_OF_DAY));
+    appendTwoDigits(result, millisOfDay / 3600000);
     result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.MINUTE));
+    appendTwoDigits(result, millisOfDay / 60000 % 60);
     result.append(':');
-    appendTwoDigits(result, dateTimeValue.get(Calendar.SECOND));
+    appendTwoDigits(result, millisOfDay / 1000 % 60);
 
     try {
       appendMilliseconds(result, timeInMillis, facets);
@@ -195,7 +256,7 @@ public class EdmDateTime extends AbstractSimpleType {
    * @param result a {@link StringBuilder}
    * @param number an integer that must satisfy <code>0 <= number <= 99</code>
    */
-  private static void appendTwoDigits(final StringBuilder result, final int number) {
+  protected static void appendTwoDigits(final StringBuilder result, final int number) {
     result.append((char) ('0' + number / 10));
     result.append((char) ('0' + number % 10));
   }
@@ -226,6 +287,74 @@ public class EdmDateTime extends AbstractSimpleType {
     }
   }
 
+  /**
+   * Returns the end of the digits starting at the given position.
+   * @param value     a String
+   * @param start     the start position; negative values are allowed and lead to -1
+   * @param maxDigits the maximum number of digits
+   * @return the position after the last digit or -1 if there are no digits
+   *         or more than <code>maxDigits</code> digits
+   */
+  protected static int digitsEnd(final String value, final int start, final int maxDigits) {
+    if (start < 0) {
+      return -1;
+    }
+    int end = start;
+    while (end < value.length() && value.charAt(end) >= '0' && value.charAt(end) <= '9') {
+      end++;
+    }
+    return end > start && end - start <= maxDigits ? end : -1;
+  }
+
+  /**
+   * Returns the end of an integer number with optional minus sign
+   * starting at the given position.
+   * @param value a String
+   * @param start the start position
+   * @return the position after the last digit or -1 if there is no number
+   */
+  protected static int numberEnd(final String value, final int start) {
+    return digitsEnd(value, isCharAt(value, start, '-') ? start + 1 : start, Integer.MAX_VALUE);
+  }
+
+  protected static boolean isCharAt(final String value, final int position, final char c) {
+    return position >= 0 && position < value.length() && value.charAt(position) == c;
+  }
+
+  /**
+   * Parses a small number of digits; the caller has to make sure that
+   * there are only digits and that the result fits into an int.
+   */
+  protected static int parseDigits(final String value, final int start, final int end) {
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      result = result * 10 + value.charAt(i) - '0';
+    }
+    return result;
+  }
+
+  private static int getDaysInMonth(final int year, final int month) {
+    if (month == 2) {
+      return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+    } else {
+      return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+  }
+
+  /**
+   * Returns the number of days since 1970-01-01 of the given date
+   * in the proleptic Gregorian calendar (the inverse of the conversion
+   * in {@link #internalValueToString(Object, EdmLiteralKind, EdmFacets)}).
+   */
+  private static long getDaysSinceEpoch(final int year, final int month, final int day) {
+    final int yearSinceMarch = month <= 2 ? year - 1 : year;
+    final int era = yearSinceMarch / 400;
+    final int yearOfEra = yearSinceMarch - era * 400;
+    final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
   @Override
   public String toUriLiteral(final String literal) throws EdmSimpleTypeException {
     return "datetime'" + literal + "'";
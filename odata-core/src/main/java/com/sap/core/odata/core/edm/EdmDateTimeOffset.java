@@ -18,8 +18,8 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -34,12 +34,9 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmDateTimeOffset extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "\\p{Digit}{1,4}-\\p{Digit}{1,2}-\\p{Digit}{1,2}"
-          + "T\\p{Digit}{1,2}:\\p{Digit}{1,2}(?::\\p{Digit}{1,2}(?:\\.\\p{Digit}{1,7})?)?"
-          + "(Z|([-+]\\p{Digit}{1,2}:\\p{Digit}{2}))?");
-  private static final Pattern JSON_PATTERN = Pattern.compile(
-      "/Date\\((-?\\p{Digit}+)(?:(\\+|-)(\\p{Digit}{1,4}))?\\)/");
+  private static final int MINUTES_PER_DAY = 24 * 60;
+  /** Time zones by offset in minutes; there are at most 2 * 24 * 60 of them. */
+  private static final ConcurrentMap<Integer, TimeZone> TIME_ZONES = new ConcurrentHashMap<Integer, TimeZone>();
   private static final EdmDateTimeOffset instance = new EdmDateTimeOffset();
 
   public static EdmDateTimeOffset getInstance() {
@@ -61,78 +58,111 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
       }
     }
 
-    Calendar dateTimeValue = null;
-
-    if (literalKind == EdmLiteralKind.JSON) {
-      final Matcher matcher = JSON_PATTERN.matcher(value);
-      if (matcher.matches()) {
-        long millis;
+    long millis = 0;
+    int offsetInMinutes = 0;
+    boolean parsed = false;
+
+    if (literalKind == EdmLiteralKind.JSON
+        && value.startsWith(EdmDateTime.JSON_PREFIX) && value.endsWith(EdmDateTime.JSON_SUFFIX)) {
+      // The expected format is /Date(<milliseconds>[{+|-}<offset in minutes>])/;
+      // the milliseconds are given in local time.
+      final int start = EdmDateTime.JSON_PREFIX.length();
+      final int end = value.length() - EdmDateTime.JSON_SUFFIX.length();
+      final int millisEnd = EdmDateTime.numberEnd(value, start);
+      final boolean hasOffset = millisEnd >= 0 && millisEnd < end
+          && (value.charAt(millisEnd) == '+' || value.charAt(millisEnd) == '-');
+      if (millisEnd == end || hasOffset && EdmDateTime.digitsEnd(value, millisEnd + 1, 4) == end) {
         try {
-          millis = Long.parseLong(matcher.group(1));
+          millis = Long.parseLong(value.substring(start, millisEnd));
         } catch (final NumberFormatException e) {
           throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value), e);
         }
-        String timeZone = "GMT";
-        if (matcher.group(2) != null) {
-          final int offsetInMinutes = Integer.parseInt(matcher.group(3));
-          if (offsetInMinutes >= 24 * 60) {
+        if (hasOffset) {
+          offsetInMinutes = EdmDateTime.parseDigits(value, millisEnd + 1, end);
+          if (offsetInMinutes >= MINUTES_PER_DAY) {
             throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
           }
-          if (offsetInMinutes != 0) {
-            timeZone += matcher.group(2) + String.valueOf(offsetInMinutes / 60)
-                + ":" + String.format("%02d", offsetInMinutes % 60);
-            // Convert the local-time milliseconds to UTC.
-            millis -= (matcher.group(2).equals("+") ? 1 : -1) * offsetInMinutes * 60 * 1000;
+          if (value.charAt(millisEnd) == '-') {
+            offsetInMinutes = -offsetInMinutes;
           }
+          // Convert the local-time milliseconds to UTC.
+          millis -= offsetInMinutes * 60 * 1000;
         }
-        dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone(timeZone));
-        dateTimeValue.clear();
-        dateTimeValue.setTimeInMillis(millis);
+        parsed = true;
       }
     }
 
-    if (dateTimeValue == null) {
-      final Matcher matcher = PATTERN.matcher(value);
-      if (!matcher.matches()) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
-      }
-
-      final String timeZoneOffset = matcher.group(1) != null && matcher.group(2) != null && !matcher.group(2).matches("[-+]0+:0+") ? matcher.group(2) : null;
-      dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-      if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && timeZoneOffset != null) {
-        throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+    if (!parsed) {
+      // The local date and time are followed by an optional time-zone designator
+      // which is either "Z" or {+|-}hh:mm.
+      int localEnd = value.length();
+      if (value.endsWith("Z")) {
+        localEnd--;
+      } else {
+        final int timeStart = value.indexOf('T');
+        final int signPosition = timeStart < 0 ? -1 : Math.max(value.indexOf('+', timeStart), value.indexOf('-', timeStart));
+        if (signPosition >= 0) {
+          final int hoursEnd = EdmDateTime.digitsEnd(value, signPosition + 1, 2);
+          if (!EdmDateTime.isCharAt(value, hoursEnd, ':') || EdmDateTime.digitsEnd(value, hoursEnd + 1, 2) != hoursEnd + 3
+              || hoursEnd + 3 != value.length()) {
+            throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+          }
+          final int hours = EdmDateTime.parseDigits(value, signPosition + 1, hoursEnd);
+          final int minutes = EdmDateTime.parseDigits(value, hoursEnd + 1, hoursEnd + 3);
+          if (hours > 23 || minutes > 59) {
+            throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(value));
+          }
+          offsetInMinutes = (value.charAt(signPosition) == '-' ? -1 : 1) * (hours * 60 + minutes);
+          localEnd = signPosition;
+        }
       }
-      dateTimeValue.clear();
-      EdmDateTime.parseLiteral(value.substring(0, matcher.group(1) == null ? value.length() : matcher.start(1)), facets, dateTimeValue);
+      millis = EdmDateTime.parseLiteral(localEnd == value.length() ? value : value.substring(0, localEnd), facets)
+          - offsetInMinutes * 60 * 1000;
     }
 
     if (returnType.isAssignableFrom(Calendar.class)) {
-      return returnType.cast(dateTimeValue);
+      return returnType.cast(EdmDateTime.createCalendar(getTimeZone(offsetInMinutes), millis));
     } else if (returnType.isAssignableFrom(Long.class)) {
-      return returnType.cast(dateTimeValue.getTimeInMillis());
+      return returnType.cast(millis);
     } else if (returnType.isAssignableFrom(Date.class)) {
-      return returnType.cast(dateTimeValue.getTime());
+      return returnType.cast(new Date(millis));
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(returnType));
     }
   }
 
+  /**
+   * Returns the time zone with the given fixed offset from GMT.
+   * The lookup by ID is done only once per offset.
+   * @param offsetInMinutes the offset in minutes
+   * @return the time zone; the caller may modify it
+   */
+  private static TimeZone getTimeZone(final int offsetInMinutes) {
+    TimeZone timeZone = TIME_ZONES.get(offsetInMinutes);
+    if (timeZone == null) {
+      final int absoluteOffset = Math.abs(offsetInMinutes);
+      timeZone = TimeZone.getTimeZone(offsetInMinutes == 0 ? "GMT" :
+          "GMT" + (offsetInMinutes < 0 ? '-' : '+') + absoluteOffset / 60
+              + ':' + (absoluteOffset % 60 < 10 ? "0" : "") + absoluteOffset % 60);
+      TIME_ZONES.putIfAbsent(offsetInMinutes, timeZone);
+    }
+    return (TimeZone) timeZone.clone();
+  }
+
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets) throws EdmSimpleTypeException {
-    Long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
+    long milliSeconds; // number of milliseconds since 1970-01-01T00:00:00Z
     int offset; // offset in milliseconds from GMT to the requested time zone
     if (value instanceof Date) {
       milliSeconds = ((Date) value).getTime();
       // Although java.util.Date, as stated in its documentation,
       // "is intended to reflect coordinated universal time (UTC)",
       // its toString() method uses the default time zone. And so do we.
-      Calendar dateTimeValue = Calendar.getInstance();
-      dateTimeValue.setTime((Date) value);
-      offset = dateTimeValue.get(Calendar.ZONE_OFFSET) + dateTimeValue.get(Calendar.DST_OFFSET);
+      offset = TimeZone.getDefault().getOffset(milliSeconds);
     } else if (value instanceof Calendar) {
       final Calendar dateTimeValue = (Calendar) ((Calendar) value).clone();
       milliSeconds = dateTimeValue.getTimeInMillis();
-      offset = dateTimeValue.get(Calendar.ZONE_OFFSET) + dateTimeValue.get(Calendar.DST_OFFSET);
+      offset = dateTimeValue.getTimeZone().getOffset(milliSeconds);
     } else if (value instanceof Long) {
       milliSeconds = (Long) value;
       offset = 0;
@@ -144,15 +174,29 @@ public class EdmDateTimeOffset extends AbstractSimpleType {
     final int offsetInMinutes = offset / 60 / 1000;
 
     if (literalKind == EdmLiteralKind.JSON) {
-      return "/Date(" + milliSeconds + (offset == 0 ? "" : String.format("%+05d", offsetInMinutes)) + ")/";
+      StringBuilder result = new StringBuilder(EdmDateTime.JSON_PREFIX).append(milliSeconds);
+      if (offset != 0) {
+        final int absoluteOffset = Math.abs(offsetInMinutes);
+        result.append(offsetInMinutes < 0 ? '-' : '+');
+        EdmDateTime.appendTwoDigits(result, absoluteOffset / 100);
+        EdmDateTime.appendTwoDigits(result, absoluteOffset % 100);
+      }
+      return result.append(EdmDateTime.JSON_SUFFIX).toString();
 
     } else {
-      final String localTimeString = EdmDateTime.getInstance().valueToString(milliSeconds, EdmLiteralKind.DEFAULT, facets);
-      final int offsetHours = offsetInMinutes / 60;
-      final int offsetMinutes = Math.abs(offsetInMinutes % 60);
-      final String offsetString = offset == 0 ? "Z" : String.format("%+03d:%02d", offsetHours, offsetMinutes);
-
-      return localTimeString + offsetString;
+      StringBuilder result = new StringBuilder(29) // 29 characters are enough for millisecond precision.
+          .append(EdmDateTime.getInstance().valueToString(milliSeconds, EdmLiteralKind.DEFAULT, facets));
+      if (offset == 0) {
+        result.append('Z');
+      } else {
+        // The sign is taken from the hours, as formatting it with "%+03d" would do.
+        final int offsetHours = offsetInMinutes / 60;
+        result.append(offsetHours < 0 ? '-' : '+');
+        EdmDateTime.appendTwoDigits(result, Math.abs(offsetHours));
+        result.append(':');
+        EdmDateTime.appendTwoDigits(result, Math.abs(offsetInMinutes % 60));
+      }
+      return result.toString();
     }
   }
 
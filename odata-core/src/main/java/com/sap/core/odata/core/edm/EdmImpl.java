@@ -15,8 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.core.edm;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmAssociation;
@@ -29,46 +29,50 @@ import com.sap.core.odata.api.edm.FullQualifiedName;
 import com.sap.core.odata.api.exception.ODataException;
 
 /**
+ * <p>Base implementation of the entity data model which caches every created
+ * entity container, entity type, complex type, and association.</p>
+ * <p>The caches may be filled concurrently, so an instance can be shared
+ * between threads.</p>
  * @author SAP AG
  */
 public abstract class EdmImpl implements Edm {
 
-  private Map<String, EdmEntityContainer> edmEntityContainers;
-  private Map<FullQualifiedName, EdmEntityType> edmEntityTypes;
-  private Map<FullQualifiedName, EdmComplexType> edmComplexTypes;
-  private Map<FullQualifiedName, EdmAssociation> edmAssociations;
+  private ConcurrentMap<String, EdmEntityContainer> edmEntityContainers;
+  private volatile EdmEntityContainer defaultEntityContainer;
+  private ConcurrentMap<FullQualifiedName, EdmEntityType> edmEntityTypes;
+  private ConcurrentMap<FullQualifiedName, EdmComplexType> edmComplexTypes;
+  private ConcurrentMap<FullQualifiedName, EdmAssociation> edmAssociations;
 
   protected EdmServiceMetadata edmServiceMetadata;
 
   public EdmImpl(final EdmServiceMetadata edmServiceMetadata) {
-    edmEntityContainers = new HashMap<String, EdmEntityContainer>();
-    edmEntityTypes = new HashMap<FullQualifiedName, EdmEntityType>();
-    edmComplexTypes = new HashMap<FullQualifiedName, EdmComplexType>();
-    edmAssociations = new HashMap<FullQualifiedName, EdmAssociation>();
+    edmEntityContainers = new ConcurrentHashMap<String, EdmEntityContainer>();
+    edmEntityTypes = new ConcurrentHashMap<FullQualifiedName, EdmEntityType>();
+    edmComplexTypes = new ConcurrentHashMap<FullQualifiedName, EdmComplexType>();
+    edmAssociations = new ConcurrentHashMap<FullQualifiedName, EdmAssociation>();
     this.edmServiceMetadata = edmServiceMetadata;
   }
 
   @Override
   public EdmEntityContainer getEntityContainer(final String name) throws EdmException {
-    if (edmEntityContainers.containsKey(name)) {
-      return edmEntityContainers.get(name);
+    EdmEntityContainer edmEntityContainer = name == null ? defaultEntityContainer : edmEntityContainers.get(name);
+    if (edmEntityContainer != null) {
+      return edmEntityContainer;
     }
 
-    EdmEntityContainer edmEntityContainer = null;
-
     try {
       edmEntityContainer = createEntityContainer(name);
       if (edmEntityContainer != null) {
-        if (name == null && edmEntityContainers.containsKey(edmEntityContainer.getName())) {
-          //ensure that the same default entity container is stored in the HashMap under null and its name 
-          edmEntityContainer = edmEntityContainers.get(edmEntityContainer.getName());
-          edmEntityContainers.put(name, edmEntityContainer);
-        } else if (edmEntityContainers.containsKey(null) && edmEntityContainers.get(null) != null && name.equals(edmEntityContainers.get(null).getName())) {
-          //ensure that the same default entity container is stored in the HashMap under null and its name        
-          edmEntityContainer = edmEntityContainers.get(null);
-          edmEntityContainers.put(name, edmEntityContainer);
-        } else {
-          edmEntityContainers.put(name, edmEntityContainer);
+        //ensure that the same default entity container is returned for null and its name
+        final String key = name == null ? edmEntityContainer.getName() : name;
+        if (key != null) {
+          final EdmEntityContainer cached = edmEntityContainers.putIfAbsent(key, edmEntityContainer);
+          if (cached != null) {
+            edmEntityContainer = cached;
+          }
+        }
+        if (name == null) {
+          defaultEntityContainer = edmEntityContainer;
         }
       }
     } catch (ODataException e) {
@@ -81,16 +85,18 @@ public abstract class EdmImpl implements Edm {
   @Override
   public EdmEntityType getEntityType(final String namespace, final String name) throws EdmException {
     FullQualifiedName fqName = new FullQualifiedName(namespace, name);
-    if (edmEntityTypes.containsKey(fqName)) {
-      return edmEntityTypes.get(fqName);
+    EdmEntityType edmEntityType = edmEntityTypes.get(fqName);
+    if (edmEntityType != null) {
+      return edmEntityType;
     }
 
-    EdmEntityType edmEntityType = null;
-
     try {
       edmEntityType = createEntityType(fqName);
       if (edmEntityType != null) {
-        edmEntityTypes.put(fqName, edmEntityType);
+        final EdmEntityType cached = edmEntityTypes.putIfAbsent(fqName, edmEntityType);
+        if (cached != null) {
+          edmEntityType = cached;
+        }
       }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
@@ -102,16 +108,18 @@ public abstract class EdmImpl implements Edm {
   @Override
   public EdmComplexType getComplexType(final String namespace, final String name) throws EdmException {
     FullQualifiedName fqName = new FullQualifiedName(namespace, name);
-    if (edmComplexTypes.containsKey(fqName)) {
-      return edmComplexTypes.get(fqName);
+    EdmComplexType edmComplexType = edmComplexTypes.get(fqName);
+    if (edmComplexType != null) {
+      return edmComplexType;
     }
 
-    EdmComplexType edmComplexType = null;
-
     try {
       edmComplexType = createComplexType(fqName);
       if (edmComplexType != null) {
-        edmComplexTypes.put(fqName, edmComplexType);
+        final EdmComplexType cached = edmComplexTypes.putIfAbsent(fqName, edmComplexType);
+        if (cached != null) {
+          edmComplexType = cached;
+        }
       }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
@@ -123,16 +131,18 @@ public abstract class EdmImpl implements Edm {
   @Override
   public EdmAssociation getAssociation(final String namespace, final String name) throws EdmException {
     FullQualifiedName fqName = new FullQualifiedName(namespace, name);
-    if (edmAssociations.containsKey(fqName)) {
-      return edmAssociations.get(fqName);
+    EdmAssociation edmAssociation = edmAssociations.get(fqName);
+    if (edmAssociation != null) {
+      return edmAssociation;
     }
 
-    EdmAssociation edmAssociation = null;
-
     try {
       edmAssociation = createAssociation(fqName);
       if (edmAssociation != null) {
-        edmAssociations.put(fqName, edmAssociation);
+        final EdmAssociation cached = edmAssociations.putIfAbsent(fqName, edmAssociation);
+        if (cached != null) {
+          edmAssociation = cached;
+        }
       }
     } catch (ODataException e) {
       throw new EdmException(EdmException.COMMON, e);
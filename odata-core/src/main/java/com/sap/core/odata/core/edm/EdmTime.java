@@ -18,8 +18,6 @@ package com.sap.core.odata.core.edm;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.sap.core.odata.api.edm.EdmFacets;
 import com.sap.core.odata.api.edm.EdmLiteralKind;
@@ -35,8 +33,6 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeException;
  */
 public class EdmTime extends AbstractSimpleType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "PT(?:(\\p{Digit}{1,2})H)?(?:(\\p{Digit}{1,4})M)?(?:(\\p{Digit}{1,5})(?:\\.(\\p{Digit}+?)0*)?S)?");
   private static final EdmTime instance = new EdmTime();
 
   public static EdmTime getInstance() {
@@ -73,30 +69,33 @@ public class EdmTime extends AbstractSimpleType {
   }
 
   private Calendar parseLiteral(final String literal, final EdmFacets facets) throws EdmSimpleTypeException {
-    final Matcher matcher = PATTERN.matcher(literal);
-    if (!matcher.matches()
-        || (matcher.group(1) == null && matcher.group(2) == null && matcher.group(3) == null)) {
+    // The expected format is PT[hhH][mmmmM][sssss[.fff]S] with at least one part.
+    final int hoursEnd = EdmDateTime.digitsEnd(literal, 2, 2);
+    final int minutesStart = EdmDateTime.isCharAt(literal, hoursEnd, 'H') ? hoursEnd + 1 : 2;
+    final int minutesEnd = EdmDateTime.digitsEnd(literal, minutesStart, 4);
+    final int secondsStart = EdmDateTime.isCharAt(literal, minutesEnd, 'M') ? minutesEnd + 1 : minutesStart;
+    final int secondsEnd = EdmDateTime.digitsEnd(literal, secondsStart, 5);
+    final int fractionEnd = EdmDateTime.isCharAt(literal, secondsEnd, '.') ?
+        EdmDateTime.digitsEnd(literal, secondsEnd + 1, Integer.MAX_VALUE) : secondsEnd;
+    final int end = EdmDateTime.isCharAt(literal, fractionEnd, 'S') ? fractionEnd + 1 : secondsStart;
+    if (!literal.startsWith("PT") || end == 2 || end != literal.length()) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
     }
 
-    Calendar dateTimeValue = Calendar.getInstance();
-    dateTimeValue.clear();
-
-    if (matcher.group(1) != null) {
-      dateTimeValue.set(Calendar.HOUR_OF_DAY, Integer.parseInt(matcher.group(1)));
-    }
-    if (matcher.group(2) != null) {
-      dateTimeValue.set(Calendar.MINUTE, Integer.parseInt(matcher.group(2)));
-    }
-    if (matcher.group(3) != null) {
-      dateTimeValue.set(Calendar.SECOND, Integer.parseInt(matcher.group(3)));
-    }
-
-    if (matcher.group(4) != null) {
-      if (facets == null || facets.getPrecision() == null || facets.getPrecision() >= matcher.group(4).length()) {
-        if (matcher.group(4).length() <= 3) {
-          dateTimeValue.set(Calendar.MILLISECOND,
-              Short.parseShort(matcher.group(4) + "000".substring(0, 3 - matcher.group(4).length())));
+    final int hours = minutesStart == 2 ? 0 : EdmDateTime.parseDigits(literal, 2, hoursEnd);
+    final int minutes = secondsStart == minutesStart ? 0 : EdmDateTime.parseDigits(literal, minutesStart, minutesEnd);
+    final int seconds = end == secondsStart ? 0 : EdmDateTime.parseDigits(literal, secondsStart, secondsEnd);
+    int milliSeconds = 0;
+    if (fractionEnd > secondsEnd) {
+      // Trailing zeros are not significant but at least one digit is.
+      int significantEnd = fractionEnd;
+      while (significantEnd > secondsEnd + 2 && literal.charAt(significantEnd - 1) == '0') {
+        significantEnd--;
+      }
+      final int decimals = significantEnd - secondsEnd - 1;
+      if (facets == null || facets.getPrecision() == null || facets.getPrecision() >= decimals) {
+        if (decimals <= 3) {
+          milliSeconds = EdmDateTime.parseDigits(literal, secondsEnd + 1, significantEnd) * (decimals == 1 ? 100 : decimals == 2 ? 10 : 1);
         } else {
           throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
         }
@@ -105,41 +104,51 @@ public class EdmTime extends AbstractSimpleType {
       }
     }
 
-    if (dateTimeValue.get(Calendar.DAY_OF_YEAR) == 1) {
-      return dateTimeValue;
-    } else {
+    // The time must not exceed one day.
+    if (((hours * 60L + minutes) * 60 + seconds) * 1000 + milliSeconds >= EdmDateTime.MILLIS_PER_DAY) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.LITERAL_ILLEGAL_CONTENT.addContent(literal));
     }
+
+    Calendar dateTimeValue = Calendar.getInstance();
+    dateTimeValue.clear();
+    dateTimeValue.set(Calendar.HOUR_OF_DAY, hours);
+    dateTimeValue.set(Calendar.MINUTE, minutes);
+    dateTimeValue.set(Calendar.SECOND, seconds);
+    dateTimeValue.set(Calendar.MILLISECOND, milliSeconds);
+    return dateTimeValue;
   }
 
   @Override
   protected <T> String internalValueToString(final T value, final EdmLiteralKind literalKind, final EdmFacets facets) throws EdmSimpleTypeException {
-    Calendar dateTimeValue;
+    long timeInMillis; // local time in milliseconds since 1970-01-01T00:00:00
     if (value instanceof Date) {
-      dateTimeValue = Calendar.getInstance();
-      dateTimeValue.clear();
-      dateTimeValue.setTime((Date) value);
+      timeInMillis = ((Date) value).getTime();
+      timeInMillis += TimeZone.getDefault().getOffset(timeInMillis);
     } else if (value instanceof Calendar) {
-      dateTimeValue = (Calendar) ((Calendar) value).clone();
+      final Calendar dateTimeValue = (Calendar) ((Calendar) value).clone();
+      timeInMillis = dateTimeValue.getTimeInMillis();
+      timeInMillis += dateTimeValue.getTimeZone().getOffset(timeInMillis);
     } else if (value instanceof Long) {
-      dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
-      dateTimeValue.clear();
-      dateTimeValue.setTimeInMillis((Long) value);
+      timeInMillis = (Long) value;
     } else {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_TYPE_NOT_SUPPORTED.addContent(value.getClass()));
     }
+    int millisOfDay = (int) (timeInMillis % EdmDateTime.MILLIS_PER_DAY);
+    if (millisOfDay < 0) {
+      millisOfDay += EdmDateTime.MILLIS_PER_DAY;
+    }
 
     StringBuilder result = new StringBuilder(15); // 15 characters are enough for millisecond precision.
     result.append('P');
     result.append('T');
-    result.append(dateTimeValue.get(Calendar.HOUR_OF_DAY));
+    result.append(millisOfDay / 3600000);
     result.append('H');
-    result.append(dateTimeValue.get(Calendar.MINUTE));
+    result.append(millisOfDay / 60000 % 60);
     result.append('M');
-    result.append(dateTimeValue.get(Calendar.SECOND));
+    result.append(millisOfDay / 1000 % 60);
 
     try {
-      EdmDateTime.appendMilliseconds(result, dateTimeValue.get(Calendar.MILLISECOND), facets);
+      EdmDateTime.appendMilliseconds(result, millisOfDay % 1000, facets);
     } catch (final IllegalArgumentException e) {
       throw new EdmSimpleTypeException(EdmSimpleTypeException.VALUE_FACETS_NOT_MATCHED.addContent(value, facets), e);
     }
@@ -36,6 +36,7 @@ import com.sap.core.odata.api.edm.provider.FunctionImport;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.core.ep.util.StaxFactories;
 
 public class EdmxProvider extends EdmProvider {
   private DataServices dataServices;
@@ -167,9 +168,7 @@ public class EdmxProvider extends EdmProvider {
   }
 
   private XMLStreamReader createStreamReader(final InputStream in) throws EntityProviderException {
-    XMLInputFactory factory = XMLInputFactory.newInstance();
-    factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
-    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    XMLInputFactory factory = StaxFactories.getInputFactory();
 
     XMLStreamReader streamReader;
     try {
@@ -15,8 +15,8 @@
  ******************************************************************************/
 package com.sap.core.odata.core.edm.provider;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.sap.core.odata.api.edm.EdmAnnotatable;
 import com.sap.core.odata.api.edm.EdmAnnotations;
@@ -50,9 +50,9 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
   public EdmEntityContainerImplProv(final EdmImplProv edm, final EntityContainerInfo entityContainer) throws EdmException {
     this.edm = edm;
     this.entityContainer = entityContainer;
-    edmEntitySets = new HashMap<String, EdmEntitySet>();
-    edmAssociationSets = new HashMap<String, EdmAssociationSet>();
-    edmFunctionImports = new HashMap<String, EdmFunctionImport>();
+    edmEntitySets = new ConcurrentHashMap<String, EdmEntitySet>();
+    edmAssociationSets = new ConcurrentHashMap<String, EdmAssociationSet>();
+    edmFunctionImports = new ConcurrentHashMap<String, EdmFunctionImport>();
     isDefaultContainer = entityContainer.isDefaultEntityContainer();
 
     if (entityContainer.getExtendz() != null) {
@@ -70,7 +70,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public EdmEntitySet getEntitySet(final String name) throws EdmException {
-    EdmEntitySet edmEntitySet = edmEntitySets.get(name);
+    EdmEntitySet edmEntitySet = name == null ? null : edmEntitySets.get(name);
     if (edmEntitySet != null) {
       return edmEntitySet;
     }
@@ -84,10 +84,12 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
     if (entitySet != null) {
       edmEntitySet = createEntitySet(entitySet);
-      edmEntitySets.put(name, edmEntitySet);
+      if (name != null) {
+        edmEntitySets.put(name, edmEntitySet);
+      }
     } else if (edmExtendedEntityContainer != null) {
       edmEntitySet = edmExtendedEntityContainer.getEntitySet(name);
-      if (edmEntitySet != null) {
+      if (edmEntitySet != null && name != null) {
         edmEntitySets.put(name, edmEntitySet);
       }
     }
@@ -97,7 +99,7 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
   @Override
   public EdmFunctionImport getFunctionImport(final String name) throws EdmException {
-    EdmFunctionImport edmFunctionImport = edmFunctionImports.get(name);
+    EdmFunctionImport edmFunctionImport = name == null ? null : edmFunctionImports.get(name);
     if (edmFunctionImport != null) {
       return edmFunctionImport;
     }
@@ -111,10 +113,12 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
 
     if (functionImport != null) {
       edmFunctionImport = createFunctionImport(functionImport);
-      edmFunctionImports.put(name, edmFunctionImport);
+      if (name != null) {
+        edmFunctionImports.put(name, edmFunctionImport);
+      }
     } else if (edmExtendedEntityContainer != null) {
       edmFunctionImport = edmExtendedEntityContainer.getFunctionImport(name);
-      if (edmFunctionImport != null) {
+      if (edmFunctionImport != null && name != null) {
         edmFunctionImports.put(name, edmFunctionImport);
       }
     }
@@ -150,7 +154,9 @@ public class EdmEntityContainerImplProv implements EdmEntityContainer, EdmAnnota
       return edmAssociationSet;
     } else if (edmExtendedEntityContainer != null) {
       edmAssociationSet = edmExtendedEntityContainer.getAssociationSet(sourceEntitySet, navigationProperty);
-      edmAssociationSets.put(key, edmAssociationSet);
+      if (edmAssociationSet != null) {
+        edmAssociationSets.put(key, edmAssociationSet);
+      }
       return edmAssociationSet;
     } else {
       throw new EdmException(EdmException.COMMON);
@@ -66,16 +66,17 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
         return ((EdmEntityType) edmBaseType).getKeyPropertyNames();
       }
 
-      edmKeyPropertyNames = new ArrayList<String>();
+      List<String> keyPropertyNames = new ArrayList<String>();
 
       if (entityType.getKey() != null) {
         for (final PropertyRef keyProperty : entityType.getKey().getKeys()) {
-          edmKeyPropertyNames.add(keyProperty.getName());
+          keyPropertyNames.add(keyProperty.getName());
         }
       } else {
         //Entity Type does not define a key
         throw new EdmException(EdmException.COMMON);
       }
+      edmKeyPropertyNames = keyPropertyNames;
     }
 
     return edmKeyPropertyNames;
@@ -89,18 +90,21 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
       }
 
       if (keyProperties == null) {
-        keyProperties = new HashMap<String, EdmProperty>();
-        edmKeyProperties = new ArrayList<EdmProperty>();
+        Map<String, EdmProperty> keyPropertyMap = new HashMap<String, EdmProperty>();
+        List<EdmProperty> keyPropertyList = new ArrayList<EdmProperty>();
 
         for (String keyPropertyName : getKeyPropertyNames()) {
           final EdmTyped edmProperty = getProperty(keyPropertyName);
           if (edmProperty != null && edmProperty instanceof EdmProperty) {
-            keyProperties.put(keyPropertyName, (EdmProperty) edmProperty);
-            edmKeyProperties.add((EdmProperty) edmProperty);
+            keyPropertyMap.put(keyPropertyName, (EdmProperty) edmProperty);
+            keyPropertyList.add((EdmProperty) edmProperty);
           } else {
             throw new EdmException(EdmException.COMMON);
           }
         }
+        // publish only completely built lists since instances may be shared between threads
+        keyProperties = keyPropertyMap;
+        edmKeyProperties = keyPropertyList;
       }
     }
 
@@ -120,15 +124,16 @@ public class EdmEntityTypeImplProv extends EdmStructuralTypeImplProv implements
   @Override
   public List<String> getNavigationPropertyNames() throws EdmException {
     if (edmNavigationPropertyNames == null) {
-      edmNavigationPropertyNames = new ArrayList<String>();
+      List<String> navigationPropertyNames = new ArrayList<String>();
       if (edmBaseType != null) {
-        edmNavigationPropertyNames.addAll(((EdmEntityType) edmBaseType).getNavigationPropertyNames());
+        navigationPropertyNames.addAll(((EdmEntityType) edmBaseType).getNavigationPropertyNames());
       }
       if (entityType.getNavigationProperties() != null) {
         for (final NavigationProperty navigationProperty : entityType.getNavigationProperties()) {
-          edmNavigationPropertyNames.add(navigationProperty.getName());
+          navigationPropertyNames.add(navigationProperty.getName());
         }
       }
+      edmNavigationPropertyNames = navigationPropertyNames;
     }
     return edmNavigationPropertyNames;
   }
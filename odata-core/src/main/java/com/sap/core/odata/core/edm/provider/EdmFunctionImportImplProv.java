@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.sap.core.odata.api.edm.EdmAnnotatable;
 import com.sap.core.odata.api.edm.EdmAnnotations;
@@ -53,7 +54,7 @@ public class EdmFunctionImportImplProv extends EdmNamedImplProv implements EdmFu
 
     buildFunctionImportParametersInternal();
 
-    edmParameters = new HashMap<String, EdmParameter>();
+    edmParameters = new ConcurrentHashMap<String, EdmParameter>();
   }
 
   private void buildFunctionImportParametersInternal() {
@@ -94,13 +95,14 @@ public class EdmFunctionImportImplProv extends EdmNamedImplProv implements EdmFu
   @Override
   public List<String> getParameterNames() throws EdmException {
     if (parametersList == null) {
-      parametersList = new ArrayList<String>();
+      List<String> parameterNames = new ArrayList<String>();
 
       Set<String> keySet = parameters.keySet();
       Iterator<String> iterator = keySet.iterator();
       while (iterator.hasNext()) {
-        parametersList.add(iterator.next());
+        parameterNames.add(iterator.next());
       }
+      parametersList = parameterNames;
     }
 
     return parametersList;
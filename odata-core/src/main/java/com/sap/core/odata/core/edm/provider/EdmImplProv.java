@@ -15,6 +15,9 @@
  ******************************************************************************/
 package com.sap.core.odata.core.edm.provider;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.sap.core.odata.api.edm.EdmAssociation;
 import com.sap.core.odata.api.edm.EdmComplexType;
 import com.sap.core.odata.api.edm.EdmEntityContainer;
@@ -27,11 +30,13 @@ import com.sap.core.odata.api.edm.provider.EdmProviderAccessor;
 import com.sap.core.odata.api.edm.provider.EntityContainerInfo;
 import com.sap.core.odata.api.edm.provider.EntityType;
 import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.core.commons.LruCache;
 import com.sap.core.odata.core.edm.EdmImpl;
 
 public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
 
   protected EdmProvider edmProvider;
+  private ConcurrentMap<String, LruCache<?, ?>> caches;
 
   public EdmImplProv(final EdmProvider edmProvider) {
     super(new EdmServiceMetadataImplProv(edmProvider));
@@ -79,4 +84,33 @@ public class EdmImplProv extends EdmImpl implements EdmProviderAccessor {
   public EdmProvider getEdmProvider() {
     return edmProvider;
   }
+
+  /**
+   * Enables caches for this entity data model; see {@link EdmSnapshot}.
+   */
+  void enableCaches() {
+    caches = new ConcurrentHashMap<String, LruCache<?, ?>>();
+  }
+
+  /**
+   * Returns the cache with the given name, creating it if necessary.
+   * @param name the name of the cache
+   * @param maximumSize the maximum number of entries used if the cache has to be created
+   * @return the cache or <code>null</code> if caches are not enabled
+   */
+  @SuppressWarnings("unchecked")
+  <K, V> LruCache<K, V> getCache(final String name, final int maximumSize) {
+    if (caches == null) {
+      return null;
+    }
+    LruCache<?, ?> cache = caches.get(name);
+    if (cache == null) {
+      cache = new LruCache<K, V>(maximumSize);
+      final LruCache<?, ?> registered = caches.putIfAbsent(name, cache);
+      if (registered != null) {
+        cache = registered;
+      }
+    }
+    return (LruCache<K, V>) cache;
+  }
 }
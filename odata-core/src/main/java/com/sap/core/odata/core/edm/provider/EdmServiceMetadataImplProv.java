@@ -22,7 +22,6 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.List;
 
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -38,18 +37,25 @@ import com.sap.core.odata.api.edm.provider.Property;
 import com.sap.core.odata.api.edm.provider.Schema;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.core.commons.LruCache;
 import com.sap.core.odata.core.ep.producer.XmlMetadataProducer;
+import com.sap.core.odata.core.ep.util.CachedDocument;
 import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
+import com.sap.core.odata.core.ep.util.StaxFactories;
 
 /**
  * @author SAP AG
  */
 public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
 
+  private static final int MAX_CACHED_SERVICE_DOCUMENTS = 16;
+
   private EdmProvider edmProvider;
   private String dataServiceVersion;
   private List<Schema> schemas;
   private List<EdmEntitySetInfo> entitySetInfos;
+  private volatile CachedDocument metadataDocument;
+  private final LruCache<String, CachedDocument> serviceDocuments = new LruCache<String, CachedDocument>(MAX_CACHED_SERVICE_DOCUMENTS);
 
   public EdmServiceMetadataImplProv(final EdmProvider edmProvider) {
     this.edmProvider = edmProvider;
@@ -57,6 +63,48 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
 
   @Override
   public InputStream getMetadata() throws ODataException {
+    return getMetadataDocument().getContent();
+  }
+
+  @Override
+  public InputStream getCompressedMetadata() throws ODataException {
+    return getMetadataDocument().getCompressedContent();
+  }
+
+  @Override
+  public String getMetadataETag() throws ODataException {
+    return getMetadataDocument().getETag();
+  }
+
+  /**
+   * Returns a service document cached with this metadata.
+   * @param key identifies format and service root of the document
+   * @return the document or <code>null</code> if it has not been cached
+   */
+  public CachedDocument getServiceDocument(final String key) {
+    return serviceDocuments.get(key);
+  }
+
+  /**
+   * Caches a service document with this metadata. Since the service root
+   * is taken from the request, only the most recently used documents are kept.
+   * @param key identifies format and service root of the document
+   * @param document the document
+   */
+  public void cacheServiceDocument(final String key, final CachedDocument document) {
+    serviceDocuments.putIfAbsent(key, document);
+  }
+
+  private CachedDocument getMetadataDocument() throws ODataException {
+    CachedDocument document = metadataDocument;
+    if (document == null) {
+      document = CachedDocument.create(writeMetadata(), null);
+      metadataDocument = document;
+    }
+    return document;
+  }
+
+  private InputStream writeMetadata() throws ODataException {
     if (schemas == null) {
       schemas = edmProvider.getSchemas();
     }
@@ -68,7 +116,7 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
 
     try {
       writer = new OutputStreamWriter(csb.getOutputStream(), "UTF-8");
-      XMLStreamWriter xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+      XMLStreamWriter xmlStreamWriter = StaxFactories.getOutputFactory().createXMLStreamWriter(writer);
       XmlMetadataProducer.writeMetadata(metadata, xmlStreamWriter, null);
       return csb.getInputStream();
     } catch (XMLStreamException e) {
@@ -99,7 +147,7 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
     }
 
     if (dataServiceVersion == null) {
-      dataServiceVersion = ODataServiceVersion.V10;
+      String version = ODataServiceVersion.V10;
 
       if (schemas != null) {
         for (Schema schema : schemas) {
@@ -131,6 +179,7 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
           }
         }
       }
+      dataServiceVersion = version;
     }
     return dataServiceVersion;
   }
@@ -138,7 +187,7 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
   @Override
   public List<EdmEntitySetInfo> getEntitySetInfos() throws ODataException {
     if (entitySetInfos == null) {
-      entitySetInfos = new ArrayList<EdmEntitySetInfo>();
+      List<EdmEntitySetInfo> infos = new ArrayList<EdmEntitySetInfo>();
 
       if (schemas == null) {
         schemas = edmProvider.getSchemas();
@@ -148,10 +197,11 @@ public class EdmServiceMetadataImplProv implements EdmServiceMetadata {
         for (EntityContainer entityContainer : schema.getEntityContainers()) {
           for (EntitySet entitySet : entityContainer.getEntitySets()) {
             EdmEntitySetInfo entitySetInfo = new EdmEntitySetInfoImplProv(entitySet, entityContainer);
-            entitySetInfos.add(entitySetInfo);
+            infos.add(entitySetInfo);
           }
         }
       }
+      entitySetInfos = infos;
 
     }
 
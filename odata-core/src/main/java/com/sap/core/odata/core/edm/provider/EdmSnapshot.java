@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.provider;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmAssociation;
+import com.sap.core.odata.api.edm.EdmEntityContainer;
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmFunctionImport;
+import com.sap.core.odata.api.edm.EdmNamed;
+import com.sap.core.odata.api.edm.EdmNavigationProperty;
+import com.sap.core.odata.api.edm.EdmStructuralType;
+import com.sap.core.odata.api.edm.EdmTyped;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationEnd;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.EdmProvider;
+import com.sap.core.odata.api.edm.provider.EntityContainer;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.edm.provider.FunctionImport;
+import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.core.commons.LruCache;
+
+/**
+ * <p>Creates entity data models which are completely resolved up front
+ * and can therefore be shared by all requests of a service.</p>
+ * <p>All schemas of the {@link EdmProvider} are walked once and every entity type,
+ * complex type, association, entity container, entity set, association set,
+ * and function import is created, so later read access does not call the provider
+ * for any element of the model; also the metadata document is serialized
+ * right away. Shared models are registered under a key chosen
+ * by the service and stay valid until {@link #invalidate(String)} is called.</p>
+ * <p>Since a shared model does not change, information derived from its elements
+ * can be cached together with the model, see {@link #getCache(EdmNamed, String, int)};
+ * such caches are discarded along with the model.</p>
+ * @author SAP AG
+ */
+public final class EdmSnapshot {
+
+  private static final ConcurrentMap<String, Edm> SNAPSHOTS = new ConcurrentHashMap<String, Edm>();
+
+  private EdmSnapshot() {}
+
+  /**
+   * Returns the shared entity data model registered under the given key.
+   * If there is none, it is created from the given provider and registered.
+   * @param key a key identifying the model, e.g., the name of the service
+   * @param provider the provider used if the model has to be created
+   * @return the shared entity data model
+   * @throws ODataException if the provider fails or its metadata are inconsistent
+   */
+  public static Edm get(final String key, final EdmProvider provider) throws ODataException {
+    Edm edm = SNAPSHOTS.get(key);
+    if (edm == null) {
+      edm = create(provider);
+      final Edm registered = SNAPSHOTS.putIfAbsent(key, edm);
+      if (registered != null) {
+        edm = registered;
+      }
+    }
+    return edm;
+  }
+
+  /**
+   * Removes the shared entity data model registered under the given key,
+   * so that it is created again with the next {@link #get(String, EdmProvider)} call.
+   * @param key a key identifying the model
+   */
+  public static void invalidate(final String key) {
+    SNAPSHOTS.remove(key);
+  }
+
+  /**
+   * Removes all shared entity data models.
+   */
+  public static void invalidateAll() {
+    SNAPSHOTS.clear();
+  }
+
+  /**
+   * Creates a completely resolved entity data model.
+   * @param provider the provider of the metadata
+   * @return the entity data model
+   * @throws ODataException if the provider fails or its metadata are inconsistent
+   */
+  public static Edm create(final EdmProvider provider) throws ODataException {
+    EdmImplProv edm = new EdmImplProv(provider);
+    edm.enableCaches();
+    final List<Schema> schemas = provider.getSchemas();
+    if (schemas != null) {
+      for (final Schema schema : schemas) {
+        resolveTypes(edm, schema);
+      }
+      for (final Schema schema : schemas) {
+        resolveContainers(edm, schema);
+      }
+    }
+    edm.getServiceMetadata().getDataServiceVersion();
+    edm.getServiceMetadata().getEntitySetInfos();
+    edm.getServiceMetadata().getMetadataETag();
+    return edm;
+  }
+
+  /**
+   * Returns a cache attached to the entity data model the given element belongs to.
+   * Caches are only available for models created by this class.
+   * @param element an element of the entity data model
+   * @param name the name of the cache
+   * @param maximumSize the maximum number of entries used if the cache has to be created
+   * @return the cache or <code>null</code> if the model is not a shared one
+   */
+  public static <K, V> LruCache<K, V> getCache(final EdmNamed element, final String name, final int maximumSize) {
+    return element instanceof EdmNamedImplProv && ((EdmNamedImplProv) element).edm != null ?
+        ((EdmNamedImplProv) element).edm.<K, V> getCache(name, maximumSize) : null;
+  }
+
+  private static void resolveTypes(final Edm edm, final Schema schema) throws EdmException {
+    final String namespace = schema.getNamespace();
+    if (schema.getComplexTypes() != null) {
+      for (final ComplexType complexType : schema.getComplexTypes()) {
+        resolveProperties(edm.getComplexType(namespace, complexType.getName()));
+      }
+    }
+    if (schema.getEntityTypes() != null) {
+      for (final EntityType entityType : schema.getEntityTypes()) {
+        final EdmEntityType edmEntityType = edm.getEntityType(namespace, entityType.getName());
+        resolveProperties(edmEntityType);
+        if (edmEntityType.getBaseType() != null || entityType.getKey() != null) {
+          edmEntityType.getKeyProperties();
+        }
+        for (final String name : edmEntityType.getNavigationPropertyNames()) {
+          ((EdmNavigationProperty) edmEntityType.getProperty(name)).getRelationship();
+        }
+      }
+    }
+    if (schema.getAssociations() != null) {
+      for (final Association association : schema.getAssociations()) {
+        final EdmAssociation edmAssociation = edm.getAssociation(namespace, association.getName());
+        resolveEnd(edmAssociation, association.getEnd1());
+        resolveEnd(edmAssociation, association.getEnd2());
+      }
+    }
+  }
+
+  private static void resolveProperties(final EdmStructuralType type) throws EdmException {
+    if (type == null) {
+      throw new EdmException(EdmException.COMMON);
+    }
+    for (final String name : type.getPropertyNames()) {
+      final EdmTyped property = type.getProperty(name);
+      if (property != null) {
+        property.getType();
+      }
+    }
+  }
+
+  private static void resolveEnd(final EdmAssociation association, final AssociationEnd end) throws EdmException {
+    if (association != null && end != null && association.getEnd(end.getRole()) != null) {
+      association.getEnd(end.getRole()).getEntityType();
+    }
+  }
+
+  private static void resolveContainers(final Edm edm, final Schema schema) throws EdmException {
+    if (schema.getEntityContainers() == null) {
+      return;
+    }
+    for (final EntityContainer entityContainer : schema.getEntityContainers()) {
+      final EdmEntityContainer edmEntityContainer = entityContainer.isDefaultEntityContainer() ?
+          edm.getDefaultEntityContainer() : edm.getEntityContainer(entityContainer.getName());
+      if (edmEntityContainer == null) {
+        throw new EdmException(EdmException.COMMON);
+      }
+      if (entityContainer.getEntitySets() != null) {
+        for (final EntitySet entitySet : entityContainer.getEntitySets()) {
+          resolveEntitySet(edmEntityContainer.getEntitySet(entitySet.getName()));
+        }
+      }
+      if (entityContainer.getFunctionImports() != null) {
+        for (final FunctionImport functionImport : entityContainer.getFunctionImports()) {
+          final EdmFunctionImport edmFunctionImport = edmEntityContainer.getFunctionImport(functionImport.getName());
+          for (final String name : edmFunctionImport.getParameterNames()) {
+            edmFunctionImport.getParameter(name).getType();
+          }
+          if (functionImport.getEntitySet() != null) {
+            edmFunctionImport.getEntitySet();
+          }
+        }
+      }
+    }
+  }
+
+  private static void resolveEntitySet(final EdmEntitySet entitySet) throws EdmException {
+    final EdmEntityType entityType = entitySet.getEntityType();
+    for (final String name : entityType.getNavigationPropertyNames()) {
+      try {
+        entitySet.getRelatedEntitySet((EdmNavigationProperty) entityType.getProperty(name));
+      } catch (final EdmException e) {
+        // A navigation without association set fails only when it is used,
+        // as it does for a model which is not resolved up front.
+      }
+    }
+  }
+}
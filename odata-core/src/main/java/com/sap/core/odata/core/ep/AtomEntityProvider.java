@@ -15,14 +15,15 @@
  ******************************************************************************/
 package com.sap.core.odata.core.ep;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
@@ -37,11 +38,13 @@ import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.edm.EdmTypeKind;
+import com.sap.core.odata.api.ep.EntityDataCursor;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.servicedocument.ServiceDocument;
@@ -60,6 +63,8 @@ import com.sap.core.odata.core.ep.producer.XmlLinkEntityProducer;
 import com.sap.core.odata.core.ep.producer.XmlLinksEntityProducer;
 import com.sap.core.odata.core.ep.producer.XmlPropertyEntityProducer;
 import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
+import com.sap.core.odata.core.ep.util.OnDemandInputStream;
+import com.sap.core.odata.core.ep.util.StaxFactories;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
 
 /**
@@ -108,7 +113,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
 
       XmlErrorDocumentProducer producer = new XmlErrorDocumentProducer();
       producer.writeErrorDocument(writer, errorCode, message, locale, innerError);
@@ -166,7 +171,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       AtomEntryEntityProducer as = new AtomEntryEntityProducer(properties);
@@ -201,7 +206,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       XmlPropertyEntityProducer ps = new XmlPropertyEntityProducer();
@@ -222,11 +227,34 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
   @Override
   public ODataResponse writeFeed(final EdmEntitySet entitySet, final List<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    return writeFeed(entitySet, data.iterator(), properties);
+  }
+
+  @Override
+  public ODataResponse writeFeed(final EdmEntitySet entitySet, final EntityDataCursor data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    boolean handedOver = false;
+    try {
+      final ODataResponse response = writeFeed(entitySet, (Iterator<Map<String, Object>>) data, properties);
+      // in streaming mode the cursor is closed after the content has been read
+      handedOver = properties.isStreaming();
+      return response;
+    } finally {
+      if (!handedOver) {
+        closeCursor(data);
+      }
+    }
+  }
+
+  private ODataResponse writeFeed(final EdmEntitySet entitySet, final Iterator<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    if (properties.isStreaming()) {
+      return writeFeedStreamed(entitySet, data, properties);
+    }
+
     CircleStreamBuffer csb = new CircleStreamBuffer();
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       AtomFeedProducer atomFeedProvider = new AtomFeedProducer(properties);
@@ -247,6 +275,74 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
     }
   }
 
+  /**
+   * Writes the feed header immediately and each entry only when the response content is read,
+   * so that only the currently serialized entry is held in memory.
+   */
+  private ODataResponse writeFeedStreamed(final EdmEntitySet entitySet, final Iterator<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    try {
+      EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+      AtomFeedContent content = new AtomFeedContent(new AtomFeedProducer(properties), eia, data);
+      return ODataResponse.entity(content).contentHeader(getContentHeader(ContentType.APPLICATION_ATOM_XML_FEED)).build();
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Feed content which is serialized entry by entry while it is read.
+   */
+  private static class AtomFeedContent extends OnDemandInputStream {
+    private final XMLStreamWriter writer;
+    private final AtomFeedProducer producer;
+    private final EntityInfoAggregator eia;
+    private final Iterator<Map<String, Object>> entries;
+
+    public AtomFeedContent(final AtomFeedProducer producer, final EntityInfoAggregator eia, final Iterator<Map<String, Object>> entries) throws XMLStreamException, EntityProviderException {
+      this.producer = producer;
+      this.eia = eia;
+      this.entries = entries;
+      writer = StaxFactories.getOutputFactory().createXMLStreamWriter(getOutputStream(), DEFAULT_CHARSET);
+      writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
+      producer.appendFeedStart(writer, eia, false);
+      writer.flush();
+    }
+
+    @Override
+    protected boolean produceNext(final OutputStream out) throws IOException {
+      try {
+        if (entries.hasNext()) {
+          producer.appendEntry(writer, eia, entries.next());
+          writer.flush();
+          return true;
+        } else {
+          producer.appendFeedEnd(writer, eia, false);
+          writer.flush();
+          return false;
+        }
+      } catch (EntityProviderException e) {
+        throw new IOException(e);
+      } catch (XMLStreamException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    protected void release() {
+      if (entries instanceof EntityDataCursor) {
+        closeCursor((EntityDataCursor) entries);
+      }
+    }
+  }
+
+  private static void closeCursor(final EntityDataCursor data) {
+    try {
+      data.close();
+    } catch (IOException e) {
+      // best effort only; the feed has already been written or writing has already failed
+    }
+  }
+
   private String getContentHeader(final ContentType mediaType) {
     if (odataFormat == ODataFormat.XML) {
       return ContentType.APPLICATION_XML_CS_UTF_8.toContentTypeString();
@@ -260,7 +356,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       XmlLinkEntityProducer entity = new XmlLinkEntityProducer(properties);
@@ -287,7 +383,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       XmlLinksEntityProducer entity = new XmlLinksEntityProducer(properties);
@@ -312,7 +408,7 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = csb.getOutputStream();
-      XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
+      XMLStreamWriter writer = StaxFactories.getOutputFactory().createXMLStreamWriter(outStream, DEFAULT_CHARSET);
       writer.writeStartDocument(DEFAULT_CHARSET, XML_VERSION);
 
       XmlCollectionEntityProducer.append(writer, propertyInfo, data);
@@ -359,6 +455,12 @@ public class AtomEntityProvider implements ContentTypeBasedEntityProvider {
     return xec.readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader readFeedEntries(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    XmlEntityConsumer xec = new XmlEntityConsumer();
+    return xec.readFeedEntries(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     XmlEntityConsumer xec = new XmlEntityConsumer();
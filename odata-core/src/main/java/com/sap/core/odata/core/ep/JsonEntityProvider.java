@@ -15,10 +15,11 @@
  ******************************************************************************/
 package com.sap.core.odata.core.ep;
 
-import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -35,11 +36,13 @@ import com.sap.core.odata.api.edm.EdmFunctionImport;
 import com.sap.core.odata.api.edm.EdmMultiplicity;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmTypeKind;
+import com.sap.core.odata.api.ep.EntityDataCursor;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.servicedocument.ServiceDocument;
@@ -56,6 +59,8 @@ import com.sap.core.odata.core.ep.producer.JsonLinksEntityProducer;
 import com.sap.core.odata.core.ep.producer.JsonPropertyEntityProducer;
 import com.sap.core.odata.core.ep.producer.JsonServiceDocumentProducer;
 import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
+import com.sap.core.odata.core.ep.util.OnDemandInputStream;
+import com.sap.core.odata.core.ep.util.Utf8Writer;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
 
 /**
@@ -63,8 +68,6 @@ import com.sap.core.odata.core.exception.ODataRuntimeException;
  */
 public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
-  private static final String DEFAULT_CHARSET = "UTF-8";
-
   /**
    * <p>Serializes an error message according to the OData standard.</p>
    * <p>In case an error occurs, it is logged.
@@ -82,7 +85,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonErrorDocumentProducer().writeErrorDocument(writer, errorCode, message, locale, innerError);
       writer.flush();
       buffer.closeWrite();
@@ -110,7 +113,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       JsonServiceDocumentProducer.writeServiceDocument(writer, edm);
       writer.flush();
       buffer.closeWrite();
@@ -131,7 +134,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       JsonEntryEntityProducer producer = new JsonEntryEntityProducer(properties);
       producer.append(writer, entityInfo, data, true);
       writer.flush();
@@ -161,7 +164,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
     try {
       OutputStream outStream = buffer.getOutputStream();
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outStream, DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(outStream);
       new JsonPropertyEntityProducer().append(writer, propertyInfo, value);
       writer.flush();
       buffer.closeWrite();
@@ -181,11 +184,39 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
 
   @Override
   public ODataResponse writeFeed(final EdmEntitySet entitySet, final List<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    return writeFeed(entitySet, data.iterator(), properties);
+  }
+
+  @Override
+  public ODataResponse writeFeed(final EdmEntitySet entitySet, final EntityDataCursor data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    boolean handedOver = false;
+    try {
+      final ODataResponse response = writeFeed(entitySet, (Iterator<Map<String, Object>>) data, properties);
+      // in streaming mode the cursor is closed after the content has been read
+      handedOver = properties.isStreaming();
+      return response;
+    } finally {
+      if (!handedOver) {
+        closeCursor(data);
+      }
+    }
+  }
+
+  private ODataResponse writeFeed(final EdmEntitySet entitySet, final Iterator<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
     final EntityInfoAggregator entityInfo = EntityInfoAggregator.create(entitySet, properties.getExpandSelectTree());
+    if (properties.isStreaming()) {
+      try {
+        JsonFeedContent content = new JsonFeedContent(new JsonFeedEntityProducer(properties), entityInfo, data);
+        return ODataResponse.entity(content).contentHeader(HttpContentType.APPLICATION_JSON).build();
+      } catch (IOException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+    }
+
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonFeedEntityProducer(properties).append(writer, entityInfo, data, true);
       writer.flush();
       buffer.closeWrite();
@@ -206,7 +237,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonLinkEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -230,7 +261,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonLinksEntityProducer(properties).append(writer, entityInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -253,7 +284,7 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     CircleStreamBuffer buffer = new CircleStreamBuffer();
 
     try {
-      BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(buffer.getOutputStream(), DEFAULT_CHARSET));
+      Writer writer = new Utf8Writer(buffer.getOutputStream());
       new JsonCollectionEntityProducer().append(writer, propertyInfo, data);
       writer.flush();
       buffer.closeWrite();
@@ -294,6 +325,12 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     return jec.readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader readFeedEntries(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    JsonEntityConsumer jec = new JsonEntityConsumer();
+    return jec.readFeedEntries(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     JsonEntityConsumer jec = new JsonEntityConsumer();
@@ -321,4 +358,55 @@ public class JsonEntityProvider implements ContentTypeBasedEntityProvider {
     return serviceDocConsumer.parseJson(serviceDocument);
   }
 
+
+  /**
+   * Feed content which is serialized entry by entry while it is read.
+   */
+  private static class JsonFeedContent extends OnDemandInputStream {
+    private final Writer writer;
+    private final JsonFeedEntityProducer producer;
+    private final EntityInfoAggregator entityInfo;
+    private final Iterator<Map<String, Object>> entries;
+
+    public JsonFeedContent(final JsonFeedEntityProducer producer, final EntityInfoAggregator entityInfo, final Iterator<Map<String, Object>> entries) throws IOException, EntityProviderException {
+      this.producer = producer;
+      this.entityInfo = entityInfo;
+      this.entries = entries;
+      writer = new Utf8Writer(getOutputStream());
+      producer.appendFeedStart(writer, true);
+      writer.flush();
+    }
+
+    @Override
+    protected boolean produceNext(final OutputStream out) throws IOException {
+      try {
+        if (entries.hasNext()) {
+          producer.appendEntry(writer, entityInfo, entries.next());
+          writer.flush();
+          return true;
+        } else {
+          producer.appendFeedEnd(writer, true);
+          writer.flush();
+          return false;
+        }
+      } catch (EntityProviderException e) {
+        throw new IOException(e);
+      }
+    }
+
+    @Override
+    protected void release() {
+      if (entries instanceof EntityDataCursor) {
+        closeCursor((EntityDataCursor) entries);
+      }
+    }
+  }
+
+  private static void closeCursor(final EntityDataCursor data) {
+    try {
+      data.close();
+    } catch (IOException e) {
+      // best effort only; the feed has already been written or writing has already failed
+    }
+  }
 }
@@ -28,6 +28,7 @@ import com.sap.core.odata.api.edm.EdmFunctionImport;
 import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
 import com.sap.core.odata.api.edm.provider.Schema;
+import com.sap.core.odata.api.ep.EntityDataCursor;
 import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
 import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.ep.EntityProviderException;
@@ -35,7 +36,9 @@ import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.api.exception.ODataNotAcceptableException;
+import com.sap.core.odata.api.metrics.ODataMetric.Stage;
 import com.sap.core.odata.api.processor.ODataErrorContext;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.servicedocument.ServiceDocument;
@@ -44,13 +47,29 @@ import com.sap.core.odata.core.batch.BatchResponseWriter;
 import com.sap.core.odata.core.commons.ContentType;
 import com.sap.core.odata.core.edm.parser.EdmxProvider;
 import com.sap.core.odata.core.edm.provider.EdmImplProv;
+import com.sap.core.odata.core.edm.provider.EdmServiceMetadataImplProv;
+import com.sap.core.odata.core.ep.util.CachedDocument;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
+import com.sap.core.odata.core.metrics.RequestMetrics;
 
 /**
  * @author SAP AG
  */
 public class ProviderFacadeImpl implements EntityProviderInterface {
 
+  /**
+   * Writes a response and adds the time needed to the serialization stage
+   * of the request currently handled.
+   */
+  private static ODataResponse serialize(final Serialization serialization) throws EntityProviderException {
+    final long started = System.nanoTime();
+    try {
+      return serialization.write();
+    } finally {
+      RequestMetrics.stopCurrent(Stage.SERIALIZATION, started);
+    }
+  }
+
   private static BasicEntityProvider create() throws EntityProviderException {
     return new BasicEntityProvider();
   }
@@ -86,12 +105,31 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
 
   @Override
   public ODataResponse writeServiceDocument(final String contentType, final Edm edm, final String serviceRoot) throws EntityProviderException {
-    return create(contentType).writeServiceDocument(edm, serviceRoot);
+    if (!(edm.getServiceMetadata() instanceof EdmServiceMetadataImplProv)) {
+      return create(contentType).writeServiceDocument(edm, serviceRoot);
+    }
+
+    // The service document depends only on the metadata, the format, and the service root,
+    // so it is cached together with the metadata.
+    final EdmServiceMetadataImplProv serviceMetadata = (EdmServiceMetadataImplProv) edm.getServiceMetadata();
+    final String key = contentType + ' ' + serviceRoot;
+    CachedDocument document = serviceMetadata.getServiceDocument(key);
+    if (document == null) {
+      final ODataResponse response = create(contentType).writeServiceDocument(edm, serviceRoot);
+      document = CachedDocument.create((InputStream) response.getEntity(), response.getContentHeader());
+      serviceMetadata.cacheServiceDocument(key, document);
+    }
+    return ODataResponse.entity(document.getContent()).contentHeader(document.getContentType()).eTag(document.getETag()).build();
   }
 
   @Override
   public ODataResponse writePropertyValue(final EdmProperty edmProperty, final Object value) throws EntityProviderException {
-    return create().writePropertyValue(edmProperty, value);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create().writePropertyValue(edmProperty, value);
+      }
+    });
   }
 
   @Override
@@ -106,32 +144,72 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
 
   @Override
   public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet, final List<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
-    return create(contentType).writeFeed(entitySet, data, properties);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeFeed(entitySet, data, properties);
+      }
+    });
+  }
+
+  @Override
+  public ODataResponse writeFeed(final String contentType, final EdmEntitySet entitySet, final EntityDataCursor data, final EntityProviderWriteProperties properties) throws EntityProviderException {
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeFeed(entitySet, data, properties);
+      }
+    });
   }
 
   @Override
   public ODataResponse writeEntry(final String contentType, final EdmEntitySet entitySet, final Map<String, Object> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
-    return create(contentType).writeEntry(entitySet, data, properties);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeEntry(entitySet, data, properties);
+      }
+    });
   }
 
   @Override
   public ODataResponse writeProperty(final String contentType, final EdmProperty edmProperty, final Object value) throws EntityProviderException {
-    return create(contentType).writeProperty(edmProperty, value);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeProperty(edmProperty, value);
+      }
+    });
   }
 
   @Override
   public ODataResponse writeLink(final String contentType, final EdmEntitySet entitySet, final Map<String, Object> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
-    return create(contentType).writeLink(entitySet, data, properties);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeLink(entitySet, data, properties);
+      }
+    });
   }
 
   @Override
   public ODataResponse writeLinks(final String contentType, final EdmEntitySet entitySet, final List<Map<String, Object>> data, final EntityProviderWriteProperties properties) throws EntityProviderException {
-    return create(contentType).writeLinks(entitySet, data, properties);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeLinks(entitySet, data, properties);
+      }
+    });
   }
 
   @Override
   public ODataResponse writeFunctionImport(final String contentType, final EdmFunctionImport functionImport, final Object data, final EntityProviderWriteProperties properties) throws EntityProviderException {
-    return create(contentType).writeFunctionImport(functionImport, data, properties);
+    return serialize(new Serialization() {
+      @Override
+      public ODataResponse write() throws EntityProviderException {
+        return create(contentType).writeFunctionImport(functionImport, data, properties);
+      }
+    });
   }
 
   @Override
@@ -139,6 +217,11 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return create(contentType).readFeed(entitySet, content, properties);
   }
 
+  @Override
+  public ODataFeedReader readFeedEntries(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    return create(contentType).readFeedEntries(entitySet, content, properties);
+  }
+
   @Override
   public ODataEntry readEntry(final String contentType, final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     return create(contentType).readEntry(entitySet, content, properties);
@@ -197,4 +280,8 @@ public class ProviderFacadeImpl implements EntityProviderInterface {
     return batchWriter.writeResponse(batchResponseParts);
   }
 
+  private interface Serialization {
+    ODataResponse write() throws EntityProviderException;
+  }
+
 }
@@ -41,14 +41,26 @@ import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.edm.EdmTypeKind;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
+import com.sap.core.odata.core.commons.LruCache;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
 
 /**
  * Aggregator to get easy and fast access to all for serialization and de-serialization necessary {@link EdmEntitySet} informations.
+ * <p>Instances are immutable after creation and therefore thread-safe.
+ * Aggregators created for an {@link EdmEntitySet} of a shared entity data model
+ * (see {@link EdmSnapshot}) are cached together with the model per entity set and
+ * <code>$select</code>/<code>$expand</code> shape (with bounded LRU eviction),
+ * so repeated requests for the same resource do not walk the entity data model again.</p>
  * 
  * @author SAP AG
  */
 public class EntityInfoAggregator {
 
+  /** Maximum number of cached {@link EntityInfoAggregator} instances */
+  private static final int MAX_CACHED_AGGREGATORS = 512;
+
+  private static final String CACHE_NAME = EntityInfoAggregator.class.getName();
+
   private static final Set<String> SYN_TARGET_PATHS = new HashSet<String>(Arrays.asList(
       EdmTargetPath.SYNDICATION_AUTHORNAME,
       EdmTargetPath.SYNDICATION_AUTHOREMAIL,
@@ -66,6 +78,7 @@ public class EntityInfoAggregator {
   private Map<String, EntityPropertyInfo> propertyInfo = new HashMap<String, EntityPropertyInfo>();
   private Map<String, NavigationPropertyInfo> navigationPropertyInfos = new HashMap<String, NavigationPropertyInfo>();
   private List<EntityPropertyInfo> keyPropertyInfos;
+  private List<EntityPropertyInfo> etagPropertyInfos;
 
   /*
    * list with all property names in the order based on order in {@link EdmProperty} (normally [key, entity,
@@ -106,8 +119,16 @@ public class EntityInfoAggregator {
    *           of {@link EdmEntitySet}).
    */
   public static EntityInfoAggregator create(final EdmEntitySet entitySet, final ExpandSelectTreeNode expandSelectTree) throws EntityProviderException {
-    EntityInfoAggregator eia = new EntityInfoAggregator();
-    eia.initialize(entitySet, expandSelectTree);
+    final LruCache<CacheKey, EntityInfoAggregator> cache = EdmSnapshot.getCache(entitySet, CACHE_NAME, MAX_CACHED_AGGREGATORS);
+    final CacheKey key = cache == null ? null : new CacheKey(entitySet, expandSelectTree);
+    EntityInfoAggregator eia = cache == null ? null : cache.get(key);
+    if (eia == null) {
+      eia = new EntityInfoAggregator();
+      eia.initialize(entitySet, expandSelectTree);
+      if (cache != null) {
+        eia = cache.putIfAbsent(key, eia);
+      }
+    }
     return eia;
   }
 
@@ -123,9 +144,7 @@ public class EntityInfoAggregator {
    *           of {@link EdmEntitySet}).
    */
   public static EntityInfoAggregator create(final EdmEntitySet entitySet) throws EntityProviderException {
-    EntityInfoAggregator eia = new EntityInfoAggregator();
-    eia.initialize(entitySet, null);
-    return eia;
+    return create(entitySet, null);
   }
 
   /**
@@ -271,12 +290,7 @@ public class EntityInfoAggregator {
   }
 
   public Collection<EntityPropertyInfo> getETagPropertyInfos() {
-    List<EntityPropertyInfo> keyProperties = new ArrayList<EntityPropertyInfo>();
-    for (String etagPropertyName : etagPropertyNames) {
-      EntityPropertyInfo e = propertyInfo.get(etagPropertyName);
-      keyProperties.add(e);
-    }
-    return keyProperties;
+    return etagPropertyInfos;
   }
 
   /**
@@ -284,17 +298,6 @@ public class EntityInfoAggregator {
    * @throws EntityProviderException 
    */
   public List<EntityPropertyInfo> getKeyPropertyInfos() throws EntityProviderException {
-
-    if (keyPropertyInfos == null) {
-      try {
-        keyPropertyInfos = new ArrayList<EntityPropertyInfo>();
-        for (String keyPropertyName : entityType.getKeyPropertyNames()) {
-          keyPropertyInfos.add(propertyInfo.get(keyPropertyName));
-        }
-      } catch (EdmException e) {
-        throw new EntityProviderException(EntityProviderException.COMMON, e);
-      }
-    }
     return keyPropertyInfos;
   }
 
@@ -318,7 +321,7 @@ public class EntityInfoAggregator {
 
       selectedPropertyNames = propertyNames;
       selectedNavigationPropertyNames = navigationPropertyNames;
-      expandedNavigationPropertyNames = new ArrayList<String>();
+      List<String> expandedNames = new ArrayList<String>();
 
       if (expandSelectTree != null && !expandSelectTree.isAll()) {
         selectedPropertyNames = new ArrayList<String>();
@@ -329,16 +332,29 @@ public class EntityInfoAggregator {
         for (String property : expandSelectTree.getLinks().keySet()) {
           selectedNavigationPropertyNames.add(property);
           if (expandSelectTree.getLinks().get(property) != null) {
-            expandedNavigationPropertyNames.add(property);
+            expandedNames.add(property);
           }
         }
       } else if (expandSelectTree != null) {
         for (String property : expandSelectTree.getLinks().keySet()) {
           if (expandSelectTree.getLinks().get(property) != null) {
-            expandedNavigationPropertyNames.add(property);
+            expandedNames.add(property);
           }
         }
       }
+      expandedNavigationPropertyNames = Collections.unmodifiableList(expandedNames);
+
+      List<EntityPropertyInfo> keyInfos = new ArrayList<EntityPropertyInfo>();
+      for (String keyPropertyName : entityType.getKeyPropertyNames()) {
+        keyInfos.add(propertyInfo.get(keyPropertyName));
+      }
+      keyPropertyInfos = Collections.unmodifiableList(keyInfos);
+
+      List<EntityPropertyInfo> etagInfos = new ArrayList<EntityPropertyInfo>();
+      for (String etagPropertyName : etagPropertyNames) {
+        etagInfos.add(propertyInfo.get(etagPropertyName));
+      }
+      etagPropertyInfos = Collections.unmodifiableList(etagInfos);
 
     } catch (EdmException e) {
       throw new EntityProviderException(EntityProviderException.COMMON, e);
@@ -442,7 +458,62 @@ public class EntityInfoAggregator {
     }
   }
 
+  /**
+   * @return unmodifiable list of expanded navigation property names.
+   */
   public List<String> getExpandedNavigationPropertyNames() {
     return expandedNavigationPropertyNames;
   }
+
+  /**
+   * Cache key consisting of the entity set (compared by identity) and
+   * the shape of the first level of the expand select tree.
+   */
+  private static final class CacheKey {
+    private final EdmEntitySet entitySet;
+    private final String shape;
+
+    public CacheKey(final EdmEntitySet entitySet, final ExpandSelectTreeNode expandSelectTree) throws EntityProviderException {
+      this.entitySet = entitySet;
+      shape = expandSelectTree == null ? null : getShape(expandSelectTree);
+    }
+
+    private static String getShape(final ExpandSelectTreeNode expandSelectTree) throws EntityProviderException {
+      StringBuilder shape = new StringBuilder();
+      if (expandSelectTree.isAll()) {
+        shape.append('*');
+      } else {
+        try {
+          for (EdmProperty property : expandSelectTree.getProperties()) {
+            shape.append(property.getName()).append(',');
+          }
+        } catch (EdmException e) {
+          throw new EntityProviderException(EntityProviderException.COMMON, e);
+        }
+      }
+      shape.append('/');
+      for (Map.Entry<String, ExpandSelectTreeNode> link : expandSelectTree.getLinks().entrySet()) {
+        shape.append(link.getKey()).append(link.getValue() == null ? ',' : '+');
+      }
+      return shape.toString();
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(entitySet) + (shape == null ? 0 : shape.hashCode());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) obj;
+      return entitySet == other.entitySet
+          && (shape == null ? other.shape == null : shape.equals(other.shape));
+    }
+  }
 }
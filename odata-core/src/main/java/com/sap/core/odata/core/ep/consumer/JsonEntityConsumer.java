@@ -29,6 +29,7 @@ import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 
 /**
@@ -98,6 +99,31 @@ public class JsonEntityConsumer {
     }
   }
 
+  public ODataFeedReader readFeedEntries(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties readProperties) throws EntityProviderException {
+    JsonReader reader = null;
+    boolean success = false;
+
+    try {
+      EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+      reader = createJsonReader(content);
+
+      ODataFeedReader feedReader = new JsonFeedConsumer(reader, eia, readProperties).readFeedEntriesStandalone();
+      success = true;
+      return feedReader;
+    } catch (UnsupportedEncodingException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } finally {
+      // The reader is closed by the feed reader, or here if the feed could not be started.
+      if (!success && reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // do nothing, the original exception is more important
+        }
+      }
+    }
+  }
+
   public Map<String, Object> readProperty(final EdmProperty property, final InputStream content, final EntityProviderReadProperties readProperties) throws EntityProviderException {
     JsonReader reader = null;
     EntityProviderException cachedException = null;
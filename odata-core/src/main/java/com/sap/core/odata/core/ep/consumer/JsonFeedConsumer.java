@@ -18,6 +18,7 @@ package com.sap.core.odata.core.ep.consumer;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
@@ -25,13 +26,18 @@ import com.sap.core.odata.api.edm.EdmException;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
+import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.feed.FeedMetadataImpl;
 import com.sap.core.odata.core.ep.feed.ODataFeedImpl;
 import com.sap.core.odata.core.ep.util.FormatJson;
 
 /**
+ * JSON format reader/consumer for feeds.
+ * <p>The entries of the feed are read one after the other, see {@link #readFeedEntriesStandalone()};
+ * feed metadata is read whenever it is encountered before, between, or after the entries.</p>
  * @author SAP AG
  */
 public class JsonFeedConsumer {
@@ -39,9 +45,15 @@ public class JsonFeedConsumer {
   private JsonReader reader;
   private EntityInfoAggregator eia;
   private EntityProviderReadProperties readProperties;
-  private List<ODataEntry> entries = new ArrayList<ODataEntry>();
   private FeedMetadataImpl feedMetadata = new FeedMetadataImpl();
   private boolean resultsArrayPresent = false;
+  /** whether the names of the current object are feed metadata or results */
+  private boolean inFeedObject = false;
+  /** number of objects which have been started by this consumer and are not yet ended */
+  private int openObjects = 0;
+  private boolean inResultsArray = false;
+  private boolean standalone = false;
+  private boolean finished = false;
 
   public JsonFeedConsumer(final JsonReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) {
     this.reader = reader;
@@ -50,14 +62,79 @@ public class JsonFeedConsumer {
   }
 
   public ODataFeed readFeedStandalone() throws EntityProviderException {
-    try {
-      readFeed();
+    standalone = true;
+    return execute(new Step<ODataFeed>() {
+      @Override
+      ODataFeed run() throws IOException, EdmException, EntityProviderException {
+        startFeed();
+        return readAllEntries();
+      }
+    });
+  }
+
+  /**
+   * Starts reading a feed; the entries are read on demand from the returned {@link ODataFeedReader}.
+   * The reader closes the underlying {@link JsonReader} when it is closed.
+   * @return a {@link ODataFeedReader}
+   * @throws EntityProviderException if the start of the feed is not valid
+   */
+  public ODataFeedReader readFeedEntriesStandalone() throws EntityProviderException {
+    standalone = true;
+    execute(new Step<Void>() {
+      @Override
+      Void run() throws IOException, EdmException, EntityProviderException {
+        startFeed();
+        return null;
+      }
+    });
 
-      if (reader.peek() != JsonToken.END_DOCUMENT) {
+    return new ODataFeedReader() {
+      @Override
+      public boolean hasNext() throws EntityProviderException {
+        return execute(new Step<Boolean>() {
+          @Override
+          Boolean run() throws IOException, EdmException, EntityProviderException {
+            return hasNextEntry();
+          }
+        });
+      }
 
-        throw new EntityProviderException(EntityProviderException.END_DOCUMENT_EXPECTED.addContent(reader.peek().toString()));
+      @Override
+      public ODataEntry next() throws EntityProviderException {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return execute(new Step<ODataEntry>() {
+          @Override
+          ODataEntry run() throws IOException, EdmException, EntityProviderException {
+            return new JsonEntryConsumer(reader, eia, readProperties).readFeedEntry();
+          }
+        });
       }
 
+      @Override
+      public FeedMetadata getFeedMetadata() {
+        return feedMetadata;
+      }
+
+      @Override
+      public void close() throws EntityProviderException {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+        }
+      }
+    };
+  }
+
+  private abstract static class Step<T> {
+    abstract T run() throws IOException, EdmException, EntityProviderException;
+  }
+
+  private static <T> T execute(final Step<T> step) throws EntityProviderException {
+    try {
+      return step.run();
     } catch (IOException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     } catch (EdmException e) {
@@ -65,47 +142,78 @@ public class JsonFeedConsumer {
     } catch (IllegalStateException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     }
-    return new ODataFeedImpl(entries, feedMetadata);
   }
 
-  private void readFeed() throws IOException, EdmException, EntityProviderException {
+  private void startFeed() throws IOException, EdmException, EntityProviderException {
     if (reader.peek() == JsonToken.BEGIN_ARRAY) {
-      readArrayContent();
+      startResultsArray();
     } else {
       reader.beginObject();
+      openObjects++;
       final String nextName = reader.nextName();
       if (FormatJson.D.equals(nextName)) {
         if (reader.peek() == JsonToken.BEGIN_ARRAY) {
-          readArrayContent();
+          startResultsArray();
         } else {
           reader.beginObject();
-          readFeedContent();
-          reader.endObject();
+          openObjects++;
+          inFeedObject = true;
         }
       } else {
+        inFeedObject = true;
         handleName(nextName);
-        readFeedContent();
       }
+    }
+  }
 
-      reader.endObject();
+  /**
+   * Reads up to the start of the next entry or up to the end of the feed.
+   * @return whether there is a further entry
+   */
+  private boolean hasNextEntry() throws IOException, EdmException, EntityProviderException {
+    while (!finished && !(inResultsArray && reader.hasNext())) {
+      if (inResultsArray) {
+        reader.endArray();
+        inResultsArray = false;
+      } else if (inFeedObject && reader.hasNext()) {
+        handleName(reader.nextName());
+      } else {
+        finishFeed();
+      }
     }
+    return !finished;
   }
 
-  private void readFeedContent() throws IOException, EdmException, EntityProviderException {
-    while (reader.hasNext()) {
-      final String nextName = reader.nextName();
-      handleName(nextName);
+  private ODataFeed readAllEntries() throws IOException, EdmException, EntityProviderException {
+    List<ODataEntry> entries = new ArrayList<ODataEntry>();
+    while (hasNextEntry()) {
+      entries.add(new JsonEntryConsumer(reader, eia, readProperties).readFeedEntry());
     }
+    return new ODataFeedImpl(entries, feedMetadata);
+  }
 
-    if (!resultsArrayPresent) {
+  private void finishFeed() throws IOException, EntityProviderException {
+    if (inFeedObject && !resultsArrayPresent) {
       throw new EntityProviderException(EntityProviderException.MISSING_RESULTS_ARRAY);
     }
+    for (; openObjects > 0; openObjects--) {
+      reader.endObject();
+    }
+    if (standalone && reader.peek() != JsonToken.END_DOCUMENT) {
+      throw new EntityProviderException(EntityProviderException.END_DOCUMENT_EXPECTED.addContent(reader.peek().toString()));
+    }
+    finished = true;
+  }
+
+  private void startResultsArray() throws IOException {
+    resultsArrayPresent = true;
+    reader.beginArray();
+    inResultsArray = true;
   }
 
   private void handleName(final String nextName) throws IOException, EdmException, EntityProviderException {
     if (FormatJson.RESULTS.equals(nextName)) {
-      resultsArrayPresent = true;
-      readArrayContent();
+      startResultsArray();
 
     } else if (FormatJson.COUNT.equals(nextName)) {
       readInlineCount(reader, feedMetadata);
@@ -130,15 +238,6 @@ public class JsonFeedConsumer {
     }
   }
 
-  private void readArrayContent() throws IOException, EdmException, EntityProviderException {
-    reader.beginArray();
-    while (reader.hasNext()) {
-      final ODataEntry entry = new JsonEntryConsumer(reader, eia, readProperties).readFeedEntry();
-      entries.add(entry);
-    }
-    reader.endArray();
-  }
-
   protected static void readInlineCount(final JsonReader reader, final FeedMetadataImpl feedMetadata) throws IOException, EntityProviderException {
     if (reader.peek() == JsonToken.STRING && feedMetadata.getInlineCount() == null) {
       int inlineCount;
@@ -158,16 +257,16 @@ public class JsonFeedConsumer {
   }
 
   protected ODataFeed readStartedInlineFeed(final String name) throws EdmException, EntityProviderException, IOException {
-    //consume the already started content
+    //consume the already started content; the enclosing object is ended by the caller
+    inFeedObject = true;
     handleName(name);
     //consume the rest of the entry content
-    readFeedContent();
-    return new ODataFeedImpl(entries, feedMetadata);
+    return readAllEntries();
   }
 
   protected ODataFeed readInlineFeedStandalone() throws EdmException, EntityProviderException, IOException {
-    readFeed();
-    return new ODataFeedImpl(entries, feedMetadata);
+    startFeed();
+    return readAllEntries();
   }
 
 }
@@ -32,7 +32,9 @@ import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties.EntityProviderReadPropertiesBuilder;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
+import com.sap.core.odata.core.ep.util.StaxFactories;
 
 /**
  * Xml entity (content type dependent) consumer for reading input (from <code>content</code>).
@@ -79,6 +81,31 @@ public class XmlEntityConsumer {
     }
   }
 
+  public ODataFeedReader readFeedEntries(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
+    XMLStreamReader reader = null;
+    boolean success = false;
+
+    try {
+      reader = createStaxReader(content);
+
+      EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+      ODataFeedReader feedReader = new XmlFeedConsumer().readFeedEntries(reader, eia, properties);
+      success = true;
+      return feedReader;
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } finally {
+      // The reader is closed by the feed reader, or here if the feed could not be started.
+      if (!success && reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // do nothing, the original exception is more important
+        }
+      }
+    }
+  }
+
   public ODataEntry readEntry(final EdmEntitySet entitySet, final InputStream content, final EntityProviderReadProperties properties) throws EntityProviderException {
     XMLStreamReader reader = null;
     EntityProviderException cachedException = null;
@@ -212,9 +239,7 @@ public class XmlEntityConsumer {
   }
 
   private XMLStreamReader createStaxReader(final Object content) throws XMLStreamException, EntityProviderException {
-    XMLInputFactory factory = XMLInputFactory.newInstance();
-    factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
-    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    XMLInputFactory factory = StaxFactories.getInputFactory();
 
     if (content == null) {
       throw new EntityProviderException(EntityProviderException.ILLEGAL_ARGUMENT
@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -28,7 +29,9 @@ import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
+import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.feed.FeedMetadataImpl;
 import com.sap.core.odata.core.ep.feed.ODataFeedImpl;
@@ -53,6 +56,27 @@ public class XmlFeedConsumer {
    * @throws EntityProviderException
    */
   public ODataFeed readFeed(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
+    // read feed data (metadata and entries)
+    ODataFeedReader feedReader = readFeedEntries(reader, eia, readProperties);
+    List<ODataEntry> results = new ArrayList<ODataEntry>();
+    while (feedReader.hasNext()) {
+      results.add(feedReader.next());
+    }
+    return new ODataFeedImpl(results, feedReader.getFeedMetadata());
+  }
+
+  /**
+   * Read the start of the feed; all feed specific data (like <code>inline count</code> and <code>next link</code>)
+   * as well as all feed entries (<code>entry</code>) are read on demand from the returned {@link ODataFeedReader}.
+   * The {@link ODataFeedReader} closes the given <code>reader</code> when it is closed.
+   * 
+   * @param reader
+   * @param eia
+   * @param readProperties
+   * @return {@link ODataFeedReader} object
+   * @throws EntityProviderException
+   */
+  public ODataFeedReader readFeedEntries(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties readProperties) throws EntityProviderException {
     try {
       // read xml tag
       reader.require(XMLStreamConstants.START_DOCUMENT, null, null);
@@ -66,68 +90,118 @@ public class XmlFeedConsumer {
       EntityProviderReadProperties entryReadProperties =
           EntityProviderReadProperties.initFrom(readProperties).addValidatedPrefixes(foundPrefix2NamespaceUri).build();
 
-      // read feed data (metadata and entries)
-      return readFeedData(reader, eia, entryReadProperties);
+      return new XmlFeedReader(reader, eia, entryReadProperties);
     } catch (XMLStreamException e) {
       throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
     }
   }
 
   /**
-   * Read all feed specific data (like <code>inline count</code> and <code>next link</code>) as well as all feed entries (<code>entry</code>).
-   * 
-   * @param reader
-   * @param eia
-   * @param entryReadProperties
-   * @return
-   * @throws XMLStreamException
-   * @throws EntityProviderException
+   * Reads the feed data (metadata and entries) on demand.
    */
-  private ODataFeed readFeedData(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties entryReadProperties) throws XMLStreamException, EntityProviderException {
-    FeedMetadataImpl metadata = new FeedMetadataImpl();
-    XmlEntryConsumer xec = new XmlEntryConsumer();
-    List<ODataEntry> results = new ArrayList<ODataEntry>();
+  private class XmlFeedReader implements ODataFeedReader {
+
+    private final XMLStreamReader reader;
+    private final EntityInfoAggregator eia;
+    private final EntityProviderReadProperties entryReadProperties;
+    private final FeedMetadataImpl metadata = new FeedMetadataImpl();
+    private final XmlEntryConsumer xec = new XmlEntryConsumer();
+    private boolean atEntry = false;
+
+    public XmlFeedReader(final XMLStreamReader reader, final EntityInfoAggregator eia, final EntityProviderReadProperties entryReadProperties) {
+      this.reader = reader;
+      this.eia = eia;
+      this.entryReadProperties = entryReadProperties;
+    }
 
-    while (reader.hasNext() && !isFeedEndTag(reader)) {
-      if (FormatXml.ATOM_ENTRY.equals(reader.getLocalName())) {
+    @Override
+    public boolean hasNext() throws EntityProviderException {
+      try {
+        return atEntry || readTillNextEntry();
+      } catch (XMLStreamException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+    }
+
+    @Override
+    public ODataEntry next() throws EntityProviderException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      try {
         ODataEntry entry = xec.readEntry(reader, eia, entryReadProperties);
-        results.add(entry);
-      } else if (FormatXml.M_COUNT.equals(reader.getLocalName())) {
-        reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_M_2007_08, FormatXml.M_COUNT);
-
-        reader.next();
-        if (reader.hasText()) {
-          String inlineCountString = reader.getText();
-          try {
-            int inlineCountNumber = Integer.valueOf(inlineCountString);
-            if (inlineCountNumber >= 0) {
-              metadata.setInlineCount(inlineCountNumber);
-            } else {
-              throw new EntityProviderException(EntityProviderException.INLINECOUNT_INVALID.addContent(inlineCountNumber));
+        atEntry = false;
+        readTillNextStartTag(reader);
+        return entry;
+      } catch (XMLStreamException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+    }
+
+    @Override
+    public FeedMetadata getFeedMetadata() {
+      return metadata;
+    }
+
+    @Override
+    public void close() throws EntityProviderException {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+    }
+
+    /**
+     * Read all feed specific data (like <code>inline count</code> and <code>next link</code>)
+     * up to the next feed entry (<code>entry</code>) or the end of the feed.
+     * 
+     * @return whether the reader is positioned at the start of an entry
+     * @throws XMLStreamException
+     * @throws EntityProviderException
+     */
+    private boolean readTillNextEntry() throws XMLStreamException, EntityProviderException {
+      while (reader.hasNext() && !isFeedEndTag(reader)) {
+        if (FormatXml.ATOM_ENTRY.equals(reader.getLocalName())) {
+          atEntry = true;
+          return true;
+        } else if (FormatXml.M_COUNT.equals(reader.getLocalName())) {
+          reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_M_2007_08, FormatXml.M_COUNT);
+
+          reader.next();
+          if (reader.hasText()) {
+            String inlineCountString = reader.getText();
+            try {
+              int inlineCountNumber = Integer.valueOf(inlineCountString);
+              if (inlineCountNumber >= 0) {
+                metadata.setInlineCount(inlineCountNumber);
+              } else {
+                throw new EntityProviderException(EntityProviderException.INLINECOUNT_INVALID.addContent(inlineCountNumber));
+              }
+            } catch (NumberFormatException e) {
+              throw new EntityProviderException(EntityProviderException.INLINECOUNT_INVALID.addContent(""), e);
             }
-          } catch (NumberFormatException e) {
-            throw new EntityProviderException(EntityProviderException.INLINECOUNT_INVALID.addContent(""), e);
           }
-        }
-      } else if (FormatXml.ATOM_LINK.equals(reader.getLocalName())) {
-        reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_ATOM_2005, FormatXml.ATOM_LINK);
-
-        final String rel = reader.getAttributeValue(null, FormatXml.ATOM_REL);
-        if (FormatXml.ATOM_NEXT_LINK.equals(rel)) {
-          final String uri = reader.getAttributeValue(null, FormatXml.ATOM_HREF);
-          metadata.setNextLink(uri);
-        } else if (FormatXml.ATOM_DELTA_LINK.equals(rel)) {
-          final String uri = reader.getAttributeValue(null, FormatXml.ATOM_HREF);
-          metadata.setDeltaLink(uri);
-        }
+        } else if (FormatXml.ATOM_LINK.equals(reader.getLocalName())) {
+          reader.require(XMLStreamConstants.START_ELEMENT, Edm.NAMESPACE_ATOM_2005, FormatXml.ATOM_LINK);
+
+          final String rel = reader.getAttributeValue(null, FormatXml.ATOM_REL);
+          if (FormatXml.ATOM_NEXT_LINK.equals(rel)) {
+            final String uri = reader.getAttributeValue(null, FormatXml.ATOM_HREF);
+            metadata.setNextLink(uri);
+          } else if (FormatXml.ATOM_DELTA_LINK.equals(rel)) {
+            final String uri = reader.getAttributeValue(null, FormatXml.ATOM_HREF);
+            metadata.setDeltaLink(uri);
+          }
 
-        reader.next();
-      } else {
-        reader.next();
+          reader.next();
+        } else {
+          reader.next();
+        }
+        readTillNextStartTag(reader);
       }
-      readTillNextStartTag(reader);
+      return false;
     }
-    return new ODataFeedImpl(results, metadata);
   }
 
   private void readTillNextStartTag(final XMLStreamReader reader) throws XMLStreamException {
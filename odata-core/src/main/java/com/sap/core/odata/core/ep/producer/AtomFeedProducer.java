@@ -17,6 +17,7 @@ package com.sap.core.odata.core.ep.producer;
 
 import java.net.URI;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -44,21 +45,46 @@ import com.sap.core.odata.core.ep.util.FormatXml;
 public class AtomFeedProducer {
 
   private final EntityProviderWriteProperties properties;
+  private AtomEntryEntityProducer entryProducer;
 
   public AtomFeedProducer(final EntityProviderWriteProperties properties) {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
   }
 
   public void append(final XMLStreamWriter writer, final EntityInfoAggregator eia, final List<Map<String, Object>> data, final boolean isInline) throws EntityProviderException {
+    append(writer, eia, data.iterator(), isInline);
+  }
+
+  /**
+   * Writes the complete feed, consuming the entries one at a time.
+   * @param writer the XML writer
+   * @param eia the entity information of the feed's entity set
+   * @param data the data of the entries
+   * @param isInline <code>true</code> if the feed is written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void append(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Iterator<Map<String, Object>> data, final boolean isInline) throws EntityProviderException {
+    appendFeedStart(writer, eia, isInline);
+    appendEntries(writer, eia, data);
+    appendFeedEnd(writer, eia, isInline);
+  }
+
+  /**
+   * Writes the opening feed element and all feed-level ATOM information
+   * which precedes the entries.
+   * @param writer the XML writer
+   * @param eia the entity information of the feed's entity set
+   * @param isInline <code>true</code> if the feed is written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void appendFeedStart(final XMLStreamWriter writer, final EntityInfoAggregator eia, final boolean isInline) throws EntityProviderException {
     try {
       writer.writeStartElement(FormatXml.ATOM_FEED);
-      TombstoneCallback callback = null;
       if (!isInline) {
         writer.writeDefaultNamespace(Edm.NAMESPACE_ATOM_2005);
         writer.writeNamespace(Edm.PREFIX_M, Edm.NAMESPACE_M_2007_08);
         writer.writeNamespace(Edm.PREFIX_D, Edm.NAMESPACE_D_2007_08);
-        callback = getTombstoneCallback();
-        if (callback != null) {
+        if (getTombstoneCallback() != null) {
           writer.writeNamespace(TombstoneCallback.PREFIX_TOMBSTONE, TombstoneCallback.NAMESPACE_TOMBSTONE);
         }
       }
@@ -70,9 +96,36 @@ public class AtomFeedProducer {
       if (properties.getInlineCountType() == InlineCount.ALLPAGES) {
         appendInlineCount(writer, properties.getInlineCount());
       }
+    } catch (XMLStreamException e) {
+      throw new EntityProviderException(EntityProviderException.COMMON, e);
+    }
+  }
 
-      appendEntries(writer, eia, data);
+  /**
+   * Writes a single entry of the feed.
+   * Must be called after {@link #appendFeedStart(XMLStreamWriter, EntityInfoAggregator, boolean)}.
+   * @param writer the XML writer
+   * @param eia the entity information of the feed's entity set
+   * @param entryData the data of the entry
+   * @throws EntityProviderException
+   */
+  public void appendEntry(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Map<String, Object> entryData) throws EntityProviderException {
+    if (entryProducer == null) {
+      entryProducer = new AtomEntryEntityProducer(properties);
+    }
+    entryProducer.append(writer, eia, entryData, false, true);
+  }
 
+  /**
+   * Writes deleted entries, the next link, and the closing feed element.
+   * @param writer the XML writer
+   * @param eia the entity information of the feed's entity set
+   * @param isInline <code>true</code> if the feed is written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void appendFeedEnd(final XMLStreamWriter writer, final EntityInfoAggregator eia, final boolean isInline) throws EntityProviderException {
+    try {
+      TombstoneCallback callback = isInline ? null : getTombstoneCallback();
       if (callback != null) {
         appendDeletedEntries(writer, eia, callback);
       }
@@ -128,14 +181,13 @@ public class AtomFeedProducer {
     }
   }
 
-  private void appendEntries(final XMLStreamWriter writer, final EntityInfoAggregator eia, final List<Map<String, Object>> data) throws EntityProviderException {
-    AtomEntryEntityProducer entryProvider = new AtomEntryEntityProducer(properties);
-    for (Map<String, Object> singleEntryData : data) {
-      entryProvider.append(writer, eia, singleEntryData, false, true);
+  private void appendEntries(final XMLStreamWriter writer, final EntityInfoAggregator eia, final Iterator<Map<String, Object>> data) throws EntityProviderException {
+    while (data.hasNext()) {
+      appendEntry(writer, eia, data.next());
     }
   }
 
-  private void appendInlineCount(final XMLStreamWriter writer, final Integer inlineCount) throws EntityProviderException {
+  private void appendInlineCount(final XMLStreamWriter writer, final Long inlineCount) throws EntityProviderException {
     if (inlineCount == null || inlineCount < 0) {
       throw new EntityProviderException(EntityProviderException.INLINECOUNT_INVALID);
     }
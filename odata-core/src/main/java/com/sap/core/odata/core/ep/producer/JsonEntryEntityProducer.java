@@ -17,6 +17,7 @@ package com.sap.core.odata.core.ep.producer;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +41,7 @@ import com.sap.core.odata.api.ep.callback.WriteFeedCallbackResult;
 import com.sap.core.odata.api.exception.ODataApplicationException;
 import com.sap.core.odata.core.commons.Encoder;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
+import com.sap.core.odata.core.ep.aggregator.EntityPropertyInfo;
 import com.sap.core.odata.core.ep.util.FormatJson;
 import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 
@@ -50,10 +52,18 @@ import com.sap.core.odata.core.ep.util.JsonStreamWriter;
  */
 public class JsonEntryEntityProducer {
 
+  private static final char[] METADATA = JsonStreamWriter.encodeName(FormatJson.METADATA);
+  private static final char[] ID = JsonStreamWriter.encodeName(FormatJson.ID);
+  private static final char[] URI = JsonStreamWriter.encodeName(FormatJson.URI);
+  private static final char[] TYPE = JsonStreamWriter.encodeName(FormatJson.TYPE);
+  private static final char[] ETAG = JsonStreamWriter.encodeName(FormatJson.ETAG);
+  private static final char[] DEFERRED = JsonStreamWriter.encodeName(FormatJson.DEFERRED);
+
   private final EntityProviderWriteProperties properties;
   private String eTag;
   private String location;
   private JsonStreamWriter jsonStreamWriter;
+  private EncodedEntityType encodedType;
 
   public JsonEntryEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
@@ -63,6 +73,9 @@ public class JsonEntryEntityProducer {
     final EdmEntityType type = entityInfo.getEntityType();
 
     try {
+      if (encodedType == null || encodedType.entityInfo != entityInfo) {
+        encodedType = new EncodedEntityType(entityInfo);
+      }
       jsonStreamWriter = new JsonStreamWriter(writer);
       if (isRootElement) {
         jsonStreamWriter.beginObject().name(FormatJson.D);
@@ -70,18 +83,17 @@ public class JsonEntryEntityProducer {
 
       jsonStreamWriter.beginObject();
 
-      jsonStreamWriter.name(FormatJson.METADATA)
+      jsonStreamWriter.name(METADATA)
           .beginObject();
       final String self = AtomEntryEntityProducer.createSelfLink(entityInfo, data, null);
       location = (properties.getServiceRoot() == null ? "" : properties.getServiceRoot().toASCIIString()) + self;
-      jsonStreamWriter.namedStringValue(FormatJson.ID, location).separator()
-          .namedStringValue(FormatJson.URI, location).separator()
-          .namedStringValueRaw(FormatJson.TYPE,
-              type.getNamespace() + Edm.DELIMITER + type.getName());
+      jsonStreamWriter.name(ID).stringValue(location).separator()
+          .name(URI).stringValue(location).separator()
+          .name(TYPE).stringValueRaw(encodedType.typeName);
       eTag = AtomEntryEntityProducer.createETag(entityInfo, data);
       if (eTag != null) {
         jsonStreamWriter.separator()
-            .namedStringValue(FormatJson.ETAG, eTag);
+            .name(ETAG).stringValue(eTag);
       }
       if (type.hasStream()) {
         jsonStreamWriter.separator()
@@ -96,62 +108,60 @@ public class JsonEntryEntityProducer {
       }
       jsonStreamWriter.endObject();
 
-      for (final String propertyName : type.getPropertyNames()) {
-        if (entityInfo.getSelectedPropertyNames().contains(propertyName)) {
-          jsonStreamWriter.separator()
-              .name(propertyName);
-          JsonPropertyEntityProducer.appendPropertyValue(jsonStreamWriter, entityInfo.getPropertyInfo(propertyName), data.get(propertyName));
-        }
+      for (int i = 0; i < encodedType.propertyNames.size(); i++) {
+        final String propertyName = encodedType.propertyNames.get(i);
+        jsonStreamWriter.separator()
+            .name(encodedType.encodedPropertyNames.get(i));
+        JsonPropertyEntityProducer.appendPropertyValue(jsonStreamWriter, encodedType.propertyInfos.get(i), data.get(propertyName));
       }
 
-      for (final String navigationPropertyName : type.getNavigationPropertyNames()) {
-        if (entityInfo.getSelectedNavigationPropertyNames().contains(navigationPropertyName)) {
-          jsonStreamWriter.separator()
-              .name(navigationPropertyName);
-          if (entityInfo.getExpandedNavigationPropertyNames().contains(navigationPropertyName)) {
-            if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
-              final EdmNavigationProperty navigationProperty = (EdmNavigationProperty) type.getProperty(navigationPropertyName);
-              final boolean isFeed = navigationProperty.getMultiplicity() == EdmMultiplicity.MANY;
-              final EdmEntitySet entitySet = entityInfo.getEntitySet();
-              final EdmEntitySet inlineEntitySet = entitySet.getRelatedEntitySet(navigationProperty);
-
-              WriteCallbackContext context = isFeed ? new WriteFeedCallbackContext() : new WriteEntryCallbackContext();
-              context.setSourceEntitySet(entitySet);
-              context.setNavigationProperty(navigationProperty);
-              context.setEntryData(data);
-              context.setCurrentExpandSelectTreeNode(properties.getExpandSelectTree().getLinks().get(navigationPropertyName));
-
-              ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
-              if (callback == null) {
-                throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
-              }
-              try {
-                if (isFeed) {
-                  final WriteFeedCallbackResult result = ((OnWriteFeedContent) callback).retrieveFeedResult((WriteFeedCallbackContext) context);
-                  List<Map<String, Object>> inlineData = result.getFeedData();
-                  if (inlineData != null) {
-                    final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
-                    final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-                    new JsonFeedEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
-                  }
-                } else {
-                  final WriteEntryCallbackResult result = ((OnWriteEntryContent) callback).retrieveEntryResult((WriteEntryCallbackContext) context);
-                  Map<String, Object> inlineData = result.getEntryData();
-                  if (inlineData != null) {
-                    final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
-                    final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
-                    new JsonEntryEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
-                  }
+      for (int i = 0; i < encodedType.navigationPropertyNames.size(); i++) {
+        final String navigationPropertyName = encodedType.navigationPropertyNames.get(i);
+        jsonStreamWriter.separator()
+            .name(encodedType.encodedNavigationPropertyNames.get(i));
+        if (entityInfo.getExpandedNavigationPropertyNames().contains(navigationPropertyName)) {
+          if (properties.getCallbacks() != null && properties.getCallbacks().containsKey(navigationPropertyName)) {
+            final EdmNavigationProperty navigationProperty = (EdmNavigationProperty) type.getProperty(navigationPropertyName);
+            final boolean isFeed = navigationProperty.getMultiplicity() == EdmMultiplicity.MANY;
+            final EdmEntitySet entitySet = entityInfo.getEntitySet();
+            final EdmEntitySet inlineEntitySet = entitySet.getRelatedEntitySet(navigationProperty);
+
+            WriteCallbackContext context = isFeed ? new WriteFeedCallbackContext() : new WriteEntryCallbackContext();
+            context.setSourceEntitySet(entitySet);
+            context.setNavigationProperty(navigationProperty);
+            context.setEntryData(data);
+            context.setCurrentExpandSelectTreeNode(properties.getExpandSelectTree().getLinks().get(navigationPropertyName));
+
+            ODataCallback callback = properties.getCallbacks().get(navigationPropertyName);
+            if (callback == null) {
+              throw new EntityProviderException(EntityProviderException.EXPANDNOTSUPPORTED);
+            }
+            try {
+              if (isFeed) {
+                final WriteFeedCallbackResult result = ((OnWriteFeedContent) callback).retrieveFeedResult((WriteFeedCallbackContext) context);
+                List<Map<String, Object>> inlineData = result.getFeedData();
+                if (inlineData != null) {
+                  final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
+                  final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+                  new JsonFeedEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
+                }
+              } else {
+                final WriteEntryCallbackResult result = ((OnWriteEntryContent) callback).retrieveEntryResult((WriteEntryCallbackContext) context);
+                Map<String, Object> inlineData = result.getEntryData();
+                if (inlineData != null) {
+                  final EntityProviderWriteProperties inlineProperties = result.getInlineProperties();
+                  final EntityInfoAggregator inlineEntityInfo = EntityInfoAggregator.create(inlineEntitySet, inlineProperties.getExpandSelectTree());
+                  new JsonEntryEntityProducer(inlineProperties).append(writer, inlineEntityInfo, inlineData, false);
                 }
-              } catch (final ODataApplicationException e) {
-                throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
               }
-            } else {
-              writeDeferredUri(navigationPropertyName);
+            } catch (final ODataApplicationException e) {
+              throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
             }
           } else {
-            writeDeferredUri(navigationPropertyName);
+            writeDeferredUri(encodedType.deferredUriSuffixes.get(i));
           }
+        } else {
+          writeDeferredUri(encodedType.deferredUriSuffixes.get(i));
         }
       }
 
@@ -170,10 +180,10 @@ public class JsonEntryEntityProducer {
     }
   }
 
-  private void writeDeferredUri(final String navigationPropertyName) throws IOException {
+  private void writeDeferredUri(final String uriSuffix) throws IOException {
     jsonStreamWriter.beginObject()
-        .name(FormatJson.DEFERRED);
-    JsonLinkEntityProducer.appendUri(jsonStreamWriter, location + "/" + Encoder.encode(navigationPropertyName));
+        .name(DEFERRED);
+    JsonLinkEntityProducer.appendUri(jsonStreamWriter, location + uriSuffix);
     jsonStreamWriter.endObject();
   }
 
@@ -184,4 +194,39 @@ public class JsonEntryEntityProducer {
   public String getLocation() {
     return location;
   }
+
+  /**
+   * Everything about the selected properties of an entity type that does not
+   * depend on the entry data; prepared once and reused for all entries of a feed.
+   */
+  private static class EncodedEntityType {
+    private final EntityInfoAggregator entityInfo;
+    private final String typeName;
+    private final List<String> propertyNames = new ArrayList<String>();
+    private final List<char[]> encodedPropertyNames = new ArrayList<char[]>();
+    private final List<EntityPropertyInfo> propertyInfos = new ArrayList<EntityPropertyInfo>();
+    private final List<String> navigationPropertyNames = new ArrayList<String>();
+    private final List<char[]> encodedNavigationPropertyNames = new ArrayList<char[]>();
+    private final List<String> deferredUriSuffixes = new ArrayList<String>();
+
+    private EncodedEntityType(final EntityInfoAggregator entityInfo) throws EdmException, EntityProviderException {
+      this.entityInfo = entityInfo;
+      final EdmEntityType type = entityInfo.getEntityType();
+      typeName = type.getNamespace() + Edm.DELIMITER + type.getName();
+      for (final String propertyName : type.getPropertyNames()) {
+        if (entityInfo.getSelectedPropertyNames().contains(propertyName)) {
+          propertyNames.add(propertyName);
+          encodedPropertyNames.add(JsonStreamWriter.encodeName(propertyName));
+          propertyInfos.add(entityInfo.getPropertyInfo(propertyName));
+        }
+      }
+      for (final String navigationPropertyName : type.getNavigationPropertyNames()) {
+        if (entityInfo.getSelectedNavigationPropertyNames().contains(navigationPropertyName)) {
+          navigationPropertyNames.add(navigationPropertyName);
+          encodedNavigationPropertyNames.add(JsonStreamWriter.encodeName(navigationPropertyName));
+          deferredUriSuffixes.add("/" + Encoder.encode(navigationPropertyName));
+        }
+      }
+    }
+  }
 }
@@ -17,6 +17,7 @@ package com.sap.core.odata.core.ep.producer;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -34,12 +35,39 @@ import com.sap.core.odata.core.ep.util.JsonStreamWriter;
 public class JsonFeedEntityProducer {
 
   private final EntityProviderWriteProperties properties;
+  private JsonEntryEntityProducer entryProducer;
 
   public JsonFeedEntityProducer(final EntityProviderWriteProperties properties) throws EntityProviderException {
     this.properties = properties == null ? EntityProviderWriteProperties.serviceRoot(null).build() : properties;
   }
 
   public void append(final Writer writer, final EntityInfoAggregator entityInfo, final List<Map<String, Object>> data, final boolean isRootElement) throws EntityProviderException {
+    append(writer, entityInfo, data.iterator(), isRootElement);
+  }
+
+  /**
+   * Writes the complete feed, consuming the entries one at a time.
+   * @param writer the writer
+   * @param entityInfo the entity information of the feed's entity set
+   * @param data the data of the entries
+   * @param isRootElement <code>true</code> if the feed is not written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void append(final Writer writer, final EntityInfoAggregator entityInfo, final Iterator<Map<String, Object>> data, final boolean isRootElement) throws EntityProviderException {
+    appendFeedStart(writer, isRootElement);
+    while (data.hasNext()) {
+      appendEntry(writer, entityInfo, data.next());
+    }
+    appendFeedEnd(writer, isRootElement);
+  }
+
+  /**
+   * Writes everything which precedes the first entry of the feed.
+   * @param writer the writer
+   * @param isRootElement <code>true</code> if the feed is not written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void appendFeedStart(final Writer writer, final boolean isRootElement) throws EntityProviderException {
     JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
 
     try {
@@ -51,22 +79,48 @@ public class JsonFeedEntityProducer {
       }
 
       if (properties.getInlineCountType() == InlineCount.ALLPAGES) {
-        final int inlineCount = properties.getInlineCount() == null ? 0 : properties.getInlineCount();
+        final long inlineCount = properties.getInlineCount() == null ? 0 : properties.getInlineCount();
         jsonStreamWriter.namedStringValueRaw(FormatJson.COUNT, String.valueOf(inlineCount)).separator();
       }
 
       jsonStreamWriter.name(FormatJson.RESULTS)
           .beginArray();
-      JsonEntryEntityProducer entryProducer = new JsonEntryEntityProducer(properties);
-      boolean first = true;
-      for (final Map<String, Object> entryData : data) {
-        if (first) {
-          first = false;
-        } else {
-          jsonStreamWriter.separator();
-        }
-        entryProducer.append(writer, entityInfo, entryData, false);
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Writes a single entry of the feed.
+   * Must be called after {@link #appendFeedStart(Writer, boolean)}.
+   * @param writer the writer
+   * @param entityInfo the entity information of the feed's entity set
+   * @param entryData the data of the entry
+   * @throws EntityProviderException
+   */
+  public void appendEntry(final Writer writer, final EntityInfoAggregator entityInfo, final Map<String, Object> entryData) throws EntityProviderException {
+    try {
+      if (entryProducer == null) {
+        entryProducer = new JsonEntryEntityProducer(properties);
+      } else {
+        new JsonStreamWriter(writer).separator();
       }
+      entryProducer.append(writer, entityInfo, entryData, false);
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+
+  /**
+   * Writes everything which follows the last entry of the feed.
+   * @param writer the writer
+   * @param isRootElement <code>true</code> if the feed is not written inline into an entry
+   * @throws EntityProviderException
+   */
+  public void appendFeedEnd(final Writer writer, final boolean isRootElement) throws EntityProviderException {
+    JsonStreamWriter jsonStreamWriter = new JsonStreamWriter(writer);
+
+    try {
       jsonStreamWriter.endArray();
 
       // Write "next" link.
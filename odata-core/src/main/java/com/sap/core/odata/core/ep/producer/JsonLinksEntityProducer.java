@@ -47,7 +47,7 @@ public class JsonLinksEntityProducer {
           .name(FormatJson.D);
 
       if (properties.getInlineCountType() == InlineCount.ALLPAGES) {
-        final int inlineCount = properties.getInlineCount() == null ? 0 : properties.getInlineCount();
+        final long inlineCount = properties.getInlineCount() == null ? 0 : properties.getInlineCount();
         jsonStreamWriter.beginObject()
             .namedStringValueRaw(FormatJson.COUNT, String.valueOf(inlineCount)).separator()
             .name(FormatJson.RESULTS);
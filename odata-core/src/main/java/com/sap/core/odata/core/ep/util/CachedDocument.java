@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+import com.sap.core.odata.api.ep.EntityProviderException;
+
+/**
+ * <p>Immutable, completely serialized document which can be served repeatedly,
+ * e.g., the metadata document or the service document.</p>
+ * <p>Besides the content it holds a strong entity tag derived from the content
+ * and, on first request, a gzip-compressed copy of the content.</p>
+ * 
+ * @author SAP AG
+ */
+public final class CachedDocument {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final byte[] content;
+  private final String contentType;
+  private final String eTag;
+  private volatile byte[] compressedContent;
+
+  private CachedDocument(final byte[] content, final String contentType) throws EntityProviderException {
+    this.content = content;
+    this.contentType = contentType;
+    eTag = createETag(content);
+  }
+
+  /**
+   * Reads the given stream completely and closes it.
+   * @param content the content of the document
+   * @param contentType the content type of the document (can be <code>null</code>)
+   * @return the cached document
+   * @throws EntityProviderException if the content could not be read
+   */
+  public static CachedDocument create(final InputStream content, final String contentType) throws EntityProviderException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+    try {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = content.read(buffer)) >= 0) {
+        out.write(buffer, 0, read);
+      }
+    } catch (final IOException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    } finally {
+      try {
+        content.close();
+      } catch (final IOException e) {
+        // the content has been read completely or reading has already failed
+      }
+    }
+    return new CachedDocument(out.toByteArray(), contentType);
+  }
+
+  /**
+   * @return a new stream on the content
+   */
+  public InputStream getContent() {
+    return new ByteArrayInputStream(content);
+  }
+
+  /**
+   * @return a new stream on the gzip-compressed content
+   * @throws EntityProviderException if the content could not be compressed
+   */
+  public InputStream getCompressedContent() throws EntityProviderException {
+    byte[] compressed = compressedContent;
+    if (compressed == null) {
+      try {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 64);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(content);
+        gzip.close();
+        compressed = out.toByteArray();
+      } catch (final IOException e) {
+        throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+      }
+      compressedContent = compressed;
+    }
+    return new ByteArrayInputStream(compressed);
+  }
+
+  /**
+   * @return the content type of the document or <code>null</code>
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * @return the strong entity tag of the content, including the quotes
+   */
+  public String getETag() {
+    return eTag;
+  }
+
+  private static String createETag(final byte[] content) throws EntityProviderException {
+    try {
+      final byte[] digest = MessageDigest.getInstance("MD5").digest(content);
+      StringBuilder eTag = new StringBuilder(2 * digest.length + 2).append('"');
+      for (final byte b : digest) {
+        eTag.append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+      }
+      return eTag.append('"').toString();
+    } catch (final NoSuchAlgorithmException e) {
+      throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+    }
+  }
+}
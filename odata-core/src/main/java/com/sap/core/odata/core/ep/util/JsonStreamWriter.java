@@ -54,6 +54,28 @@ public class JsonStreamWriter {
     return this;
   }
 
+  /**
+   * Writes a name which has been prepared with {@link #encodeName(String)}.
+   * @param encodedName the encoded name including quotation marks and colon
+   * @return this writer
+   * @throws IOException if an I/O error occurs
+   */
+  public JsonStreamWriter name(final char[] encodedName) throws IOException {
+    writer.write(encodedName);
+    return this;
+  }
+
+  /**
+   * Prepares a name for repeated output with {@link #name(char[])},
+   * so that names which are written for every entry of a feed
+   * are quoted only once.
+   * @param name the name
+   * @return the encoded name including quotation marks and colon
+   */
+  public static char[] encodeName(final String name) {
+    return ('"' + name + "\":").toCharArray();
+  }
+
   public JsonStreamWriter unquotedValue(final String value) throws IOException {
     writer.append(value == null ? FormatJson.NULL : value);
     return this;
@@ -106,10 +128,19 @@ public class JsonStreamWriter {
     // quotation marks except for the characters that must be escaped:
     // quotation mark, reverse solidus, and the control characters
     // (U+0000 through U+001F)."
-    // All output here is done on character basis which should be faster
-    // than writing Strings.
-    for (int i = 0; i < value.length(); i++) {
+    // Runs of characters which need no escaping are written in one call;
+    // that covers the whole value in most cases.
+    final int length = value.length();
+    int start = 0;
+    for (int i = 0; i < length; i++) {
       final char c = value.charAt(i);
+      if (c >= '\u0020' && c != '"' && c != '\\') {
+        continue;
+      }
+      if (i > start) {
+        writer.write(value, start, i - start);
+      }
+      start = i + 1;
       switch (c) {
       case '\\':
         writer.append('\\').append(c);
@@ -165,8 +196,11 @@ public class JsonStreamWriter {
             .append((char) ((lastHexDigit > 9 ? 'A' : '0') + lastHexDigit % 10));
         break;
       default:
-        writer.append(c);
+        break;
       }
     }
+    if (start < length) {
+      writer.write(value, start, length - start);
+    }
   }
 }
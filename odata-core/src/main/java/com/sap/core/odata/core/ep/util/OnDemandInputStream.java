@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link InputStream} whose content is produced on demand.
+ * <p>Content is written chunk by chunk into an internal {@link CircleStreamBuffer}.
+ * A new chunk is only requested (via {@link #produceNext(OutputStream)}) when
+ * all previously produced content has been read, so at no time more than
+ * about one chunk is held in memory, regardless of the total content size.</p>
+ *
+ * @author SAP AG
+ */
+public abstract class OnDemandInputStream extends InputStream {
+
+  private static final int READ_EOF = -1;
+
+  private final CircleStreamBuffer buffer;
+  private final InputStream in;
+  private boolean finished = false;
+  private boolean closed = false;
+
+  public OnDemandInputStream() {
+    buffer = new CircleStreamBuffer();
+    in = buffer.getInputStream();
+  }
+
+  /**
+   * Get the {@link OutputStream} into which the content has to be written.
+   * Content written into this stream before the first read access is returned first.
+   * @return the stream
+   */
+  public OutputStream getOutputStream() {
+    return buffer.getOutputStream();
+  }
+
+  /**
+   * Writes the next chunk of content into the given stream.
+   * All content has to be flushed into the stream before this method returns.
+   * @param out the stream to write into (same as {@link #getOutputStream()})
+   * @return <code>true</code> if more content will follow,
+   *         <code>false</code> if this was the last chunk
+   * @throws IOException if the content could not be produced
+   */
+  protected abstract boolean produceNext(OutputStream out) throws IOException;
+
+  /**
+   * Releases all resources held by the producer.
+   * Called once if the stream is closed before or after all content has been produced.
+   */
+  protected void release() {}
+
+  @Override
+  public int read() throws IOException {
+    byte[] single = new byte[1];
+    int read = read(single, 0, 1);
+    return read == READ_EOF ? READ_EOF : single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (closed) {
+      if (finished) {
+        return READ_EOF;
+      }
+      throw new IOException("Tried to read from closed stream.");
+    }
+    if (len == 0) {
+      return 0;
+    }
+
+    int read = in.read(b, off, len);
+    while (read == READ_EOF && !finished) {
+      finished = !produceNext(buffer.getOutputStream());
+      read = in.read(b, off, len);
+    }
+    if (finished && read == READ_EOF) {
+      close();
+    }
+    return read;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return closed ? 0 : in.available();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      buffer.close();
+      release();
+    }
+  }
+}
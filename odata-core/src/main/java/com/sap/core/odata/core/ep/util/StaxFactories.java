@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+/**
+ * <p>Holder of the StAX factories used for reading and writing XML.</p>
+ * <p>Looking up a StAX implementation is expensive, so the factories are created
+ * once and shared by all threads. The implementation is selected as usual with the
+ * system properties <code>javax.xml.stream.XMLOutputFactory</code> and
+ * <code>javax.xml.stream.XMLInputFactory</code> when this class is initialized;
+ * later changes of the properties take effect only with {@link #reload()}.</p>
+ * <p>The factories are configured before they are published and not changed afterwards,
+ * so only their thread-safe factory methods are called concurrently.</p>
+ * 
+ * @author SAP AG
+ */
+public final class StaxFactories {
+
+  private static volatile XMLOutputFactory outputFactory;
+  private static volatile XMLInputFactory inputFactory;
+
+  static {
+    reload();
+  }
+
+  private StaxFactories() {}
+
+  /**
+   * Returns the shared factory for XML stream writers.
+   * @return the output factory
+   */
+  public static XMLOutputFactory getOutputFactory() {
+    return outputFactory;
+  }
+
+  /**
+   * Returns the shared namespace-aware, non-validating factory for XML stream readers.
+   * @return the input factory
+   */
+  public static XMLInputFactory getInputFactory() {
+    return inputFactory;
+  }
+
+  /**
+   * Creates the factories again, e.g., after the StAX implementation has been
+   * changed with the system properties.
+   */
+  public static void reload() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    inputFactory = factory;
+    outputFactory = XMLOutputFactory.newInstance();
+  }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * {@link Writer} which encodes characters as UTF-8 directly into a byte buffer.
+ * <p>It replaces the combination of {@link java.io.BufferedWriter} and
+ * {@link java.io.OutputStreamWriter} for output which is mostly ASCII,
+ * as JSON is: every character is buffered only once, and no charset encoder
+ * is involved. Unpaired surrogates are replaced by '?',
+ * as the standard UTF-8 encoder does.</p>
+ * @author SAP AG
+ */
+public class Utf8Writer extends Writer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final byte REPLACEMENT = '?';
+
+  private final OutputStream out;
+  private final byte[] buffer;
+  private int position = 0;
+  private char highSurrogate = 0;
+
+  public Utf8Writer(final OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  public Utf8Writer(final OutputStream out, final int bufferSize) {
+    // The buffer must be able to take the longest encoded character at once.
+    this.out = out;
+    buffer = new byte[Math.max(bufferSize, 4)];
+  }
+
+  @Override
+  public void write(final int c) throws IOException {
+    encode((char) c);
+  }
+
+  @Override
+  public void write(final char[] chars, final int offset, final int length) throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final char c = chars[i];
+      if (c < 0x80 && highSurrogate == 0) {
+        if (position == buffer.length) {
+          flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+      } else {
+        encode(c);
+      }
+    }
+  }
+
+  @Override
+  public void write(final String string, final int offset, final int length) throws IOException {
+    final int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      final char c = string.charAt(i);
+      if (c < 0x80 && highSurrogate == 0) {
+        if (position == buffer.length) {
+          flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+      } else {
+        encode(c);
+      }
+    }
+  }
+
+  private void encode(final char c) throws IOException {
+    if (buffer.length - position < 4) {
+      flushBuffer();
+    }
+    if (highSurrogate != 0) {
+      if (Character.isLowSurrogate(c)) {
+        final int codePoint = Character.toCodePoint(highSurrogate, c);
+        highSurrogate = 0;
+        buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+        return;
+      }
+      highSurrogate = 0;
+      buffer[position++] = REPLACEMENT;
+    }
+
+    if (c < 0x80) {
+      buffer[position++] = (byte) c;
+    } else if (c < 0x800) {
+      buffer[position++] = (byte) (0xC0 | c >> 6);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      buffer[position++] = REPLACEMENT;
+    } else {
+      buffer[position++] = (byte) (0xE0 | c >> 12);
+      buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+      buffer[position++] = (byte) (0x80 | c & 0x3F);
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  /**
+   * Writes all buffered content into the underlying stream and flushes it.
+   * A pending high surrogate is kept until the next character arrives.
+   */
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (highSurrogate != 0) {
+      highSurrogate = 0;
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      buffer[position++] = REPLACEMENT;
+    }
+    flushBuffer();
+    out.close();
+  }
+}
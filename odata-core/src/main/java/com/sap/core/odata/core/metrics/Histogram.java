@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram with exponentially growing bucket bounds.
+ * Values are recorded with a few atomic operations and no allocation.
+ * @author SAP AG
+ */
+class Histogram {
+
+  /** Bucket <code>i</code> counts values below 2<sup>i</sup>; the last one counts all larger values, too. */
+  static final int BUCKETS = 40;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(final long value) {
+    final long nonNegativeValue = Math.max(value, 0);
+    buckets.incrementAndGet(Math.min(Long.SIZE - Long.numberOfLeadingZeros(nonNegativeValue), BUCKETS - 1));
+    count.incrementAndGet();
+    sum.addAndGet(nonNegativeValue);
+    long currentMax = max.get();
+    while (nonNegativeValue > currentMax && !max.compareAndSet(currentMax, nonNegativeValue)) {
+      currentMax = max.get();
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getSum() {
+    return sum.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public long[] getBucketCounts() {
+    long[] counts = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import com.sap.core.odata.api.metrics.ODataMetric;
+import com.sap.core.odata.api.metrics.ODataMetric.Stage;
+import com.sap.core.odata.api.metrics.ODataMetrics;
+import com.sap.core.odata.api.metrics.ODataMetricsExporter;
+import com.sap.core.odata.core.uri.expression.ExpressionCache;
+
+/**
+ * Aggregates runtime metrics of all requests in one histogram per metric key.
+ * <p>Recording is lock-free; the only shared state touched per value is one
+ * concurrent-map lookup and a few atomic counters.  The registry can be registered
+ * as MXBean under {@link #OBJECT_NAME} with {@link #registerMBean()}; whoever registers it
+ * (e.g., {@link com.sap.core.odata.core.rest.app.ODataMetricsListener} in a web application)
+ * is responsible for calling {@link #unregisterMBean()} when the application is stopped,
+ * so the platform MBean server does not keep the class loader of the application.</p>
+ * @author SAP AG
+ */
+public class MetricsRegistry implements ODataMetrics, ODataMetricsMXBean {
+
+  public static final String OBJECT_NAME = "com.sap.core.odata:type=Metrics";
+
+  private static final MetricsRegistry instance = new MetricsRegistry();
+
+  private final ConcurrentMap<MetricKey, Histogram> histograms = new ConcurrentHashMap<MetricKey, Histogram>();
+  private final List<Exporter> exporters = new CopyOnWriteArrayList<Exporter>();
+  private ObjectName registeredName;
+
+  public static MetricsRegistry getInstance() {
+    return instance;
+  }
+
+  /**
+   * Registers this registry as MXBean under {@link #OBJECT_NAME}
+   * at the platform MBean server.
+   * @return <code>true</code> if the registry is registered,
+   * <code>false</code> if JMX is not available or the name is taken already,
+   * e.g., by a copy of this library in another class loader
+   */
+  public synchronized boolean registerMBean() {
+    if (registeredName == null) {
+      try {
+        final ObjectName name = new ObjectName(OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        registeredName = name;
+      } catch (final Exception e) {
+        // JMX is optional.
+      }
+    }
+    return registeredName != null;
+  }
+
+  /**
+   * Unregisters this registry from the platform MBean server
+   * if it has been registered with {@link #registerMBean()}.
+   */
+  public synchronized void unregisterMBean() {
+    if (registeredName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+      } catch (final Exception e) {
+        // The registration is gone already.
+      }
+      registeredName = null;
+    }
+  }
+
+  /**
+   * Records a value.
+   * @param stage the stage of request processing
+   * @param uriType the URI type or <code>null</code>
+   * @param httpMethod the HTTP method or <code>null</code>
+   * @param processor the processor name or <code>null</code>
+   * @param contentType the content type or <code>null</code>
+   * @param value the value, in microseconds or bytes according to the stage
+   */
+  public void record(final Stage stage, final String uriType, final String httpMethod, final String processor, final String contentType, final long value) {
+    final MetricKey key = new MetricKey(stage, uriType, httpMethod, processor, contentType);
+    Histogram histogram = histograms.get(key);
+    if (histogram == null) {
+      final Histogram newHistogram = new Histogram();
+      histogram = histograms.putIfAbsent(key, newHistogram);
+      if (histogram == null) {
+        histogram = newHistogram;
+      }
+    }
+    histogram.record(value);
+  }
+
+  /**
+   * Calls all exporters whose export interval has elapsed.
+   * At most one thread exports to an exporter at a time.
+   */
+  public void exportIfDue() {
+    if (!exporters.isEmpty()) {
+      final long now = System.currentTimeMillis();
+      for (final Exporter exporter : exporters) {
+        exporter.exportIfDue(now);
+      }
+    }
+  }
+
+  @Override
+  public List<ODataMetric> getMetrics() {
+    List<ODataMetric> metrics = new ArrayList<ODataMetric>(histograms.size());
+    for (final Map.Entry<MetricKey, Histogram> entry : histograms.entrySet()) {
+      metrics.add(new MetricSnapshot(entry.getKey(), entry.getValue()));
+    }
+    return metrics;
+  }
+
+  @Override
+  public long getRequestCount() {
+    return getTotal(Stage.REQUEST, false);
+  }
+
+  @Override
+  public long getBytesWritten() {
+    return getTotal(Stage.BYTES_WRITTEN, true);
+  }
+
+  @Override
+  public long getExpressionCacheHitCount() {
+    return ExpressionCache.getHitCount();
+  }
+
+  @Override
+  public long getExpressionCacheMissCount() {
+    return ExpressionCache.getMissCount();
+  }
+
+  private long getTotal(final Stage stage, final boolean sum) {
+    long total = 0;
+    for (final Map.Entry<MetricKey, Histogram> entry : histograms.entrySet()) {
+      if (entry.getKey().stage == stage) {
+        total += sum ? entry.getValue().getSum() : entry.getValue().getCount();
+      }
+    }
+    return total;
+  }
+
+  @Override
+  public void reset() {
+    histograms.clear();
+    ExpressionCache.resetStatistics();
+  }
+
+  @Override
+  public void addExporter(final ODataMetricsExporter exporter, final long intervalMillis) {
+    exporters.add(new Exporter(exporter, intervalMillis));
+  }
+
+  @Override
+  public void removeExporter(final ODataMetricsExporter exporter) {
+    for (final Exporter registered : exporters) {
+      if (registered.exporter == exporter) {
+        exporters.remove(registered);
+      }
+    }
+  }
+
+  private class Exporter {
+    private final ODataMetricsExporter exporter;
+    private final long intervalMillis;
+    private final AtomicLong nextExport;
+
+    public Exporter(final ODataMetricsExporter exporter, final long intervalMillis) {
+      this.exporter = exporter;
+      this.intervalMillis = intervalMillis;
+      nextExport = new AtomicLong(System.currentTimeMillis() + intervalMillis);
+    }
+
+    public void exportIfDue(final long now) {
+      final long next = nextExport.get();
+      if (now >= next && nextExport.compareAndSet(next, now + intervalMillis)) {
+        try {
+          exporter.export(getMetrics());
+        } catch (final RuntimeException e) {
+          // A failing exporter must not fail the request; it is tried again next time.
+        }
+      }
+    }
+  }
+
+  private static class MetricKey {
+    private final Stage stage;
+    private final String uriType;
+    private final String httpMethod;
+    private final String processor;
+    private final String contentType;
+    private final int hashCode;
+
+    public MetricKey(final Stage stage, final String uriType, final String httpMethod, final String processor, final String contentType) {
+      this.stage = stage;
+      this.uriType = uriType;
+      this.httpMethod = httpMethod;
+      this.processor = processor;
+      this.contentType = contentType;
+      int hash = stage.hashCode();
+      hash = 31 * hash + (uriType == null ? 0 : uriType.hashCode());
+      hash = 31 * hash + (httpMethod == null ? 0 : httpMethod.hashCode());
+      hash = 31 * hash + (processor == null ? 0 : processor.hashCode());
+      hashCode = 31 * hash + (contentType == null ? 0 : contentType.hashCode());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MetricKey)) {
+        return false;
+      }
+      final MetricKey other = (MetricKey) obj;
+      return stage == other.stage
+          && equal(uriType, other.uriType)
+          && equal(httpMethod, other.httpMethod)
+          && equal(processor, other.processor)
+          && equal(contentType, other.contentType);
+    }
+
+    private static boolean equal(final String first, final String second) {
+      return first == null ? second == null : first.equals(second);
+    }
+  }
+
+  private static class MetricSnapshot implements ODataMetric {
+    private final MetricKey key;
+    private final long count;
+    private final long sum;
+    private final long max;
+    private final long[] bucketCounts;
+
+    public MetricSnapshot(final MetricKey key, final Histogram histogram) {
+      this.key = key;
+      count = histogram.getCount();
+      sum = histogram.getSum();
+      max = histogram.getMax();
+      bucketCounts = histogram.getBucketCounts();
+    }
+
+    @Override
+    public Stage getStage() {
+      return key.stage;
+    }
+
+    @Override
+    public String getUriType() {
+      return key.uriType;
+    }
+
+    @Override
+    public String getHttpMethod() {
+      return key.httpMethod;
+    }
+
+    @Override
+    public String getProcessor() {
+      return key.processor;
+    }
+
+    @Override
+    public String getContentType() {
+      return key.contentType;
+    }
+
+    @Override
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public long getSum() {
+      return sum;
+    }
+
+    @Override
+    public long getMax() {
+      return max;
+    }
+
+    @Override
+    public long[] getBucketCounts() {
+      return bucketCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+      return key.stage + " " + key.uriType + " " + key.httpMethod + " " + key.processor + " " + key.contentType
+          + ": count=" + count + ", sum=" + sum + ", max=" + max;
+    }
+  }
+}
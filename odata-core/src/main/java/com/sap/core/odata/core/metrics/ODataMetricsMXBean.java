@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.util.List;
+
+import com.sap.core.odata.api.metrics.ODataMetric;
+
+/**
+ * JMX view of the runtime metrics.
+ * @author SAP AG
+ */
+public interface ODataMetricsMXBean {
+
+  /**
+   * @return the number of handled requests
+   */
+  long getRequestCount();
+
+  /**
+   * @return the total size of all response contents as sent to the clients, in bytes
+   */
+  long getBytesWritten();
+
+  /**
+   * @return the number of <code>$filter</code> and <code>$orderby</code> expressions
+   *         taken from the expression cache
+   */
+  long getExpressionCacheHitCount();
+
+  /**
+   * @return the number of <code>$filter</code> and <code>$orderby</code> expressions
+   *         which had to be parsed
+   */
+  long getExpressionCacheMissCount();
+
+  List<ODataMetric> getMetrics();
+
+  void reset();
+}
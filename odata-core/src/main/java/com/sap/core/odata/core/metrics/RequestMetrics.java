@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.metrics.ODataMetric.Stage;
+import com.sap.core.odata.api.processor.ODataResponse;
+
+/**
+ * Collects the metrics of one request and records them
+ * in the {@link MetricsRegistry} when the request is finished.
+ * <p>The metrics of the request currently handled by a thread are available
+ * through {@link #current()}, so that, e.g., the entity providers can add
+ * their serialization time without knowing the request.</p>
+ * @author SAP AG
+ */
+public class RequestMetrics {
+
+  private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<RequestMetrics>();
+  private static final long NOT_MEASURED = -1;
+
+  private final RequestMetrics outer;
+  private final long started;
+  private final String httpMethod;
+  private String uriType;
+  private String processor;
+  private final long[] stageNanos = new long[Stage.values().length];
+
+  private RequestMetrics(final RequestMetrics outer, final ODataHttpMethod httpMethod) {
+    this.outer = outer;
+    started = System.nanoTime();
+    this.httpMethod = httpMethod == null ? null : httpMethod.name();
+    for (int i = 0; i < stageNanos.length; i++) {
+      stageNanos[i] = NOT_MEASURED;
+    }
+  }
+
+  /**
+   * Starts collecting metrics for a request handled by the current thread.
+   * Requests may be nested, e.g., the parts of a batch request.
+   * @param httpMethod the HTTP method of the request
+   * @return the metrics of the request
+   */
+  public static RequestMetrics start(final ODataHttpMethod httpMethod) {
+    final RequestMetrics metrics = new RequestMetrics(CURRENT.get(), httpMethod);
+    CURRENT.set(metrics);
+    return metrics;
+  }
+
+  /**
+   * @return the metrics of the request currently handled by this thread,
+   *         or <code>null</code> if there is none
+   */
+  public static RequestMetrics current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Adds the time since <code>stageStarted</code> to the given stage
+   * of the request currently handled by this thread, if there is one.
+   * @param stage the stage
+   * @param stageStarted the start of the stage as returned by {@link System#nanoTime()}
+   */
+  public static void stopCurrent(final Stage stage, final long stageStarted) {
+    final RequestMetrics metrics = CURRENT.get();
+    if (metrics != null) {
+      metrics.stop(stage, stageStarted);
+    }
+  }
+
+  public void setUriType(final String uriType, final String processor) {
+    this.uriType = uriType;
+    this.processor = processor;
+  }
+
+  /**
+   * Adds the time since <code>stageStarted</code> to the given stage.
+   * @param stage the stage
+   * @param stageStarted the start of the stage as returned by {@link System#nanoTime()}
+   */
+  public void stop(final Stage stage, final long stageStarted) {
+    final long duration = System.nanoTime() - stageStarted;
+    final int index = stage.ordinal();
+    stageNanos[index] = stageNanos[index] == NOT_MEASURED ? duration : stageNanos[index] + duration;
+  }
+
+  /**
+   * Records all collected metrics and ends the request.
+   * @param response the response or <code>null</code> if none could be created
+   */
+  public void finish(final ODataResponse response) {
+    stop(Stage.REQUEST, started);
+    if (outer == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(outer);
+    }
+
+    final String contentType = response == null ? null : getMediaType(response.getContentHeader());
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    for (final Stage stage : Stage.values()) {
+      if (stageNanos[stage.ordinal()] != NOT_MEASURED) {
+        registry.record(stage, uriType, httpMethod, processor, contentType, stageNanos[stage.ordinal()] / 1000);
+      }
+    }
+    registry.exportIfDue();
+  }
+
+  /**
+   * Meters the size of the response content, which is recorded when the content has been read.
+   * This must be applied to the response as it is sent to the client, i.e., after compression.
+   * @param response the response
+   * @return the response with metered content
+   */
+  public ODataResponse meter(final ODataResponse response) {
+    return response.getEntity() instanceof InputStream ?
+        ODataResponse.fromResponse(response)
+            .entity(new MeteredInputStream((InputStream) response.getEntity(), getMediaType(response.getContentHeader())))
+            .build() :
+        response;
+  }
+
+  private static String getMediaType(final String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    final int index = contentType.indexOf(';');
+    return index < 0 ? contentType : contentType.substring(0, index);
+  }
+
+  /**
+   * Counts the bytes read and records their number once at the end or on close.
+   */
+  private class MeteredInputStream extends FilterInputStream {
+    private final String contentType;
+    private long count = 0;
+    private boolean recorded = false;
+
+    public MeteredInputStream(final InputStream in, final String contentType) {
+      super(in);
+      this.contentType = contentType;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int read = super.read();
+      if (read == -1) {
+        record();
+      } else {
+        count++;
+      }
+      return read;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read == -1) {
+        record();
+      } else {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+      record();
+      super.close();
+    }
+
+    private void record() {
+      if (!recorded) {
+        recorded = true;
+        MetricsRegistry.getInstance().record(Stage.BYTES_WRITTEN, uriType, httpMethod, processor, contentType, count);
+      }
+    }
+  }
+}
@@ -112,6 +112,12 @@ public class ODataRootLocator {
       pathSplit = Integer.parseInt(pathSplitAsString);
     }
 
+    int compressionThreshold = ResponseCompressor.OFF;
+    final String compressionThresholdAsString = servletConfig.getInitParameter(ODataServiceFactory.COMPRESSION_THRESHOLD_LABEL);
+    if (compressionThresholdAsString != null) {
+      compressionThreshold = Integer.parseInt(compressionThresholdAsString);
+    }
+
     final SubLocatorParameter param = new SubLocatorParameter();
     param.setServiceFactory(serviceFactory);
     param.setPathSegments(pathSegments);
@@ -120,6 +126,7 @@ public class ODataRootLocator {
     param.setRequest(request);
     param.setServletRequest(servletRequest);
     param.setPathSplit(pathSplit);
+    param.setCompressionThreshold(compressionThreshold);
 
     return ODataSubLocator.create(param);
   }
@@ -27,6 +27,7 @@ import javax.ws.rs.core.Response;
 
 import com.sap.core.odata.api.ODataService;
 import com.sap.core.odata.api.ODataServiceFactory;
+import com.sap.core.odata.api.commons.HttpHeaders;
 import com.sap.core.odata.api.commons.ODataHttpMethod;
 import com.sap.core.odata.api.exception.MessageReference;
 import com.sap.core.odata.api.exception.ODataException;
@@ -44,6 +45,7 @@ public final class ODataSubLocator {
 
   private ODataServiceFactory serviceFactory;
   private ODataRequestImpl request;
+  private ResponseCompressor compressor;
 
   @GET
   public Response handleGet() throws ODataException {
@@ -141,7 +143,8 @@ public final class ODataSubLocator {
     ODataRequestHandler requestHandler = new ODataRequestHandler(serviceFactory, service, context);
 
     final ODataResponse odataResponse = requestHandler.handle(request);
-    final Response response = RestUtil.convertResponse(odataResponse);
+    final Response response = RestUtil.convertResponse(requestHandler.getMetrics().meter(
+        compressor.compress(odataResponse, request.getRequestHeaderValue(HttpHeaders.ACCEPT_ENCODING))));
 
     return response;
   }
@@ -160,6 +163,8 @@ public final class ODataSubLocator {
     subLocator.request.setContentType(RestUtil.extractRequestContentType(param));
     subLocator.request.setAcceptableLanguages(param.getHttpHeaders().getAcceptableLanguages());
 
+    subLocator.compressor = new ResponseCompressor(param.getCompressionThreshold());
+
     return subLocator;
   }
 
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
+import com.sap.core.odata.core.PreconditionChecker;
+import com.sap.core.odata.core.ep.util.OnDemandInputStream;
+import com.sap.core.odata.core.exception.ODataRuntimeException;
+
+/**
+ * Compression of response content according to the <code>Accept-Encoding</code> request header.
+ * <p>The content is compressed with <code>gzip</code> or <code>deflate</code> while it is read,
+ * so streamed content stays streamed. Content smaller than the threshold, content of media types
+ * that are compressed already (images, audio, video, archives, binary data), and content with
+ * a <code>Content-Encoding</code> set by the processor (e.g., pre-compressed metadata)
+ * is passed through unchanged.</p>
+ * <p>The compressed content is a different representation, so its entity tag gets the name
+ * of the content coding appended, see {@link PreconditionChecker#getContentCodedETag(String, String)}.</p>
+ * @author SAP AG
+ */
+public class ResponseCompressor {
+
+  /** Threshold switching compression off, the default if no threshold is configured. */
+  public static final int OFF = -1;
+
+  private static final String GZIP = "gzip";
+  private static final String X_GZIP = "x-gzip";
+  private static final String DEFLATE = "deflate";
+  private static final String ANY = "*";
+  private static final int CHUNK_SIZE = 8192;
+
+  private static final Set<String> COMPRESSED_MEDIA_TYPES = new HashSet<String>(Arrays.asList(
+      "application/octet-stream", "application/zip", "application/gzip", "application/x-gzip",
+      "application/x-compress", "application/x-compressed", "application/x-bzip2",
+      "application/x-7z-compressed", "application/x-rar-compressed", "application/pdf"));
+
+  private final int threshold;
+
+  /**
+   * Creates a compressor.
+   * @param threshold minimum size in bytes of the content to be compressed;
+   *                  a negative value switches compression off
+   */
+  public ResponseCompressor(final int threshold) {
+    this.threshold = threshold;
+  }
+
+  /**
+   * Compresses the content of the response if the client accepts a supported content coding.
+   * @param response the response
+   * @param acceptEncoding the value of the <code>Accept-Encoding</code> request header (can be <code>null</code>)
+   * @return the response with compressed content or the unchanged response
+   */
+  public ODataResponse compress(final ODataResponse response, final String acceptEncoding) {
+    if (threshold < 0
+        || !(response.getEntity() instanceof InputStream)
+        || getHeader(response, HttpHeaders.CONTENT_ENCODING) != null
+        || !isCompressible(response.getContentHeader())) {
+      return response;
+    }
+
+    ODataResponseBuilder builder = ODataResponse.fromResponse(response).header(HttpHeaders.VARY, getVary(response));
+    final String contentCoding = negotiateContentCoding(acceptEncoding);
+    if (contentCoding == null) {
+      return builder.build();
+    }
+
+    final InputStream content = (InputStream) response.getEntity();
+    final byte[] prefix = new byte[Math.max(threshold, CHUNK_SIZE)];
+    int prefixLength = 0;
+    try {
+      // Look at the beginning of the content to skip small payloads;
+      // the content must be produced anyway before it can be sent.
+      int read = 0;
+      while (prefixLength < threshold && read != -1) {
+        read = content.read(prefix, prefixLength, prefix.length - prefixLength);
+        prefixLength += read == -1 ? 0 : read;
+      }
+      if (read == -1) {
+        content.close();
+        return builder.entity(new ByteArrayInputStream(prefix, 0, prefixLength)).build();
+      }
+    } catch (final IOException e) {
+      throw new ODataRuntimeException(e);
+    }
+
+    final String eTag = response.getETag();
+    if (eTag != null) {
+      builder = builder.eTag(PreconditionChecker.getContentCodedETag(eTag, contentCoding));
+    }
+    return builder
+        .entity(new CompressingInputStream(content, prefix, prefixLength, GZIP.equals(contentCoding)))
+        .header(HttpHeaders.CONTENT_ENCODING, contentCoding)
+        .header(getHeaderName(response, HttpHeaders.CONTENT_LENGTH), null)
+        .build();
+  }
+
+  /**
+   * Determines the preferred supported content coding.
+   * @param acceptEncoding the value of the <code>Accept-Encoding</code> request header (can be <code>null</code>)
+   * @return <code>gzip</code>, <code>deflate</code>, or <code>null</code> if none of them is acceptable
+   */
+  protected static String negotiateContentCoding(final String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    double gzipQuality = -1;
+    double deflateQuality = -1;
+    double anyQuality = -1;
+    for (final String coding : acceptEncoding.split(",")) {
+      final String[] parts = coding.split(";");
+      final String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        final String[] parameter = parts[i].split("=");
+        if (parameter.length == 2 && "q".equalsIgnoreCase(parameter[0].trim())) {
+          try {
+            quality = Double.parseDouble(parameter[1].trim());
+          } catch (final NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (GZIP.equals(name) || X_GZIP.equals(name)) {
+        gzipQuality = quality;
+      } else if (DEFLATE.equals(name)) {
+        deflateQuality = quality;
+      } else if (ANY.equals(name)) {
+        anyQuality = quality;
+      }
+    }
+    gzipQuality = gzipQuality < 0 ? anyQuality : gzipQuality;
+    deflateQuality = deflateQuality < 0 ? anyQuality : deflateQuality;
+    return gzipQuality > 0 && gzipQuality >= deflateQuality ? GZIP : deflateQuality > 0 ? DEFLATE : null;
+  }
+
+  protected static boolean isCompressible(final String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    final int end = contentType.indexOf(';');
+    final String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ENGLISH);
+    if (mediaType.startsWith("image/")) {
+      return mediaType.startsWith("image/svg");
+    }
+    return !mediaType.startsWith("audio/")
+        && !mediaType.startsWith("video/")
+        && !COMPRESSED_MEDIA_TYPES.contains(mediaType);
+  }
+
+  private static String getVary(final ODataResponse response) {
+    final String vary = getHeader(response, HttpHeaders.VARY);
+    return vary == null ? HttpHeaders.ACCEPT_ENCODING
+        : vary.toLowerCase(Locale.ENGLISH).contains(HttpHeaders.ACCEPT_ENCODING.toLowerCase(Locale.ENGLISH)) ? vary
+            : vary + ", " + HttpHeaders.ACCEPT_ENCODING;
+  }
+
+  private static String getHeader(final ODataResponse response, final String name) {
+    return response.getHeader(getHeaderName(response, name));
+  }
+
+  private static String getHeaderName(final ODataResponse response, final String name) {
+    for (final String headerName : response.getHeaderNames()) {
+      if (headerName.equalsIgnoreCase(name)) {
+        return headerName;
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Compresses the content of another stream while it is read,
+   * in the <code>gzip</code> format (RFC 1952) or the <code>deflate</code> format (RFC 1950).
+   */
+  private static class CompressingInputStream extends OnDemandInputStream {
+
+    private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    private final InputStream source;
+    private final boolean gzip;
+    private final Deflater deflater;
+    private final CRC32 checksum;
+    private final byte[] input;
+    private final byte[] output = new byte[CHUNK_SIZE];
+    private int inputLength;
+    private boolean started = false;
+
+    public CompressingInputStream(final InputStream source, final byte[] prefix, final int prefixLength, final boolean gzip) {
+      this.source = source;
+      this.gzip = gzip;
+      deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, gzip);
+      checksum = gzip ? new CRC32() : null;
+      input = prefix;
+      inputLength = prefixLength;
+    }
+
+    @Override
+    protected boolean produceNext(final OutputStream out) throws IOException {
+      if (started) {
+        inputLength = source.read(input);
+      } else {
+        started = true;
+        if (gzip) {
+          out.write(GZIP_HEADER);
+        }
+      }
+
+      if (inputLength == -1) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          deflate(out);
+        }
+        if (gzip) {
+          writeInt(out, (int) checksum.getValue());
+          writeInt(out, deflater.getTotalIn());
+        }
+        return false;
+      }
+
+      if (gzip) {
+        checksum.update(input, 0, inputLength);
+      }
+      deflater.setInput(input, 0, inputLength);
+      while (!deflater.needsInput()) {
+        deflate(out);
+      }
+      return true;
+    }
+
+    private void deflate(final OutputStream out) throws IOException {
+      final int length = deflater.deflate(output, 0, output.length);
+      if (length > 0) {
+        out.write(output, 0, length);
+      }
+    }
+
+    private static void writeInt(final OutputStream out, final int value) throws IOException {
+      // little endian as required by RFC 1952
+      out.write(value & 0xFF);
+      out.write(value >> 8 & 0xFF);
+      out.write(value >> 16 & 0xFF);
+      out.write(value >> 24 & 0xFF);
+    }
+
+    @Override
+    protected void release() {
+      deflater.end();
+      try {
+        source.close();
+      } catch (final IOException e) {
+        // The content has been read completely or is not needed any longer.
+      }
+    }
+  }
+}
@@ -32,6 +32,7 @@ public class SubLocatorParameter {
   private javax.ws.rs.core.UriInfo uriInfo;
   private Request request;
   private int pathSplit;
+  private int compressionThreshold = ResponseCompressor.OFF;
   private ODataServiceFactory serviceFactory;
   private HttpServletRequest servletRequest;
 
@@ -83,6 +84,14 @@ public class SubLocatorParameter {
     this.pathSplit = pathSplit;
   }
 
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public void setCompressionThreshold(final int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   public void setServletRequest(final HttpServletRequest servletRequest) {
     this.servletRequest = servletRequest;
   }
@@ -16,6 +16,7 @@
 package com.sap.core.odata.core.rest.app;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
@@ -45,6 +46,7 @@ public class ODataApplication extends Application {
     classes.add(ODataRootLocator.class);
     classes.add(ODataExceptionMapperImpl.class);
     classes.add(MyProvider.class);
+    classes.add(MultipartStreamProvider.class);
     return classes;
   }
 
@@ -78,4 +80,40 @@ public class ODataApplication extends Application {
       entityStream.flush();
     }
   }
+
+  /**
+   * Writes streamed multipart bodies (e.g. batch responses) as they are,
+   * without the multipart handling of the JAX-RS implementation.
+   */
+  @Provider
+  @Produces("multipart/mixed")
+  public static final class MultipartStreamProvider implements MessageBodyWriter<InputStream> {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+      return InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(final InputStream t, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType) {
+      return -1;
+    }
+
+    @Override
+    public void writeTo(final InputStream t, final Class<?> type, final Type genericType, final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream) throws IOException, WebApplicationException {
+      try {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int count = t.read(buffer);
+        while (count >= 0) {
+          entityStream.write(buffer, 0, count);
+          count = t.read(buffer);
+        }
+        entityStream.flush();
+      } finally {
+        t.close();
+      }
+    }
+  }
 }
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest.app;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import com.sap.core.odata.core.metrics.MetricsRegistry;
+
+/**
+ * Registers the runtime metrics as MXBean while the web application is running.
+ * <p>Add it as <code>listener</code> to the <code>web.xml</code> of the application;
+ * the MXBean is unregistered when the application is stopped.</p>
+ * @author SAP AG
+ */
+public class ODataMetricsListener implements ServletContextListener {
+
+  @Override
+  public void contextInitialized(final ServletContextEvent event) {
+    MetricsRegistry.getInstance().registerMBean();
+  }
+
+  @Override
+  public void contextDestroyed(final ServletContextEvent event) {
+    MetricsRegistry.getInstance().unregisterMBean();
+  }
+}
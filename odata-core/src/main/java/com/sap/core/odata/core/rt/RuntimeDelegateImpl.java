@@ -16,8 +16,12 @@
 package com.sap.core.odata.core.rt;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.sap.core.odata.api.ODataService;
+import com.sap.core.odata.api.batch.BatchHandler;
+import com.sap.core.odata.api.batch.BatchResponsePart;
 import com.sap.core.odata.api.batch.BatchResponsePart.BatchResponsePartBuilder;
 import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmSimpleType;
@@ -25,17 +29,27 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeFacade;
 import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.provider.EdmProvider;
 import com.sap.core.odata.api.ep.EntityProvider.EntityProviderInterface;
+import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.ep.EntityProviderException;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.metrics.ODataMetrics;
+import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataResponse.ODataResponseBuilder;
 import com.sap.core.odata.api.processor.ODataSingleProcessor;
 import com.sap.core.odata.api.rt.RuntimeDelegate.RuntimeDelegateInstance;
 import com.sap.core.odata.api.uri.UriParser;
 import com.sap.core.odata.core.ODataResponseImpl;
+import com.sap.core.odata.core.batch.BatchHandlerImpl;
+import com.sap.core.odata.core.batch.BatchPartReader;
+import com.sap.core.odata.core.batch.BatchRequestParser;
 import com.sap.core.odata.core.batch.BatchResponsePartImpl;
+import com.sap.core.odata.core.batch.BatchResponseWriter;
 import com.sap.core.odata.core.edm.EdmSimpleTypeFacadeImpl;
 import com.sap.core.odata.core.edm.parser.EdmxProvider;
 import com.sap.core.odata.core.edm.provider.EdmImplProv;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
 import com.sap.core.odata.core.ep.ProviderFacadeImpl;
+import com.sap.core.odata.core.metrics.MetricsRegistry;
 import com.sap.core.odata.core.processor.ODataSingleProcessorService;
 import com.sap.core.odata.core.uri.UriParserImpl;
 
@@ -70,6 +84,21 @@ public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
     return new EdmImplProv(provider);
   }
 
+  @Override
+  protected Edm getSharedEdm(final String key, final EdmProvider provider) throws ODataException {
+    return EdmSnapshot.get(key, provider);
+  }
+
+  @Override
+  protected void invalidateSharedEdm(final String key) {
+    EdmSnapshot.invalidate(key);
+  }
+
+  @Override
+  protected ODataMetrics getMetrics() {
+    return MetricsRegistry.getInstance();
+  }
+
   @Override
   protected EntityProviderInterface createEntityProvider() {
     return new ProviderFacadeImpl();
@@ -80,6 +109,11 @@ public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
     return new ODataSingleProcessorService(provider, processor);
   }
 
+  @Override
+  protected ODataService createODataSingleProcessorService(final Edm edm, final ODataSingleProcessor processor) {
+    return new ODataSingleProcessorService(edm, processor);
+  }
+
   @Override
   protected EdmProvider createEdmProvider(final InputStream metadataXml, final boolean validate) throws EntityProviderException {
     return new EdmxProvider().parse(metadataXml, validate);
@@ -91,4 +125,23 @@ public class RuntimeDelegateImpl extends RuntimeDelegateInstance {
     return part.new BatchResponsePartBuilderImpl();
   }
 
+  @Override
+  protected ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content, final EntityProviderBatchProperties properties) throws ODataException {
+    BatchPartReader batchPartReader = new BatchRequestParser(contentType, properties).read(content);
+    List<BatchResponsePart> batchResponseParts;
+    try {
+      if (handler instanceof BatchHandlerImpl) {
+        batchResponseParts = ((BatchHandlerImpl) handler).handleBatchParts(batchPartReader);
+      } else {
+        batchResponseParts = new ArrayList<BatchResponsePart>();
+        while (batchPartReader.hasNext()) {
+          batchResponseParts.add(handler.handleBatchPart(batchPartReader.next()));
+        }
+      }
+    } finally {// NOPMD (suppress DoNotThrowExceptionInFinally)
+      batchPartReader.close();
+    }
+    return new BatchResponseWriter().writeResponse(batchResponseParts);
+  }
+
 }
@@ -59,8 +59,7 @@ import com.sap.core.odata.api.uri.expression.OrderByExpression;
 import com.sap.core.odata.core.commons.Decoder;
 import com.sap.core.odata.core.edm.EdmSimpleTypeFacadeImpl;
 import com.sap.core.odata.core.exception.ODataRuntimeException;
-import com.sap.core.odata.core.uri.expression.FilterParserImpl;
-import com.sap.core.odata.core.uri.expression.OrderByParserImpl;
+import com.sap.core.odata.core.uri.expression.ExpressionCache;
 
 /**
  * Parser for the OData part of the URL.
@@ -577,7 +576,7 @@ public class UriParserImpl extends UriParser {
     final EdmType targetType = uriResult.getTargetType();
     if (targetType instanceof EdmEntityType) {
       try {
-        uriResult.setFilter(new FilterParserImpl((EdmEntityType) targetType).parseFilterString(filter, true));
+        uriResult.setFilter(ExpressionCache.getFilter((EdmEntityType) targetType, filter, true));
       } catch (ExpressionParserException e) {
         throw new UriSyntaxException(UriSyntaxException.INVALIDFILTEREXPRESSION.addContent(filter), e);
       } catch (ODataMessageException e) {
@@ -825,12 +824,12 @@ public class UriParserImpl extends UriParser {
 
   @Override
   public FilterExpression parseFilterString(final EdmEntityType entityType, final String expression) throws ExpressionParserException, ODataMessageException {
-    return new FilterParserImpl(entityType).parseFilterString(expression);
+    return ExpressionCache.getFilter(entityType, expression, false);
   }
 
   @Override
   public OrderByExpression parseOrderByString(final EdmEntityType entityType, final String expression) throws ExpressionParserException, ODataMessageException {
-    return new OrderByParserImpl(entityType).parseOrderByString(expression);
+    return ExpressionCache.getOrderBy(entityType, expression);
   }
 
   @Override
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.uri.expression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.uri.expression.CommonExpression;
+import com.sap.core.odata.api.uri.expression.OrderExpression;
+import com.sap.core.odata.api.uri.expression.ExpressionParserException;
+import com.sap.core.odata.api.uri.expression.FilterExpression;
+import com.sap.core.odata.api.uri.expression.OrderByExpression;
+import com.sap.core.odata.core.commons.LruCache;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
+
+/**
+ * <p>Caches parsed <code>$filter</code> and <code>$orderby</code> expressions
+ * per entity type and expression string.</p>
+ * <p>Expressions are only cached for entity types of a shared entity data model
+ * (see {@link EdmSnapshot}), together with the model. The cache is bounded
+ * with LRU eviction; expressions which cannot be parsed are not cached.</p>
+ * <p>The cached expression trees are never handed out; every call returns its own copy,
+ * so callers may change the returned tree,
+ * e.g., with {@link CommonExpression#setEdmType(com.sap.core.odata.api.edm.EdmType)}.</p>
+ * @author SAP AG
+ */
+public final class ExpressionCache {
+
+  /** Maximum number of cached expressions */
+  private static final int MAX_CACHED_EXPRESSIONS = 1024;
+
+  private static final String CACHE_NAME = ExpressionCache.class.getName();
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  private enum Kind {
+    FILTER, BOOLEAN_FILTER, ORDER_BY
+  }
+
+  private ExpressionCache() {}
+
+  /**
+   * Returns the parsed filter expression, parsing it only if it is not yet cached.
+   * @param entityType the entity type the filter is applied on
+   * @param expression the filter expression
+   * @param allowOnlyBinary whether the expression must be of type Edm.Boolean
+   * @return the parsed filter expression
+   * @throws ExpressionParserException if the expression is invalid
+   * @throws ExpressionParserInternalError if an internal error occurred
+   * @see FilterParserImpl#parseFilterString(String, boolean)
+   */
+  public static FilterExpression getFilter(final EdmEntityType entityType, final String expression, final boolean allowOnlyBinary) throws ExpressionParserException, ExpressionParserInternalError {
+    final LruCache<CacheKey, CommonExpression> cache = getCache(entityType);
+    final CacheKey key = cache == null ? null : new CacheKey(entityType, expression, allowOnlyBinary ? Kind.BOOLEAN_FILTER : Kind.FILTER);
+    FilterExpression filter = cache == null ? null : (FilterExpression) cache.get(key);
+    if (filter == null) {
+      misses.incrementAndGet();
+      filter = new FilterParserImpl(entityType).parseFilterString(expression, allowOnlyBinary);
+      if (cache != null) {
+        filter = (FilterExpression) cache.putIfAbsent(key, filter);
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+    return cache == null ? filter : (FilterExpression) copy(filter);
+  }
+
+  /**
+   * Returns the parsed orderby expression, parsing it only if it is not yet cached.
+   * @param entityType the entity type the ordering is applied on
+   * @param expression the orderby expression
+   * @return the parsed orderby expression
+   * @throws ExpressionParserException if the expression is invalid
+   * @throws ExpressionParserInternalError if an internal error occurred
+   * @see OrderByParserImpl#parseOrderByString(String)
+   */
+  public static OrderByExpression getOrderBy(final EdmEntityType entityType, final String expression) throws ExpressionParserException, ExpressionParserInternalError {
+    final LruCache<CacheKey, CommonExpression> cache = getCache(entityType);
+    final CacheKey key = cache == null ? null : new CacheKey(entityType, expression, Kind.ORDER_BY);
+    OrderByExpression orderBy = cache == null ? null : (OrderByExpression) cache.get(key);
+    if (orderBy == null) {
+      misses.incrementAndGet();
+      orderBy = new OrderByParserImpl(entityType).parseOrderByString(expression);
+      if (cache != null) {
+        orderBy = (OrderByExpression) cache.putIfAbsent(key, orderBy);
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+    return cache == null ? orderBy : (OrderByExpression) copy(orderBy);
+  }
+
+  /**
+   * @return the number of expressions taken from the cache
+   */
+  public static long getHitCount() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of expressions which had to be parsed
+   */
+  public static long getMissCount() {
+    return misses.get();
+  }
+
+  /**
+   * Resets the hit and miss counters.
+   */
+  public static void resetStatistics() {
+    hits.set(0);
+    misses.set(0);
+  }
+
+  /**
+   * Copies an expression tree. Nodes from the entity data model and literal values
+   * are shared with the original tree; they are not changed by the expressions.
+   * @param expression the root of the tree
+   * @return the root of the copy
+   */
+  private static CommonExpression copy(final CommonExpression expression) {
+    switch (expression.getKind()) {
+    case FILTER:
+      final FilterExpressionImpl filter = (FilterExpressionImpl) expression;
+      return new FilterExpressionImpl(filter.getExpressionString(), copy(filter.getExpression()))
+          .setEdmType(filter.getEdmType());
+    case BINARY:
+      final BinaryExpressionImpl binary = (BinaryExpressionImpl) expression;
+      return new BinaryExpressionImpl(binary.operatorInfo, copy(binary.getLeftOperand()), copy(binary.getRightOperand()), binary.getToken())
+          .setEdmType(binary.getEdmType());
+    case MEMBER:
+      final MemberExpressionImpl member = (MemberExpressionImpl) expression;
+      return new MemberExpressionImpl(copy(member.getPath()), copy(member.getProperty()))
+          .setEdmType(member.getEdmType());
+    case METHOD:
+      final MethodExpressionImpl method = (MethodExpressionImpl) expression;
+      final MethodExpressionImpl methodCopy = new MethodExpressionImpl(method.getMethodInfo());
+      for (final CommonExpression parameter : method.getParameters()) {
+        methodCopy.appendParameter(copy(parameter));
+      }
+      return methodCopy.setEdmType(method.getEdmType());
+    case UNARY:
+      final UnaryExpressionImpl unary = (UnaryExpressionImpl) expression;
+      return new UnaryExpressionImpl(unary.getOperatorInfo(), copy(unary.getOperand()))
+          .setEdmType(unary.getEdmType());
+    case LITERAL:
+      final LiteralExpressionImpl literal = (LiteralExpressionImpl) expression;
+      return new LiteralExpressionImpl(literal.getUriLiteral(), literal.getEdmLiteral())
+          .setEdmType(literal.getEdmType());
+    case PROPERTY:
+      final PropertyExpressionImpl property = (PropertyExpressionImpl) expression;
+      return new PropertyExpressionImpl(property.getUriLiteral(), property.getEdmLiteral())
+          .setEdmProperty(property.getEdmProperty())
+          .setEdmType(property.getEdmType());
+    case ORDERBY:
+      final OrderByExpressionImpl orderBy = (OrderByExpressionImpl) expression;
+      final OrderByExpressionImpl orderByCopy = new OrderByExpressionImpl(orderBy.getExpressionString());
+      for (final OrderExpression order : orderBy.getOrders()) {
+        orderByCopy.addOrder((OrderExpression) copy(order));
+      }
+      return orderByCopy;
+    case ORDER:
+      final OrderExpressionImpl order = (OrderExpressionImpl) expression;
+      final OrderExpressionImpl orderCopy = new OrderExpressionImpl(copy(order.getExpression()));
+      orderCopy.setSortOrder(order.getSortOrder());
+      return orderCopy;
+    default:
+      throw new IllegalArgumentException(expression.getKind().toString());
+    }
+  }
+
+  private static LruCache<CacheKey, CommonExpression> getCache(final EdmEntityType entityType) {
+    return EdmSnapshot.getCache(entityType, CACHE_NAME, MAX_CACHED_EXPRESSIONS);
+  }
+
+  /**
+   * Cache key consisting of the entity type (compared by identity),
+   * the expression string, and the kind of expression.
+   */
+  private static final class CacheKey {
+    private final EdmEntityType entityType;
+    private final String expression;
+    private final Kind kind;
+
+    public CacheKey(final EdmEntityType entityType, final String expression, final Kind kind) {
+      this.entityType = entityType;
+      this.expression = expression;
+      this.kind = kind;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * System.identityHashCode(entityType) + expression.hashCode()) + kind.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) obj;
+      return entityType == other.entityType
+          && kind == other.kind
+          && expression.equals(other.expression);
+    }
+  }
+}
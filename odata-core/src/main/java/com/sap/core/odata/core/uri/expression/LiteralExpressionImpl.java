@@ -45,6 +45,10 @@ public class LiteralExpressionImpl implements LiteralExpression {
     return this;
   }
 
+  EdmLiteral getEdmLiteral() {
+    return edmLiteral;
+  }
+
   @Override
   public ExpressionKind getKind() {
     return ExpressionKind.LITERAL;
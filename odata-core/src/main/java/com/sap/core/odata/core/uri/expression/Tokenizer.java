@@ -15,28 +15,32 @@
  ******************************************************************************/
 package com.sap.core.odata.core.uri.expression;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.sap.core.odata.api.edm.EdmLiteral;
 import com.sap.core.odata.api.edm.EdmLiteralException;
 import com.sap.core.odata.api.edm.EdmSimpleTypeFacade;
-import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.uri.expression.ExpressionParserException;
 import com.sap.core.odata.core.edm.EdmSimpleTypeFacadeImpl;
 
 /**
  * Expression tokenizer
+ * <p>The expression is read in a single pass, character by character.
+ * Operators and method names are returned as literal tokens; the parser
+ * decides about their meaning.</p>
  * @author SAP AG
  */
 public class Tokenizer {
 
-  //Pattern OTHER_LIT = Pattern.compile("^([[A-Za-z0-9]._~%!$&*+;:@-]+)");
-  private static final Pattern OTHER_LIT = Pattern.compile("(?:\\p{L}|\\p{Digit}|[-._~%!$&*+;:@])+");
-  private static final Pattern FUNK = Pattern.compile("^(startswith|endswith|substring|substring|substringof|indexof|replace|tolower|toupper|trim|concat|length|year|mounth|day|hour|minute|second|round|ceiling|floor)( *)\\(");
-  private static final Pattern AND_SUB1 = Pattern.compile("^(add|sub|mul|div|mod|not) ");
-  private static final Pattern AND_SUB = Pattern.compile("^(and|or|eq|ne|lt|gt|le|ge) ");
-  private static final Pattern prefix = Pattern.compile("^(X|binary|guid|datetime|datetimeoffset|time)'");
+  /** Prefixes of typed literals in quotes, e.g., <code>datetime'2013-01-01T00:00'</code>. */
+  private static final Set<String> LITERAL_PREFIXES = new HashSet<String>(Arrays.asList(
+      "X", "binary", "guid", "datetime", "datetimeoffset", "time"));
+  /** Unquoted literals not starting with a digit or a sign followed by a digit. */
+  private static final Set<String> SPECIAL_LITERALS = new HashSet<String>(Arrays.asList(
+      "null", "true", "false", "INF", "-INF", "NaN"));
+
   private boolean flagIncludeWhitespace = false;
   private EdmSimpleTypeFacade typeDectector = null;
 
@@ -70,7 +74,6 @@ public class Tokenizer {
     curPosition = 0;
     int oldPosition;
     char curCharacter;
-    String token = "";
 
     while (curPosition < expressionLength) {
       oldPosition = curPosition;
@@ -79,7 +82,7 @@ public class Tokenizer {
       switch (curCharacter) {
       case ' ':
         //count whitespace and move pointer to next non-whitespace char
-        eatWhiteSpaces(curPosition, curCharacter);
+        eatWhiteSpaces(curPosition);
         break;
 
       case '(':
@@ -94,8 +97,7 @@ public class Tokenizer {
         break;
 
       case '\'':
-        token = "";
-        readLiteral(curCharacter);
+        readLiteral(0);
 
         break;
 
@@ -114,192 +116,157 @@ public class Tokenizer {
         break;
 
       default:
-        String rem_expr = expression.substring(curPosition); //remaining expression
-
-        boolean isBinary = checkForBinary(oldPosition, rem_expr);
-        if (isBinary) {
-          break;
-        }
-
         //check for prefixes like X, binary, guid, datetime
-        boolean isPrefix = checkForPrefix(rem_expr);
+        boolean isPrefix = checkForPrefix();
         if (isPrefix) {
           break;
         }
 
-        //check for math
-        boolean isMath = checkForMath(oldPosition, rem_expr);
-        if (isMath) {
-          break;
-        }
-
-        //check for function
-        boolean isFunction = checkForMethod(oldPosition, rem_expr);
-        if (isFunction) {
-          break;
-        }
-
-        boolean isBoolean = checkForBoolean(oldPosition, rem_expr);
-        if (isBoolean) {
-          break;
-        }
-
-        boolean isLiteral = checkForLiteral(oldPosition, curCharacter, rem_expr);
+        boolean isLiteral = checkForLiteral(oldPosition, curCharacter);
         if (isLiteral) {
           break;
         }
 
-        token = new Character(curCharacter).toString();
-        throw TokenizerException.createUNKNOWN_CHARACTER(oldPosition, token, expression);
+        throw TokenizerException.createUNKNOWN_CHARACTER(oldPosition, Character.toString(curCharacter), expression);
       }
     }
     return tokens;
   }
 
-  private boolean checkForLiteral(final int oldPosition, final char curCharacter, final String rem_expr) {
-    final Matcher matcher = OTHER_LIT.matcher(rem_expr);
-    boolean isLiteral = false;
-    if (matcher.lookingAt()) {
-      String token = matcher.group();
+  /**
+   * Reads a sequence of letters, digits, and the characters <code>-._~%!$&amp;*+;:@</code>
+   * and appends it as simple-type token if it is a valid literal, otherwise as literal token
+   * (e.g., a property name, an operator, or a method name).
+   * A <code>-</code> not starting a valid literal is a symbol.
+   */
+  private boolean checkForLiteral(final int oldPosition, final char curCharacter) {
+    int end = curPosition;
+    while (end < expressionLength) {
+      final int codePoint = expression.codePointAt(end);
+      if (Character.isLetter(codePoint) || isOtherLiteralCharacter(codePoint)) {
+        end += Character.charCount(codePoint);
+      } else {
+        break;
+      }
+    }
+    if (end == curPosition) {
+      return false;
+    }
+
+    final String token = expression.substring(curPosition, end);
+    if (mayBeSimpleTypeLiteral(token)) {
       try {
         EdmLiteral edmLiteral = typeDectector.parseUriLiteral(token);
-        curPosition = curPosition + token.length();
+        curPosition = end;
         // It is a simple type.
         tokens.appendEdmTypedToken(oldPosition, TokenKind.SIMPLE_TYPE, token, edmLiteral);
-        isLiteral = true;
+        return true;
       } catch (EdmLiteralException e) {
-        // We treat it as normal untyped literal. 
-
-        // The '-' is checked here (and not in the switch statement) because it may be
-        // part of a negative number.
-        if (curCharacter == '-') {
-          curPosition = curPosition + 1;
-          tokens.appendToken(oldPosition, TokenKind.SYMBOL, curCharacter);
-          isLiteral = true;
-        } else {
-          curPosition = curPosition + token.length();
-          tokens.appendToken(oldPosition, TokenKind.LITERAL, token);
-          isLiteral = true;
-        }
+        // We treat it as normal untyped literal.
       }
     }
-    return isLiteral;
-  }
-
-  private boolean checkForBoolean(final int oldPosition, final String rem_expr) {
-    boolean isBoolean = false;
-    if (rem_expr.equals("true") || rem_expr.equals("false")) {
-      curPosition = curPosition + rem_expr.length();
-      tokens.appendEdmTypedToken(oldPosition, TokenKind.SIMPLE_TYPE, rem_expr, new EdmLiteral(EdmSimpleTypeFacadeImpl.getEdmSimpleType(EdmSimpleTypeKind.Boolean), rem_expr));
-      isBoolean = true;
-    }
-    return isBoolean;
-  }
 
-  private void eatWhiteSpaces(final int oldPosition, char curCharacter) {
-    int lv_token_len;
-    String expression_sub;
-    while ((curCharacter == ' ') && (curPosition < expressionLength)) {
+    // The '-' is checked here (and not in the switch statement) because it may be
+    // part of a negative number.
+    if (curCharacter == '-') {
       curPosition = curPosition + 1;
-      if (curPosition < expressionLength) {
-        curCharacter = expression.charAt(curPosition);
-      }
+      tokens.appendToken(oldPosition, TokenKind.SYMBOL, curCharacter);
+    } else {
+      curPosition = end;
+      tokens.appendToken(oldPosition, TokenKind.LITERAL, token);
     }
+    return true;
+  }
 
-    lv_token_len = curPosition - oldPosition;
-
-    if (flagIncludeWhitespace == true) {
-      expression_sub = expression.substring(oldPosition, oldPosition + lv_token_len);
-      tokens.appendEdmTypedToken(oldPosition, TokenKind.WHITESPACE, expression_sub, null);
+  private static boolean isOtherLiteralCharacter(final int codePoint) {
+    switch (codePoint) {
+    case '-':
+    case '.':
+    case '_':
+    case '~':
+    case '%':
+    case '!':
+    case '$':
+    case '&':
+    case '*':
+    case '+':
+    case ';':
+    case ':':
+    case '@':
+      return true;
+    default:
+      return codePoint >= '0' && codePoint <= '9';
     }
   }
 
-  private boolean checkForMethod(final int oldPosition, final String rem_expr) {
-    boolean isMethod = false;
-    Matcher matcher = FUNK.matcher(rem_expr);
-    if (matcher.find()) {
-      String token = matcher.group(1);
-      curPosition = curPosition + token.length();
-      tokens.appendToken(oldPosition, TokenKind.LITERAL, token);
-      isMethod = true;
-    }
-    return isMethod;
+  /**
+   * Checks whether an unquoted token could be accepted by the type detection
+   * so that the type detection (and its exception) can be skipped for names.
+   */
+  private static boolean mayBeSimpleTypeLiteral(final String token) {
+    final char first = token.charAt(0);
+    return first >= '0' && first <= '9'
+        || (first == '-' || first == '+') && token.length() > 1 && token.charAt(1) >= '0' && token.charAt(1) <= '9'
+        || SPECIAL_LITERALS.contains(token);
   }
 
-  private boolean checkForMath(final int oldPosition, final String rem_expr) {
-    boolean isMath = false;
-    Matcher matcher1 = AND_SUB1.matcher(rem_expr);
-    if (matcher1.find()) {
-      String token = matcher1.group(1);
-      curPosition = curPosition + token.length();
-      tokens.appendToken(oldPosition, TokenKind.LITERAL, token);
-      isMath = true;
+  private void eatWhiteSpaces(final int oldPosition) {
+    while (curPosition < expressionLength && expression.charAt(curPosition) == ' ') {
+      curPosition = curPosition + 1;
     }
-    return isMath;
-  }
 
-  private boolean checkForBinary(final int oldPosition, final String rem_expr) {
-    boolean isBinary = false;
-    Matcher matcher1 = AND_SUB.matcher(rem_expr);
-    if (matcher1.find()) {
-      String token = matcher1.group(1);
-      curPosition = curPosition + token.length();
-      tokens.appendToken(oldPosition, TokenKind.LITERAL, token);
-      isBinary = true;
+    if (flagIncludeWhitespace == true) {
+      tokens.appendEdmTypedToken(oldPosition, TokenKind.WHITESPACE, expression.substring(oldPosition, curPosition), null);
     }
-    return isBinary;
   }
 
-  private boolean checkForPrefix(final String rem_expr) throws ExpressionParserException, TokenizerException {
-    boolean isPrefix = false;
-    Matcher matcher = prefix.matcher(rem_expr);
-    String token = "";
-    char curCharacter;
-
-    if (matcher.find()) {
-      token = matcher.group(1);
-      curPosition = curPosition + token.length();
-      curCharacter = expression.charAt(curPosition); //"should  be '
-      readLiteral(curCharacter, token);
-      isPrefix = true;
+  private boolean checkForPrefix() throws ExpressionParserException, TokenizerException {
+    int end = curPosition;
+    while (end < expressionLength && isAsciiLetter(expression.charAt(end))) {
+      end++;
     }
-    return isPrefix;
+    if (end > curPosition && end < expressionLength && expression.charAt(end) == '\''
+        && LITERAL_PREFIXES.contains(expression.substring(curPosition, end))) {
+      final int prefixLength = end - curPosition;
+      curPosition = end;
+      readLiteral(prefixLength);
+      return true;
+    }
+    return false;
   }
 
-  private void readLiteral(final char curCharacter) throws ExpressionParserException, TokenizerException {
-    readLiteral(curCharacter, "");
+  private static boolean isAsciiLetter(final char character) {
+    return character >= 'a' && character <= 'z' || character >= 'A' && character <= 'Z';
   }
 
   /**
    * Read up to single ' and move pointer to the following char and tries a type detection
-   * @param curCharacter
-   * @param token
+   * @param prefixLength length of the type prefix before the leading '
    * @throws ExpressionParserException
    * @throws TokenizerException
    */
-  private void readLiteral(char curCharacter, String token) throws ExpressionParserException, TokenizerException {
-    int offsetPos = -token.length();
-    int oldPosition = curPosition;
-    token = token + Character.toString(curCharacter);
+  private void readLiteral(final int prefixLength) throws ExpressionParserException, TokenizerException {
+    final int oldPosition = curPosition;
+    StringBuilder token = new StringBuilder();
+    token.append(expression, oldPosition - prefixLength, oldPosition + 1);
     curPosition = curPosition + 1;
 
     boolean wasApostroph = false; //leading ' does not count
     while (curPosition < expressionLength) {
-      curCharacter = expression.charAt(curPosition);
+      final char curCharacter = expression.charAt(curPosition);
 
       if (curCharacter != '\'') {
         if (wasApostroph == true) {
           break;
         }
 
-        token = token + curCharacter;
-        wasApostroph = false;
+        token.append(curCharacter);
       } else {
         if (wasApostroph) {
           wasApostroph = false; //a double ' is a normal character '
         } else {
           wasApostroph = true;
-          token = token + curCharacter;
+          token.append(curCharacter);
         }
       }
       curPosition = curPosition + 1;
@@ -310,11 +277,12 @@ public class Tokenizer {
       throw FilterParserExceptionImpl.createTOKEN_UNDETERMINATED_STRING(oldPosition, expression);
     }
 
+    final String literal = token.toString();
     try {
-      EdmLiteral edmLiteral = typeDectector.parseUriLiteral(token);
-      tokens.appendEdmTypedToken(oldPosition + offsetPos, TokenKind.SIMPLE_TYPE, token, edmLiteral);
+      EdmLiteral edmLiteral = typeDectector.parseUriLiteral(literal);
+      tokens.appendEdmTypedToken(oldPosition - prefixLength, TokenKind.SIMPLE_TYPE, literal, edmLiteral);
     } catch (EdmLiteralException ex) {
-      throw TokenizerException.createTYPEDECTECTION_FAILED_ON_STRING(ex, oldPosition, token);
+      throw TokenizerException.createTYPEDECTECTION_FAILED_ON_STRING(ex, oldPosition, literal);
     }
   }
 }
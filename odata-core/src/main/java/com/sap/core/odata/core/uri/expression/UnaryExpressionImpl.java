@@ -42,6 +42,10 @@ public class UnaryExpressionImpl implements UnaryExpression {
     return ExpressionKind.UNARY;
   }
 
+  InfoUnaryOperator getOperatorInfo() {
+    return operatorInfo;
+  }
+
   @Override
   public UnaryOperator getOperator() {
     return operatorInfo.operator;
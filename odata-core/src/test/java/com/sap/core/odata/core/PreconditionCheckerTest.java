@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.exception.ODataPreconditionFailedException;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.processor.ODataSingleProcessor;
+import com.sap.core.odata.api.uri.UriInfo;
+import com.sap.core.odata.core.uri.UriInfoImpl;
+import com.sap.core.odata.core.uri.UriType;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class PreconditionCheckerTest extends BaseTest {
+
+  @Test
+  public void strongMatch() {
+    assertTrue(PreconditionChecker.matches("W/\"1\"", "W/\"1\"", false));
+    assertTrue(PreconditionChecker.matches("\"1\"", "\"1\"", false));
+    assertTrue(PreconditionChecker.matches("*", "W/\"1\"", false));
+    assertTrue(PreconditionChecker.matches(" \"2\" ,W/\"1\"", "W/\"1\"", false));
+    assertFalse(PreconditionChecker.matches("\"1\"", "W/\"1\"", false));
+    assertFalse(PreconditionChecker.matches("W/\"1\"", "\"1\"", false));
+    assertFalse(PreconditionChecker.matches("W/\"12\"", "W/\"1\"", false));
+    assertFalse(PreconditionChecker.matches("", "W/\"1\"", false));
+  }
+
+  @Test
+  public void weakMatch() {
+    assertTrue(PreconditionChecker.matches("W/\"1\"", "\"1\"", true));
+    assertTrue(PreconditionChecker.matches("\"1\"", "W/\"1\"", true));
+    assertTrue(PreconditionChecker.matches("\"a\", *", "W/\"1\"", true));
+    assertFalse(PreconditionChecker.matches("\"a\", \"b\"", "W/\"1\"", true));
+  }
+
+  @Test
+  public void anyWithoutETag() {
+    assertTrue(PreconditionChecker.matches("\"a\", *", null, true));
+    assertFalse(PreconditionChecker.matches("\"a\", W/\"1\"", null, true));
+    assertFalse(PreconditionChecker.matches("\"*\"", null, false));
+  }
+
+  @Test
+  public void quotedComma() {
+    assertTrue(PreconditionChecker.matches("\"a,b\", \"1\"", "\"a,b\"", false));
+    assertTrue(PreconditionChecker.matches("\"a,b\", \"1\"", "\"1\"", false));
+    assertFalse(PreconditionChecker.matches("\"a,b\"", "\"b\"", false));
+  }
+
+  @Test
+  public void contentCoding() {
+    assertTrue(PreconditionChecker.matches("\"1-gzip\"", "\"1\"", false));
+    assertTrue(PreconditionChecker.matches("\"1\"", "\"1-gzip\"", false));
+    assertTrue(PreconditionChecker.matches("W/\"1-gzip\"", "\"1\"", true));
+    assertFalse(PreconditionChecker.matches("\"1-gzip\"", "\"2\"", false));
+    assertTrue(PreconditionChecker.matches("W/\"1-deflate\"", "W/\"1\"", false));
+    assertFalse(PreconditionChecker.matches("\"1-zip\"", "\"1\"", false));
+    assertEquals("W/\"1-deflate\"", PreconditionChecker.getContentCodedETag("W/\"1\"", "deflate"));
+    assertEquals("\"1-gzip\"", PreconditionChecker.findMatch("\"a\", \"1-gzip\"", "\"1\"", true));
+    assertEquals("\"1\"", PreconditionChecker.findMatch("*", "\"1\"", true));
+    assertNull(PreconditionChecker.findMatch("\"a\"", "\"1\"", true));
+  }
+
+  @Test
+  public void anyOnChangeWithoutETag() throws Exception {
+    assertNull(check(ODataHttpMethod.PUT, "*", null));
+    assertNull(check(ODataHttpMethod.DELETE, "*", null));
+  }
+
+  @Test(expected = ODataPreconditionFailedException.class)
+  public void anyOnChangeWithETag() throws Exception {
+    check(ODataHttpMethod.PUT, "*", "W/\"1\"");
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ODataResponse check(final ODataHttpMethod method, final String ifNoneMatch, final String eTag) throws ODataException {
+    ODataSingleProcessor processor = mock(ODataSingleProcessor.class);
+    when(processor.getETag(any(Class.class), any(UriInfo.class), anyString())).thenReturn(eTag);
+    ODataRequest request = mock(ODataRequest.class);
+    when(request.getRequestHeaderValue(HttpHeaders.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+    UriInfoImpl uriInfo = new UriInfoImpl();
+    uriInfo.setUriType(UriType.URI2);
+    return new PreconditionChecker(processor, request).check(method, uriInfo, HttpContentType.APPLICATION_ATOM_XML_ENTRY);
+  }
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sap.core.odata.api.ODataCallback;
+import com.sap.core.odata.api.ODataService;
+import com.sap.core.odata.api.ODataServiceFactory;
+import com.sap.core.odata.api.batch.BatchException;
+import com.sap.core.odata.api.batch.BatchExecutionCallback;
+import com.sap.core.odata.api.batch.BatchPart;
+import com.sap.core.odata.api.batch.BatchResponsePart;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataRequest;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.processor.ODataSingleProcessor;
+import com.sap.core.odata.api.uri.PathInfo;
+
+/**
+ * @author SAP AG
+ */
+public class BatchHandlerImplTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger maxRunning = new AtomicInteger();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void sequentialWithoutCallback() throws Exception {
+    List<BatchPart> parts = createParts("Q1", "C2", "Q3");
+    List<BatchResponsePart> responseParts = createHandler(null).handleBatchParts(createReader(parts));
+
+    assertResponsesInOrder(parts, responseParts);
+    assertEquals("[start Q1, end Q1, start C2, end C2, start Q3, end Q3]", events.toString());
+  }
+
+  @Test
+  public void queryOperationsConcurrently() throws Exception {
+    List<BatchPart> parts = createParts("Q1", "Q2", "Q3", "Q4", "Q5", "Q6");
+    List<BatchResponsePart> responseParts = createHandler(createCallback(3)).handleBatchParts(createReader(parts));
+
+    assertResponsesInOrder(parts, responseParts);
+    assertTrue(maxRunning.get() > 1);
+    assertTrue(maxRunning.get() <= 3);
+  }
+
+  @Test
+  public void changeSetAfterPrecedingParts() throws Exception {
+    List<BatchPart> parts = createParts("Q1", "Q2", "C3", "Q4");
+    List<BatchResponsePart> responseParts = createHandler(createCallback(2)).handleBatchParts(createReader(parts));
+
+    assertResponsesInOrder(parts, responseParts);
+    final int changeSetStart = events.indexOf("start C3");
+    assertTrue(events.indexOf("end Q1") < changeSetStart);
+    assertTrue(events.indexOf("end Q2") < changeSetStart);
+    assertTrue(events.indexOf("end C3") < events.indexOf("start Q4"));
+  }
+
+  @Test(expected = ODataException.class)
+  public void failingQueryOperation() throws Exception {
+    createHandler(createCallback(2)).handleBatchParts(createReader(createParts("Q1", "Q2", "F3", "Q4")));
+  }
+
+  @Test
+  public void malformedPartAfterChangeSet() throws Exception {
+    List<BatchPart> parts = createParts("C1", "M2", "Q3");
+    List<BatchResponsePart> responseParts = createHandler(null).handleBatchParts(createReader(parts));
+
+    assertMalformedPartAnswered(parts, responseParts);
+    assertEquals("[start C1, end C1]", events.toString());
+  }
+
+  @Test
+  public void malformedPartAfterConcurrentParts() throws Exception {
+    List<BatchPart> parts = createParts("Q1", "C2", "Q3", "M4");
+    List<BatchResponsePart> responseParts = createHandler(createCallback(2)).handleBatchParts(createReader(parts));
+
+    assertMalformedPartAnswered(parts, responseParts);
+    assertTrue(events.contains("end Q3"));
+  }
+
+  @Test(expected = BatchException.class)
+  public void malformedFirstPart() throws Exception {
+    createHandler(createCallback(2)).handleBatchParts(createReader(createParts("M1", "Q2")));
+  }
+
+  private void assertMalformedPartAnswered(final List<BatchPart> parts, final List<BatchResponsePart> responseParts) {
+    int malformed = 0;
+    while (!((TestPart) parts.get(malformed)).name.startsWith("M")) {
+      malformed++;
+    }
+    assertEquals(malformed + 1, responseParts.size());
+    assertResponsesInOrder(parts.subList(0, malformed), responseParts.subList(0, malformed));
+    final BatchResponsePart errorPart = responseParts.get(malformed);
+    assertFalse(errorPart.isChangeSet());
+    assertEquals(1, errorPart.getResponses().size());
+    assertEquals(HttpStatusCodes.INTERNAL_SERVER_ERROR, errorPart.getResponses().get(0).getStatus());
+  }
+
+  private BatchHandlerImpl createHandler(final BatchExecutionCallback callback) {
+    ODataServiceFactory factory = new ODataServiceFactory() {
+      @Override
+      public ODataService createService(final ODataContext ctx) throws ODataException {
+        throw new ODataException("not expected");
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T extends ODataCallback> T getCallback(final Class<? extends ODataCallback> callbackInterface) {
+        return (T) (callbackInterface.isAssignableFrom(BatchExecutionCallback.class) ? callback : null);
+      }
+    };
+    ODataService service = mock(ODataService.class);
+    ODataSingleProcessor processor = mock(ODataSingleProcessor.class);
+    ODataContext context = mock(ODataContext.class);
+    when(context.getServiceFactory()).thenReturn(factory);
+    when(processor.getContext()).thenReturn(context);
+    try {
+      when(context.getPathInfo()).thenReturn(mock(PathInfo.class));
+      when(service.getProcessor()).thenReturn(processor);
+    } catch (ODataException e) {
+      throw new RuntimeException(e);
+    }
+
+    return new BatchHandlerImpl(factory, service) {
+      @Override
+      public BatchResponsePart handleBatchPart(final BatchPart batchPart) throws ODataException {
+        return execute(batchPart);
+      }
+
+      @Override
+      BatchResponsePart handleConcurrentQueryOperation(final BatchPart batchPart) throws ODataException {
+        return execute(batchPart);
+      }
+    };
+  }
+
+  private BatchResponsePart execute(final BatchPart batchPart) throws ODataException {
+    final String name = ((TestPart) batchPart).name;
+    events.add("start " + name);
+    final int current = running.incrementAndGet();
+    synchronized (maxRunning) {
+      maxRunning.set(Math.max(current, maxRunning.get()));
+    }
+    try {
+      Thread.sleep(name.endsWith("1") ? 100 : 20);
+    } catch (InterruptedException e) {
+      throw new ODataException(e);
+    }
+    running.decrementAndGet();
+    events.add("end " + name);
+    if (name.startsWith("F")) {
+      throw new ODataException("failed");
+    }
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(((TestPart) batchPart).response);
+    return BatchResponsePart.responses(responses).changeSet(batchPart.isChangeSet()).build();
+  }
+
+  private BatchExecutionCallback createCallback(final int parallelism) {
+    return new BatchExecutionCallback() {
+      @Override
+      public ExecutorService getExecutor() {
+        return executor;
+      }
+
+      @Override
+      public int getParallelism() {
+        return parallelism;
+      }
+    };
+  }
+
+  private void assertResponsesInOrder(final List<BatchPart> parts, final List<BatchResponsePart> responseParts) {
+    assertEquals(parts.size(), responseParts.size());
+    for (int i = 0; i < parts.size(); i++) {
+      assertSame(((TestPart) parts.get(i)).response, responseParts.get(i).getResponses().get(0));
+    }
+  }
+
+  private List<BatchPart> createParts(final String... names) {
+    List<BatchPart> parts = new ArrayList<BatchPart>();
+    for (String name : names) {
+      parts.add(new TestPart(name));
+    }
+    return parts;
+  }
+
+  private BatchPartReader createReader(final List<BatchPart> parts) {
+    final Iterator<BatchPart> iterator = parts.iterator();
+    return new BatchPartReader() {
+      @Override
+      public boolean hasNext() throws BatchException {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public BatchPart next() throws BatchException {
+        final BatchPart batchPart = iterator.next();
+        if (((TestPart) batchPart).name.startsWith("M")) {
+          throw new BatchException(BatchException.INVALID_BOUNDARY_DELIMITER);
+        }
+        return batchPart;
+      }
+
+      @Override
+      public void close() throws BatchException {}
+    };
+  }
+
+  private static class TestPart implements BatchPart {
+    private final String name;
+    private final ODataResponse response = mock(ODataResponse.class);
+
+    public TestPart(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean isChangeSet() {
+      return name.startsWith("C");
+    }
+
+    @Override
+    public List<ODataRequest> getRequests() {
+      List<ODataRequest> requests = new ArrayList<ODataRequest>(1);
+      requests.add(mock(ODataRequest.class));
+      return requests;
+    }
+  }
+}
@@ -16,8 +16,10 @@
 package com.sap.core.odata.core.batch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -630,4 +632,84 @@ public class BatchRequestParserTest {
 
     }
   }
+
+  @Test
+  public void testReadPartsIncrementally() throws BatchException {
+    String batch = "--batch_8194-cf13-1f56" + "\r\n"
+        + "Content-Type: application/http" + "\r\n"
+        + "Content-Transfer-Encoding: binary" + "\r\n"
+        + "\r\n"
+        + "GET Employees('1')/EmployeeName HTTP/1.1" + "\r\n"
+        + "\r\n"
+        + "\r\n"
+        + "--batch_8194-cf13-1f56" + "\r\n"
+        + "Content-Type: application/http" + "\r\n"
+        + "Content-Transfer-Encoding: 8bit" + "\r\n";
+    InputStream in = new ByteArrayInputStream(batch.getBytes());
+    BatchPartReader reader = new BatchRequestParser(contentType, batchProperties).read(in);
+    try {
+      assertTrue(reader.hasNext());
+      BatchPart first = reader.next();
+      assertFalse(first.isChangeSet());
+      assertEquals("Employees('1')", first.getRequests().get(0).getPathInfo().getODataSegments().get(0).getPath());
+      assertTrue(reader.hasNext());
+      reader.next();
+      fail("Expected BatchException for the invalid second part.");
+    } catch (BatchException e) {
+      assertEquals(BatchException.INVALID_CONTENT_TRANSFER_ENCODING.getKey(), e.getMessageReference().getKey());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testBodyIsPassedUnchanged() throws IOException, BatchException {
+    String content = "line 1\r\n\r\n--line 3\nline 4";
+    String batch = "--batch_8194-cf13-1f56" + "\r\n"
+        + "Content-Type: multipart/mixed; boundary=changeset_f980-1cb6-94dd" + "\r\n"
+        + "\r\n"
+        + "--changeset_f980-1cb6-94dd" + "\r\n"
+        + "Content-Type: application/http" + "\r\n"
+        + "Content-Transfer-Encoding: binary" + "\r\n"
+        + "\r\n"
+        + "POST Employees HTTP/1.1" + "\r\n"
+        + "Content-Type: text/plain" + "\r\n"
+        + "\r\n"
+        + content + "\r\n"
+        + "--changeset_f980-1cb6-94dd--" + "\r\n"
+        + "\r\n"
+        + "--batch_8194-cf13-1f56--";
+    InputStream in = new ByteArrayInputStream(batch.getBytes("UTF-8"));
+    List<BatchPart> batchParts = new BatchRequestParser(contentType, batchProperties).parse(in);
+    assertEquals(1, batchParts.size());
+    assertTrue(batchParts.get(0).isChangeSet());
+    InputStream body = batchParts.get(0).getRequests().get(0).getBody();
+    byte[] bytes = new byte[body.available()];
+    assertEquals(bytes.length, body.read(bytes));
+    assertEquals(content, new String(bytes, "UTF-8"));
+  }
+
+  @Test
+  public void testLineTooLong() throws BatchException {
+    final byte[] start = ("--batch_8194-cf13-1f56" + "\r\n").getBytes();
+    // a body without line feed which does not end
+    InputStream in = new InputStream() {
+      private int position = 0;
+
+      @Override
+      public int read() {
+        return position < start.length ? start[position++] : 'a';
+      }
+    };
+    BatchPartReader reader = new BatchRequestParser(contentType, batchProperties).read(in);
+    try {
+      reader.hasNext();
+      reader.next();
+      fail("Expected BatchException for the line without end.");
+    } catch (BatchException e) {
+      assertEquals(BatchException.LINE_TOO_LONG.getKey(), e.getMessageReference().getKey());
+    } finally {
+      reader.close();
+    }
+  }
 }
@@ -18,9 +18,13 @@ package com.sap.core.odata.core.batch;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,7 +55,7 @@ public class BatchResponseWriterTest {
 
     assertEquals(202, batchResponse.getStatus().getStatusCode());
     assertNotNull(batchResponse.getEntity());
-    String body = (String) batchResponse.getEntity();
+    String body = readBody(batchResponse);
 
     assertTrue(body.contains("--batch"));
     assertTrue(body.contains("--changeset"));
@@ -76,7 +80,7 @@ public class BatchResponseWriterTest {
 
     assertEquals(202, batchResponse.getStatus().getStatusCode());
     assertNotNull(batchResponse.getEntity());
-    String body = (String) batchResponse.getEntity();
+    String body = readBody(batchResponse);
 
     assertTrue(body.contains("--batch"));
     assertFalse(body.contains("--changeset"));
@@ -101,7 +105,7 @@ public class BatchResponseWriterTest {
 
     assertEquals(202, batchResponse.getStatus().getStatusCode());
     assertNotNull(batchResponse.getEntity());
-    String body = (String) batchResponse.getEntity();
+    String body = readBody(batchResponse);
     assertTrue(body.contains("--batch"));
     assertTrue(body.contains("--changeset"));
     assertTrue(body.indexOf("--changeset") != body.lastIndexOf("--changeset"));
@@ -113,4 +117,57 @@ public class BatchResponseWriterTest {
 
   }
 
+  @Test
+  public void testContentLengthInBytes() throws BatchException, IOException {
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    ODataResponse response = ODataResponse.entity("W\u00e4lter Winter").status(HttpStatusCodes.OK)
+        .contentHeader("text/plain; charset=utf-8").header("Content-Length", "13").build();
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    parts.add(BatchResponsePart.responses(responses).changeSet(false).build());
+
+    ODataResponse batchResponse = new BatchResponseWriter().writeResponse(parts);
+
+    assertNull(batchResponse.getHeader("Content-Length"));
+    String body = readBody(batchResponse);
+    assertTrue(body.contains("Content-Length: 14" + "\r\n\r\n" + "W\u00e4lter Winter"));
+    assertEquals(body.indexOf("Content-Length"), body.lastIndexOf("Content-Length"));
+  }
+
+  @Test
+  public void testBinaryContent() throws BatchException, IOException {
+    byte[] content = new byte[256];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    List<BatchResponsePart> parts = new ArrayList<BatchResponsePart>();
+    ODataResponse response = ODataResponse.entity(new ByteArrayInputStream(content)).status(HttpStatusCodes.OK)
+        .contentHeader("application/octet-stream").build();
+    List<ODataResponse> responses = new ArrayList<ODataResponse>(1);
+    responses.add(response);
+    parts.add(BatchResponsePart.responses(responses).changeSet(false).build());
+
+    ODataResponse batchResponse = new BatchResponseWriter().writeResponse(parts);
+
+    String body = new String(readBytes(batchResponse), "ISO-8859-1");
+    String expected = "Content-Length: 256" + "\r\n\r\n" + new String(content, "ISO-8859-1") + "\r\n\r\n--batch";
+    assertTrue(body.contains(expected));
+  }
+
+  private static String readBody(final ODataResponse response) throws IOException {
+    return new String(readBytes(response), "UTF-8");
+  }
+
+  private static byte[] readBytes(final ODataResponse response) throws IOException {
+    InputStream in = (InputStream) response.getEntity();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int count = in.read(buffer);
+    while (count >= 0) {
+      out.write(buffer, 0, count);
+      count = in.read(buffer);
+    }
+    in.close();
+    return out.toByteArray();
+  }
 }
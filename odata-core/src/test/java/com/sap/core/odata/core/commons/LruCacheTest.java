@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.commons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class LruCacheTest extends BaseTest {
+
+  @Test
+  public void putIfAbsent() {
+    LruCache<String, String> cache = new LruCache<String, String>(4);
+    assertNull(cache.get("a"));
+    assertEquals("1", cache.putIfAbsent("a", "1"));
+    assertEquals("1", cache.putIfAbsent("a", "2"));
+    assertEquals("1", cache.get("a"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    LruCache<String, String> cache = new LruCache<String, String>(2);
+    cache.putIfAbsent("a", "1");
+    cache.putIfAbsent("b", "2");
+    cache.get("a");
+    cache.putIfAbsent("c", "3");
+    assertEquals("1", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals("3", cache.get("c"));
+  }
+
+  @Test
+  public void bounded() {
+    LruCache<Integer, Integer> cache = new LruCache<Integer, Integer>(100);
+    for (int i = 0; i < 1000; i++) {
+      cache.putIfAbsent(i, i);
+    }
+    assertTrue(cache.size() <= 100);
+    assertEquals(Integer.valueOf(999), cache.get(999));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+}
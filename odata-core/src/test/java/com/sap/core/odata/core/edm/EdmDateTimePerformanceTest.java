@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.EdmLiteralKind;
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * Formats and parses DateTime values repeatedly, once with {@link Calendar}
+ * as the simple type did before and once with the simple type itself.
+ * @author SAP AG
+ */
+public class EdmDateTimePerformanceTest extends BaseTest {
+
+  private static final long TIMES = 10000L; // increase for manual performance testing
+
+  private static final Pattern PATTERN = Pattern.compile(
+      "(\\p{Digit}{1,4})-(\\p{Digit}{1,2})-(\\p{Digit}{1,2})T(\\p{Digit}{1,2}):(\\p{Digit}{1,2}):(\\p{Digit}{1,2})");
+
+  private final EdmSimpleType instance = EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance();
+
+  @Test
+  public void formatWithCalendar() throws Exception {
+    final long[] values = createValues();
+    String last = null;
+    long t = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      last = formatWithCalendar(values[i]);
+    }
+    stopTimer(t, "formatWithCalendar");
+    assertEquals(instance.valueToString(values[(int) TIMES - 1], EdmLiteralKind.DEFAULT, null), last);
+  }
+
+  @Test
+  public void formatWithSimpleType() throws Exception {
+    final long[] values = createValues();
+    String last = null;
+    long t = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      last = instance.valueToString(values[i], EdmLiteralKind.DEFAULT, null);
+    }
+    stopTimer(t, "formatWithSimpleType");
+    assertEquals(formatWithCalendar(values[(int) TIMES - 1]), last);
+  }
+
+  @Test
+  public void parseWithCalendar() throws Exception {
+    final String[] literals = createLiterals();
+    long last = 0;
+    long t = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      last = parseWithCalendar(literals[i]);
+    }
+    stopTimer(t, "parseWithCalendar");
+    assertEquals(instance.valueOfString(literals[(int) TIMES - 1], EdmLiteralKind.DEFAULT, null, Long.class), Long.valueOf(last));
+  }
+
+  @Test
+  public void parseWithSimpleType() throws Exception {
+    final String[] literals = createLiterals();
+    Long last = null;
+    long t = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      last = instance.valueOfString(literals[i], EdmLiteralKind.DEFAULT, null, Long.class);
+    }
+    stopTimer(t, "parseWithSimpleType");
+    assertEquals(Long.valueOf(parseWithCalendar(literals[(int) TIMES - 1])), last);
+  }
+
+  private long[] createValues() {
+    Random random = new Random(4711);
+    long[] values = new long[(int) TIMES];
+    for (int i = 0; i < TIMES; i++) {
+      // from 1970 to 2099
+      values[i] = (random.nextLong() & Long.MAX_VALUE) % 4102444800000L / 1000 * 1000;
+    }
+    return values;
+  }
+
+  private String[] createLiterals() {
+    final long[] values = createValues();
+    String[] literals = new String[(int) TIMES];
+    for (int i = 0; i < TIMES; i++) {
+      literals[i] = formatWithCalendar(values[i]);
+    }
+    return literals;
+  }
+
+  private static String formatWithCalendar(final long millis) {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    calendar.setTimeInMillis(millis);
+    StringBuilder result = new StringBuilder(19);
+    final int year = calendar.get(Calendar.YEAR);
+    appendTwoDigits(result, year / 100);
+    appendTwoDigits(result, year % 100);
+    result.append('-');
+    appendTwoDigits(result, calendar.get(Calendar.MONTH) + 1);
+    result.append('-');
+    appendTwoDigits(result, calendar.get(Calendar.DAY_OF_MONTH));
+    result.append('T');
+    appendTwoDigits(result, calendar.get(Calendar.HOUR_OF_DAY));
+    result.append(':');
+    appendTwoDigits(result, calendar.get(Calendar.MINUTE));
+    result.append(':');
+    appendTwoDigits(result, calendar.get(Calendar.SECOND));
+    return result.toString();
+  }
+
+  private static void appendTwoDigits(final StringBuilder result, final int number) {
+    result.append((char) ('0' + number / 10));
+    result.append((char) ('0' + number % 10));
+  }
+
+  private static long parseWithCalendar(final String literal) {
+    final Matcher matcher = PATTERN.matcher(literal);
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException(literal);
+    }
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    calendar.clear();
+    calendar.setLenient(false);
+    calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1, Integer.parseInt(matcher.group(3)),
+        Integer.parseInt(matcher.group(4)), Integer.parseInt(matcher.group(5)), Integer.parseInt(matcher.group(6)));
+    return calendar.getTimeInMillis();
+  }
+
+  private void stopTimer(final long t, final String msg) {
+    final long nanos = (System.nanoTime() - t) / TIMES;
+    log.debug(msg + ": " + nanos + "[ns] (" + TIMES + " in " + nanos * TIMES / (1000L * 1000L) + "[ms])");
+  }
+}
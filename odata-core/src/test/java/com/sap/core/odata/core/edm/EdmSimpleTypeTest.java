@@ -29,6 +29,8 @@ import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Random;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -988,6 +990,40 @@ public class EdmSimpleTypeTest extends BaseTest {
     expectTypeErrorInValueOfString(instance, "/Date(1)/", EdmLiteralKind.JSON);
   }
 
+  @Test
+  public void dateTimeMatchesCalendar() throws Exception {
+    final EdmSimpleType instance = EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance();
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    Random random = new Random(4711);
+    for (int i = 0; i < 10000; i++) {
+      // from about 6000 B.C. to 9999 A.D., including the switch from the Julian to the Gregorian calendar
+      final long millis = random.nextLong() % 253402300800000L / 1000 * 1000;
+      calendar.setTimeInMillis(millis);
+      final String expected = String.format("%04d-%02d-%02dT%02d:%02d:%02d",
+          calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH),
+          calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE), calendar.get(Calendar.SECOND));
+      assertEquals(expected, instance.valueToString(millis, EdmLiteralKind.DEFAULT, null));
+      if (calendar.get(Calendar.ERA) == GregorianCalendar.AD) {
+        assertEquals(Long.valueOf(millis), instance.valueOfString(expected, EdmLiteralKind.DEFAULT, null, Long.class));
+      }
+    }
+  }
+
+  @Test
+  public void dateTimeOffsetMatchesCalendar() throws Exception {
+    final EdmSimpleType instance = EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance();
+    Random random = new Random(4712);
+    for (int i = 0; i < 1000; i++) {
+      // offsets of at least one hour in both directions
+      final int offset = (random.nextInt(23 * 60) + 60) * (random.nextBoolean() ? 1 : -1);
+      Calendar dateTime = Calendar.getInstance(TimeZone.getTimeZone(
+          String.format("GMT%+03d:%02d", offset / 60, Math.abs(offset % 60))));
+      dateTime.setTimeInMillis(Math.abs(random.nextLong() % 253402300800000L));
+      assertEquals(dateTime, instance.valueOfString(instance.valueToString(dateTime, EdmLiteralKind.DEFAULT, null), EdmLiteralKind.DEFAULT, null, Calendar.class));
+      assertEquals(dateTime, instance.valueOfString(instance.valueToString(dateTime, EdmLiteralKind.JSON, null), EdmLiteralKind.JSON, null, Calendar.class));
+    }
+  }
+
   @Test
   public void valueOfStringDateTimeOffset() throws Exception {
     final EdmSimpleType instance = EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance();
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.edm.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmEntityContainer;
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.edm.EdmEntitySetInfo;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmNavigationProperty;
+import com.sap.core.odata.api.edm.FullQualifiedName;
+import com.sap.core.odata.api.edm.provider.Association;
+import com.sap.core.odata.api.edm.provider.AssociationSet;
+import com.sap.core.odata.api.edm.provider.ComplexType;
+import com.sap.core.odata.api.edm.provider.EntitySet;
+import com.sap.core.odata.api.edm.provider.EntityType;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.mock.EdmTestProvider;
+
+/**
+ * @author SAP AG
+ */
+public class EdmSnapshotTest extends BaseTest {
+
+  @Test
+  public void completelyResolved() throws Exception {
+    CountingProvider provider = new CountingProvider();
+    final Edm edm = EdmSnapshot.create(provider);
+    final int calls = provider.calls;
+
+    for (final EdmEntitySetInfo info : edm.getServiceMetadata().getEntitySetInfos()) {
+      final EdmEntityContainer container = info.isDefaultEntityContainer() ?
+          edm.getDefaultEntityContainer() : edm.getEntityContainer(info.getEntityContainerName());
+      final EdmEntitySet entitySet = container.getEntitySet(info.getEntitySetName());
+      final EdmEntityType entityType = entitySet.getEntityType();
+      assertNotNull(entityType.getKeyProperties());
+      for (final String name : entityType.getPropertyNames()) {
+        assertNotNull(entityType.getProperty(name).getType());
+      }
+      for (final String name : entityType.getNavigationPropertyNames()) {
+        assertNotNull(entitySet.getRelatedEntitySet((EdmNavigationProperty) entityType.getProperty(name)));
+      }
+    }
+
+    assertEquals(calls, provider.calls);
+  }
+
+  @Test
+  public void sharedPerKey() throws Exception {
+    final Edm edm = EdmSnapshot.get("sharedPerKey", new EdmTestProvider());
+    assertSame(edm, EdmSnapshot.get("sharedPerKey", new EdmTestProvider()));
+    assertNotSame(edm, EdmSnapshot.get("otherKey", new EdmTestProvider()));
+
+    EdmSnapshot.invalidate("sharedPerKey");
+    assertNotSame(edm, EdmSnapshot.get("sharedPerKey", new EdmTestProvider()));
+
+    EdmSnapshot.invalidateAll();
+  }
+
+  private class CountingProvider extends EdmTestProvider {
+    private int calls = 0;
+
+    @Override
+    public EntityType getEntityType(final FullQualifiedName edmFQName) throws ODataException {
+      calls++;
+      return super.getEntityType(edmFQName);
+    }
+
+    @Override
+    public ComplexType getComplexType(final FullQualifiedName edmFQName) throws ODataException {
+      calls++;
+      return super.getComplexType(edmFQName);
+    }
+
+    @Override
+    public Association getAssociation(final FullQualifiedName edmFQName) throws ODataException {
+      calls++;
+      return super.getAssociation(edmFQName);
+    }
+
+    @Override
+    public EntitySet getEntitySet(final String entityContainer, final String name) throws ODataException {
+      calls++;
+      return super.getEntitySet(entityContainer, name);
+    }
+
+    @Override
+    public AssociationSet getAssociationSet(final String entityContainer, final FullQualifiedName association, final String sourceEntitySetName, final String sourceEntitySetRole) throws ODataException {
+      calls++;
+      return super.getAssociationSet(entityContainer, association, sourceEntitySetName, sourceEntitySetRole);
+    }
+  }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import com.sap.core.odata.core.ep.util.StaxFactories;
 import com.sap.core.odata.testutil.fit.BaseTest;
 
 @RunWith(Parameterized.class)
@@ -43,6 +44,7 @@ public abstract class AbstractXmlProducerTestHelper extends BaseTest {
       System.setProperty("javax.xml.stream.XMLOutputFactory", "com.sun.xml.internal.stream.XMLOutputFactoryImpl"); //NOSONAR
       break;
     }
+    StaxFactories.reload();
   }
 
   // CHECKSTYLE:On
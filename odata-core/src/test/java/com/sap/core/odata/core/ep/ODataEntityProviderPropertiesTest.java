@@ -42,7 +42,7 @@ public class ODataEntityProviderPropertiesTest extends BaseTest {
 
     assertEquals("Wrong base uri.", "http://localhost:80/", properties.getServiceRoot().toASCIIString());
     assertEquals("Wrong inline count type.", InlineCount.ALLPAGES, properties.getInlineCountType());
-    assertEquals("Wrong inline count.", Integer.valueOf(1), properties.getInlineCount());
+    assertEquals("Wrong inline count.", Long.valueOf(1), properties.getInlineCount());
     assertEquals("Wrong nextLink", "http://localhost", properties.getNextLink());
   }
 
@@ -17,11 +17,14 @@ package com.sap.core.odata.core.ep;
 
 import static org.junit.Assert.assertNotNull;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 import javax.xml.stream.FactoryConfigurationError;
 import javax.xml.stream.XMLOutputFactory;
@@ -39,10 +42,15 @@ import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
 import com.sap.core.odata.core.ep.aggregator.EntityInfoAggregator;
 import com.sap.core.odata.core.ep.producer.AtomEntryEntityProducer;
+import com.sap.core.odata.core.ep.producer.JsonFeedEntityProducer;
 import com.sap.core.odata.core.ep.util.CircleStreamBuffer;
+import com.sap.core.odata.core.ep.util.StaxFactories;
+import com.sap.core.odata.core.ep.util.Utf8Writer;
 import com.sap.core.odata.testutil.helper.StringHelper;
+import com.sap.core.odata.testutil.mock.EdmTestProvider;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 /**
@@ -164,6 +172,71 @@ public class PerformanceTest extends AbstractProviderTest {
     stopTimer(t, "readAtomEntryOptimizedCsb");
   }
 
+  @Test
+  public void writeAtomEntryNewFactory() throws Exception {
+    ExpandSelectTreeNode epProperties = null;
+    EntityInfoAggregator eia = EntityInfoAggregator.create(getRooms(), epProperties);
+
+    long t = startTimer();
+    for (int i = 0; i < TIMES; i++) {
+      XMLStreamWriter entryWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(new ByteArrayOutputStream(), "utf-8");
+      provider.append(entryWriter, eia, roomData, true, false);
+      entryWriter.flush();
+    }
+    stopTimer(t, "writeAtomEntryNewFactory");
+  }
+
+  @Test
+  public void writeAtomEntrySharedFactory() throws Exception {
+    ExpandSelectTreeNode epProperties = null;
+    EntityInfoAggregator eia = EntityInfoAggregator.create(getRooms(), epProperties);
+
+    long t = startTimer();
+    for (int i = 0; i < TIMES; i++) {
+      XMLStreamWriter entryWriter = StaxFactories.getOutputFactory().createXMLStreamWriter(new ByteArrayOutputStream(), "utf-8");
+      provider.append(entryWriter, eia, roomData, true, false);
+      entryWriter.flush();
+    }
+    stopTimer(t, "writeAtomEntrySharedFactory");
+  }
+
+  @Test
+  public void writeJsonFeedOutputStreamWriter() throws Exception {
+    initializeRoomData(100);
+    ExpandSelectTreeNode epProperties = null;
+    EntityInfoAggregator eia = EntityInfoAggregator.create(getRooms(), epProperties);
+    JsonFeedEntityProducer feedProducer = new JsonFeedEntityProducer(DEFAULT_PROPERTIES);
+
+    long t = startTimer();
+    for (int i = 0; i < TIMES; i++) {
+      Writer jsonWriter = new BufferedWriter(new OutputStreamWriter(new ByteArrayOutputStream(), "UTF-8"));
+      feedProducer.append(jsonWriter, eia, roomsData, true);
+      jsonWriter.flush();
+    }
+    stopTimer(t, "writeJsonFeedOutputStreamWriter");
+  }
+
+  @Test
+  public void writeJsonFeedUtf8Writer() throws Exception {
+    initializeRoomData(100);
+    ExpandSelectTreeNode epProperties = null;
+    EntityInfoAggregator eia = EntityInfoAggregator.create(getRooms(), epProperties);
+    JsonFeedEntityProducer feedProducer = new JsonFeedEntityProducer(DEFAULT_PROPERTIES);
+
+    long t = startTimer();
+    for (int i = 0; i < TIMES; i++) {
+      Writer jsonWriter = new Utf8Writer(new ByteArrayOutputStream());
+      feedProducer.append(jsonWriter, eia, roomsData, true);
+      jsonWriter.flush();
+    }
+    stopTimer(t, "writeJsonFeedUtf8Writer");
+  }
+
+  /* Rooms of the reference scenario; the mocked entity data model would dominate the measurement */
+  private static EdmEntitySet getRooms() throws Exception {
+    return EdmSnapshot.create(new EdmTestProvider()).getDefaultEntityContainer().getEntitySet("Rooms");
+  }
+
   private void stopTimer(long t, final String msg) {
     t = (System.nanoTime() - t) / TIMES;
 
@@ -18,15 +18,26 @@ package com.sap.core.odata.core.ep.aggregator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.junit.Test;
 
+import com.sap.core.odata.api.edm.Edm;
 import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.edm.EdmProperty;
 import com.sap.core.odata.api.edm.EdmTypeKind;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
 import com.sap.core.odata.core.ep.AbstractProviderTest;
+import com.sap.core.odata.testutil.mock.EdmTestProvider;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 /**
@@ -73,4 +84,32 @@ public class EntityInfoAggregatorTest extends AbstractProviderTest {
     assertFalse(cityInfo.getPropertyInfo("PostalCode").isComplex());
     assertEquals("String", cityInfo.getPropertyInfo("PostalCode").getType().getName());
   }
+
+  @Test
+  public void cachedPerEntitySetAndShape() throws Exception {
+    final Edm edm = EdmSnapshot.create(new EdmTestProvider());
+    EdmEntitySet entitySet = edm.getDefaultEntityContainer().getEntitySet("Employees");
+    EntityInfoAggregator eia = EntityInfoAggregator.create(entitySet);
+    assertSame(eia, EntityInfoAggregator.create(entitySet, null));
+
+    final EdmProperty ageProperty = (EdmProperty) entitySet.getEntityType().getProperty("Age");
+    ExpandSelectTreeNode expandSelectTree = mock(ExpandSelectTreeNode.class);
+    when(expandSelectTree.isAll()).thenReturn(false);
+    when(expandSelectTree.getProperties()).thenReturn(Arrays.asList(ageProperty));
+    when(expandSelectTree.getLinks()).thenReturn(Collections.<String, ExpandSelectTreeNode> emptyMap());
+    EntityInfoAggregator selectEia = EntityInfoAggregator.create(entitySet, expandSelectTree);
+    assertNotSame(eia, selectEia);
+    assertEquals(Arrays.asList("Age"), selectEia.getSelectedPropertyNames());
+    assertSame(selectEia, EntityInfoAggregator.create(entitySet, expandSelectTree));
+
+    EdmEntitySet otherEntitySet = EdmSnapshot.create(new EdmTestProvider()).getDefaultEntityContainer().getEntitySet("Employees");
+    assertNotSame(eia, EntityInfoAggregator.create(otherEntitySet));
+    assertSame(eia, EntityInfoAggregator.create(entitySet));
+  }
+
+  @Test
+  public void notCachedWithoutSharedModel() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    assertNotSame(EntityInfoAggregator.create(entitySet), EntityInfoAggregator.create(entitySet));
+  }
 }
@@ -16,12 +16,16 @@
 package com.sap.core.odata.core.ep.consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.junit.Test;
 
@@ -31,6 +35,7 @@ import com.sap.core.odata.api.ep.entry.MediaMetadata;
 import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 /**
@@ -83,6 +88,33 @@ public class JsonFeedConsumerTest extends AbstractConsumerTest {
     assertNull(feedMetadata.getNextLink());
   }
 
+  @Test
+  public void teamsFeedEntryByEntry() throws Exception {
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    // feed metadata after the entries
+    String content = readFile("JsonTeams").replaceFirst("\\]\\s*\\}\\s*\\}\\s*$",
+        "], \"__count\" : \"3\", \"__next\" : \"Teams?skiptoken=3\"}}");
+    InputStream contentBody = createContentAsStream(content);
+
+    ODataFeedReader feedReader = new JsonEntityConsumer().readFeedEntries(entitySet, contentBody, DEFAULT_PROPERTIES);
+    try {
+      assertTrue(feedReader.hasNext());
+      assertEquals("1", feedReader.next().getProperties().get("Id"));
+      assertNull(feedReader.getFeedMetadata().getInlineCount());
+      assertTrue(feedReader.hasNext());
+      assertEquals("2", feedReader.next().getProperties().get("Id"));
+      assertFalse(feedReader.hasNext());
+      assertEquals(Integer.valueOf(3), feedReader.getFeedMetadata().getInlineCount());
+      assertEquals("Teams?skiptoken=3", feedReader.getFeedMetadata().getNextLink());
+      feedReader.next();
+      fail("Expected NoSuchElementException");
+    } catch (final NoSuchElementException e) {
+      // expected
+    } finally {
+      feedReader.close();
+    }
+  }
+
   @Test
   public void teamsFeedWithoutD() throws Exception {
     ODataFeed feed = prepareAndExecuteFeed("JsonTeamsWithoutD", "Teams", DEFAULT_PROPERTIES);
@@ -17,6 +17,7 @@ package com.sap.core.odata.core.ep.consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 
@@ -27,8 +28,10 @@ import org.junit.Test;
 import com.sap.core.odata.api.edm.EdmEntitySet;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
+import com.sap.core.odata.api.ep.entry.ODataEntry;
 import com.sap.core.odata.api.ep.feed.FeedMetadata;
 import com.sap.core.odata.api.ep.feed.ODataFeed;
+import com.sap.core.odata.api.ep.feed.ODataFeedReader;
 import com.sap.core.odata.testutil.mock.MockFacade;
 
 public class XmlFeedConsumerTest extends AbstractConsumerTest {
@@ -60,6 +63,31 @@ public class XmlFeedConsumerTest extends AbstractConsumerTest {
     assertEquals(6, inlineCount);
   }
 
+  @Test
+  public void readEmployeesFeedEntryByEntry() throws Exception {
+    String content = readFile("feed_employees_full.xml");
+    EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Employees");
+    InputStream reqContent = createContentAsStream(content);
+
+    ODataFeedReader feedReader = new XmlEntityConsumer().readFeedEntries(entitySet, reqContent,
+        EntityProviderReadProperties.init().mergeSemantic(false).build());
+    try {
+      // the feed metadata precede the entries
+      assertTrue(feedReader.hasNext());
+      assertEquals(Integer.valueOf(6), feedReader.getFeedMetadata().getInlineCount());
+      assertEquals("http://thisisanextlink", feedReader.getFeedMetadata().getNextLink());
+
+      int count = 0;
+      while (feedReader.hasNext()) {
+        ODataEntry entry = feedReader.next();
+        assertEquals(String.valueOf(++count), entry.getProperties().get("EmployeeId"));
+      }
+      assertEquals(6, count);
+    } finally {
+      feedReader.close();
+    }
+  }
+
   @Test(expected = EntityProviderException.class)
   public void readEmployeesFeedWithInlineCountNegative() throws Exception {
     // prepare
@@ -19,19 +19,24 @@ import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import com.sap.core.odata.api.commons.InlineCount;
 import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.ep.EntityDataCursor;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.processor.ODataResponse;
@@ -192,4 +197,68 @@ public class AtomFeedProducerTest extends AbstractProviderTest {
     assertXpathExists("/a:feed/a:entry[103]", xmlString);
   }
 
+  @Test
+  public void testStreamedEntries() throws Exception {
+    initializeRoomData(103);
+
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties = EntityProviderWriteProperties.serviceRoot(BASE_URI)
+        .mediaResourceMimeType("mediatype")
+        .inlineCount(Integer.valueOf(103))
+        .inlineCountType(InlineCount.ALLPAGES)
+        .nextLink("http://thisisanextlink")
+        .streaming(true)
+        .build();
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(), roomsData, properties);
+    String xmlString = verifyResponse(response);
+
+    assertXpathEvaluatesTo("103", "/a:feed/m:count/text()", xmlString);
+    assertXpathEvaluatesTo("103", "count(/a:feed/a:entry)", xmlString);
+    assertXpathEvaluatesTo("http://thisisanextlink", "/a:feed/a:link[@rel='next']/@href", xmlString);
+  }
+
+  @Test(expected = EntityProviderException.class)
+  public void testStreamedInlineCountInvalid() throws Exception {
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties = EntityProviderWriteProperties.serviceRoot(BASE_URI).inlineCountType(InlineCount.ALLPAGES).streaming(true).build();
+    ser.writeFeed(view.getTargetEntitySet(), roomsData, properties);
+  }
+
+  @Test
+  public void testEntriesFromCursor() throws Exception {
+    initializeRoomData(5);
+    final Iterator<Map<String, Object>> iterator = roomsData.iterator();
+    final boolean[] closed = new boolean[1];
+    EntityDataCursor cursor = new EntityDataCursor() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public Map<String, Object> next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void close() {
+        closed[0] = true;
+      }
+    };
+
+    AtomEntityProvider ser = createAtomEntityProvider();
+    EntityProviderWriteProperties properties = EntityProviderWriteProperties.serviceRoot(BASE_URI).streaming(true).build();
+    ODataResponse response = ser.writeFeed(view.getTargetEntitySet(), cursor, properties);
+    assertFalse(closed[0]);
+    String xmlString = verifyResponse(response);
+    assertTrue(closed[0]);
+
+    assertXpathEvaluatesTo("5", "count(/a:feed/a:entry)", xmlString);
+  }
+
 }
@@ -16,12 +16,17 @@
 package com.sap.core.odata.core.ep.producer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +35,7 @@ import org.junit.Test;
 import com.sap.core.odata.api.commons.HttpContentType;
 import com.sap.core.odata.api.commons.InlineCount;
 import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.ep.EntityDataCursor;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.core.ep.JsonEntityProvider;
@@ -118,4 +124,93 @@ public class JsonFeedEntityProducerTest extends BaseTest {
         + "\"__next\":\"Rooms?$skiptoken=2\"}}",
         json);
   }
+
+  @Test
+  public void streamedFeed() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    List<Map<String, Object>> teamsData = new ArrayList<Map<String, Object>>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> teamData = new HashMap<String, Object>();
+      teamData.put("Id", String.valueOf(i));
+      teamsData.add(teamData);
+    }
+
+    final ODataResponse streamedResponse = new JsonEntityProvider().writeFeed(entitySet, teamsData,
+        EntityProviderWriteProperties.serviceRoot(URI.create(BASE_URI))
+            .inlineCountType(InlineCount.ALLPAGES).inlineCount(3).nextLink("Teams?$skiptoken=3")
+            .streaming(true)
+            .build());
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet, teamsData,
+        EntityProviderWriteProperties.serviceRoot(URI.create(BASE_URI))
+            .inlineCountType(InlineCount.ALLPAGES).inlineCount(3).nextLink("Teams?$skiptoken=3")
+            .build());
+    assertEquals(HttpContentType.APPLICATION_JSON, streamedResponse.getContentHeader());
+
+    final String json = StringHelper.inputStreamToString((InputStream) streamedResponse.getEntity());
+    assertEquals(StringHelper.inputStreamToString((InputStream) response.getEntity()), json);
+  }
+
+  @Test
+  public void feedFromCursor() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    List<Map<String, Object>> teamsData = new ArrayList<Map<String, Object>>();
+    for (int i = 1; i <= 3; i++) {
+      Map<String, Object> teamData = new HashMap<String, Object>();
+      teamData.put("Id", String.valueOf(i));
+      teamsData.add(teamData);
+    }
+    final ListCursor cursor = new ListCursor(teamsData);
+
+    final ODataResponse cursorResponse = new JsonEntityProvider().writeFeed(entitySet, cursor, DEFAULT_PROPERTIES);
+    assertTrue(cursor.closed);
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet, teamsData, DEFAULT_PROPERTIES);
+
+    final String json = StringHelper.inputStreamToString((InputStream) cursorResponse.getEntity());
+    assertEquals(StringHelper.inputStreamToString((InputStream) response.getEntity()), json);
+  }
+
+  @Test
+  public void streamedFeedFromCursor() throws Exception {
+    final EdmEntitySet entitySet = MockFacade.getMockEdm().getDefaultEntityContainer().getEntitySet("Teams");
+    Map<String, Object> teamData = new HashMap<String, Object>();
+    teamData.put("Id", "1");
+    final ListCursor cursor = new ListCursor(Arrays.asList(teamData, teamData));
+
+    final ODataResponse response = new JsonEntityProvider().writeFeed(entitySet, cursor,
+        EntityProviderWriteProperties.serviceRoot(URI.create(BASE_URI)).streaming(true).build());
+    assertFalse(cursor.closed);
+    final String json = StringHelper.inputStreamToString((InputStream) response.getEntity());
+    assertTrue(cursor.closed);
+    assertTrue(json.startsWith("{\"d\":{\"results\":[{\"__metadata\":{\"id\":\"" + BASE_URI + "Teams('1')\""));
+    assertTrue(json.endsWith("}}]}}"));
+  }
+
+  private static class ListCursor implements EntityDataCursor {
+    private final Iterator<Map<String, Object>> iterator;
+    private boolean closed = false;
+
+    public ListCursor(final List<Map<String, Object>> data) {
+      iterator = data.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Map<String, Object> next() {
+      return iterator.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+    }
+  }
 }
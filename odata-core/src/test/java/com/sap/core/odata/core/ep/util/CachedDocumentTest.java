@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * @author SAP AG
+ */
+public class CachedDocumentTest extends BaseTest {
+
+  private static final String CONTENT = "<?xml version='1.0' encoding='utf-8'?><document>content</document>";
+
+  @Test
+  public void content() throws Exception {
+    final CachedDocument document = CachedDocument.create(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")), "application/xml");
+    assertEquals("application/xml", document.getContentType());
+    assertEquals(CONTENT, StringHelper.inputStreamToString(document.getContent()));
+    assertEquals(CONTENT, StringHelper.inputStreamToString(document.getContent()));
+    assertEquals(CONTENT, StringHelper.inputStreamToString(new GZIPInputStream(document.getCompressedContent())));
+  }
+
+  @Test
+  public void eTag() throws Exception {
+    final String eTag = CachedDocument.create(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")), null).getETag();
+    assertTrue(eTag.matches("\"\\p{XDigit}{32}\""));
+    assertEquals(eTag, CachedDocument.create(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")), null).getETag());
+    assertFalse(eTag.equals(CachedDocument.create(new ByteArrayInputStream("other".getBytes("UTF-8")), null).getETag()));
+  }
+}
@@ -78,4 +78,28 @@ public class JsonStreamWriterTest extends BaseTest {
         + "\"escaped\":\"\\\"\\\\\"}",
         writer.toString());
   }
+
+  @Test
+  public void escapeLongRuns() throws Exception {
+    StringBuilder value = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      value.append("run ").append(i).append('"');
+      expected.append("run ").append(i).append("\\\"");
+    }
+    StringWriter writer = new StringWriter();
+    new JsonStreamWriter(writer).stringValue(value.toString());
+    assertEquals("\"" + expected + "\"", writer.toString());
+  }
+
+  @Test
+  public void encodedName() throws Exception {
+    final char[] encodedName = JsonStreamWriter.encodeName("name");
+    StringWriter writer = new StringWriter();
+    new JsonStreamWriter(writer).beginObject()
+        .name(encodedName).stringValue("first").separator()
+        .name(encodedName).unquotedValue("2")
+        .endObject();
+    assertEquals("{\"name\":\"first\",\"name\":2}", writer.toString());
+  }
 }
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * @author SAP AG
+ */
+public class OnDemandInputStreamTest extends BaseTest {
+
+  private static class CountingStream extends OnDemandInputStream {
+    private final int chunks;
+    private int produced = 0;
+    private boolean released = false;
+
+    public CountingStream(final int chunks) {
+      this.chunks = chunks;
+    }
+
+    @Override
+    protected boolean produceNext(final OutputStream out) throws IOException {
+      out.write(("chunk" + produced + ";").getBytes("UTF-8"));
+      produced++;
+      return produced < chunks;
+    }
+
+    @Override
+    protected void release() {
+      released = true;
+    }
+  }
+
+  @Test
+  public void readAll() throws Exception {
+    CountingStream stream = new CountingStream(3);
+    stream.getOutputStream().write("head;".getBytes("UTF-8"));
+    assertEquals("head;chunk0;chunk1;chunk2;", StringHelper.inputStreamToString(stream));
+    assertTrue(stream.released);
+    assertEquals(-1, stream.read());
+  }
+
+  @Test
+  public void produceOnlyOnDemand() throws Exception {
+    CountingStream stream = new CountingStream(1000);
+    byte[] buffer = new byte[8];
+    assertEquals(7, stream.read(buffer, 0, buffer.length));
+    assertEquals(1, stream.produced);
+    assertEquals('c', stream.read());
+    assertEquals(2, stream.produced);
+    stream.close();
+    assertTrue(stream.released);
+  }
+
+  @Test(expected = IOException.class)
+  public void readAfterClose() throws Exception {
+    InputStream stream = new CountingStream(2);
+    stream.close();
+    stream.read();
+  }
+}
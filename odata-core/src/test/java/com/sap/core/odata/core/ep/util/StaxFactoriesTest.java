@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class StaxFactoriesTest extends BaseTest {
+
+  private static final String OUTPUT_FACTORY_PROPERTY = "javax.xml.stream.XMLOutputFactory";
+
+  private final String outputFactory = System.getProperty(OUTPUT_FACTORY_PROPERTY);
+
+  @After
+  public void restoreProperty() {
+    if (outputFactory == null) {
+      System.clearProperty(OUTPUT_FACTORY_PROPERTY);
+    } else {
+      System.setProperty(OUTPUT_FACTORY_PROPERTY, outputFactory);
+    }
+    StaxFactories.reload();
+  }
+
+  @Test
+  public void cached() {
+    assertSame(StaxFactories.getOutputFactory(), StaxFactories.getOutputFactory());
+    assertSame(StaxFactories.getInputFactory(), StaxFactories.getInputFactory());
+    assertEquals(Boolean.TRUE, StaxFactories.getInputFactory().getProperty(XMLInputFactory.IS_NAMESPACE_AWARE));
+    assertEquals(Boolean.FALSE, StaxFactories.getInputFactory().getProperty(XMLInputFactory.IS_VALIDATING));
+  }
+
+  @Test
+  public void resolvedOnce() {
+    final XMLOutputFactory factory = StaxFactories.getOutputFactory();
+    System.setProperty(OUTPUT_FACTORY_PROPERTY, "com.sun.xml.internal.stream.XMLOutputFactoryImpl".equals(factory.getClass().getName()) ?
+        "com.ctc.wstx.stax.WstxOutputFactory" : "com.sun.xml.internal.stream.XMLOutputFactoryImpl");
+    assertSame(factory, StaxFactories.getOutputFactory());
+  }
+
+  @Test
+  public void reload() {
+    System.setProperty(OUTPUT_FACTORY_PROPERTY, "com.ctc.wstx.stax.WstxOutputFactory");
+    StaxFactories.reload();
+    final XMLOutputFactory woodstox = StaxFactories.getOutputFactory();
+    assertEquals("com.ctc.wstx.stax.WstxOutputFactory", woodstox.getClass().getName());
+
+    System.setProperty(OUTPUT_FACTORY_PROPERTY, "com.sun.xml.internal.stream.XMLOutputFactoryImpl");
+    StaxFactories.reload();
+    assertEquals("com.sun.xml.internal.stream.XMLOutputFactoryImpl", StaxFactories.getOutputFactory().getClass().getName());
+  }
+
+  @Test
+  public void sharedByThreads() throws Exception {
+    final XMLOutputFactory factory = StaxFactories.getOutputFactory();
+    final XMLOutputFactory[] other = new XMLOutputFactory[1];
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        other[0] = StaxFactories.getOutputFactory();
+      }
+    });
+    thread.start();
+    thread.join();
+    assertSame(factory, other[0]);
+  }
+}
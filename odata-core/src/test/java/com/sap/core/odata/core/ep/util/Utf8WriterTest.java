@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.ep.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Writer;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class Utf8WriterTest extends BaseTest {
+
+  private static final String OUTSIDE_BMP = String.valueOf(Character.toChars(0x1F603));
+
+  @Test
+  public void ascii() throws Exception {
+    checkEncoding("{\"d\":{\"results\":[]}}", 8192);
+  }
+
+  @Test
+  public void multiByte() throws Exception {
+    checkEncoding("äöü € ﷼ " + OUTSIDE_BMP + " \u007F\u0080߿ࠀ￿", 8192);
+  }
+
+  @Test
+  public void smallBuffer() throws Exception {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 50; i++) {
+      content.append(i).append(" € ").append(OUTSIDE_BMP);
+    }
+    checkEncoding(content.toString(), 5);
+  }
+
+  @Test
+  public void surrogatePairAcrossCalls() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new Utf8Writer(out);
+    writer.write(OUTSIDE_BMP.charAt(0));
+    writer.flush();
+    writer.write(OUTSIDE_BMP.substring(1));
+    writer.close();
+    assertArrayEquals(OUTSIDE_BMP.getBytes("UTF-8"), out.toByteArray());
+  }
+
+  @Test
+  public void unpairedSurrogates() throws Exception {
+    checkEncoding("a\uD83Db\uDE03c\uD83D", 8192);
+  }
+
+  private void checkEncoding(final String content, final int bufferSize) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Writer writer = new Utf8Writer(out, bufferSize);
+    writer.write(content.substring(0, content.length() / 2));
+    writer.write(content.substring(content.length() / 2).toCharArray());
+    writer.close();
+    assertArrayEquals(content.getBytes("UTF-8"), out.toByteArray());
+  }
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.sap.core.odata.api.commons.ODataHttpMethod;
+import com.sap.core.odata.api.metrics.ODataMetric;
+import com.sap.core.odata.api.metrics.ODataMetric.Stage;
+import com.sap.core.odata.api.metrics.ODataMetricsExporter;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.rt.RuntimeDelegate;
+import com.sap.core.odata.core.rest.ResponseCompressor;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class MetricsRegistryTest extends BaseTest {
+
+  private final MetricsRegistry registry = MetricsRegistry.getInstance();
+
+  @After
+  public void resetRegistry() {
+    registry.reset();
+  }
+
+  @Test
+  public void histogram() throws Exception {
+    registry.record(Stage.DISPATCH, "URI1", "GET", "EntitySetProcessor", "application/json", 0);
+    registry.record(Stage.DISPATCH, "URI1", "GET", "EntitySetProcessor", "application/json", 5);
+    registry.record(Stage.DISPATCH, "URI1", "GET", "EntitySetProcessor", "application/json", 1000);
+    registry.record(Stage.DISPATCH, "URI2", "GET", "EntityProcessor", null, 7);
+
+    final ODataMetric metric = getMetric(Stage.DISPATCH, "URI1");
+    assertEquals("GET", metric.getHttpMethod());
+    assertEquals("EntitySetProcessor", metric.getProcessor());
+    assertEquals("application/json", metric.getContentType());
+    assertEquals(3, metric.getCount());
+    assertEquals(1005, metric.getSum());
+    assertEquals(1000, metric.getMax());
+    final long[] buckets = metric.getBucketCounts();
+    assertEquals(1, buckets[0]);
+    assertEquals(1, buckets[3]);
+    assertEquals(1, buckets[10]);
+    assertEquals(1, getMetric(Stage.DISPATCH, "URI2").getCount());
+    assertEquals(2, registry.getMetrics().size());
+
+    registry.reset();
+    assertTrue(registry.getMetrics().isEmpty());
+  }
+
+  @Test
+  public void request() throws Exception {
+    RequestMetrics metrics = RequestMetrics.start(ODataHttpMethod.GET);
+    assertSame(metrics, RequestMetrics.current());
+    metrics.setUriType("URI1", "EntitySetProcessor");
+    metrics.stop(Stage.URI_PARSING, System.nanoTime());
+
+    RequestMetrics inner = RequestMetrics.start(ODataHttpMethod.PUT);
+    assertSame(inner, RequestMetrics.current());
+    inner.finish(ODataResponse.status(null).build());
+    assertSame(metrics, RequestMetrics.current());
+
+    inner = RequestMetrics.start(ODataHttpMethod.POST);
+    inner.finish(null);
+    assertSame(metrics, RequestMetrics.current());
+
+    RequestMetrics.stopCurrent(Stage.SERIALIZATION, System.nanoTime());
+    final InputStream content = new ByteArrayInputStream("content".getBytes("UTF-8"));
+    final ODataResponse response = ODataResponse.entity(content).contentHeader("application/json;charset=utf-8").eTag("W/\"1\"").build();
+    metrics.finish(response);
+    assertNull(RequestMetrics.current());
+
+    assertNotNull(getMetric(Stage.REQUEST, "URI1"));
+    assertNotNull(getMetric(Stage.URI_PARSING, "URI1"));
+    assertNotNull(getMetric(Stage.SERIALIZATION, "URI1"));
+    assertNull(getMetric(Stage.DISPATCH, "URI1"));
+    assertEquals("application/json", getMetric(Stage.REQUEST, "URI1").getContentType());
+    assertNull(getMetric(Stage.BYTES_WRITTEN, "URI1"));
+    assertEquals(3, registry.getRequestCount());
+
+    final ODataResponse meteredResponse = metrics.meter(response);
+    assertEquals("W/\"1\"", meteredResponse.getETag());
+    final InputStream meteredContent = (InputStream) meteredResponse.getEntity();
+    byte[] buffer = new byte[4];
+    while (meteredContent.read(buffer) != -1) {
+      ;
+    }
+    meteredContent.close();
+    assertEquals(7, getMetric(Stage.BYTES_WRITTEN, "URI1").getSum());
+    assertEquals(1, getMetric(Stage.BYTES_WRITTEN, "URI1").getCount());
+    assertEquals(7, registry.getBytesWritten());
+  }
+
+  @Test
+  public void bytesWrittenAfterCompression() throws Exception {
+    RequestMetrics metrics = RequestMetrics.start(ODataHttpMethod.GET);
+    metrics.setUriType("URI1", "EntitySetProcessor");
+    final StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      content.append("content");
+    }
+    final ODataResponse response = ODataResponse.entity(new ByteArrayInputStream(content.toString().getBytes("UTF-8")))
+        .contentHeader("application/json").build();
+    metrics.finish(response);
+
+    final InputStream meteredContent = (InputStream) metrics.meter(new ResponseCompressor(0).compress(response, "gzip")).getEntity();
+    long length = 0;
+    while (meteredContent.read() != -1) {
+      length++;
+    }
+    meteredContent.close();
+    assertTrue(length < content.length());
+    assertEquals(length, getMetric(Stage.BYTES_WRITTEN, "URI1").getSum());
+  }
+
+  @Test
+  public void exporter() throws Exception {
+    final List<List<ODataMetric>> exports = new ArrayList<List<ODataMetric>>();
+    final ODataMetricsExporter exporter = new ODataMetricsExporter() {
+      @Override
+      public void export(final List<ODataMetric> metrics) {
+        exports.add(metrics);
+      }
+    };
+    registry.addExporter(exporter, 0);
+    registry.record(Stage.REQUEST, null, "GET", null, null, 1);
+    registry.exportIfDue();
+    registry.removeExporter(exporter);
+    registry.exportIfDue();
+    assertEquals(1, exports.size());
+    assertEquals(1, exports.get(0).size());
+
+    registry.addExporter(exporter, 60 * 60 * 1000);
+    registry.exportIfDue();
+    registry.removeExporter(exporter);
+    assertEquals(1, exports.size());
+  }
+
+  @Test
+  public void access() throws Exception {
+    assertSame(registry, RuntimeDelegate.getMetrics());
+    final ObjectName name = new ObjectName(MetricsRegistry.OBJECT_NAME);
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    try {
+      assertTrue(registry.registerMBean());
+      assertTrue(registry.registerMBean());
+      assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+      registry.record(Stage.REQUEST, "URI0", "GET", "ServiceDocumentProcessor", "application/xml", 1);
+      assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "RequestCount"));
+      assertEquals(0L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "ExpressionCacheHitCount"));
+    } finally {
+      registry.unregisterMBean();
+    }
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    registry.unregisterMBean();
+  }
+
+  private ODataMetric getMetric(final Stage stage, final String uriType) {
+    for (final ODataMetric metric : registry.getMetrics()) {
+      if (metric.getStage() == stage && uriType.equals(metric.getUriType())) {
+        return metric;
+      }
+    }
+    return null;
+  }
+}
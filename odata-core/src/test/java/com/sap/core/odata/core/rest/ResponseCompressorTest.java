@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.rest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class ResponseCompressorTest extends BaseTest {
+
+  private static final int THRESHOLD = 1024;
+  private static final byte[] CONTENT = createContent(100000);
+
+  private static byte[] createContent(final int size) {
+    StringBuilder builder = new StringBuilder(size);
+    for (int i = 0; builder.length() < size; i++) {
+      builder.append("<entry><id>Rooms('").append(i).append("')</id></entry>");
+    }
+    return builder.toString().getBytes();
+  }
+
+  private static ODataResponse createResponse(final byte[] content, final String contentType) {
+    return ODataResponse.entity(new ByteArrayInputStream(content)).contentHeader(contentType).eTag("W/\"1\"").build();
+  }
+
+  private static byte[] read(final InputStream stream) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1000];
+    int read;
+    while ((read = stream.read(buffer)) != -1) {
+      result.write(buffer, 0, read);
+    }
+    stream.close();
+    return result.toByteArray();
+  }
+
+  @Test
+  public void negotiation() {
+    assertEquals("gzip", ResponseCompressor.negotiateContentCoding("gzip"));
+    assertEquals("gzip", ResponseCompressor.negotiateContentCoding("deflate, gzip"));
+    assertEquals("gzip", ResponseCompressor.negotiateContentCoding("x-gzip"));
+    assertEquals("gzip", ResponseCompressor.negotiateContentCoding("*"));
+    assertEquals("deflate", ResponseCompressor.negotiateContentCoding("gzip;q=0.5, deflate"));
+    assertEquals("deflate", ResponseCompressor.negotiateContentCoding("gzip; q=0, *"));
+    assertEquals("deflate", ResponseCompressor.negotiateContentCoding("identity, deflate"));
+    assertNull(ResponseCompressor.negotiateContentCoding(null));
+    assertNull(ResponseCompressor.negotiateContentCoding(""));
+    assertNull(ResponseCompressor.negotiateContentCoding("identity"));
+    assertNull(ResponseCompressor.negotiateContentCoding("gzip;q=0"));
+    assertNull(ResponseCompressor.negotiateContentCoding("*;q=0.0"));
+    assertNull(ResponseCompressor.negotiateContentCoding("gzip;q=x"));
+  }
+
+  @Test
+  public void compressibleMediaTypes() {
+    assertTrue(ResponseCompressor.isCompressible(HttpContentType.APPLICATION_ATOM_XML_FEED_UTF8));
+    assertTrue(ResponseCompressor.isCompressible(HttpContentType.APPLICATION_JSON));
+    assertTrue(ResponseCompressor.isCompressible(HttpContentType.MULTIPART_MIXED + ";boundary=batch_123"));
+    assertTrue(ResponseCompressor.isCompressible("text/plain"));
+    assertTrue(ResponseCompressor.isCompressible("image/svg+xml"));
+    assertFalse(ResponseCompressor.isCompressible("image/jpeg"));
+    assertFalse(ResponseCompressor.isCompressible("Video/MP4"));
+    assertFalse(ResponseCompressor.isCompressible("application/zip"));
+    assertFalse(ResponseCompressor.isCompressible(HttpContentType.APPLICATION_OCTET_STREAM));
+    assertFalse(ResponseCompressor.isCompressible(null));
+  }
+
+  @Test
+  public void gzip() throws Exception {
+    final ODataResponse response = new ResponseCompressor(THRESHOLD)
+        .compress(createResponse(CONTENT, HttpContentType.APPLICATION_ATOM_XML_FEED_UTF8), "gzip, deflate");
+    assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals("W/\"1-gzip\"", response.getETag());
+    final byte[] compressed = read((InputStream) response.getEntity());
+    assertTrue(compressed.length < CONTENT.length / 10);
+    assertArrayEquals(CONTENT, read(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+  }
+
+  @Test
+  public void deflate() throws Exception {
+    final ODataResponse response = new ResponseCompressor(0)
+        .compress(createResponse(CONTENT, HttpContentType.APPLICATION_JSON), "deflate");
+    assertEquals("deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("W/\"1-deflate\"", response.getETag());
+    assertArrayEquals(CONTENT, read(new InflaterInputStream((InputStream) response.getEntity())));
+  }
+
+  @Test
+  public void smallContent() throws Exception {
+    final byte[] content = createContent(500);
+    final ODataResponse response = new ResponseCompressor(THRESHOLD)
+        .compress(createResponse(content, HttpContentType.APPLICATION_JSON), "gzip");
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertEquals("W/\"1\"", response.getETag());
+    assertArrayEquals(content, read((InputStream) response.getEntity()));
+  }
+
+  @Test
+  public void passThrough() throws Exception {
+    final ResponseCompressor compressor = new ResponseCompressor(0);
+    ODataResponse response = createResponse(CONTENT, "image/png");
+    assertSame(response, compressor.compress(response, "gzip"));
+
+    response = ODataResponse.fromResponse(createResponse(CONTENT, HttpContentType.APPLICATION_XML))
+        .header(HttpHeaders.CONTENT_ENCODING, "gzip").build();
+    assertSame(response, compressor.compress(response, "gzip"));
+
+    response = createResponse(CONTENT, HttpContentType.APPLICATION_XML);
+    assertSame(response, new ResponseCompressor(ResponseCompressor.OFF).compress(response, "gzip"));
+
+    response = ODataResponse.fromResponse(createResponse(CONTENT, HttpContentType.APPLICATION_XML))
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE).build();
+    response = compressor.compress(response, null);
+    assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_LANGUAGE + ", " + HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+    assertArrayEquals(CONTENT, read((InputStream) response.getEntity()));
+  }
+}
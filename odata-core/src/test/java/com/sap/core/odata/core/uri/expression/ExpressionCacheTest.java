@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.uri.expression;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
+import com.sap.core.odata.api.uri.expression.BinaryExpression;
+import com.sap.core.odata.api.uri.expression.ExpressionParserException;
+import com.sap.core.odata.api.uri.expression.FilterExpression;
+import com.sap.core.odata.api.uri.expression.OrderByExpression;
+import com.sap.core.odata.core.edm.provider.EdmSnapshot;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.mock.EdmTestProvider;
+import com.sap.core.odata.testutil.mock.MockFacade;
+
+/**
+ * @author SAP AG
+ */
+public class ExpressionCacheTest extends BaseTest {
+
+  private EdmEntityType employeeType;
+  private EdmEntityType roomType;
+
+  @Before
+  public void before() throws Exception {
+    ExpressionCache.resetStatistics();
+    final Edm edm = EdmSnapshot.create(new EdmTestProvider());
+    employeeType = edm.getEntityType("RefScenario", "Employee");
+    roomType = edm.getEntityType("RefScenario", "Room");
+  }
+
+  @After
+  public void after() {
+    ExpressionCache.resetStatistics();
+  }
+
+  @Test
+  public void filter() throws Exception {
+    final FilterExpression filter = ExpressionCache.getFilter(employeeType, "Age gt 30", true);
+    assertEquals("Age gt 30", filter.getExpressionString());
+    final FilterExpression cached = ExpressionCache.getFilter(employeeType, "Age gt 30", true);
+    assertNotSame(filter, cached);
+    assertEquals(filter.getExpressionString(), cached.getExpressionString());
+    assertEquals(filter.accept(new JsonVisitor()), cached.accept(new JsonVisitor()));
+    ExpressionCache.getFilter(employeeType, "Age gt 30", false);
+    ExpressionCache.getFilter(employeeType, "Age  gt 30", true);
+    assertEquals(1, ExpressionCache.getHitCount());
+    assertEquals(3, ExpressionCache.getMissCount());
+  }
+
+  @Test
+  public void orderBy() throws Exception {
+    final OrderByExpression orderBy = ExpressionCache.getOrderBy(employeeType, "Age desc, EmployeeName");
+    assertEquals(2, orderBy.getOrdersCount());
+    final OrderByExpression cached = ExpressionCache.getOrderBy(employeeType, "Age desc, EmployeeName");
+    assertNotSame(orderBy, cached);
+    assertEquals(orderBy.accept(new JsonVisitor()), cached.accept(new JsonVisitor()));
+    assertEquals(1, ExpressionCache.getHitCount());
+    assertEquals(1, ExpressionCache.getMissCount());
+  }
+
+  @Test
+  public void copyOnHit() throws Exception {
+    final FilterExpression filter = ExpressionCache.getFilter(employeeType,
+        "not (substringof('a', EmployeeName) and Location/City/CityName eq 'Walldorf') or Age add 1 gt 30", true);
+    final String expected = (String) filter.accept(new JsonVisitor());
+    filter.getExpression().setEdmType(EdmSimpleTypeKind.String.getEdmSimpleTypeInstance());
+    ((BinaryExpression) filter.getExpression()).getLeftOperand().setEdmType(null);
+    final FilterExpression cached = ExpressionCache.getFilter(employeeType,
+        "not (substringof('a', EmployeeName) and Location/City/CityName eq 'Walldorf') or Age add 1 gt 30", true);
+    assertEquals(EdmSimpleTypeKind.Boolean.getEdmSimpleTypeInstance(), cached.getExpression().getEdmType());
+    assertEquals(expected, cached.accept(new JsonVisitor()));
+    assertEquals(1, ExpressionCache.getHitCount());
+  }
+
+  @Test
+  public void entityType() throws Exception {
+    ExpressionCache.getFilter(employeeType, "1 eq 1", true);
+    ExpressionCache.getFilter(roomType, "1 eq 1", true);
+    assertEquals(0, ExpressionCache.getHitCount());
+    ExpressionCache.getFilter(employeeType, "1 eq 1", true);
+    assertEquals(1, ExpressionCache.getHitCount());
+  }
+
+  @Test
+  public void invalidExpressionIsNotCached() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      try {
+        ExpressionCache.getFilter(employeeType, "Age gt", true);
+        fail("Expected ExpressionParserException not thrown");
+      } catch (final ExpressionParserException e) {
+        assertEquals(ExpressionParserException.EXPRESSION_EXPECTED_AFTER_POS.getKey(), e.getMessageReference().getKey());
+      }
+    }
+    assertEquals(0, ExpressionCache.getHitCount());
+    assertEquals(2, ExpressionCache.getMissCount());
+  }
+
+  @Test
+  public void eviction() throws Exception {
+    ExpressionCache.getFilter(employeeType, "Age eq 0", true);
+    for (int i = 1; i <= 2000; i++) {
+      ExpressionCache.getFilter(employeeType, "Age eq " + i, true);
+    }
+    ExpressionCache.getFilter(employeeType, "Age eq 0", true);
+    assertEquals(0, ExpressionCache.getHitCount());
+
+    ExpressionCache.getOrderBy(employeeType, "Age");
+    ExpressionCache.getOrderBy(employeeType, "Age");
+    assertEquals(1, ExpressionCache.getHitCount());
+  }
+
+  @Test
+  public void cachedPerModel() throws Exception {
+    ExpressionCache.getFilter(employeeType, "Age gt 30", true);
+    final EdmEntityType otherEmployeeType = EdmSnapshot.create(new EdmTestProvider()).getEntityType("RefScenario", "Employee");
+    ExpressionCache.getFilter(otherEmployeeType, "Age gt 30", true);
+    assertEquals(0, ExpressionCache.getHitCount());
+    ExpressionCache.getFilter(employeeType, "Age gt 30", true);
+    assertEquals(1, ExpressionCache.getHitCount());
+  }
+
+  @Test
+  public void notCachedWithoutSharedModel() throws Exception {
+    final EdmEntityType mockType = MockFacade.getMockEdm().getEntityType("RefScenario", "Employee");
+    assertNotSame(ExpressionCache.getFilter(mockType, "Age gt 30", true), ExpressionCache.getFilter(mockType, "Age gt 30", true));
+    assertEquals(0, ExpressionCache.getHitCount());
+    assertEquals(2, ExpressionCache.getMissCount());
+  }
+}
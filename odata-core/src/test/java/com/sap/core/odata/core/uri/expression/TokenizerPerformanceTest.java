@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.core.uri.expression;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * Tokenizes typical and pathological $filter expressions repeatedly.
+ * @author SAP AG
+ */
+public class TokenizerPerformanceTest extends BaseTest {
+
+  private static final long TIMES = 100L; // increase for manual performance testing
+
+  private static final String TYPICAL = "Name eq 'Room 1' and Seats ge 10 and Version lt 3"
+      + " or substringof('Building', Name) and Id ne X'0AFF' and time'PT12H'"
+      + " eq datetime'2013-01-01T00:00' or Price gt 12.5M and -INF lt 2.5e10d";
+
+  @Test
+  public void typicalExpression() throws Exception {
+    assertEquals(34, tokenize(TYPICAL, "typicalExpression"));
+  }
+
+  @Test
+  public void manyClauses() throws Exception {
+    StringBuilder expression = new StringBuilder("Id eq '0'");
+    for (int i = 1; i < 500; i++) {
+      expression.append(" or Id eq '").append(i).append('\'');
+    }
+    assertEquals(500 * 3 + 499, tokenize(expression.toString(), "manyClauses"));
+  }
+
+  @Test
+  public void longStringLiteral() throws Exception {
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      literal.append("it''s a long name ");
+    }
+    assertEquals(3, tokenize("Name eq '" + literal + "'", "longStringLiteral"));
+  }
+
+  @Test
+  public void deepNesting() throws Exception {
+    StringBuilder expression = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      expression.append("not(");
+    }
+    expression.append("true");
+    for (int i = 0; i < 500; i++) {
+      expression.append(')');
+    }
+    assertEquals(500 * 3 + 1, tokenize(expression.toString(), "deepNesting"));
+  }
+
+  private int tokenize(final String expression, final String msg) throws Exception {
+    int count = 0;
+    long t = System.nanoTime();
+    for (int i = 0; i < TIMES; i++) {
+      count = new Tokenizer(expression).tokenize().tokenCount();
+    }
+    t = (System.nanoTime() - t) / TIMES;
+    log.debug(msg + ": " + t / 1000L + "[us] (" + TIMES + " of " + expression.length() + " characters)");
+    return count;
+  }
+}
@@ -107,7 +107,8 @@ public class BasicBatchTest extends AbstractBasicTest {
     assertNotNull(response);
     assertEquals(202, response.getStatusLine().getStatusCode());
     assertEquals("HTTP/1.1", response.getProtocolVersion().toString());
-    assertTrue(response.containsHeader("Content-Length"));
+    // the batch response is streamed, so its length is only known if the container buffered it
+    assertTrue(response.getEntity().isChunked() || response.containsHeader("Content-Length"));
     assertTrue(response.containsHeader("Content-Type"));
     assertTrue(response.containsHeader("DataServiceVersion"));
     assertTrue(response.getEntity().getContentType().getValue().matches(REG_EX));
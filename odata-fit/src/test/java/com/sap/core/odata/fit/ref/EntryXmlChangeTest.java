@@ -265,6 +265,24 @@ public class EntryXmlChangeTest extends AbstractRefXmlTest {
     assertXpathEvaluatesTo("Room X", "/atom:entry/atom:content/m:properties/d:Name", getBody(callUri("Rooms('3')")));
   }
 
+  @Test
+  public void updateWithPrecondition() throws Exception {
+    final String requestBody = "<entry xmlns=\"" + Edm.NAMESPACE_ATOM_2005 + "\">" + "\n"
+        + "  <content xmlns:d=\"" + Edm.NAMESPACE_D_2007_08 + "\"" + "\n"
+        + "           xmlns:m=\"" + Edm.NAMESPACE_M_2007_08 + "\"" + "\n"
+        + "           type=\"" + HttpContentType.APPLICATION_XML_UTF8 + "\">" + "\n"
+        + "    <m:properties><d:Name>Room X</d:Name></m:properties>" + "\n"
+        + "  </content>" + "\n"
+        + "</entry>";
+    getBody(callUri(ODataHttpMethod.MERGE, "Rooms('2')", HttpHeaders.IF_MATCH, "W/\"1\"", requestBody, HttpContentType.APPLICATION_ATOM_XML_ENTRY, HttpStatusCodes.PRECONDITION_FAILED));
+    getBody(callUri(ODataHttpMethod.PUT, "Rooms('2')", HttpHeaders.IF_NONE_MATCH, "*", requestBody, HttpContentType.APPLICATION_ATOM_XML_ENTRY, HttpStatusCodes.PRECONDITION_FAILED));
+    getBody(callUri(ODataHttpMethod.DELETE, "Rooms('2')", HttpHeaders.IF_MATCH, "W/\"1\"", null, null, HttpStatusCodes.PRECONDITION_FAILED));
+    assertXpathEvaluatesTo("Room 2", "/atom:entry/atom:content/m:properties/d:Name", getBody(callUri("Rooms('2')")));
+
+    callUri(ODataHttpMethod.MERGE, "Rooms('2')", HttpHeaders.IF_MATCH, "W/\"2\"", requestBody, HttpContentType.APPLICATION_ATOM_XML_ENTRY, HttpStatusCodes.NO_CONTENT);
+    assertXpathEvaluatesTo("Room X", "/atom:entry/atom:content/m:properties/d:Name", getBody(callUri("Rooms('2')")));
+  }
+
   @Test
   public void delete() throws Exception {
     final String uri = "Employees('2')";
@@ -85,6 +85,23 @@ public class EntryXmlReadOnlyTest extends AbstractRefXmlTest {
     badRequest("Rooms(X'33')");
   }
 
+  @Test
+  public void conditionalEntry() throws Exception {
+    HttpResponse response = callUri("Rooms('1')", HttpHeaders.IF_NONE_MATCH, "W/\"1\"", HttpStatusCodes.NOT_MODIFIED);
+    checkEtag(response, "W/\"1\"");
+    callUri("Rooms('1')", HttpHeaders.IF_NONE_MATCH, "\"other\", W/\"1\"", HttpStatusCodes.NOT_MODIFIED);
+    callUri("Rooms('1')/Seats/$value", HttpHeaders.IF_NONE_MATCH, "*", HttpStatusCodes.NOT_MODIFIED);
+
+    response = callUri("Rooms('1')", HttpHeaders.IF_NONE_MATCH, "W/\"2\"");
+    checkEtag(response, "W/\"1\"");
+    assertXpathEvaluatesTo("1", "/atom:entry/atom:content/m:properties/d:Id", getBody(response));
+
+    getBody(callUri("Rooms('1')", HttpHeaders.IF_MATCH, "W/\"2\"", HttpStatusCodes.PRECONDITION_FAILED));
+    getBody(callUri("Rooms('200')", HttpHeaders.IF_NONE_MATCH, "W/\"1\"", HttpStatusCodes.NOT_FOUND));
+    callUri("Employees('2')", HttpHeaders.IF_NONE_MATCH, "*", HttpStatusCodes.NOT_MODIFIED);
+    getBody(callUri("Employees('200')", HttpHeaders.IF_NONE_MATCH, "*", HttpStatusCodes.NOT_FOUND));
+  }
+
   @Test
   public void entryWithSpecialKey() throws Exception {
     // Ugly hack to create an entity with a key containing special characters just for this test.
@@ -18,13 +18,20 @@ package com.sap.core.odata.fit.ref;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathNotExists;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.http.HttpResponse;
 import org.junit.Test;
 
 import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
 import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.testutil.helper.StringHelper;
 
 /**
  * Tests employing the reference scenario reading entity sets in XML format.
@@ -32,6 +39,10 @@ import com.sap.core.odata.api.commons.HttpStatusCodes;
  */
 public class FeedXmlReadOnlyTest extends AbstractRefXmlTest {
 
+  public FeedXmlReadOnlyTest() {
+    getServer().setCompressionThreshold(1024);
+  }
+
   @Test
   public void feed() throws Exception {
     HttpResponse response = callUri("Employees()");
@@ -53,6 +64,26 @@ public class FeedXmlReadOnlyTest extends AbstractRefXmlTest {
     badRequest("Teams/()");
   }
 
+  @Test
+  public void compressedFeed() throws Exception {
+    HttpResponse response = callUri("Rooms()", HttpHeaders.ACCEPT_ENCODING, "gzip");
+    checkMediaType(response, HttpContentType.APPLICATION_ATOM_XML_UTF8 + ";type=feed");
+    assertEquals("gzip", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+    assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getFirstHeader(HttpHeaders.VARY).getValue());
+    final String payload = StringHelper.inputStreamToString(new GZIPInputStream(response.getEntity().getContent()));
+    assertXpathEvaluatesTo("Rooms", "/atom:feed/atom:title", payload);
+    assertXpathEvaluatesTo("100", "count(/atom:feed/atom:entry)", payload);
+
+    final String jsonPayload = getBody(callUri("Rooms()?$format=json"));
+    response = callUri("Rooms()?$format=json", HttpHeaders.ACCEPT_ENCODING, "deflate");
+    assertEquals("deflate", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+    assertEquals(jsonPayload, StringHelper.inputStreamToString(new InflaterInputStream(response.getEntity().getContent())));
+
+    response = callUri("Rooms('1')/Seats/$value", HttpHeaders.ACCEPT_ENCODING, "gzip");
+    assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("1", getBody(response));
+  }
+
   @Test
   public void navigationFeed() throws Exception {
     HttpResponse response = callUri("Employees('3')/ne_Room/nr_Employees()");
@@ -123,6 +154,10 @@ public class FeedXmlReadOnlyTest extends AbstractRefXmlTest {
     assertXpathEvaluatesTo("1", "count(/atom:feed/atom:entry)", body);
     assertXpathEvaluatesTo("Room 1", "/atom:feed/atom:entry[1]/atom:content/m:properties/d:Name", body);
 
+    response = callUri("Rooms?$orderby=Seats%20sub%205,Name&$top=1");
+    body = getBody(response);
+    assertXpathEvaluatesTo("Room 1", "/atom:feed/atom:entry[1]/atom:content/m:properties/d:Name", body);
+
     badRequest("Employees?$orderby=(id");
     badRequest("Employees?$orderby=id");
   }
@@ -16,13 +16,20 @@
 package com.sap.core.odata.fit.ref;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathExists;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.zip.GZIPInputStream;
 
 import org.apache.http.HttpResponse;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.sap.core.odata.api.commons.HttpContentType;
+import com.sap.core.odata.api.commons.HttpHeaders;
+import com.sap.core.odata.api.commons.HttpStatusCodes;
+import com.sap.core.odata.testutil.helper.StringHelper;
 
 /**
  * Tests employing the reference scenario reading the metadata document in XML format
@@ -32,6 +39,10 @@ public class MetadataTest extends AbstractRefXmlTest {
 
   private static String payload;
 
+  public MetadataTest() {
+    getServer().setCompressionThreshold(1024);
+  }
+
   @Before
   public void prepare() throws Exception {
     payload = getBody(callUri("$metadata"));
@@ -47,6 +58,39 @@ public class MetadataTest extends AbstractRefXmlTest {
     badRequest("$metadata?$format=atom");
   }
 
+  @Test
+  public void notModified() throws Exception {
+    HttpResponse response = callUri("$metadata");
+    final String eTag = response.getFirstHeader(HttpHeaders.ETAG).getValue();
+    assertEquals(payload, getBody(response));
+
+    callUri("$metadata", HttpHeaders.IF_NONE_MATCH, eTag, HttpStatusCodes.NOT_MODIFIED);
+    callUri("$metadata", HttpHeaders.IF_NONE_MATCH, "W/" + eTag, HttpStatusCodes.NOT_MODIFIED);
+    callUri("$metadata", HttpHeaders.IF_NONE_MATCH, "\"a,b\", " + eTag, HttpStatusCodes.NOT_MODIFIED);
+    callUri("$metadata", HttpHeaders.IF_NONE_MATCH, "*", HttpStatusCodes.NOT_MODIFIED);
+
+    response = callUri("$metadata", HttpHeaders.IF_NONE_MATCH, "\"other\"");
+    checkEtag(response, eTag);
+    assertEquals(payload, getBody(response));
+  }
+
+  @Test
+  public void compressed() throws Exception {
+    HttpResponse response = callUri("$metadata", HttpHeaders.ACCEPT_ENCODING, "deflate, gzip");
+    assertEquals("gzip", response.getFirstHeader(HttpHeaders.CONTENT_ENCODING).getValue());
+    assertEquals(payload, StringHelper.inputStreamToString(new GZIPInputStream(response.getEntity().getContent())));
+    final String gzipETag = response.getFirstHeader(HttpHeaders.ETAG).getValue();
+
+    response = callUri("$metadata", HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+    assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(payload, getBody(response));
+    final String eTag = response.getFirstHeader(HttpHeaders.ETAG).getValue();
+    assertEquals(eTag.substring(0, eTag.length() - 1) + "-gzip\"", gzipETag);
+
+    response = callUri("$metadata", HttpHeaders.IF_NONE_MATCH, gzipETag, HttpStatusCodes.NOT_MODIFIED);
+    checkEtag(response, gzipETag);
+  }
+
   @Test
   public void testGeneral() throws Exception {
     assertXpathExists("/edmx:Edmx[@Version='1.0']", payload);
@@ -54,6 +54,13 @@ public class MiscReadOnlyTest extends AbstractRefTest {
     checkUri("Employees('2')/ne_Manager/nm_Employees('3')/Age");
   }
 
+  @Test
+  public void notCompressedByDefault() throws Exception {
+    final HttpResponse response = callUri("Rooms()", HttpHeaders.ACCEPT_ENCODING, "gzip");
+    assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+    assertNull(response.getFirstHeader(HttpHeaders.VARY));
+  }
+
   @Test
   public void count() throws Exception {
     assertEquals("103", getBody(callUri("Rooms()/$count")));
@@ -50,6 +50,15 @@ public class ServiceXmlTest extends AbstractRefXmlTest {
     notFound("invalid.svc");
   }
 
+  @Test
+  public void serviceDocumentNotModified() throws Exception {
+    final HttpResponse response = callUri("/");
+    final String eTag = response.getFirstHeader(HttpHeaders.ETAG).getValue();
+    getBody(response);
+
+    callUri("/", HttpHeaders.IF_NONE_MATCH, eTag, HttpStatusCodes.NOT_MODIFIED);
+  }
+
   @Test
   public void serviceDocumentDefault() throws Exception {
     final HttpResponse response = callUri("");
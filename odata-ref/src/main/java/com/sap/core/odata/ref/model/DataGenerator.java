@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.model;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Generator for additional data objects of the reference scenario,
+ * to run the scenario with realistic data volumes, e.g., in load tests.
+ * <p>The generated data are deterministic. Every tenth employee is a manager
+ * and manages itself and the next nine employees, which are also members
+ * of one team; five employees share a room, and fifty rooms a building.</p>
+ * @author SAP AG
+ */
+public class DataGenerator {
+
+  private static final int EMPLOYEES_PER_TEAM = 10;
+  private static final int EMPLOYEES_PER_ROOM = 5;
+  private static final int ROOMS_PER_BUILDING = 50;
+  private static final String[][] LOCATIONS = {
+      { "Germany", "69124", "Heidelberg" },
+      { "Germany", "69190", "Walldorf" },
+      { "Germany", "10115", "Berlin" },
+      { "France", "75001", "Paris" },
+      { "USA", "94304", "Palo Alto" } };
+
+  private final DataContainer dataContainer;
+
+  public DataGenerator(final DataContainer dataContainer) {
+    this.dataContainer = dataContainer;
+  }
+
+  /**
+   * Adds employees to the data container, together with
+   * the managers, teams, rooms, and buildings they need.
+   * @param employeeCount the number of employees (including managers) to add
+   */
+  public void generate(final int employeeCount) {
+    Manager manager = null;
+    Team team = null;
+    Room room = null;
+    Building building = null;
+    int roomCount = 0;
+
+    for (int i = 0; i < employeeCount; i++) {
+      Employee employee;
+      if (i % EMPLOYEES_PER_TEAM == 0) {
+        manager = dataContainer.createManager();
+        dataContainer.getManagers().add(manager);
+        employee = manager;
+
+        team = dataContainer.createTeam();
+        team.setScrumTeam(i % (2 * EMPLOYEES_PER_TEAM) == 0);
+        dataContainer.getTeams().add(team);
+      } else {
+        employee = dataContainer.createEmployee();
+      }
+
+      if (i % EMPLOYEES_PER_ROOM == 0) {
+        if (roomCount % ROOMS_PER_BUILDING == 0) {
+          building = dataContainer.createBuilding();
+          dataContainer.getBuildings().add(building);
+        }
+        room = dataContainer.createRoom();
+        room.setSeats(EMPLOYEES_PER_ROOM);
+        room.setVersion(1);
+        room.setBuilding(building);
+        building.getRooms().add(room);
+        dataContainer.getRooms().add(room);
+        roomCount++;
+      }
+
+      final String[] location = LOCATIONS[i % LOCATIONS.length];
+      employee.setAge(20 + i % 45);
+      employee.setLocation(new Location(location[0], location[1], location[2]));
+      employee.setEntryDate(generateDate(1990 + i % 25, 1 + i % 12, 1 + i % 28));
+      employee.setImageUri("Employees('" + employee.getId() + "')/$value");
+      employee.setManager(manager);
+      manager.getEmployees().add(employee);
+      employee.setTeam(team);
+      team.getEmployees().add(employee);
+      employee.setRoom(room);
+      room.getEmployees().add(employee);
+      dataContainer.getEmployees().add(employee);
+    }
+  }
+
+  private static Calendar generateDate(final int year, final int month, final int day) {
+    Calendar date = Calendar.getInstance();
+    date.clear();
+    date.setTimeZone(TimeZone.getTimeZone("GMT"));
+    date.set(year, month - 1, day);
+    return date;
+  }
+}
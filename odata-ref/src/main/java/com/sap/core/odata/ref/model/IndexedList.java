@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List of data objects with a hash index on their keys.
+ * <p>All modifications, including those through iterators and sub lists,
+ * pass through {@link #set(int, Object)}, {@link #add(int, Object)}, and
+ * {@link #remove(int)}, so the index is always up to date.
+ * The key of a data object must not change while it is in the list.</p>
+ * @author SAP AG
+ */
+abstract class IndexedList<T> extends AbstractList<T> {
+
+  private final List<T> elements = new ArrayList<T>();
+  private final Map<Object, T> index = new HashMap<Object, T>();
+
+  /**
+   * Returns the key of a data object.
+   * @param element the data object
+   * @return the key, which must implement {@link Object#equals(Object)} and {@link Object#hashCode()}
+   */
+  protected abstract Object getKey(T element);
+
+  /**
+   * Returns the data object with the given key.
+   * @param key the key
+   * @return the data object or <code>null</code> if there is no data object with this key
+   */
+  public T getByKey(final Object key) {
+    return index.get(key);
+  }
+
+  @Override
+  public T get(final int position) {
+    return elements.get(position);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public T set(final int position, final T element) {
+    final T previous = elements.set(position, element);
+    removeFromIndex(previous);
+    index.put(getKey(element), element);
+    return previous;
+  }
+
+  @Override
+  public void add(final int position, final T element) {
+    elements.add(position, element);
+    index.put(getKey(element), element);
+  }
+
+  @Override
+  public T remove(final int position) {
+    final T element = elements.remove(position);
+    removeFromIndex(element);
+    return element;
+  }
+
+  @Override
+  public void clear() {
+    elements.clear();
+    index.clear();
+  }
+
+  private void removeFromIndex(final T element) {
+    final Object key = getKey(element);
+    if (index.get(key) == element) {
+      index.remove(key);
+    }
+  }
+}
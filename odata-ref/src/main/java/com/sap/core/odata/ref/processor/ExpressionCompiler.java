@@ -0,0 +1,563 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import com.sap.core.odata.api.edm.EdmException;
+import com.sap.core.odata.api.edm.EdmFacets;
+import com.sap.core.odata.api.edm.EdmLiteralKind;
+import com.sap.core.odata.api.edm.EdmProperty;
+import com.sap.core.odata.api.edm.EdmSimpleType;
+import com.sap.core.odata.api.edm.EdmSimpleTypeException;
+import com.sap.core.odata.api.edm.EdmTypeKind;
+import com.sap.core.odata.api.edm.EdmTyped;
+import com.sap.core.odata.api.exception.ODataException;
+import com.sap.core.odata.api.exception.ODataHttpException;
+import com.sap.core.odata.api.exception.ODataNotFoundException;
+import com.sap.core.odata.api.exception.ODataNotImplementedException;
+import com.sap.core.odata.api.uri.expression.BinaryExpression;
+import com.sap.core.odata.api.uri.expression.BinaryOperator;
+import com.sap.core.odata.api.uri.expression.CommonExpression;
+import com.sap.core.odata.api.uri.expression.ExpressionKind;
+import com.sap.core.odata.api.uri.expression.FilterExpression;
+import com.sap.core.odata.api.uri.expression.LiteralExpression;
+import com.sap.core.odata.api.uri.expression.MemberExpression;
+import com.sap.core.odata.api.uri.expression.MethodExpression;
+import com.sap.core.odata.api.uri.expression.MethodOperator;
+import com.sap.core.odata.api.uri.expression.OrderByExpression;
+import com.sap.core.odata.api.uri.expression.OrderExpression;
+import com.sap.core.odata.api.uri.expression.PropertyExpression;
+import com.sap.core.odata.api.uri.expression.SortOrder;
+import com.sap.core.odata.api.uri.expression.UnaryExpression;
+import com.sap.core.odata.api.uri.expression.UnaryOperator;
+
+/**
+ * Compiles $filter and $orderby expressions into evaluators
+ * for the data objects of the in-memory reference scenario.
+ * <p>The expression tree is translated once into a tree of typed evaluation nodes.
+ * Literals are converted at compile time and getter methods are looked up
+ * only once per data class, so evaluating an expression for a data object
+ * needs neither string conversions nor repeated reflective lookups.</p>
+ * <p>Values are represented as {@link Boolean}, {@link Long} (integer types),
+ * {@link Double} (decimal and floating-point types), and {@link String};
+ * values of all other types are represented by their default literal.</p>
+ * @author SAP AG
+ */
+public final class ExpressionCompiler {
+
+  private ExpressionCompiler() {}
+
+  /**
+   * Compiles a filter expression.
+   * @param filter the parsed $filter expression
+   * @return the compiled {@link Filter}
+   * @throws ODataException if the expression contains unsupported parts
+   */
+  public static Filter compileFilter(final FilterExpression filter) throws ODataException {
+    return new Filter(compile(filter.getExpression()));
+  }
+
+  /**
+   * Compiles an orderby expression.
+   * @param orderBy the parsed $orderby expression
+   * @return the compiled {@link Order}
+   * @throws ODataException if the expression contains unsupported parts
+   */
+  public static Order compileOrderBy(final OrderByExpression orderBy) throws ODataException {
+    final List<OrderExpression> orders = orderBy.getOrders();
+    Node[] keys = new Node[orders.size()];
+    boolean[] descending = new boolean[orders.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = compile(orders.get(i).getExpression());
+      descending[i] = orders.get(i).getSortOrder() == SortOrder.desc;
+    }
+    return new Order(keys, descending);
+  }
+
+  /**
+   * Compiled $filter expression.
+   */
+  public static final class Filter {
+
+    private final Node expression;
+
+    private Filter(final Node expression) {
+      this.expression = expression;
+    }
+
+    /**
+     * Evaluates the filter for a data object.
+     * @param data the data object
+     * @return whether the filter applies to the data object
+     * @throws ODataException if a property value could not be retrieved
+     */
+    public boolean matches(final Object data) throws ODataException {
+      return Boolean.TRUE.equals(expression.evaluate(data));
+    }
+  }
+
+  /**
+   * Compiled $orderby expression.
+   * <p>Sort keys are computed once per data object with {@link #getSortKey(Object)};
+   * as {@link Comparator} this class compares such sort keys.</p>
+   */
+  public static final class Order implements Comparator<Object[]> {
+
+    private final Node[] keys;
+    private final boolean[] descending;
+
+    private Order(final Node[] keys, final boolean[] descending) {
+      this.keys = keys;
+      this.descending = descending;
+    }
+
+    /**
+     * Computes the sort key of a data object.
+     * @param data the data object
+     * @return the values of all order expressions
+     * @throws ODataException if a property value could not be retrieved
+     */
+    public Object[] getSortKey(final Object data) throws ODataException {
+      Object[] sortKey = new Object[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        sortKey[i] = keys[i].evaluate(data);
+      }
+      return sortKey;
+    }
+
+    @Override
+    public int compare(final Object[] sortKey1, final Object[] sortKey2) {
+      for (int i = 0; i < keys.length; i++) {
+        final int result = compareValues(sortKey1[i], sortKey2[i]);
+        if (result != 0) {
+          return descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+  }
+
+  private static abstract class Node {
+    abstract Object evaluate(Object data) throws ODataException;
+  }
+
+  private static Node compile(final CommonExpression expression) throws ODataException {
+    switch (expression.getKind()) {
+    case UNARY:
+      final UnaryExpression unaryExpression = (UnaryExpression) expression;
+      if (unaryExpression.getOperator() == UnaryOperator.NOT || unaryExpression.getOperator() == UnaryOperator.MINUS) {
+        return new UnaryNode(unaryExpression.getOperator(), compile(unaryExpression.getOperand()));
+      } else {
+        throw new ODataNotImplementedException();
+      }
+
+    case BINARY:
+      final BinaryExpression binaryExpression = (BinaryExpression) expression;
+      final Node left = compile(binaryExpression.getLeftOperand());
+      final Node right = compile(binaryExpression.getRightOperand());
+      switch (binaryExpression.getOperator()) {
+      case ADD:
+      case SUB:
+      case MUL:
+      case DIV:
+      case MODULO:
+        return new ArithmeticNode(binaryExpression.getOperator(), left, right);
+      case AND:
+      case OR:
+        return new LogicalNode(binaryExpression.getOperator() == BinaryOperator.AND, left, right);
+      case EQ:
+      case NE:
+      case LT:
+      case LE:
+      case GT:
+      case GE:
+        return new ComparisonNode(binaryExpression.getOperator(), left, right);
+      default:
+        throw new ODataNotImplementedException();
+      }
+
+    case PROPERTY:
+      final EdmTyped property = ((PropertyExpression) expression).getEdmProperty();
+      if (property.getType().getKind() != EdmTypeKind.SIMPLE) {
+        throw new ODataNotImplementedException();
+      }
+      return new PropertyNode(getGetterMethodNames(property), (EdmSimpleType) property.getType(), ((EdmProperty) property).getFacets());
+
+    case MEMBER:
+      final MemberExpression memberExpression = (MemberExpression) expression;
+      final EdmProperty memberProperty = (EdmProperty) ((PropertyExpression) memberExpression.getProperty()).getEdmProperty();
+      if (memberProperty.getType().getKind() != EdmTypeKind.SIMPLE) {
+        throw new ODataNotImplementedException();
+      }
+      List<String> methodNames = new ArrayList<String>();
+      CommonExpression currentExpression = memberExpression;
+      while (currentExpression != null) {
+        final PropertyExpression currentPropertyExpression =
+            (PropertyExpression) (currentExpression.getKind() == ExpressionKind.MEMBER ?
+                ((MemberExpression) currentExpression).getProperty() : currentExpression);
+        methodNames.addAll(0, getGetterMethodNames(currentPropertyExpression.getEdmProperty()));
+        currentExpression = currentExpression.getKind() == ExpressionKind.MEMBER ? ((MemberExpression) currentExpression).getPath() : null;
+      }
+      return new PropertyNode(methodNames, (EdmSimpleType) memberProperty.getType(), memberProperty.getFacets());
+
+    case LITERAL:
+      final LiteralExpression literal = (LiteralExpression) expression;
+      final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
+      final Object value = normalize(
+          literalType.valueOfString(literal.getUriLiteral(), EdmLiteralKind.URI, null, literalType.getDefaultType()),
+          literalType, null);
+      return new Node() {
+        @Override
+        Object evaluate(final Object data) {
+          return value;
+        }
+      };
+
+    case METHOD:
+      final MethodExpression methodExpression = (MethodExpression) expression;
+      Node[] parameters = new Node[methodExpression.getParameterCount()];
+      for (int i = 0; i < parameters.length; i++) {
+        parameters[i] = compile(methodExpression.getParameters().get(i));
+      }
+      switch (methodExpression.getMethod()) {
+      case ENDSWITH:
+      case INDEXOF:
+      case STARTSWITH:
+      case TOLOWER:
+      case TOUPPER:
+      case TRIM:
+      case SUBSTRING:
+      case SUBSTRINGOF:
+      case CONCAT:
+      case LENGTH:
+      case YEAR:
+      case MONTH:
+      case DAY:
+      case HOUR:
+      case MINUTE:
+      case SECOND:
+      case ROUND:
+      case FLOOR:
+      case CEILING:
+        return new MethodNode(methodExpression.getMethod(), parameters);
+      default:
+        throw new ODataNotImplementedException();
+      }
+
+    default:
+      throw new ODataNotImplementedException();
+    }
+  }
+
+  private static List<String> getGetterMethodNames(final EdmTyped property) throws EdmException, ODataNotImplementedException {
+    final EdmTypeKind kind = property.getType().getKind();
+    if (kind == EdmTypeKind.SIMPLE || kind == EdmTypeKind.COMPLEX) {
+      return Arrays.asList(ListsProcessor.getGetterMethodName((EdmProperty) property).split("\\.", -1));
+    } else {
+      throw new ODataNotImplementedException();
+    }
+  }
+
+  /**
+   * Converts a value into the internal representation.
+   */
+  private static Object normalize(final Object value, final EdmSimpleType type, final EdmFacets facets) throws EdmSimpleTypeException {
+    if (value == null || value instanceof Boolean || value instanceof Long || value instanceof Double || value instanceof String) {
+      return value;
+    } else if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof BigInteger) {
+      return ((Number) value).longValue();
+    } else if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    } else if (value instanceof Character) {
+      return value.toString();
+    } else {
+      return type.valueToString(value, EdmLiteralKind.DEFAULT, facets);
+    }
+  }
+
+  /**
+   * Compares two values in their internal representation;
+   * <code>null</code> is considered smaller than all other values.
+   */
+  private static int compareValues(final Object value1, final Object value2) {
+    if (value1 == null || value2 == null) {
+      return value1 == null ? value2 == null ? 0 : -1 : 1;
+    } else if (value1 instanceof Long && value2 instanceof Long) {
+      return ((Long) value1).compareTo((Long) value2);
+    } else if (value1 instanceof Number && value2 instanceof Number) {
+      return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+    } else if (value1 instanceof Boolean && value2 instanceof Boolean) {
+      return ((Boolean) value1).compareTo((Boolean) value2);
+    } else {
+      return value1.toString().compareTo(value2.toString());
+    }
+  }
+
+  private static final class UnaryNode extends Node {
+    private final UnaryOperator operator;
+    private final Node operand;
+
+    UnaryNode(final UnaryOperator operator, final Node operand) {
+      this.operator = operator;
+      this.operand = operand;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object value = operand.evaluate(data);
+      if (operator == UnaryOperator.NOT) {
+        return !(Boolean) value;
+      } else if (value instanceof Long) {
+        return -(Long) value;
+      } else {
+        return -((Number) value).doubleValue();
+      }
+    }
+  }
+
+  private static final class ArithmeticNode extends Node {
+    private final BinaryOperator operator;
+    private final Node left;
+    private final Node right;
+
+    ArithmeticNode(final BinaryOperator operator, final Node left, final Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Number leftValue = (Number) left.evaluate(data);
+      final Number rightValue = (Number) right.evaluate(data);
+      if (operator != BinaryOperator.DIV && leftValue instanceof Long && rightValue instanceof Long) {
+        final long leftLong = leftValue.longValue();
+        final long rightLong = rightValue.longValue();
+        switch (operator) {
+        case ADD:
+          return leftLong + rightLong;
+        case SUB:
+          return leftLong - rightLong;
+        case MUL:
+          return leftLong * rightLong;
+        default:
+          return leftLong % rightLong;
+        }
+      } else {
+        final double leftDouble = leftValue.doubleValue();
+        final double rightDouble = rightValue.doubleValue();
+        switch (operator) {
+        case ADD:
+          return leftDouble + rightDouble;
+        case SUB:
+          return leftDouble - rightDouble;
+        case MUL:
+          return leftDouble * rightDouble;
+        case DIV:
+          return leftDouble / rightDouble;
+        default:
+          return leftDouble % rightDouble;
+        }
+      }
+    }
+  }
+
+  private static final class LogicalNode extends Node {
+    private final boolean and;
+    private final Node left;
+    private final Node right;
+
+    LogicalNode(final boolean and, final Node left, final Node right) {
+      this.and = and;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final boolean leftValue = Boolean.TRUE.equals(left.evaluate(data));
+      if (and) {
+        return leftValue && Boolean.TRUE.equals(right.evaluate(data));
+      } else {
+        return leftValue || Boolean.TRUE.equals(right.evaluate(data));
+      }
+    }
+  }
+
+  private static final class ComparisonNode extends Node {
+    private final BinaryOperator operator;
+    private final Node left;
+    private final Node right;
+
+    ComparisonNode(final BinaryOperator operator, final Node left, final Node right) {
+      this.operator = operator;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object leftValue = left.evaluate(data);
+      final Object rightValue = right.evaluate(data);
+      if (operator == BinaryOperator.EQ) {
+        return compareValues(leftValue, rightValue) == 0;
+      } else if (operator == BinaryOperator.NE) {
+        return compareValues(leftValue, rightValue) != 0;
+      } else if (leftValue == null || rightValue == null) {
+        return false;
+      }
+      final int result = compareValues(leftValue, rightValue);
+      switch (operator) {
+      case LT:
+        return result < 0;
+      case LE:
+        return result <= 0;
+      case GT:
+        return result > 0;
+      default:
+        return result >= 0;
+      }
+    }
+  }
+
+  private static final class PropertyNode extends Node {
+    private final String[] methodNames;
+    private final Accessor[] accessors;
+    private final EdmSimpleType type;
+    private final EdmFacets facets;
+
+    PropertyNode(final List<String> methodNames, final EdmSimpleType type, final EdmFacets facets) {
+      this.methodNames = methodNames.toArray(new String[methodNames.size()]);
+      accessors = new Accessor[this.methodNames.length];
+      this.type = type;
+      this.facets = facets;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      Object value = data;
+      for (int i = 0; i < methodNames.length && value != null; i++) {
+        Accessor accessor = accessors[i];
+        if (accessor == null || accessor.type != value.getClass()) {
+          accessor = new Accessor(value.getClass(), methodNames[i]);
+          accessors[i] = accessor;
+        }
+        value = accessor.invoke(value);
+      }
+      return normalize(value, type, facets);
+    }
+  }
+
+  /**
+   * Getter method resolved for one data class.
+   */
+  private static final class Accessor {
+    private final Class<?> type;
+    private final Method method;
+
+    Accessor(final Class<?> type, final String methodName) throws ODataNotFoundException {
+      this.type = type;
+      try {
+        method = type.getMethod(methodName);
+      } catch (SecurityException e) {
+        throw new ODataNotFoundException(ODataHttpException.COMMON, e);
+      } catch (NoSuchMethodException e) {
+        throw new ODataNotFoundException(ODataHttpException.COMMON, e);
+      }
+    }
+
+    Object invoke(final Object data) throws ODataNotFoundException {
+      try {
+        return method.invoke(data);
+      } catch (IllegalArgumentException e) {
+        throw new ODataNotFoundException(ODataHttpException.COMMON, e);
+      } catch (IllegalAccessException e) {
+        throw new ODataNotFoundException(ODataHttpException.COMMON, e);
+      } catch (InvocationTargetException e) {
+        throw new ODataNotFoundException(ODataHttpException.COMMON, e);
+      }
+    }
+  }
+
+  private static final class MethodNode extends Node {
+    private final MethodOperator method;
+    private final Node[] parameters;
+
+    MethodNode(final MethodOperator method, final Node[] parameters) {
+      this.method = method;
+      this.parameters = parameters;
+    }
+
+    @Override
+    Object evaluate(final Object data) throws ODataException {
+      final Object first = parameters[0].evaluate(data);
+      final Object second = parameters.length > 1 ? parameters[1].evaluate(data) : null;
+      final Object third = parameters.length > 2 ? parameters[2].evaluate(data) : null;
+
+      switch (method) {
+      case ENDSWITH:
+        return ((String) first).endsWith((String) second);
+      case INDEXOF:
+        return (long) ((String) first).indexOf((String) second);
+      case STARTSWITH:
+        return ((String) first).startsWith((String) second);
+      case TOLOWER:
+        return ((String) first).toLowerCase(Locale.ROOT);
+      case TOUPPER:
+        return ((String) first).toUpperCase(Locale.ROOT);
+      case TRIM:
+        return ((String) first).trim();
+      case SUBSTRING:
+        final int offset = ((Number) second).intValue();
+        return third == null ?
+            ((String) first).substring(offset) :
+            ((String) first).substring(offset, offset + ((Number) third).intValue());
+      case SUBSTRINGOF:
+        return ((String) second).contains((String) first);
+      case CONCAT:
+        return (String) first + (String) second;
+      case LENGTH:
+        return (long) ((String) first).length();
+      case YEAR:
+        return Long.valueOf(((String) first).substring(0, 4));
+      case MONTH:
+        return Long.valueOf(((String) first).substring(5, 7));
+      case DAY:
+        return Long.valueOf(((String) first).substring(8, 10));
+      case HOUR:
+        return Long.valueOf(((String) first).substring(11, 13));
+      case MINUTE:
+        return Long.valueOf(((String) first).substring(14, 16));
+      case SECOND:
+        return Long.valueOf(((String) first).substring(17, 19));
+      case ROUND:
+        return first instanceof Long ? first : Math.round(((Number) first).doubleValue());
+      case FLOOR:
+        return first instanceof Long ? first : Math.round(Math.floor(((Number) first).doubleValue()));
+      default:
+        return first instanceof Long ? first : Math.round(Math.ceil(((Number) first).doubleValue()));
+      }
+    }
+  }
+}
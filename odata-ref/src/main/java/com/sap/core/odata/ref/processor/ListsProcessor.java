@@ -25,14 +25,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.PriorityQueue;
 
 import com.sap.core.odata.api.ODataCallback;
 import com.sap.core.odata.api.batch.BatchHandler;
-import com.sap.core.odata.api.batch.BatchPart;
 import com.sap.core.odata.api.batch.BatchResponsePart;
 import com.sap.core.odata.api.commons.HttpContentType;
 import com.sap.core.odata.api.commons.HttpStatusCodes;
@@ -54,9 +53,7 @@ import com.sap.core.odata.api.edm.EdmSimpleTypeKind;
 import com.sap.core.odata.api.edm.EdmStructuralType;
 import com.sap.core.odata.api.edm.EdmType;
 import com.sap.core.odata.api.edm.EdmTypeKind;
-import com.sap.core.odata.api.edm.EdmTyped;
 import com.sap.core.odata.api.ep.EntityProvider;
-import com.sap.core.odata.api.ep.EntityProviderBatchProperties;
 import com.sap.core.odata.api.ep.EntityProviderException;
 import com.sap.core.odata.api.ep.EntityProviderReadProperties;
 import com.sap.core.odata.api.ep.EntityProviderWriteProperties;
@@ -74,31 +71,25 @@ import com.sap.core.odata.api.exception.ODataBadRequestException;
 import com.sap.core.odata.api.exception.ODataException;
 import com.sap.core.odata.api.exception.ODataHttpException;
 import com.sap.core.odata.api.exception.ODataNotFoundException;
-import com.sap.core.odata.api.exception.ODataNotImplementedException;
 import com.sap.core.odata.api.processor.ODataContext;
 import com.sap.core.odata.api.processor.ODataContext.RuntimeMeasurement;
+import com.sap.core.odata.api.processor.ODataProcessor;
 import com.sap.core.odata.api.processor.ODataRequest;
 import com.sap.core.odata.api.processor.ODataResponse;
 import com.sap.core.odata.api.processor.ODataSingleProcessor;
+import com.sap.core.odata.api.processor.part.EntityComplexPropertyProcessor;
+import com.sap.core.odata.api.processor.part.EntityMediaProcessor;
+import com.sap.core.odata.api.processor.part.EntityProcessor;
+import com.sap.core.odata.api.processor.part.EntitySimplePropertyProcessor;
+import com.sap.core.odata.api.processor.part.EntitySimplePropertyValueProcessor;
 import com.sap.core.odata.api.uri.ExpandSelectTreeNode;
 import com.sap.core.odata.api.uri.KeyPredicate;
 import com.sap.core.odata.api.uri.NavigationSegment;
-import com.sap.core.odata.api.uri.PathInfo;
 import com.sap.core.odata.api.uri.PathSegment;
 import com.sap.core.odata.api.uri.UriInfo;
 import com.sap.core.odata.api.uri.UriParser;
-import com.sap.core.odata.api.uri.expression.BinaryExpression;
-import com.sap.core.odata.api.uri.expression.CommonExpression;
-import com.sap.core.odata.api.uri.expression.ExpressionKind;
 import com.sap.core.odata.api.uri.expression.FilterExpression;
-import com.sap.core.odata.api.uri.expression.LiteralExpression;
-import com.sap.core.odata.api.uri.expression.MemberExpression;
-import com.sap.core.odata.api.uri.expression.MethodExpression;
 import com.sap.core.odata.api.uri.expression.OrderByExpression;
-import com.sap.core.odata.api.uri.expression.OrderExpression;
-import com.sap.core.odata.api.uri.expression.PropertyExpression;
-import com.sap.core.odata.api.uri.expression.SortOrder;
-import com.sap.core.odata.api.uri.expression.UnaryExpression;
 import com.sap.core.odata.api.uri.info.DeleteUriInfo;
 import com.sap.core.odata.api.uri.info.GetComplexPropertyUriInfo;
 import com.sap.core.odata.api.uri.info.GetEntityCountUriInfo;
@@ -114,6 +105,8 @@ import com.sap.core.odata.api.uri.info.GetMediaResourceUriInfo;
 import com.sap.core.odata.api.uri.info.GetSimplePropertyUriInfo;
 import com.sap.core.odata.api.uri.info.PostUriInfo;
 import com.sap.core.odata.api.uri.info.PutMergePatchUriInfo;
+import com.sap.core.odata.ref.processor.ExpressionCompiler.Filter;
+import com.sap.core.odata.ref.processor.ExpressionCompiler.Order;
 import com.sap.core.odata.ref.processor.ListsDataSource.BinaryData;
 
 /**
@@ -172,7 +165,7 @@ public class ListsProcessor extends ODataSingleProcessor {
           && uriInfo.getSkipToken() == null
           && uriInfo.getSkip() == null
           && uriInfo.getTop() == null) {
-        sortInDefaultOrder(entitySet, data);
+        sortInDefaultOrder(entitySet, data, SERVER_PAGING_SIZE + 1);
       }
 
       // TODO: Percent-encode "next" link.
@@ -183,9 +176,7 @@ public class ListsProcessor extends ODataSingleProcessor {
       nextLink += (nextLink.contains("?") ? "&" : "?")
           + "$skiptoken=" + getSkipToken(entitySet, data.get(SERVER_PAGING_SIZE));
 
-      while (data.size() > SERVER_PAGING_SIZE) {
-        data.remove(SERVER_PAGING_SIZE);
-      }
+      data.subList(SERVER_PAGING_SIZE, data.size()).clear();
     }
 
     final EdmEntityType entityType = entitySet.getEntityType();
@@ -875,6 +866,27 @@ public class ListsProcessor extends ODataSingleProcessor {
     return ODataResponse.fromResponse(response).build();
   }
 
+  @Override
+  public String getETag(final Class<? extends ODataProcessor> processorFeature, final UriInfo uriInfo, final String contentType) throws ODataException {
+    if (processorFeature != EntityProcessor.class
+        && processorFeature != EntityMediaProcessor.class
+        && processorFeature != EntityComplexPropertyProcessor.class
+        && processorFeature != EntitySimplePropertyProcessor.class
+        && processorFeature != EntitySimplePropertyValueProcessor.class) {
+      return super.getETag(processorFeature, uriInfo, contentType);
+    }
+
+    final Object data = retrieveData(
+        uriInfo.getStartEntitySet(),
+        uriInfo.getKeyPredicates(),
+        uriInfo.getFunctionImport(),
+        mapFunctionParameters(uriInfo.getFunctionImportParameters()),
+        uriInfo.getNavigationSegments());
+
+    // The processor method will report a non-matching entity as not found.
+    return appliesFilter(data, uriInfo.getFilter()) ? constructETag(uriInfo.getTargetEntitySet(), data) : null;
+  }
+
   private static Map<String, Object> mapKey(final List<KeyPredicate> keys) throws EdmException {
     Map<String, Object> keyMap = new HashMap<String, Object>();
     for (final KeyPredicate key : keys) {
@@ -1172,93 +1184,145 @@ public class ListsProcessor extends ODataSingleProcessor {
     final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "applySystemQueryOptions");
 
     if (filter != null) {
-      // Remove all elements the filter does not apply for.
-      // A for-each loop would not work with "remove", see Java documentation.
-      for (Iterator<T> iterator = data.iterator(); iterator.hasNext();) {
-        if (!appliesFilter(iterator.next(), filter)) {
-          iterator.remove();
+      final Filter compiledFilter = ExpressionCompiler.compileFilter(filter);
+      // Keep all elements the filter applies for, moving them to the front in one pass.
+      int size = 0;
+      for (int index = 0; index < data.size(); index++) {
+        final T element = data.get(index);
+        if (appliesFilter(element, compiledFilter)) {
+          data.set(size++, element);
         }
       }
+      data.subList(size, data.size()).clear();
     }
 
     final Integer count = inlineCount == InlineCount.ALLPAGES ? data.size() : null;
 
-    if (orderBy != null) {
-      sort(data, orderBy);
-    } else if (skipToken != null || skip != null || top != null) {
-      sortInDefaultOrder(entitySet, data);
-    }
+    // Without a skip token only the first $skip + $top elements can be part of the result.
+    final int limit = skipToken == null && top != null ?
+        (int) Math.min((long) (skip == null ? 0 : skip) + top, data.size()) :
+        data.size();
 
-    if (skipToken != null) {
-      while (!data.isEmpty() && !getSkipToken(entitySet, data.get(0)).equals(skipToken)) {
-        data.remove(0);
+    if (orderBy != null) {
+      final Order order = ExpressionCompiler.compileOrderBy(orderBy);
+      List<Object[]> sortKeys = new ArrayList<Object[]>(data.size());
+      for (final T element : data) {
+        sortKeys.add(order.getSortKey(element));
       }
-    }
-
-    if (skip != null) {
-      if (skip >= data.size()) {
-        data.clear();
-      } else {
-        for (int i = 0; i < skip; i++) {
-          data.remove(0);
+      sort(data, sortKeys, order, limit);
+      if (skipToken != null) {
+        // The data are not sorted by skip token, so the position must be searched sequentially.
+        int position = 0;
+        while (position < data.size() && !getSkipToken(entitySet, data.get(position)).equals(skipToken)) {
+          position++;
         }
+        data.subList(0, position).clear();
       }
-    }
-
-    if (top != null) {
-      while (data.size() > top) {
-        data.remove(top.intValue());
+    } else if (skipToken != null || skip != null || top != null) {
+      final List<String> skipTokens = sortInDefaultOrder(entitySet, data, limit);
+      if (skipToken != null) {
+        final int position = Collections.binarySearch(skipTokens, skipToken);
+        data.subList(0, position < 0 ? data.size() : position).clear();
       }
     }
 
+    final int from = skip == null ? 0 : Math.min(skip, data.size());
+    final int to = top == null ? data.size() : (int) Math.min((long) from + top, data.size());
+    data.subList(to, data.size()).clear();
+    data.subList(0, from).clear();
+
     context.stopRuntimeMeasurement(timingHandle);
 
     return count;
   }
 
-  private static <T> void sort(final List<T> data, final OrderByExpression orderBy) {
-    Collections.sort(data, new Comparator<T>() {
+  private static <T> List<String> sortInDefaultOrder(final EdmEntitySet entitySet, final List<T> data, final int limit) throws ODataException {
+    List<String> skipTokens = new ArrayList<String>(data.size());
+    for (final T element : data) {
+      skipTokens.add(getSkipToken(entitySet, element));
+    }
+    return sort(data, skipTokens, new Comparator<String>() {
       @Override
-      public int compare(final T entity1, final T entity2) {
-        try {
-          int result = 0;
-          for (final OrderExpression expression : orderBy.getOrders()) {
-            result = evaluateExpression(entity1, expression.getExpression()).compareTo(
-                evaluateExpression(entity2, expression.getExpression()));
-            if (expression.getSortOrder() == SortOrder.desc) {
-              result = -result;
-            }
-            if (result != 0) {
-              break;
-            }
-          }
-          return result;
-        } catch (final ODataException e) {
-          return 0;
-        }
+      public int compare(final String skipToken1, final String skipToken2) {
+        return skipToken1.compareTo(skipToken2);
       }
-    });
+    }, limit);
   }
 
-  private static <T> void sortInDefaultOrder(final EdmEntitySet entitySet, final List<T> data) {
-    Collections.sort(data, new Comparator<T>() {
+  /**
+   * Sorts the data stably according to the given sort keys and keeps only
+   * the first <code>limit</code> elements.
+   * If not all elements are needed, they are selected with a bounded heap
+   * so that the remaining elements are never sorted.
+   * @param data the elements; they are sorted and truncated in place
+   * @param sortKeys the sort keys of the elements, in the same order
+   * @param comparator the comparator for the sort keys
+   * @param limit the maximum number of elements to keep
+   * @return the sort keys of the kept elements, in sorted order
+   */
+  private static <T, K> List<K> sort(final List<T> data, final List<K> sortKeys, final Comparator<? super K> comparator, final int limit) {
+    final Comparator<SortEntry<T, K>> entryComparator = new Comparator<SortEntry<T, K>>() {
       @Override
-      public int compare(final T entity1, final T entity2) {
-        try {
-          return getSkipToken(entitySet, entity1).compareTo(getSkipToken(entitySet, entity2));
-        } catch (final ODataException e) {
-          return 0;
+      public int compare(final SortEntry<T, K> entry1, final SortEntry<T, K> entry2) {
+        final int result = comparator.compare(entry1.key, entry2.key);
+        return result == 0 ? entry1.index - entry2.index : result;
+      }
+    };
+
+    List<SortEntry<T, K>> entries;
+    if (limit < data.size()) {
+      PriorityQueue<SortEntry<T, K>> heap = new PriorityQueue<SortEntry<T, K>>(limit + 1, Collections.reverseOrder(entryComparator));
+      for (int index = 0; index < data.size(); index++) {
+        final K key = sortKeys.get(index);
+        // Elements are visited in their original order, so an equal key
+        // never replaces an element already in the heap.
+        if (heap.size() < limit) {
+          heap.add(new SortEntry<T, K>(key, index, data.get(index)));
+        } else if (limit > 0 && comparator.compare(key, heap.peek().key) < 0) {
+          heap.poll();
+          heap.add(new SortEntry<T, K>(key, index, data.get(index)));
         }
       }
-    });
+      entries = new ArrayList<SortEntry<T, K>>(heap);
+    } else {
+      entries = new ArrayList<SortEntry<T, K>>(data.size());
+      for (int index = 0; index < data.size(); index++) {
+        entries.add(new SortEntry<T, K>(sortKeys.get(index), index, data.get(index)));
+      }
+    }
+    Collections.sort(entries, entryComparator);
+
+    List<K> sortedKeys = new ArrayList<K>(entries.size());
+    for (int index = 0; index < entries.size(); index++) {
+      data.set(index, entries.get(index).data);
+      sortedKeys.add(entries.get(index).key);
+    }
+    data.subList(entries.size(), data.size()).clear();
+    return sortedKeys;
+  }
+
+  private static final class SortEntry<T, K> {
+    private final K key;
+    private final int index;
+    private final T data;
+
+    private SortEntry(final K key, final int index, final T data) {
+      this.key = key;
+      this.index = index;
+      this.data = data;
+    }
   }
 
   private <T> boolean appliesFilter(final T data, final FilterExpression filter) throws ODataException {
+    return appliesFilter(data, filter == null ? null : ExpressionCompiler.compileFilter(filter));
+  }
+
+  private <T> boolean appliesFilter(final T data, final Filter filter) throws ODataException {
     ODataContext context = getContext();
     final int timingHandle = context.startRuntimeMeasurement(getClass().getSimpleName(), "appliesFilter");
 
     try {
-      return data != null && (filter == null || evaluateExpression(data, filter.getExpression()).equals("true"));
+      return data != null && (filter == null || filter.matches(data));
     } catch (final RuntimeException e) {
       return false;
     } finally {
@@ -1266,207 +1330,6 @@ public class ListsProcessor extends ODataSingleProcessor {
     }
   }
 
-  private static <T> String evaluateExpression(final T data, final CommonExpression expression) throws ODataException {
-    switch (expression.getKind()) {
-    case UNARY:
-      final UnaryExpression unaryExpression = (UnaryExpression) expression;
-      final String operand = evaluateExpression(data, unaryExpression.getOperand());
-
-      switch (unaryExpression.getOperator()) {
-      case NOT:
-        return Boolean.toString(!Boolean.parseBoolean(operand));
-      case MINUS:
-        return operand.startsWith("-") ? operand.substring(1) : "-" + operand;
-      default:
-        throw new ODataNotImplementedException();
-      }
-
-    case BINARY:
-      final BinaryExpression binaryExpression = (BinaryExpression) expression;
-      final EdmSimpleType type = (EdmSimpleType) binaryExpression.getLeftOperand().getEdmType();
-      final String left = evaluateExpression(data, binaryExpression.getLeftOperand());
-      final String right = evaluateExpression(data, binaryExpression.getRightOperand());
-
-      switch (binaryExpression.getOperator()) {
-      case ADD:
-        if (binaryExpression.getEdmType() == EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Double.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Single.getEdmSimpleTypeInstance()) {
-          return Double.toString(Double.valueOf(left) + Double.valueOf(right));
-        } else {
-          return Long.toString(Long.valueOf(left) + Long.valueOf(right));
-        }
-      case SUB:
-        if (binaryExpression.getEdmType() == EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Double.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Single.getEdmSimpleTypeInstance()) {
-          return Double.toString(Double.valueOf(left) - Double.valueOf(right));
-        } else {
-          return Long.toString(Long.valueOf(left) - Long.valueOf(right));
-        }
-      case MUL:
-        if (binaryExpression.getEdmType() == EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Double.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Single.getEdmSimpleTypeInstance()) {
-          return Double.toString(Double.valueOf(left) * Double.valueOf(right));
-        } else {
-          return Long.toString(Long.valueOf(left) * Long.valueOf(right));
-        }
-      case DIV:
-        final String number = Double.toString(Double.valueOf(left) / Double.valueOf(right));
-        return number.endsWith(".0") ? number.replace(".0", "") : number;
-      case MODULO:
-        if (binaryExpression.getEdmType() == EdmSimpleTypeKind.Decimal.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Double.getEdmSimpleTypeInstance()
-            || binaryExpression.getEdmType() == EdmSimpleTypeKind.Single.getEdmSimpleTypeInstance()) {
-          return Double.toString(Double.valueOf(left) % Double.valueOf(right));
-        } else {
-          return Long.toString(Long.valueOf(left) % Long.valueOf(right));
-        }
-      case AND:
-        return Boolean.toString(left.equals("true") && right.equals("true"));
-      case OR:
-        return Boolean.toString(left.equals("true") || right.equals("true"));
-      case EQ:
-        return Boolean.toString(left.equals(right));
-      case NE:
-        return Boolean.toString(!left.equals(right));
-      case LT:
-        if (type == EdmSimpleTypeKind.String.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Guid.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Time.getEdmSimpleTypeInstance()) {
-          return Boolean.toString(left.compareTo(right) < 0);
-        } else {
-          return Boolean.toString(Double.valueOf(left) < Double.valueOf(right));
-        }
-      case LE:
-        if (type == EdmSimpleTypeKind.String.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Guid.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Time.getEdmSimpleTypeInstance()) {
-          return Boolean.toString(left.compareTo(right) <= 0);
-        } else {
-          return Boolean.toString(Double.valueOf(left) <= Double.valueOf(right));
-        }
-      case GT:
-        if (type == EdmSimpleTypeKind.String.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Guid.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Time.getEdmSimpleTypeInstance()) {
-          return Boolean.toString(left.compareTo(right) > 0);
-        } else {
-          return Boolean.toString(Double.valueOf(left) > Double.valueOf(right));
-        }
-      case GE:
-        if (type == EdmSimpleTypeKind.String.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTime.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.DateTimeOffset.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Guid.getEdmSimpleTypeInstance()
-            || type == EdmSimpleTypeKind.Time.getEdmSimpleTypeInstance()) {
-          return Boolean.toString(left.compareTo(right) >= 0);
-        } else {
-          return Boolean.toString(Double.valueOf(left) >= Double.valueOf(right));
-        }
-      case PROPERTY_ACCESS:
-        throw new ODataNotImplementedException();
-      default:
-        throw new ODataNotImplementedException();
-      }
-
-    case PROPERTY:
-      final EdmProperty property = (EdmProperty) ((PropertyExpression) expression).getEdmProperty();
-      final EdmSimpleType propertyType = (EdmSimpleType) property.getType();
-      return propertyType.valueToString(getPropertyValue(data, property), EdmLiteralKind.DEFAULT, property.getFacets());
-
-    case MEMBER:
-      final MemberExpression memberExpression = (MemberExpression) expression;
-      final PropertyExpression propertyExpression = (PropertyExpression) memberExpression.getProperty();
-      final EdmProperty memberProperty = (EdmProperty) propertyExpression.getEdmProperty();
-      final EdmSimpleType memberType = (EdmSimpleType) memberExpression.getEdmType();
-      List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
-      CommonExpression currentExpression = memberExpression;
-      while (currentExpression != null) {
-        final PropertyExpression currentPropertyExpression =
-            (PropertyExpression) (currentExpression.getKind() == ExpressionKind.MEMBER ?
-                ((MemberExpression) currentExpression).getProperty() : currentExpression);
-        final EdmTyped currentProperty = currentPropertyExpression.getEdmProperty();
-        final EdmTypeKind kind = currentProperty.getType().getKind();
-        if (kind == EdmTypeKind.SIMPLE || kind == EdmTypeKind.COMPLEX) {
-          propertyPath.add(0, (EdmProperty) currentProperty);
-        } else {
-          throw new ODataNotImplementedException();
-        }
-        currentExpression = currentExpression.getKind() == ExpressionKind.MEMBER ? ((MemberExpression) currentExpression).getPath() : null;
-      }
-      return memberType.valueToString(getPropertyValue(data, propertyPath), EdmLiteralKind.DEFAULT, memberProperty.getFacets());
-
-    case LITERAL:
-      final LiteralExpression literal = (LiteralExpression) expression;
-      final EdmSimpleType literalType = (EdmSimpleType) literal.getEdmType();
-      return literalType.valueToString(literalType.valueOfString(literal.getUriLiteral(), EdmLiteralKind.URI, null, literalType.getDefaultType()),
-          EdmLiteralKind.DEFAULT, null);
-
-    case METHOD:
-      final MethodExpression methodExpression = (MethodExpression) expression;
-      final String first = evaluateExpression(data, methodExpression.getParameters().get(0));
-      final String second = methodExpression.getParameterCount() > 1 ?
-          evaluateExpression(data, methodExpression.getParameters().get(1)) : null;
-      final String third = methodExpression.getParameterCount() > 2 ?
-          evaluateExpression(data, methodExpression.getParameters().get(2)) : null;
-
-      switch (methodExpression.getMethod()) {
-      case ENDSWITH:
-        return Boolean.toString(first.endsWith(second));
-      case INDEXOF:
-        return Integer.toString(first.indexOf(second));
-      case STARTSWITH:
-        return Boolean.toString(first.startsWith(second));
-      case TOLOWER:
-        return first.toLowerCase(Locale.ROOT);
-      case TOUPPER:
-        return first.toUpperCase(Locale.ROOT);
-      case TRIM:
-        return first.trim();
-      case SUBSTRING:
-        final int offset = Integer.parseInt(second);
-        return first.substring(offset, offset + Integer.parseInt(third));
-      case SUBSTRINGOF:
-        return Boolean.toString(second.contains(first));
-      case CONCAT:
-        return first + second;
-      case LENGTH:
-        return Integer.toString(first.length());
-      case YEAR:
-        return String.valueOf(Integer.parseInt(first.substring(0, 4)));
-      case MONTH:
-        return String.valueOf(Integer.parseInt(first.substring(5, 7)));
-      case DAY:
-        return String.valueOf(Integer.parseInt(first.substring(8, 10)));
-      case HOUR:
-        return String.valueOf(Integer.parseInt(first.substring(11, 13)));
-      case MINUTE:
-        return String.valueOf(Integer.parseInt(first.substring(14, 16)));
-      case SECOND:
-        return String.valueOf(Integer.parseInt(first.substring(17, 19)));
-      case ROUND:
-        return Long.toString(Math.round(Double.valueOf(first)));
-      case FLOOR:
-        return Long.toString(Math.round(Math.floor(Double.valueOf(first))));
-      case CEILING:
-        return Long.toString(Math.round(Math.ceil(Double.valueOf(first))));
-      default:
-        throw new ODataNotImplementedException();
-      }
-
-    default:
-      throw new ODataNotImplementedException();
-    }
-  }
-
   private static <T> String getSkipToken(final EdmEntitySet entitySet, final T data) throws ODataException {
     String skipToken = "";
     for (final EdmProperty property : entitySet.getEntityType().getKeyProperties()) {
@@ -1501,7 +1364,7 @@ public class ListsProcessor extends ODataSingleProcessor {
     }
   }
 
-  private static String getGetterMethodName(final EdmProperty property) throws EdmException {
+  static String getGetterMethodName(final EdmProperty property) throws EdmException {
     final String prefix = property.isSimple() && property.getType() == EdmSimpleTypeKind.Boolean.getEdmSimpleTypeInstance() ? "is" : "get";
     final String defaultMethodName = prefix + property.getName();
     return property.getMapping() == null || property.getMapping().getInternalName() == null ?
@@ -1697,16 +1560,7 @@ public class ListsProcessor extends ODataSingleProcessor {
 
   @Override
   public ODataResponse executeBatch(final BatchHandler handler, final String contentType, final InputStream content) throws ODataException {
-    ODataResponse batchResponse;
-    List<BatchResponsePart> batchResponseParts = new ArrayList<BatchResponsePart>();
-    PathInfo pathInfo = getContext().getPathInfo();
-    EntityProviderBatchProperties batchProperties = EntityProviderBatchProperties.init().pathInfo(pathInfo).build();
-    List<BatchPart> batchParts = EntityProvider.parseBatchRequest(contentType, content, batchProperties);
-    for (BatchPart batchPart : batchParts) {
-      batchResponseParts.add(handler.handleBatchPart(batchPart));
-    }
-    batchResponse = EntityProvider.writeBatchResponse(batchResponseParts);
-    return batchResponse;
+    return executeBatchParts(handler, contentType, content);
   }
 
   @Override
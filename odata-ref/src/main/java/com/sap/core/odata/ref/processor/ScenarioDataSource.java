@@ -80,57 +80,27 @@ public class ScenarioDataSource implements ListsDataSource {
 
   @Override
   public Object readData(final EdmEntitySet entitySet, final Map<String, Object> keys) throws ODataNotImplementedException, ODataNotFoundException, EdmException {
+    Object data;
     if (ENTITYSET_1_1.equals(entitySet.getName())) {
-      for (final Employee employee : dataContainer.getEmployees()) {
-        if (employee.getId().equals(keys.get("EmployeeId"))) {
-          return employee;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = dataContainer.getEmployee((String) keys.get("EmployeeId"));
     } else if (ENTITYSET_1_2.equals(entitySet.getName())) {
-      for (final Team team : dataContainer.getTeams()) {
-        if (team.getId().equals(keys.get("Id"))) {
-          return team;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = dataContainer.getTeam((String) keys.get("Id"));
     } else if (ENTITYSET_1_3.equals(entitySet.getName())) {
-      for (final Room room : dataContainer.getRooms()) {
-        if (room.getId().equals(keys.get("Id"))) {
-          return room;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = dataContainer.getRoom((String) keys.get("Id"));
     } else if (ENTITYSET_1_4.equals(entitySet.getName())) {
-      for (final Manager manager : dataContainer.getManagers()) {
-        if (manager.getId().equals(keys.get("EmployeeId"))) {
-          return manager;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = dataContainer.getManager((String) keys.get("EmployeeId"));
     } else if (ENTITYSET_1_5.equals(entitySet.getName())) {
-      for (final Building building : dataContainer.getBuildings()) {
-        if (building.getId().equals(keys.get("Id"))) {
-          return building;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
-
+      data = dataContainer.getBuilding((String) keys.get("Id"));
     } else if (ENTITYSET_2_1.equals(entitySet.getName())) {
-      for (final Photo photo : dataContainer.getPhotos()) {
-        if (photo.getId() == (Integer) keys.get("Id")
-            && photo.getType().equals(keys.get("Type"))) {
-          return photo;
-        }
-      }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      data = dataContainer.getPhoto((Integer) keys.get("Id"), (String) keys.get("Type"));
+    } else {
+      throw new ODataNotImplementedException();
     }
 
-    throw new ODataNotImplementedException();
+    if (data == null) {
+      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+    }
+    return data;
   }
 
   @Override
@@ -151,10 +121,12 @@ public class ScenarioDataSource implements ListsDataSource {
       if (targetKeys.isEmpty()) {
         return Arrays.asList(data.toArray());
       } else {
-        for (final Object employee : data) {
-          if (((Employee) employee).getId().equals(targetKeys.get("EmployeeId"))) {
-            return employee;
-          }
+        final Employee employee = dataContainer.getEmployee((String) targetKeys.get("EmployeeId"));
+        if (employee != null
+            && (ENTITYSET_1_2.equals(sourceEntitySet.getName()) && employee.getTeam() == sourceData
+                || ENTITYSET_1_3.equals(sourceEntitySet.getName()) && employee.getRoom() == sourceData
+                || ENTITYSET_1_4.equals(sourceEntitySet.getName()) && employee.getManager() == sourceData)) {
+          return employee;
         }
       }
       throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
@@ -181,10 +153,9 @@ public class ScenarioDataSource implements ListsDataSource {
         if (targetKeys.isEmpty()) {
           return Arrays.asList(data.toArray());
         } else {
-          for (final Object room : data) {
-            if (((Room) room).getId().equals(targetKeys.get("Id"))) {
-              return room;
-            }
+          final Room room = dataContainer.getRoom((String) targetKeys.get("Id"));
+          if (room != null && room.getBuilding() == sourceData) {
+            return room;
           }
         }
         throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
@@ -255,12 +226,11 @@ public class ScenarioDataSource implements ListsDataSource {
       if (parameters.get("Id") == null) {
         throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
       }
-      for (final Manager manager : dataContainer.getManagers()) {
-        if (manager.getId().equals(parameters.get("Id"))) {
-          return new BinaryData(manager.getImage(), manager.getImageType());
-        }
+      final Manager manager = dataContainer.getManager((String) parameters.get("Id"));
+      if (manager == null) {
+        throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
       }
-      throw new ODataNotFoundException(ODataNotFoundException.ENTITY);
+      return new BinaryData(manager.getImage(), manager.getImageType());
 
     } else if (function.getName().equals("OldestEmployee")) {
       return getOldestEmployee();
@@ -34,7 +34,7 @@ public class ScenarioServiceFactory extends ODataServiceFactory {
     DataContainer dataContainer = new DataContainer();
     dataContainer.reset();
 
-    return createODataSingleProcessorService(
+    return createODataSingleProcessorService(ScenarioEdmProvider.class.getName(),
         new ScenarioEdmProvider(),
         new ListsProcessor(new ScenarioDataSource(dataContainer)));
   }
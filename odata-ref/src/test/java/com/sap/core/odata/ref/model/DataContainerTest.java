@@ -17,9 +17,13 @@ package com.sap.core.odata.ref.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
@@ -79,4 +83,30 @@ public class DataContainerTest extends BaseTest {
     assertFalse(dataContainer.getPhotos().isEmpty());
   }
 
+  @Test
+  public void testGetByKey() {
+    dataContainer.init();
+    assertEquals("Team 2", dataContainer.getTeam("2").getName());
+    assertNull(dataContainer.getTeam("42"));
+    assertEquals("Photo 1", dataContainer.getPhoto(1, "image/png").getName());
+    assertNull(dataContainer.getPhoto(1, "image/jpeg"));
+
+    Team team = dataContainer.createTeam();
+    dataContainer.getTeams().add(team);
+    assertSame(team, dataContainer.getTeam(team.getId()));
+    dataContainer.getTeams().remove(team);
+    assertNull(dataContainer.getTeam(team.getId()));
+
+    for (Iterator<Employee> iterator = dataContainer.getEmployees().iterator(); iterator.hasNext();) {
+      if (iterator.next().getId().equals("3")) {
+        iterator.remove();
+      }
+    }
+    assertNull(dataContainer.getEmployee("3"));
+    assertNotNull(dataContainer.getEmployee("4"));
+
+    dataContainer.reset();
+    assertNotNull(dataContainer.getEmployee("3"));
+  }
+
 }
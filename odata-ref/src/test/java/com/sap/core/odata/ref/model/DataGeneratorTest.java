@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class DataGeneratorTest extends BaseTest {
+
+  @Test
+  public void testGenerate() {
+    DataContainer dataContainer = new DataContainer();
+    dataContainer.init();
+    final int employeeCount = dataContainer.getEmployees().size();
+    final int roomCount = dataContainer.getRooms().size();
+
+    new DataGenerator(dataContainer).generate(1000);
+
+    assertEquals(employeeCount + 1000, dataContainer.getEmployees().size());
+    assertEquals(roomCount + 200, dataContainer.getRooms().size());
+    assertTrue(dataContainer.getManagers().size() >= 100);
+
+    final Employee employee = dataContainer.getEmployees().get(dataContainer.getEmployees().size() - 1);
+    assertSame(employee, dataContainer.getEmployee(employee.getId()));
+    assertTrue(employee.getManager().getEmployees().contains(employee));
+    assertTrue(employee.getTeam().getEmployees().contains(employee));
+    assertTrue(employee.getRoom().getEmployees().contains(employee));
+    assertTrue(employee.getRoom().getBuilding().getRooms().contains(employee.getRoom()));
+    assertSame(employee.getRoom(), dataContainer.getRoom(employee.getRoom().getId()));
+  }
+}
@@ -0,0 +1,311 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmEntityType;
+import com.sap.core.odata.api.exception.ODataNotImplementedException;
+import com.sap.core.odata.api.rt.RuntimeDelegate;
+import com.sap.core.odata.api.uri.UriParser;
+import com.sap.core.odata.api.uri.expression.BinaryExpression;
+import com.sap.core.odata.api.uri.expression.BinaryOperator;
+import com.sap.core.odata.api.uri.expression.ExpressionKind;
+import com.sap.core.odata.api.uri.expression.FilterExpression;
+import com.sap.core.odata.ref.edm.ScenarioEdmProvider;
+import com.sap.core.odata.ref.model.Employee;
+import com.sap.core.odata.ref.model.Location;
+import com.sap.core.odata.ref.processor.ExpressionCompiler.Order;
+import com.sap.core.odata.testutil.fit.BaseTest;
+
+/**
+ * @author SAP AG
+ */
+public class ExpressionCompilerTest extends BaseTest {
+
+  private static Edm edm;
+  private static EdmEntityType employeeType;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    edm = RuntimeDelegate.createEdm(new ScenarioEdmProvider());
+    employeeType = edm.getDefaultEntityContainer().getEntitySet("Employees").getEntityType();
+  }
+
+  private static Employee createEmployee(final int id, final String name, final int age) {
+    Employee employee = new Employee(id, name);
+    employee.setAge(age);
+    return employee;
+  }
+
+  private static boolean matches(final String filter, final Object data) throws Exception {
+    return ExpressionCompiler.compileFilter(UriParser.parseFilter(edm, employeeType, filter)).matches(data);
+  }
+
+  private static Object evaluate(final String expression, final Object data) throws Exception {
+    return ExpressionCompiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, expression)).getSortKey(data)[0];
+  }
+
+  private static List<String> sort(final String orderBy, final Employee... employees) throws Exception {
+    final Order order = ExpressionCompiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, orderBy));
+    List<Object[]> sortKeys = new ArrayList<Object[]>();
+    for (final Employee employee : employees) {
+      Object[] sortKey = order.getSortKey(employee);
+      sortKey = Arrays.copyOf(sortKey, sortKey.length + 1);
+      sortKey[sortKey.length - 1] = employee.getId();
+      sortKeys.add(sortKey);
+    }
+    Collections.sort(sortKeys, order);
+    List<String> ids = new ArrayList<String>();
+    for (final Object[] sortKey : sortKeys) {
+      ids.add((String) sortKey[sortKey.length - 1]);
+    }
+    return ids;
+  }
+
+  private static void assertNotImplemented(final String orderBy) throws Exception {
+    try {
+      ExpressionCompiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, orderBy));
+      fail("Expected ODataNotImplementedException not thrown");
+    } catch (final ODataNotImplementedException e) {
+      assertEquals(ODataNotImplementedException.COMMON.getKey(), e.getMessageReference().getKey());
+    }
+  }
+
+  @Test
+  public void integerArithmetic() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals(Long.valueOf(52), evaluate("Age", employee));
+    assertEquals(Long.valueOf(55), evaluate("Age add 3", employee));
+    assertEquals(Long.valueOf(49), evaluate("Age sub 3", employee));
+    assertEquals(Long.valueOf(104), evaluate("Age mul 2", employee));
+    assertEquals(Long.valueOf(2), evaluate("Age mod 5", employee));
+    assertEquals(Long.valueOf(5000000052L), evaluate("Age add 5000000000L", employee));
+  }
+
+  @Test
+  public void decimalArithmetic() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals(Double.valueOf(53.5), evaluate("Age add 1.5M", employee));
+    assertEquals(Double.valueOf(78), evaluate("Age mul 1.5d", employee));
+    assertEquals(Double.valueOf(1), evaluate("Age mod 1.5d", employee));
+    assertEquals(Double.valueOf(2), evaluate("Age mod 2.5d", employee));
+    assertTrue(matches("Age add 0.5M eq 52.5M", employee));
+    assertTrue(matches("Age eq 52.0M", employee));
+  }
+
+  @Test
+  public void division() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals(Double.valueOf(17.333333333333332), evaluate("Age div 3", employee));
+    assertEquals(Double.valueOf(26), evaluate("Age div 2", employee));
+    assertEquals(Double.valueOf(Double.POSITIVE_INFINITY), evaluate("Age div 0", employee));
+    assertTrue(matches("Age div 8 gt 6", employee));
+    assertFalse(matches("Age div 8 eq 6", employee));
+  }
+
+  @Test
+  public void unary() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals(Long.valueOf(-52), evaluate("-Age", employee));
+    assertEquals(Double.valueOf(-26), evaluate("-(Age div 2)", employee));
+    assertTrue(matches("not (Age gt 60)", employee));
+    assertFalse(matches("not (Age gt 50)", employee));
+    assertTrue(matches("-Age lt -50", employee));
+  }
+
+  @Test
+  public void logical() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertTrue(matches("Age gt 50 and EmployeeName eq 'Walter Winter'", employee));
+    assertFalse(matches("Age gt 50 and EmployeeName eq 'Frederic Fall'", employee));
+    assertTrue(matches("Age gt 60 or EmployeeName eq 'Walter Winter'", employee));
+    assertFalse(matches("Age gt 60 or EmployeeName eq 'Frederic Fall'", employee));
+  }
+
+  @Test
+  public void comparison() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertTrue(matches("Age eq 52", employee));
+    assertTrue(matches("Age ne 53", employee));
+    assertTrue(matches("Age lt 53", employee));
+    assertTrue(matches("Age le 52", employee));
+    assertTrue(matches("Age gt 51", employee));
+    assertTrue(matches("Age ge 52", employee));
+    assertFalse(matches("Age lt 52", employee));
+    assertFalse(matches("Age gt 52", employee));
+    assertTrue(matches("EmployeeName lt 'X'", employee));
+    assertTrue(matches("EmployeeName gt 'Walter'", employee));
+  }
+
+  @Test
+  public void comparisonWithNull() throws Exception {
+    final Employee employee = createEmployee(1, null, 52);
+    assertNull(evaluate("EmployeeName", employee));
+    assertNull(evaluate("ManagerId", employee));
+    assertFalse(matches("EmployeeName eq 'A'", employee));
+    assertTrue(matches("EmployeeName ne 'A'", employee));
+    assertFalse(matches("EmployeeName lt 'A'", employee));
+    assertFalse(matches("EmployeeName le 'A'", employee));
+    assertFalse(matches("EmployeeName gt 'A'", employee));
+    assertFalse(matches("EmployeeName ge 'A'", employee));
+    assertFalse(matches("EntryDate lt datetime'2013-01-01T00:00'", employee));
+    assertFalse(matches("EntryDate gt datetime'2013-01-01T00:00'", employee));
+    assertTrue(matches("EmployeeName eq ManagerId", employee));
+    assertFalse(matches("EmployeeName ne ManagerId", employee));
+    assertFalse(matches("EmployeeName le ManagerId", employee));
+
+    final Employee other = createEmployee(2, "Frederic Fall", 32);
+    assertFalse(matches("EmployeeName eq ManagerId", other));
+    assertTrue(matches("EmployeeName ne ManagerId", other));
+    assertFalse(matches("EmployeeName gt ManagerId", other));
+  }
+
+  @Test
+  public void ordering() throws Exception {
+    final Employee employee1 = createEmployee(1, "Walter Winter", 52);
+    final Employee employee2 = createEmployee(2, "Frederic Fall", 32);
+    final Employee employee3 = createEmployee(3, null, 32);
+    assertEquals(Arrays.asList("3", "2", "1"), sort("EmployeeName", employee1, employee2, employee3));
+    assertEquals(Arrays.asList("1", "2", "3"), sort("EmployeeName desc", employee1, employee2, employee3));
+    assertEquals(Arrays.asList("3", "2", "1"), sort("Age, EmployeeName", employee1, employee2, employee3));
+    assertEquals(Arrays.asList("2", "3", "1"), sort("Age, EmployeeName desc", employee1, employee2, employee3));
+    assertEquals(Arrays.asList("1", "2", "3"), sort("Age desc, EmployeeName desc", employee1, employee2, employee3));
+    assertEquals(Arrays.asList("3", "2", "1"), sort("Age div 2, EmployeeName", employee1, employee2, employee3));
+
+    final Order order = ExpressionCompiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, "Age"));
+    assertEquals(0, order.compare(order.getSortKey(employee2), order.getSortKey(employee3)));
+  }
+
+  @Test
+  public void memberPath() throws Exception {
+    Employee employee = createEmployee(1, "Walter Winter", 52);
+    employee.setLocation(new Location("Germany", "69124", "Heidelberg"));
+    assertEquals("Heidelberg", evaluate("Location/City/CityName", employee));
+    assertEquals("Germany", evaluate("Location/Country", employee));
+    assertTrue(matches("Location/City/PostalCode eq '69124'", employee));
+    assertTrue(matches("startswith(Location/City/CityName, 'Heidel')", employee));
+
+    final Employee withoutLocation = createEmployee(2, "Frederic Fall", 32);
+    assertNull(evaluate("Location/City/CityName", withoutLocation));
+    assertFalse(matches("Location/Country eq 'Germany'", withoutLocation));
+    assertTrue(matches("Location/Country ne 'Germany'", withoutLocation));
+    assertEquals(Arrays.asList("2", "1"), sort("Location/Country", employee, withoutLocation));
+  }
+
+  @Test
+  public void stringMethods() throws Exception {
+    final Employee employee = createEmployee(1, " Walter Winter ", 52);
+    assertTrue(matches("endswith(EmployeeName, 'Winter ')", employee));
+    assertFalse(matches("endswith(EmployeeName, 'Walter')", employee));
+    assertTrue(matches("startswith(EmployeeName, ' Walter')", employee));
+    assertFalse(matches("startswith(EmployeeName, 'Winter')", employee));
+    assertTrue(matches("substringof('ter Win', EmployeeName)", employee));
+    assertFalse(matches("substringof('Fall', EmployeeName)", employee));
+    assertEquals(Long.valueOf(8), evaluate("indexof(EmployeeName, 'Winter')", employee));
+    assertEquals(Long.valueOf(-1), evaluate("indexof(EmployeeName, 'Fall')", employee));
+    assertEquals(" walter winter ", evaluate("tolower(EmployeeName)", employee));
+    assertEquals(" WALTER WINTER ", evaluate("toupper(EmployeeName)", employee));
+    assertEquals("Walter Winter", evaluate("trim(EmployeeName)", employee));
+    assertEquals(" Walter Winter !", evaluate("concat(EmployeeName, '!')", employee));
+    assertEquals(Long.valueOf(15), evaluate("length(EmployeeName)", employee));
+  }
+
+  @Test
+  public void substring() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals("Winter", evaluate("substring(EmployeeName, 7)", employee));
+    assertEquals("Win", evaluate("substring(EmployeeName, 7, 3)", employee));
+    assertEquals("", evaluate("substring(EmployeeName, 13)", employee));
+    assertTrue(matches("substring(EmployeeName, 0, 6) eq 'Walter'", employee));
+  }
+
+  @Test
+  public void dateParts() throws Exception {
+    Employee employee = createEmployee(1, "Walter Winter", 52);
+    Calendar entryDate = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    entryDate.clear();
+    entryDate.set(1999, Calendar.JANUARY, 2, 13, 14, 15);
+    employee.setEntryDate(entryDate);
+    assertEquals(Long.valueOf(1999), evaluate("year(EntryDate)", employee));
+    assertEquals(Long.valueOf(1), evaluate("month(EntryDate)", employee));
+    assertEquals(Long.valueOf(2), evaluate("day(EntryDate)", employee));
+    assertEquals(Long.valueOf(13), evaluate("hour(EntryDate)", employee));
+    assertEquals(Long.valueOf(14), evaluate("minute(EntryDate)", employee));
+    assertEquals(Long.valueOf(15), evaluate("second(EntryDate)", employee));
+    assertTrue(matches("EntryDate gt datetime'1999-01-01T00:00'", employee));
+    assertTrue(matches("EntryDate lt datetime'1999-01-02T13:14:16'", employee));
+  }
+
+  @Test
+  public void roundingMethods() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    assertEquals(Long.valueOf(17), evaluate("round(Age div 3)", employee));
+    assertEquals(Long.valueOf(18), evaluate("round(Age div 3 add 0.5M)", employee));
+    assertEquals(Long.valueOf(17), evaluate("floor(Age div 3)", employee));
+    assertEquals(Long.valueOf(18), evaluate("ceiling(Age div 3)", employee));
+    assertEquals(Long.valueOf(-18), evaluate("floor(-Age div 3)", employee));
+    assertEquals(Long.valueOf(-17), evaluate("ceiling(-Age div 3)", employee));
+    assertEquals(Long.valueOf(52), evaluate("round(Age)", employee));
+    assertEquals(Long.valueOf(52), evaluate("ceiling(Age)", employee));
+  }
+
+  @Test
+  public void sortKeyWithSeveralExpressions() throws Exception {
+    final Employee employee = createEmployee(1, "Walter Winter", 52);
+    final Order order = ExpressionCompiler.compileOrderBy(UriParser.parseOrderBy(edm, employeeType, "Age desc, EmployeeName, Age div 4"));
+    assertArrayEquals(new Object[] { 52L, "Walter Winter", 13.0 }, order.getSortKey(employee));
+  }
+
+  @Test
+  public void unsupported() throws Exception {
+    assertNotImplemented("Location");
+    assertNotImplemented("Location/City");
+
+    final BinaryExpression comparison = (BinaryExpression) UriParser.parseFilter(edm, employeeType, "1 eq 1").getExpression();
+    BinaryExpression propertyAccess = mock(BinaryExpression.class);
+    when(propertyAccess.getKind()).thenReturn(ExpressionKind.BINARY);
+    when(propertyAccess.getOperator()).thenReturn(BinaryOperator.PROPERTY_ACCESS);
+    when(propertyAccess.getLeftOperand()).thenReturn(comparison.getLeftOperand());
+    when(propertyAccess.getRightOperand()).thenReturn(comparison.getRightOperand());
+    FilterExpression filter = mock(FilterExpression.class);
+    when(filter.getExpression()).thenReturn(propertyAccess);
+    try {
+      ExpressionCompiler.compileFilter(filter);
+      fail("Expected ODataNotImplementedException not thrown");
+    } catch (final ODataNotImplementedException e) {
+      assertEquals(ODataNotImplementedException.COMMON.getKey(), e.getMessageReference().getKey());
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright 2013 SAP AG
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.sap.core.odata.ref.read;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sap.core.odata.api.edm.Edm;
+import com.sap.core.odata.api.edm.EdmEntitySet;
+import com.sap.core.odata.api.processor.ODataContext;
+import com.sap.core.odata.api.processor.ODataResponse;
+import com.sap.core.odata.api.rt.RuntimeDelegate;
+import com.sap.core.odata.api.uri.PathInfo;
+import com.sap.core.odata.api.uri.UriParser;
+import com.sap.core.odata.api.uri.info.GetEntitySetUriInfo;
+import com.sap.core.odata.core.commons.ContentType;
+import com.sap.core.odata.ref.edm.ScenarioEdmProvider;
+import com.sap.core.odata.ref.model.DataContainer;
+import com.sap.core.odata.ref.processor.ListsProcessor;
+import com.sap.core.odata.ref.processor.ScenarioDataSource;
+import com.sap.core.odata.testutil.fit.BaseTest;
+import com.sap.core.odata.testutil.helper.StringHelper;
+
+/**
+ * Tests <code>$orderby</code>, <code>$skip</code>, <code>$top</code>, and <code>$skiptoken</code>
+ * on the rooms of the reference scenario.
+ * <p>Room 1 has one seat, room 2 five seats, room 3 two seats, and the rooms 4 to 103
+ * have between four and eight seats, repeating every five rooms starting with five seats;
+ * without <code>$orderby</code> the rooms are sorted by the string value of their key.</p>
+ * @author SAP AG
+ */
+public class EntitySetPagingTest extends BaseTest {
+
+  private static final Pattern ROOM_ID = Pattern.compile("\"Id\":\"(\\d+)\"");
+
+  private static Edm edm;
+  private static EdmEntitySet rooms;
+  private static ListsProcessor processor;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    DataContainer dataContainer = new DataContainer();
+    dataContainer.reset();
+    processor = new ListsProcessor(new ScenarioDataSource(dataContainer));
+
+    ODataContext context = mock(ODataContext.class);
+    PathInfo pathInfo = mock(PathInfo.class);
+    when(pathInfo.getServiceRoot()).thenReturn(new URI("http://localhost/"));
+    when(pathInfo.getRequestUri()).thenReturn(new URI("http://localhost/Rooms"));
+    when(context.getPathInfo()).thenReturn(pathInfo);
+    processor.setContext(context);
+
+    edm = RuntimeDelegate.createEdm(new ScenarioEdmProvider());
+    rooms = edm.getDefaultEntityContainer().getEntitySet("Rooms");
+  }
+
+  private List<String> readRooms(final String orderBy, final String skipToken, final Integer skip, final Integer top) throws Exception {
+    GetEntitySetUriInfo uriInfo = mock(GetEntitySetUriInfo.class);
+    when(uriInfo.getStartEntitySet()).thenReturn(rooms);
+    when(uriInfo.getTargetEntitySet()).thenReturn(rooms);
+    when(uriInfo.getOrderBy()).thenReturn(orderBy == null ? null : UriParser.parseOrderBy(edm, rooms.getEntityType(), orderBy));
+    when(uriInfo.getSkipToken()).thenReturn(skipToken);
+    when(uriInfo.getSkip()).thenReturn(skip);
+    when(uriInfo.getTop()).thenReturn(top);
+
+    final ODataResponse response = processor.readEntitySet(uriInfo, ContentType.APPLICATION_JSON.toContentTypeString());
+    final Matcher matcher = ROOM_ID.matcher(StringHelper.inputStreamToString((InputStream) response.getEntity()));
+    List<String> ids = new ArrayList<String>();
+    while (matcher.find()) {
+      ids.add(matcher.group(1));
+    }
+    return ids;
+  }
+
+  @Test
+  public void topWithOrderBy() throws Exception {
+    assertEquals(Arrays.asList("1", "3", "8", "13", "18"), readRooms("Seats", null, null, 5));
+    assertEquals(Arrays.asList("7", "12", "17"), readRooms("Seats desc", null, null, 3));
+    assertEquals(readRooms("Seats", null, null, null).subList(0, 5), readRooms("Seats", null, null, 5));
+  }
+
+  @Test
+  public void topWithOrderByKeepsTiesInOriginalOrder() throws Exception {
+    // All rooms from 8 on with a step of five have four seats.
+    assertEquals(Arrays.asList("8", "13", "18", "23"), readRooms("Seats", null, 2, 4));
+    assertEquals(Arrays.asList("2", "4", "9"), readRooms("Seats desc, Version desc", null, 60, 3));
+    assertEquals(readRooms("Version", null, null, null).subList(0, 10), readRooms("Version", null, null, 10));
+  }
+
+  @Test
+  public void topZero() throws Exception {
+    assertEquals(Collections.emptyList(), readRooms(null, null, null, 0));
+    assertEquals(Collections.emptyList(), readRooms("Seats", null, null, 0));
+    assertEquals(Collections.emptyList(), readRooms("Seats", null, 2, 0));
+  }
+
+  @Test
+  public void skipPastEnd() throws Exception {
+    assertEquals(Collections.emptyList(), readRooms(null, null, 103, null));
+    assertEquals(Collections.emptyList(), readRooms(null, null, 200, 5));
+    assertEquals(Collections.emptyList(), readRooms("Seats", null, 200, 5));
+    assertEquals(Arrays.asList("99"), readRooms(null, null, 102, 5));
+    assertEquals(Arrays.asList("102"), readRooms("Seats", null, 102, 5));
+  }
+
+  @Test
+  public void topWithoutOrderBy() throws Exception {
+    assertEquals(Arrays.asList("1", "10", "100"), readRooms(null, null, null, 3));
+    assertEquals(Arrays.asList("102", "103", "11"), readRooms(null, null, 4, 3));
+  }
+
+  @Test
+  public void skipToken() throws Exception {
+    final List<String> ids = readRooms(null, "50", null, null);
+    assertEquals(54, ids.size());
+    assertEquals(Arrays.asList("50", "51"), ids.subList(0, 2));
+    assertEquals("99", ids.get(ids.size() - 1));
+
+    assertEquals(Collections.emptyList(), readRooms(null, "500", null, null));
+  }
+
+  @Test
+  public void skipTokenWithOrderBy() throws Exception {
+    final List<String> ids = readRooms("Seats", "98", null, null);
+    assertEquals(Arrays.asList("98", "103", "2"), ids.subList(0, 3));
+    assertEquals(83, ids.size());
+    assertEquals("102", ids.get(ids.size() - 1));
+
+    assertEquals(Collections.emptyList(), readRooms("Seats", "500", null, null));
+  }
+
+  @Test
+  public void topWithSkipToken() throws Exception {
+    assertEquals(Arrays.asList("50", "51", "52"), readRooms(null, "50", null, 3));
+    assertEquals(Arrays.asList("98", "103", "2"), readRooms("Seats", "98", null, 3));
+    assertEquals(Arrays.asList("103", "2"), readRooms("Seats", "98", 1, 2));
+    assertEquals(Collections.emptyList(), readRooms(null, "500", null, 3));
+    assertEquals(Collections.emptyList(), readRooms("Seats", "500", null, 3));
+  }
+
+  @Test
+  public void serverPaging() throws Exception {
+    final List<String> ids = readRooms(null, null, null, null);
+    assertEquals(100, ids.size());
+    assertEquals(Arrays.asList("1", "10", "100"), ids.subList(0, 3));
+  }
+}
@@ -43,6 +43,10 @@ public abstract class AbstractFitTest extends BaseTest {
     server = new TestServer(this.getClass().getSimpleName());
   }
 
+  protected TestServer getServer() {
+    return server;
+  }
+
   protected URI getEndpoint() {
     return server.getEndpoint();
   }
@@ -47,6 +47,7 @@ public class TestServer {
   private final String path;
 
   private int pathSplit = 0;
+  private int compressionThreshold = -1;
 
   public TestServer() {
     this(DEFAULT_PATH);
@@ -68,6 +69,14 @@ public class TestServer {
     this.pathSplit = pathSplit;
   }
 
+  public int getCompressionThreshold() {
+    return compressionThreshold;
+  }
+
+  public void setCompressionThreshold(final int compressionThreshold) {
+    this.compressionThreshold = compressionThreshold;
+  }
+
   public URI getEndpoint() {
     return URI.create(endpoint + "/");
   }
@@ -85,6 +94,9 @@ public class TestServer {
         if (pathSplit > 0) {
           odataServletHolder.setInitParameter(ODataServiceFactory.PATH_SPLIT_LABEL, Integer.toString(pathSplit));
         }
+        if (compressionThreshold >= 0) {
+          odataServletHolder.setInitParameter(ODataServiceFactory.COMPRESSION_THRESHOLD_LABEL, Integer.toString(compressionThreshold));
+        }
 
         final ServletContextHandler contextHandler = new ServletContextHandler(ServletContextHandler.SESSIONS);
         contextHandler.addServlet(odataServletHolder, path + "/*");